@@ -0,0 +1,124 @@
+package sharknoon.casey.compiler
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
+import sharknoon.casey.compiler.general.parser.parseCasey
+import sharknoon.casey.compiler.java.compiler.warmUpJavaCompiler
+import sharknoon.casey.compiler.utils.*
+import java.io.PrintStream
+import java.util.function.Consumer
+import sharknoon.casey.compiler.bytecode.generate as generateBytecode
+import sharknoon.casey.compiler.java.compiler.compile as compileJava
+import sharknoon.casey.compiler.java.generator.generate as generateJava
+
+/**
+ * The stages of the compiler as a reusable API, so that a long-living process (e.g. the IDE) can load the compiler
+ * once and compile projects without starting a new JVM for every run. Every compilation has its own context, so
+ * multiple projects can be compiled at the same time.
+ */
+object CompileService {
+
+    private val out = RoutingOutputStream(System.out)
+    private val err = RoutingOutputStream(System.err)
+    private var routed = false
+
+    /**
+     * Runs all stages like the command line does, the output of the stages is handed line by line to the consumers
+     * instead of the standard streams of the host process
+     *
+     * @param args The command line arguments
+     * @param output The consumer for the regular output
+     * @param error The consumer for the error output
+     * @return The exit value, the same as if the compiler would have been started as a process
+     */
+    @JvmStatic
+    fun run(args: Array<String>, output: Consumer<String>, error: Consumer<String>): Int {
+        routeStandardStreams()
+        //The output is routed per thread, so the compilations on other threads keep their own consumers
+        out.route(LineOutputStream(output))
+        err.route(LineOutputStream(error))
+        try {
+            return go(args)
+        } catch (e: Exception) {
+            System.err.println("Compiler error: $e")
+            return -1
+        } finally {
+            System.out.flush()
+            System.err.flush()
+            out.route(null)
+            err.route(null)
+        }
+    }
+
+    /**
+     * Loads the classes of the compiler and the Java-Compiler, so that the first run doesn't have to
+     */
+    @JvmStatic
+    fun warmUp() {
+        warmUpJavaCompiler()
+    }
+
+    /**
+     * Stage 2: Parses the .casey file
+     *
+     * @return The context of this compilation or null, if the file could not be parsed
+     */
+    fun parse(args: CLIArgs): CompilationContext? {
+        val project = parseCasey(args.caseyPath) ?: return null
+        return CompilationContext(args, project)
+    }
+
+    /**
+     * Stage 3: Generates the source code of the project
+     */
+    fun generate(context: CompilationContext): Boolean = try {
+        when (context.args.language) {
+            CLIArgs.Language.JAVA -> generateJava(context, context.project)
+            CLIArgs.Language.BYTECODE -> generateBytecode(context, context.project)
+            //Maybe add more languages
+        }
+    } catch (e: IllegalStateException) {
+        System.err.println("Could not generate the code: ${e.message}")
+        false
+    } catch (e: StackOverflowError) {
+        //The structuring doesn't recurse, but the generators walk the nested decisions and loops recursively
+        System.err.println("Could not generate the code, the decisions and loops are nested too deeply")
+        false
+    }
+
+    /**
+     * Stage 4: Compiles the generated source code
+     */
+    fun compile(context: CompilationContext): Boolean = when (context.args.language) {
+        CLIArgs.Language.JAVA -> compileJava(context.args)
+        //The classes have already been written by the generation
+        CLIArgs.Language.BYTECODE -> true
+        //Maybe add more languages
+    }
+
+    @Synchronized
+    private fun routeStandardStreams() {
+        if (routed) {
+            return
+        }
+        System.setOut(PrintStream(out, true, Charsets.UTF_8.name()))
+        System.setErr(PrintStream(err, true, Charsets.UTF_8.name()))
+        routed = true
+    }
+}
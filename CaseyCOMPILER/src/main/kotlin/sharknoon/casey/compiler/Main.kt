@@ -1,9 +1,14 @@
 package sharknoon.casey.compiler
 
 import sharknoon.casey.compiler.general.cli.*
-import sharknoon.casey.compiler.general.parser.parseCasey
-import sharknoon.casey.compiler.java.compiler.compile
-import sharknoon.casey.compiler.java.generator.generate
+import sharknoon.casey.compiler.general.parser.CaseyFormat
+import sharknoon.casey.compiler.general.parser.beans.Block
+import sharknoon.casey.compiler.general.parser.beans.Item
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import sharknoon.casey.compiler.general.parser.convertCasey
+import sharknoon.casey.compiler.utils.Result
+import java.nio.file.Files
+import java.util.*
 import kotlin.system.exitProcess
 
 /*
@@ -27,25 +32,30 @@ fun main(args: Array<String>) {
 }
 
 fun go(args: Array<String>): Int {
-    val cliArgs = parseCommandLine(args)
-    if (cliArgs === null) {
-        System.err.println("[STAGE 1: COMMANDLINE-PARSING FAILED]")
-        return 1
+    if (args.firstOrNull() == CONVERT_COMMAND) {
+        return convert(args.copyOfRange(1, args.size))
+    }
+    if (args.firstOrNull() == TRAIN_COMMAND) {
+        return train()
+    }
+    val cliArgs = when (val result = parseCommandLine(args)) {
+        is Result.Error -> {
+            System.err.println("[STAGE 1: COMMANDLINE-PARSING FAILED]")
+            return 1
+        }
+        //Only the help has been requested
+        is Result.Success -> result.value ?: return 0
     }
     println("[STAGE 1: COMMANDLINE-PARSING COMPLETE]")
     //---------------------
-    val item = parseCasey(cliArgs.caseyPath)
-    if (item === null) {
+    val context = CompileService.parse(cliArgs)
+    if (context === null) {
         System.err.println("[STAGE 2: CASEY-PARSING FAILED]")
         return 2
     }
     println("[STAGE 2: CASEY-PARSING COMPLETE]")
     //---------------------
-    var success = false
-    when (cliArgs.language) {
-        CLIArgs.Language.JAVA -> success = generate(cliArgs, item)
-        //Maybe add more languages
-    }
+    var success = CompileService.generate(context)
     if (success) {
         println("[STAGE 3: CODE-GENERATION COMPLETE]")
     } else {
@@ -53,11 +63,7 @@ fun go(args: Array<String>): Int {
         return 3
     }
     //---------------------
-    success = false
-    when (cliArgs.language) {
-        CLIArgs.Language.JAVA -> success = compile(cliArgs)
-        //Maybe add more languages
-    }
+    success = CompileService.compile(context)
     if (success) {
         println("[STAGE 4: CODE-COMPILATION COMPLETE]")
     } else {
@@ -65,4 +71,38 @@ fun go(args: Array<String>): Int {
         return 4
     }
     return 0
-}
\ No newline at end of file
+}
+
+private fun convert(args: Array<String>): Int {
+    val convertArgs = parseConvertCommandLine(args) ?: return 1
+    return if (convertCasey(convertArgs.path, convertArgs.output, convertArgs.format)) 0 else 2
+}
+
+/**
+ * Compiles a small project through all stages, so that the training run loads the same classes as a real compilation
+ */
+private fun train(): Int {
+    val folder = Files.createTempDirectory("CaseyTraining")
+    try {
+        val start = Block(UUID.randomUUID())
+        val end = Block(UUID.randomUUID())
+        end.blocktype = Block.BlockType.END
+        end.blockcontent = Block.BlockContent()
+        start.blockconnections = mapOf(Block.ConnectionSide.BOTTOM to mapOf(end.blockid to Block.ConnectionSide.TOP))
+        val variable = Item("v", listOf()).apply {
+            item = ItemType.VARIABLE
+            type = "TEXT"
+        }
+        val function = Item("main", listOf(variable)).apply {
+            item = ItemType.FUNCTION
+            returntype = "VOID"
+            blocks = listOf(start, end)
+        }
+        val project = Item("Training", listOf(function)).apply { id = UUID.randomUUID() }
+        val caseyFile = folder.resolve("Training.casey")
+        Files.write(caseyFile, CaseyFormat.JSON.mapper.writeValueAsBytes(project))
+        return go(arrayOf("-p", caseyFile.toString(), "-f", "Training.main", "-l", "java"))
+    } finally {
+        folder.toFile().deleteRecursively()
+    }
+}
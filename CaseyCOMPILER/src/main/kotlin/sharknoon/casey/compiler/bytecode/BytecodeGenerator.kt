@@ -0,0 +1,337 @@
+package sharknoon.casey.compiler.bytecode
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.objectweb.asm.*
+import org.objectweb.asm.Opcodes.*
+import sharknoon.casey.compiler.general.parser.CompilationContext
+import sharknoon.casey.compiler.general.parser.beans.Item
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import sharknoon.casey.compiler.java.generator.item.*
+import java.nio.file.*
+
+private const val OBJECT = "java/lang/Object"
+internal val STRING_TYPE: Type = Type.getType(String::class.java)
+
+/**
+ * Generates the classes of a project directly as class files, without the detour over the Java sources and the
+ * Java-Compiler. The classes have the same names, members and behaviour as the ones of the Java sources, a function
+ * becomes a class with a static method, a variable a class with a static field and a class a class with fields and
+ * methods.
+ *
+ * @param context The context of the compilation
+ * @param item The project
+ * @return True, if all classes have been written
+ */
+fun generate(context: CompilationContext, item: Item): Boolean {
+    if (item.item !== ItemType.PROJECT) {
+        System.err.println("The top item is not a project")
+        return false
+    }
+    if (item.id == null) {
+        System.err.println("The id of the project is not specified")
+        return false
+    }
+    try {
+        val projectFolder = context.args.basePath.resolve(item.name)
+        Files.createDirectories(projectFolder)
+        context.files.writeFile(projectFolder.resolve("id.txt"), item.id.toString() + System.lineSeparator())
+        writeComments(context, item, projectFolder)
+        for (child in item.children) {
+            if (!acceptItem(context, projectFolder, child)) {
+                return false
+            }
+        }
+        context.files.deleteStaleFiles()
+    } catch (e: Exception) {
+        System.err.println("Error during the generation of the classes: $e")
+        return false
+    }
+    return true
+}
+
+private fun acceptItem(context: CompilationContext, folder: Path, item: Item): Boolean = when (item.item) {
+    ItemType.PACKAGE -> acceptPackage(context, folder, item)
+    ItemType.CLASS -> acceptClass(context, folder, item)
+    ItemType.FUNCTION -> acceptFunction(context, folder, item)
+    ItemType.VARIABLE -> acceptVariable(context, folder, item)
+    ItemType.PROJECT -> {
+        System.err.println("Projects not allowed inside of projects")
+        false
+    }
+    ItemType.PARAMETER -> {
+        System.err.println("Parameters not allowed outside of functions")
+        false
+    }
+}
+
+private fun acceptPackage(context: CompilationContext, folder: Path, item: Item): Boolean {
+    val packageFolder = folder.resolve(item.name)
+    Files.createDirectories(packageFolder)
+    writeComments(context, item, packageFolder)
+    return item.children.all { acceptItem(context, packageFolder, it) }
+}
+
+/**
+ * A package variable becomes a class with a static field, initialized like the field of the Java source
+ */
+private fun acceptVariable(context: CompilationContext, folder: Path, item: Item): Boolean {
+    if (item.type == null) {
+        System.err.println("Type of variable not specified: " + getFullName(context, item))
+        return false
+    }
+    val type = getType(context, item.type ?: "") ?: return false
+    val className = getInternalName(context, item)
+    val writer = startClass(className)
+    writer.visitField(ACC_PUBLIC or ACC_STATIC, item.name, type.descriptor, null, null).visitEnd()
+    val initializer = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null)
+    initializer.visitCode()
+    if (!pushDefaultValue(initializer, type)) {
+        return false
+    }
+    initializer.visitFieldInsn(PUTSTATIC, className, item.name, type.descriptor)
+    initializer.visitInsn(RETURN)
+    endMethod(initializer)
+    addConstructor(writer, className, listOf())
+    return writeClass(context, folder, item, writer)
+}
+
+/**
+ * A package function becomes a class with a static method, the function selected to be run gets a main method
+ * calling it with the parameters of the CLIArgs
+ */
+private fun acceptFunction(context: CompilationContext, folder: Path, item: Item): Boolean {
+    val className = getInternalName(context, item)
+    val writer = startClass(className)
+    if (!FunctionGenerator(context, item, true).generate(writer)) {
+        System.err.println("Could not create static function " + getFullName(context, item))
+        return false
+    }
+    if (isMainMethod(context, item) && !addMainMethod(context, writer, className, item)) {
+        return false
+    }
+    addConstructor(writer, className, listOf())
+    return writeClass(context, folder, item, writer)
+}
+
+private fun acceptClass(context: CompilationContext, folder: Path, item: Item): Boolean {
+    val className = getInternalName(context, item)
+    val writer = startClass(className)
+    val fields = mutableListOf<Pair<Item, Type>>()
+    for (child in item.children) {
+        when (child.item) {
+            ItemType.VARIABLE -> {
+                if (child.type == null) {
+                    System.err.println("Type of variable of class not specified: " + getFullName(context, child))
+                    return false
+                }
+                val type = getType(context, child.type ?: "") ?: return false
+                writer.visitField(ACC_PUBLIC, child.name, type.descriptor, null, null).visitEnd()
+                fields.add(child to type)
+            }
+            ItemType.FUNCTION -> if (!FunctionGenerator(context, child, false).generate(writer)) {
+                System.err.println("Could not create object function " + child.name + " in " + getFullName(context, item))
+                return false
+            }
+            else -> {
+            }
+        }
+    }
+    if (!addConstructor(writer, className, fields)) {
+        return false
+    }
+    return writeClass(context, folder, item, writer)
+}
+
+private fun addMainMethod(context: CompilationContext, writer: ClassWriter, className: String, item: Item): Boolean {
+    val parameters = item.children.filter { it.item === ItemType.PARAMETER }
+    if (parameters.any { !context.args.parameters.containsKey(it.name) }) {
+        System.err.println("Function "
+                + getFullName(context, item)
+                + " has wrong parameters actual: ("
+                + context.args.parameters.keys.joinToString(", ")
+                + ") expected: ("
+                + parameters.joinToString(", ") { it.name }
+                + ")"
+        )
+        return false
+    }
+    val main = writer.visitMethod(ACC_PUBLIC or ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null)
+    main.visitCode()
+    for (parameter in parameters) {
+        val value = context.args.parameters[parameter.name] ?: ""
+        val constant: Any? = when (getType(context, parameter.type ?: "")) {
+            Type.DOUBLE_TYPE -> value.toDoubleOrNull()
+            Type.BOOLEAN_TYPE -> when (value) {
+                "true" -> 1
+                "false" -> 0
+                else -> null
+            }
+            STRING_TYPE -> value
+            else -> null
+        }
+        if (constant == null) {
+            System.err.println("The value $value is not allowed for the parameter ${parameter.name} of type ${parameter.type}")
+            return false
+        }
+        main.visitLdcInsn(constant)
+    }
+    val descriptor = getMethodDescriptor(context, item) ?: return false
+    main.visitMethodInsn(INVOKESTATIC, className, item.name, descriptor, false)
+    when (Type.getReturnType(descriptor).size) {
+        1 -> main.visitInsn(POP)
+        2 -> main.visitInsn(POP2)
+    }
+    main.visitInsn(RETURN)
+    endMethod(main)
+    return true
+}
+
+/**
+ * The constructor without parameters, every class of the Java sources has, it initializes the fields of an object
+ */
+private fun addConstructor(writer: ClassWriter, className: String, fields: List<Pair<Item, Type>>): Boolean {
+    val constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null)
+    constructor.visitCode()
+    constructor.visitVarInsn(ALOAD, 0)
+    constructor.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+    for ((field, type) in fields) {
+        constructor.visitVarInsn(ALOAD, 0)
+        if (!pushDefaultValue(constructor, type)) {
+            return false
+        }
+        constructor.visitFieldInsn(PUTFIELD, className, field.name, type.descriptor)
+    }
+    constructor.visitInsn(RETURN)
+    endMethod(constructor)
+    return true
+}
+
+private fun startClass(className: String): ClassWriter {
+    val writer = ProjectClassWriter()
+    writer.visit(V11, ACC_PUBLIC or ACC_SUPER, className, null, OBJECT, null)
+    return writer
+}
+
+private fun writeClass(context: CompilationContext, folder: Path, item: Item, writer: ClassWriter): Boolean {
+    writer.visitEnd()
+    val bytes = try {
+        writer.toByteArray()
+    } catch (e: Exception) {
+        System.err.println("Could not create the class of " + getFullName(context, item) + ": " + e)
+        return false
+    }
+    context.files.writeFile(folder.resolve(item.name + ".class"), bytes)
+    return true
+}
+
+internal fun endMethod(method: MethodVisitor) {
+    //The sizes and the stack map frames are computed by the class writer
+    method.visitMaxs(0, 0)
+    method.visitEnd()
+}
+
+/**
+ * Pushes the value a field or a variable is initialized with to avoid null, the same as in the Java sources
+ *
+ * @return False, if the type can't be initialized
+ */
+internal fun pushDefaultValue(method: MethodVisitor, type: Type): Boolean {
+    when {
+        type == Type.BOOLEAN_TYPE -> method.visitInsn(ICONST_0)
+        type == Type.DOUBLE_TYPE -> method.visitInsn(DCONST_0)
+        type == STRING_TYPE -> method.visitLdcInsn("")
+        type.sort == Type.OBJECT -> {
+            method.visitTypeInsn(NEW, type.internalName)
+            method.visitInsn(DUP)
+            method.visitMethodInsn(INVOKESPECIAL, type.internalName, "<init>", "()V", false)
+        }
+        else -> {
+            System.err.println("Could not determine initializer for field ${type.className}")
+            return false
+        }
+    }
+    return true
+}
+
+/**
+ * The internal name of the class of a function, variable or class (e.g. Project/package/Clazz)
+ */
+internal fun getInternalName(context: CompilationContext, item: Item): String = getFullName(context, item).replace('.', '/')
+
+/**
+ * Returns the type for a type name (e.g. NUMBER or Project.package.Clazz) or null, if the class was not registered
+ *
+ * @param context The context the class is registered in
+ * @param typeName The primitive type or the full name of the class
+ * @return The type or null
+ */
+internal fun getType(context: CompilationContext, typeName: String): Type? {
+    val variableType = VariableType.values().firstOrNull { it.name == typeName }
+    return when {
+        variableType != null -> when (variableType) {
+            VariableType.BOOLEAN -> Type.BOOLEAN_TYPE
+            VariableType.NUMBER -> Type.DOUBLE_TYPE
+            VariableType.TEXT -> STRING_TYPE
+            VariableType.VOID -> Type.VOID_TYPE
+            else -> {
+                System.err.println("Could not determine Variable type")
+                null
+            }
+        }
+        context.isValidItemName(typeName) -> Type.getObjectType(typeName.replace('.', '/'))
+        else -> {
+            System.err.println("Could not determine type for $typeName")
+            null
+        }
+    }
+}
+
+/**
+ * Returns the descriptor of a function, e.g. (DLjava/lang/String;)Z
+ *
+ * @param context The context the types are registered in
+ * @param function The function
+ * @return The descriptor or null, if a type is not valid
+ */
+internal fun getMethodDescriptor(context: CompilationContext, function: Item): String? {
+    if (function.returntype == null) {
+        System.err.println("Returntype of function not specified " + getFullName(context, function))
+        return null
+    }
+    val returnType = getType(context, function.returntype ?: "") ?: return null
+    val parameterTypes = mutableListOf<Type>()
+    for (parameter in function.children) {
+        if (parameter.item !== ItemType.PARAMETER) {
+            continue
+        }
+        if (parameter.type == null) {
+            System.err.println("Could not determine type for parameter " + getFullName(context, parameter))
+            return null
+        }
+        parameterTypes.add(getType(context, parameter.type ?: "") ?: return null)
+    }
+    return Type.getMethodDescriptor(returnType, *parameterTypes.toTypedArray())
+}
+
+/**
+ * The classes of the project can't be loaded to find their common super class, they all extend Object
+ */
+private class ProjectClassWriter : ClassWriter(COMPUTE_FRAMES) {
+
+    override fun getCommonSuperClass(type1: String, type2: String): String = OBJECT
+}
@@ -0,0 +1,859 @@
+package sharknoon.casey.compiler.bytecode
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.objectweb.asm.*
+import org.objectweb.asm.Opcodes.*
+import sharknoon.casey.compiler.general.*
+import sharknoon.casey.compiler.general.parser.beans.*
+import sharknoon.casey.compiler.general.parser.beans.Block.BlockType.*
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import sharknoon.casey.compiler.general.parser.beans.Statement.StatementType
+import sharknoon.casey.compiler.general.parser.CompilationContext
+import sharknoon.casey.compiler.java.generator.item.getFullName
+import java.util.*
+
+private val INTEGER_LITERAL = Regex("-?\\d+")
+
+/**
+ * Writes the method of a function in one pass over the skeleton of its blocks, the statements are typed like the
+ * Java-Compiler would type the generated Java source, e.g. a length is an int and an int is widened to a double
+ *
+ * @param context The context of the compilation
+ * @param function The function
+ * @param isStatic True, if the function is not inside of a class
+ */
+internal class FunctionGenerator(private val context: CompilationContext, private val function: Item, private val isStatic: Boolean) {
+
+    private lateinit var method: MethodVisitor
+    private lateinit var returnType: Type
+    private val locals = IdentityHashMap<Item, Local>()
+    private var nextLocal = if (isStatic) 0 else 1
+
+    private class Local(val index: Int, val type: Type)
+
+    /**
+     * Adds the method to the class
+     *
+     * @return False, if the function could not be translated
+     */
+    fun generate(writer: ClassVisitor): Boolean {
+        val descriptor = getMethodDescriptor(context, function) ?: return false
+        returnType = Type.getReturnType(descriptor)
+        val access = if (isStatic) ACC_PUBLIC or ACC_STATIC else ACC_PUBLIC
+        method = writer.visitMethod(access, function.name, descriptor, null, null)
+        method.visitCode()
+        val parameterTypes = Type.getArgumentTypes(descriptor)
+        for ((index, parameter) in function.children.filter { it.item === ItemType.PARAMETER }.withIndex()) {
+            addLocal(parameter, parameterTypes[index])
+        }
+        for (variable in function.children) {
+            if (variable.item !== ItemType.VARIABLE) {
+                continue
+            }
+            if (variable.type == null) {
+                System.err.println("Type of variable not specified: " + getFullName(context, variable))
+                return false
+            }
+            val local = addLocal(variable, getType(context, variable.type ?: "") ?: return false)
+            if (!pushDefaultValue(method, local.type)) {
+                return false
+            }
+            method.visitVarInsn(local.type.getOpcode(ISTORE), local.index)
+        }
+        val startBlock = function.blocks.firstOrNull { it.blocktype === START }
+        if (startBlock != null && !acceptFunctionBlocks(startBlock)) {
+            System.err.println("Something in the function " + getFullName(context, function) + " went wrong")
+            return false
+        }
+        //The Java-Compiler rejects a function, which can end without returning a value, this is only reached then
+        if (returnType == Type.VOID_TYPE) {
+            method.visitInsn(RETURN)
+        } else {
+            throwException("java/lang/IllegalStateException", "The function " + getFullName(context, function) + " ended without returning a value")
+        }
+        endMethod(method)
+        return true
+    }
+
+    private fun addLocal(item: Item, type: Type): Local {
+        val local = Local(nextLocal, type)
+        locals[item] = local
+        nextLocal += type.size
+        return local
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    //Blocks
+    //-------------------------------------------------------------------------------------------------------------
+
+    private fun acceptFunctionBlocks(startBlock: Block): Boolean {
+        if (startBlock.blocktype != START) {
+            System.err.println("The start of this function is not null ($startBlock)")
+            return false
+        }
+        val skeleton = getSkeleton(function) ?: return false
+        return skeleton.skeletons.all { acceptSkeleton(it) }
+    }
+
+    private fun acceptSkeleton(skeleton: SubSkeleton): Boolean = when (skeleton) {
+        is SingleBlock -> onSingleBlock(skeleton.block)
+        is Decision -> onDecision(skeleton)
+        is Loop -> onLoop(skeleton)
+        else -> false
+    }
+
+    private fun onSingleBlock(block: Block): Boolean = when (block.blocktype) {
+        START -> true
+        END -> onEndBlock(block)
+        CALL -> onCallBlock(block)
+        ASSIGNMENT -> onAssignmentBlock(block)
+        INPUT -> onInputBlock(block)
+        OUTPUT -> onOutputBlock(block)
+        else -> false
+    }
+
+    private fun onDecision(decision: Decision): Boolean {
+        val decisionBlock = decision.condition
+        if (!acceptCondition(decisionBlock)) {
+            return false
+        }
+        val falseLabel = Label()
+        val endLabel = Label()
+        method.visitJumpInsn(IFEQ, falseLabel)
+        if (!decision.trueSkeletons.all { acceptSkeleton(it) }) {
+            System.err.println("Error in the true-Condition of this condition-block $decisionBlock")
+            return false
+        }
+        method.visitJumpInsn(GOTO, endLabel)
+        method.visitLabel(falseLabel)
+        if (!decision.falseSkeletons.all { acceptSkeleton(it) }) {
+            System.err.println("Error in the false-Condition of this condition-block $decisionBlock")
+            return false
+        }
+        method.visitLabel(endLabel)
+        return true
+    }
+
+    /**
+     * The same loops as in the Java sources: while (c) {after}, do {before} while (c) and before while (c) {after
+     * before}
+     */
+    private fun onLoop(loop: Loop): Boolean {
+        val decisionBlock = loop.condition
+        if (loop.beforeCondition.isEmpty() && loop.afterCondition.isEmpty()) {
+            System.err.println("Both conditions of the loop with the Decisionblock $decisionBlock are empty")
+            return false
+        }
+        //A negated loop continues on the false arm of the decision block
+        val exitJump = if (loop.negated) IFNE else IFEQ
+        val continueJump = if (loop.negated) IFEQ else IFNE
+        val before = {
+            loop.beforeCondition.all { acceptSkeleton(it) }.also {
+                if (!it) System.err.println("Error in the Loop before the Decisionblock $decisionBlock")
+            }
+        }
+        val after = {
+            loop.afterCondition.all { acceptSkeleton(it) }.also {
+                if (!it) System.err.println("Error in the Loop after the Decisionblock $decisionBlock")
+            }
+        }
+        val startLabel = Label()
+        val endLabel = Label()
+        if (loop.afterCondition.isEmpty()) {
+            method.visitLabel(startLabel)
+            if (!before() || !acceptCondition(decisionBlock)) {
+                return false
+            }
+            method.visitJumpInsn(continueJump, startLabel)
+            return true
+        }
+        if (loop.beforeCondition.isNotEmpty() && !before()) {
+            return false
+        }
+        method.visitLabel(startLabel)
+        if (!acceptCondition(decisionBlock)) {
+            return false
+        }
+        method.visitJumpInsn(exitJump, endLabel)
+        if (!after() || loop.beforeCondition.isNotEmpty() && !before()) {
+            return false
+        }
+        method.visitJumpInsn(GOTO, startLabel)
+        method.visitLabel(endLabel)
+        return true
+    }
+
+    private fun acceptCondition(decisionBlock: Block): Boolean {
+        val conditionStatement = decisionBlock.blockcontent?.statement
+        if (conditionStatement == null) {
+            System.err.println("The DecisionBlock $decisionBlock has no condition statement")
+            return false
+        }
+        if (!acceptStatement(conditionStatement, Type.BOOLEAN_TYPE)) {
+            System.err.println("DecisionBlock $decisionBlock has no condition")
+            return false
+        }
+        return true
+    }
+
+    private fun onEndBlock(block: Block): Boolean {
+        val blockcontent = block.blockcontent
+        if (blockcontent == null) {
+            System.err.println("End Block has no Content")
+            return false
+        }
+        val returnStatement = blockcontent.statement
+        if (returnStatement == null) {
+            if (returnType != Type.VOID_TYPE) {
+                System.err.println("The End Block $block has to return a value of type ${returnType.className}")
+                return false
+            }
+            method.visitInsn(RETURN)
+            return true
+        }
+        if (returnType == Type.VOID_TYPE) {
+            System.err.println("The End Block $block can't return a value, the function returns nothing")
+            return false
+        }
+        if (!acceptStatement(returnStatement, returnType)) {
+            System.err.println("The return statement of block $block is null")
+            return false
+        }
+        method.visitInsn(returnType.getOpcode(IRETURN))
+        return true
+    }
+
+    private fun onCallBlock(block: Block): Boolean {
+        val blockcontent = block.blockcontent
+        if (blockcontent == null) {
+            System.err.println("The content of the Call-Block is not specified")
+            return false
+        }
+        val callStatement = blockcontent.statement ?: return false
+        val type = acceptStatement(callStatement)
+        if (type == null) {
+            System.err.println("The Statement for this Call-Block is null")
+            return false
+        }
+        when (type.size) {
+            1 -> method.visitInsn(POP)
+            2 -> method.visitInsn(POP2)
+        }
+        return true
+    }
+
+    private fun onAssignmentBlock(block: Block): Boolean {
+        val blockcontent = block.blockcontent
+        if (blockcontent == null) {
+            System.err.println("The Content of this Assignment-Block is empty")
+            return false
+        }
+        val assignmentVariable = blockcontent.variable ?: return false
+        val assignmentStatement = blockcontent.statement ?: return false
+        val variable = context.getItem(assignmentVariable)
+        if (variable == null) {
+            System.err.println("The Variable of Block $block is not a correct Type $assignmentVariable")
+            return false
+        }
+        return storeVariable(variable) { type ->
+            acceptStatement(assignmentStatement, type).also {
+                if (!it) System.err.println("The Assignment of Block $block is not a correct Statement")
+            }
+        }
+    }
+
+    /**
+     * try { variable = new Scanner(System.in).nextX(); } catch (Exception e) { variable = default; System.err... }
+     */
+    private fun onInputBlock(block: Block): Boolean {
+        val inputVariable = block.blockcontent?.variable ?: return false
+        val variable = context.getItem(inputVariable) ?: return false
+        val type = getType(context, variable.type ?: "") ?: return false
+        val (methodName, defaultValue) = when (type) {
+            Type.DOUBLE_TYPE -> "nextDouble" to "0.0"
+            Type.BOOLEAN_TYPE -> "nextBoolean" to "false"
+            STRING_TYPE -> "next" to "\"\""
+            else -> {
+                System.err.println("Input type is not allowed, only Text, Boolean and Number is allowed")
+                return false
+            }
+        }
+        val tryStart = Label()
+        val tryEnd = Label()
+        val catchStart = Label()
+        val endLabel = Label()
+        method.visitTryCatchBlock(tryStart, tryEnd, catchStart, "java/lang/Exception")
+        method.visitLabel(tryStart)
+        val read = storeVariable(variable) {
+            method.visitTypeInsn(NEW, "java/util/Scanner")
+            method.visitInsn(DUP)
+            method.visitFieldInsn(GETSTATIC, "java/lang/System", "in", "Ljava/io/InputStream;")
+            method.visitMethodInsn(INVOKESPECIAL, "java/util/Scanner", "<init>", "(Ljava/io/InputStream;)V", false)
+            method.visitMethodInsn(INVOKEVIRTUAL, "java/util/Scanner", methodName, "()" + type.descriptor, false)
+            true
+        }
+        if (!read) {
+            return false
+        }
+        method.visitLabel(tryEnd)
+        method.visitJumpInsn(GOTO, endLabel)
+        method.visitLabel(catchStart)
+        method.visitInsn(POP)
+        storeVariable(variable) { pushDefaultValue(method, it) }
+        method.visitFieldInsn(GETSTATIC, "java/lang/System", "err", "Ljava/io/PrintStream;")
+        method.visitLdcInsn("Entered value not correct, using $defaultValue instead")
+        method.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false)
+        method.visitLabel(endLabel)
+        return true
+    }
+
+    private fun onOutputBlock(block: Block): Boolean {
+        val outputStatement = block.blockcontent?.statement ?: return false
+        method.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;")
+        val type = acceptStatement(outputStatement)
+        if (type == null || type == Type.VOID_TYPE) {
+            System.err.println("The output value of the Block $block is not a correct Statement")
+            return false
+        }
+        val parameterType = if (type.sort == Type.OBJECT && type != STRING_TYPE) Type.getObjectType("java/lang/Object") else type
+        method.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(${parameterType.descriptor})V", false)
+        return true
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    //Variables
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Stores the value pushed by the value function into a static variable, a local variable or a field of this object
+     */
+    private fun storeVariable(variable: Item, value: (Type) -> Boolean): Boolean {
+        val type = getType(context, variable.type ?: "") ?: return false
+        val local = locals[variable]
+        when {
+            context.isStaticVariable(variable) -> {
+                if (!value(type)) return false
+                method.visitFieldInsn(PUTSTATIC, getInternalName(context, variable), variable.name, type.descriptor)
+            }
+            local != null -> {
+                if (!value(type)) return false
+                method.visitVarInsn(type.getOpcode(ISTORE), local.index)
+            }
+            else -> {
+                val owner = getFieldOwner(variable) ?: return false
+                method.visitVarInsn(ALOAD, 0)
+                if (!value(type)) return false
+                method.visitFieldInsn(PUTFIELD, owner, variable.name, type.descriptor)
+            }
+        }
+        return true
+    }
+
+    /**
+     * The class of a field, which can be accessed without an object inside of this function
+     */
+    private fun getFieldOwner(variable: Item): String? {
+        val className = getFullName(context, variable).substringBeforeLast('.')
+        if (isStatic || context.getItem(className)?.item !== ItemType.CLASS || getFullName(context, function).substringBeforeLast('.') != className) {
+            System.err.println("The variable " + getFullName(context, variable) + " can't be accessed in the function " + getFullName(context, function))
+            return null
+        }
+        return className.replace('.', '/')
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    //Statements
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Pushes the value of the statement and converts it to the expected type
+     */
+    private fun acceptStatement(statement: Statement, expected: Type): Boolean {
+        val type = acceptStatement(statement) ?: return false
+        return convert(type, expected)
+    }
+
+    /**
+     * Pushes the value of the statement
+     *
+     * @return The type of the value or null, if the statement is not valid
+     */
+    private fun acceptStatement(statement: Statement): Type? = when (statement.type) {
+        //Values
+        StatementType.NUMBER,
+        StatementType.BOOLEAN,
+        StatementType.TEXT,
+        StatementType.OBJECT -> onValue(statement)
+        //Operators
+        StatementType.ADD -> onAdd(statement)
+        StatementType.AND -> onShortCircuit(statement, IFEQ)
+        StatementType.CONCAT -> onConcat(statement)
+        StatementType.DIVIDE -> onArithmetic(statement, IDIV)
+        StatementType.EQUALS -> onComparisons(statement, "Equals") { onEquals(it, false) }
+        StatementType.GREATER_OR_EQUAL_THAN -> onComparisons(statement, "Greater Or Equals Than") { onCompare(it, IF_ICMPLT, DCMPL, IFLT) }
+        StatementType.GREATER_THAN -> onComparisons(statement, "Greater Than") { onCompare(it, IF_ICMPLE, DCMPL, IFLE) }
+        StatementType.LENGTH -> onLength(statement)
+        StatementType.LESS_OR_EQUAL_THAN -> onComparisons(statement, "Less Or Equal Than") { onCompare(it, IF_ICMPGT, DCMPG, IFGT) }
+        StatementType.LESS_THAN -> onComparisons(statement, "Less Than") { onCompare(it, IF_ICMPGE, DCMPG, IFGE) }
+        StatementType.MODULO -> onArithmetic(statement, IREM)
+        StatementType.MULTIPLY -> onArithmetic(statement, IMUL)
+        StatementType.NOT_EQUALS -> onComparisons(statement, "Not Equals") { onEquals(it, true) }
+        StatementType.NOT -> onNot(statement)
+        StatementType.OR -> onShortCircuit(statement, IFNE)
+        StatementType.SUBTRACT -> onArithmetic(statement, ISUB)
+        //Calls
+        StatementType.CALL -> onCall(statement)
+    }
+
+    /**
+     * The type of the value of a statement without pushing it, null if the statement is not valid
+     */
+    private fun typeOf(statement: Statement): Type? = when (statement.type) {
+        StatementType.NUMBER -> if (INTEGER_LITERAL.matches(statement.value.toString())) Type.INT_TYPE else Type.DOUBLE_TYPE
+        StatementType.BOOLEAN -> Type.BOOLEAN_TYPE
+        StatementType.TEXT -> STRING_TYPE
+        StatementType.OBJECT -> statement.value?.let { getType(context, it.toString()) }
+        StatementType.ADD -> statement.parameter.map { typeOf(it) ?: return null }.reduceOrNull { a, b ->
+            if (a == STRING_TYPE || b == STRING_TYPE) STRING_TYPE else promote(a, b) ?: return null
+        }
+        StatementType.DIVIDE,
+        StatementType.MODULO,
+        StatementType.MULTIPLY,
+        StatementType.SUBTRACT -> statement.parameter.map { typeOf(it) ?: return null }.reduceOrNull { a, b -> promote(a, b) ?: return null }
+        StatementType.CONCAT -> STRING_TYPE
+        StatementType.LENGTH -> Type.INT_TYPE
+        StatementType.CALL -> statement.calls.lastOrNull()?.type?.let { context.getItem(it) }?.let { item ->
+            if (item.item === ItemType.FUNCTION) getType(context, item.returntype ?: "") else getType(context, item.type ?: "")
+        }
+        else -> Type.BOOLEAN_TYPE
+    }
+
+    /**
+     * Visits a statement, whose type could not be determined, only to report its error
+     */
+    private fun invalid(statement: Statement): Type? {
+        acceptStatement(statement)
+        return null
+    }
+
+    private fun onValue(statement: Statement): Type? {
+        val value = statement.value
+        if (value == null) {
+            System.err.println("Value of statement $statement is null")
+            return null
+        }
+        return when (statement.type) {
+            StatementType.TEXT -> {
+                method.visitLdcInsn(value.toString())
+                STRING_TYPE
+            }
+            StatementType.OBJECT -> {
+                val type = getType(context, value.toString())
+                if (type == null || type.sort != Type.OBJECT) {
+                    System.err.println("Could not get the type name for this object statement $statement")
+                    return null
+                }
+                pushDefaultValue(method, type)
+                type
+            }
+            StatementType.BOOLEAN -> when (value.toString()) {
+                "true" -> Type.BOOLEAN_TYPE.also { method.visitInsn(ICONST_1) }
+                "false" -> Type.BOOLEAN_TYPE.also { method.visitInsn(ICONST_0) }
+                else -> {
+                    System.err.println("The value of the boolean statement $statement is not true or false")
+                    null
+                }
+            }
+            //The value is a literal of the Java source, an integer literal is an int
+            else -> {
+                val literal = value.toString()
+                val intValue = if (INTEGER_LITERAL.matches(literal)) literal.toIntOrNull() else null
+                val doubleValue = literal.toDoubleOrNull()
+                when {
+                    intValue != null -> Type.INT_TYPE.also { method.visitLdcInsn(intValue) }
+                    doubleValue != null && !INTEGER_LITERAL.matches(literal) -> Type.DOUBLE_TYPE.also { method.visitLdcInsn(doubleValue) }
+                    else -> {
+                        System.err.println("The value of the number statement $statement is not a number")
+                        null
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * a + b + c, numbers are added and as soon as one side is a text the values are concatenated, from left to right
+     */
+    private fun onAdd(statement: Statement): Type? {
+        val parameters = statement.parameter
+        if (parameters.isEmpty()) {
+            System.err.println("Operators need at least one parameter $statement")
+            return null
+        }
+        var type = acceptStatement(parameters[0]) ?: return null
+        for (i in 1 until parameters.size) {
+            val parameterType = typeOf(parameters[i]) ?: return invalid(parameters[i])
+            if (type == STRING_TYPE || parameterType == STRING_TYPE) {
+                toText(type)
+                toText(acceptStatement(parameters[i]) ?: return null)
+                method.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false)
+                type = STRING_TYPE
+            } else {
+                type = addNumber(statement, type, parameters[i], IADD) ?: return null
+            }
+        }
+        return type
+    }
+
+    private fun onArithmetic(statement: Statement, opcode: Int): Type? {
+        val parameters = statement.parameter
+        if (parameters.isEmpty()) {
+            System.err.println("Operators need at least one parameter $statement")
+            return null
+        }
+        var type = acceptStatement(parameters[0]) ?: return null
+        for (i in 1 until parameters.size) {
+            type = addNumber(statement, type, parameters[i], opcode) ?: return null
+        }
+        return type
+    }
+
+    /**
+     * Combines the number on the stack with the number of the parameter, both are widened to double, if one of them
+     * is a double
+     */
+    private fun addNumber(statement: Statement, type: Type, parameter: Statement, opcode: Int): Type? {
+        val parameterType = typeOf(parameter) ?: return invalid(parameter)
+        val resultType = promote(type, parameterType)
+        if (resultType == null) {
+            System.err.println("The operator ${statement.type} can't be applied to ${type.className} and ${parameterType.className} in $statement")
+            return null
+        }
+        convert(type, resultType)
+        if (!acceptStatement(parameter, resultType)) {
+            return null
+        }
+        method.visitInsn(resultType.getOpcode(opcode))
+        return resultType
+    }
+
+    /**
+     * (String.valueOf(a) + String.valueOf(b) + ...)
+     */
+    private fun onConcat(statement: Statement): Type? {
+        val parameters = statement.parameter
+        if (parameters.isEmpty()) {
+            System.err.println("Operators need at least one parameter $statement")
+            return null
+        }
+        for ((index, parameter) in parameters.withIndex()) {
+            val type = acceptStatement(parameter)
+            if (type == null || type == Type.VOID_TYPE) {
+                System.err.println("Parameter $index of $statement is null")
+                return null
+            }
+            toText(type)
+            if (index > 0) {
+                method.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false)
+            }
+        }
+        return STRING_TYPE
+    }
+
+    /**
+     * a && b && ... (jump IFEQ) or a || b || ... (jump IFNE), the remaining parameters are skipped as soon as the
+     * result is known
+     */
+    private fun onShortCircuit(statement: Statement, jump: Int): Type? {
+        val parameters = statement.parameter
+        if (parameters.isEmpty()) {
+            System.err.println("Operators need at least one parameter $statement")
+            return null
+        }
+        return shortCircuit(parameters.size, jump) { acceptStatement(parameters[it], Type.BOOLEAN_TYPE) }
+    }
+
+    private inline fun shortCircuit(count: Int, jump: Int, operand: (Int) -> Boolean): Type? {
+        val shortCircuitLabel = Label()
+        val endLabel = Label()
+        for (i in 0 until count) {
+            if (!operand(i)) {
+                return null
+            }
+            method.visitJumpInsn(jump, shortCircuitLabel)
+        }
+        method.visitInsn(if (jump == IFEQ) ICONST_1 else ICONST_0)
+        method.visitJumpInsn(GOTO, endLabel)
+        method.visitLabel(shortCircuitLabel)
+        method.visitInsn(if (jump == IFEQ) ICONST_0 else ICONST_1)
+        method.visitLabel(endLabel)
+        return Type.BOOLEAN_TYPE
+    }
+
+    /**
+     * a > b > c is converted to (a > b) && (b > c)
+     */
+    private inline fun onComparisons(statement: Statement, name: String, comparison: (Pair<Statement, Statement>) -> Boolean): Type? {
+        val parameters = statement.parameter
+        if (parameters.size < 2) {
+            System.err.println("The $name Operator needs to have two or more parameters")
+            return null
+        }
+        return shortCircuit(parameters.size - 1, IFEQ) { comparison(parameters[it] to parameters[it + 1]) }
+    }
+
+    /**
+     * Objects.equals(a, b), the primitive values are boxed, like the Java-Compiler does
+     */
+    private fun onEquals(parameters: Pair<Statement, Statement>, negated: Boolean): Boolean {
+        for (parameter in parameters.toList()) {
+            val type = acceptStatement(parameter) ?: return false
+            if (!box(type)) {
+                System.err.println("The value of $parameter can't be compared")
+                return false
+            }
+        }
+        method.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false)
+        if (negated) {
+            method.visitInsn(ICONST_1)
+            method.visitInsn(IXOR)
+        }
+        return true
+    }
+
+    /**
+     * Compares two numbers, the int jump and the double jump lead to false, a comparison with NaN is false
+     */
+    private fun onCompare(parameters: Pair<Statement, Statement>, intJump: Int, doubleCompare: Int, doubleJump: Int): Boolean {
+        val firstType = typeOf(parameters.first) ?: return invalid(parameters.first) != null
+        val secondType = typeOf(parameters.second) ?: return invalid(parameters.second) != null
+        val type = promote(firstType, secondType)
+        if (type == null) {
+            System.err.println("${firstType.className} and ${secondType.className} can't be compared")
+            return false
+        }
+        if (!acceptStatement(parameters.first, type) || !acceptStatement(parameters.second, type)) {
+            return false
+        }
+        val falseLabel = Label()
+        val endLabel = Label()
+        if (type == Type.INT_TYPE) {
+            method.visitJumpInsn(intJump, falseLabel)
+        } else {
+            method.visitInsn(doubleCompare)
+            method.visitJumpInsn(doubleJump, falseLabel)
+        }
+        method.visitInsn(ICONST_1)
+        method.visitJumpInsn(GOTO, endLabel)
+        method.visitLabel(falseLabel)
+        method.visitInsn(ICONST_0)
+        method.visitLabel(endLabel)
+        return true
+    }
+
+    private fun onLength(statement: Statement): Type? {
+        if (statement.parameter.size != 1) {
+            System.err.println("The Length Operator needs to have exactly one parameter")
+            return null
+        }
+        if (!acceptStatement(statement.parameter[0], STRING_TYPE)) {
+            return null
+        }
+        method.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "length", "()I", false)
+        return Type.INT_TYPE
+    }
+
+    private fun onNot(statement: Statement): Type? {
+        if (statement.parameter.size != 1) {
+            System.err.println("The NOT Operator needs to have exactly one parameter")
+            return null
+        }
+        if (!acceptStatement(statement.parameter[0], Type.BOOLEAN_TYPE)) {
+            return null
+        }
+        method.visitInsn(ICONST_1)
+        method.visitInsn(IXOR)
+        return Type.BOOLEAN_TYPE
+    }
+
+    /**
+     * A chain of variables, parameters and functions, e.g. object.field.function(a, b), every call after the first
+     * one is called on the value of the previous call
+     */
+    private fun onCall(statement: Statement): Type? {
+        if (statement.calls.isEmpty()) {
+            System.err.println("The Call-Statement $statement has no calls")
+            return null
+        }
+        var receiver: Type? = null
+        for (call in statement.calls) {
+            if (call.type == null) {
+                System.err.println("The Type of the call $call is null")
+                return null
+            }
+            val item = context.getItem(call.type ?: "")
+            if (item == null) {
+                System.err.println("Type of the call " + call + " (" + call.type + ") does not exist")
+                return null
+            }
+            receiver = when (item.item) {
+                ItemType.VARIABLE -> loadVariable(item, receiver)
+                ItemType.PARAMETER -> {
+                    val local = locals[item]
+                    if (receiver != null || local == null) {
+                        System.err.println("The parameter " + getFullName(context, item) + " can't be accessed in the function " + getFullName(context, function))
+                        return null
+                    }
+                    method.visitVarInsn(local.type.getOpcode(ILOAD), local.index)
+                    local.type
+                }
+                ItemType.FUNCTION -> callFunction(item, call, receiver)
+                else -> {
+                    System.err.println("The call $call is not a function, a variable or a parameter")
+                    return null
+                }
+            } ?: return null
+        }
+        return receiver
+    }
+
+    private fun loadVariable(variable: Item, receiver: Type?): Type? {
+        val type = getType(context, variable.type ?: "") ?: return null
+        val local = locals[variable]
+        when {
+            context.isStaticVariable(variable) -> {
+                popReceiver(receiver)
+                method.visitFieldInsn(GETSTATIC, getInternalName(context, variable), variable.name, type.descriptor)
+            }
+            receiver != null -> {
+                val owner = getInternalName(context, variable).substringBeforeLast('/')
+                if (receiver.sort != Type.OBJECT || receiver.internalName != owner) {
+                    System.err.println("The variable " + getFullName(context, variable) + " is not a member of " + receiver.className)
+                    return null
+                }
+                method.visitFieldInsn(GETFIELD, owner, variable.name, type.descriptor)
+            }
+            local != null -> method.visitVarInsn(type.getOpcode(ILOAD), local.index)
+            else -> {
+                val owner = getFieldOwner(variable) ?: return null
+                method.visitVarInsn(ALOAD, 0)
+                method.visitFieldInsn(GETFIELD, owner, variable.name, type.descriptor)
+            }
+        }
+        return type
+    }
+
+    private fun callFunction(callee: Item, call: Statement.Call, receiver: Type?): Type? {
+        val descriptor = getMethodDescriptor(context, callee) ?: return null
+        val parameterTypes = Type.getArgumentTypes(descriptor)
+        if (parameterTypes.size != call.parameter.size) {
+            System.err.println("The function " + getFullName(context, callee) + " needs " + parameterTypes.size + " parameters, not " + call.parameter.size)
+            return null
+        }
+        val static = context.isStaticFunction(callee) || context.getItem(getFullName(context, callee).substringBeforeLast('.'))?.item !== ItemType.CLASS
+        val owner = if (static) getInternalName(context, callee) else getInternalName(context, callee).substringBeforeLast('/')
+        when {
+            static -> popReceiver(receiver)
+            receiver == null -> {
+                if (isStatic || getInternalName(context, function).substringBeforeLast('/') != owner) {
+                    System.err.println("The function " + getFullName(context, callee) + " can't be called in the function " + getFullName(context, function))
+                    return null
+                }
+                method.visitVarInsn(ALOAD, 0)
+            }
+            receiver.sort != Type.OBJECT || receiver.internalName != owner -> {
+                System.err.println("The function " + getFullName(context, callee) + " is not a member of " + receiver.className)
+                return null
+            }
+        }
+        for ((index, parameter) in call.parameter.withIndex()) {
+            if (!acceptStatement(parameter, parameterTypes[index])) {
+                System.err.println("Parameter $parameter is null")
+                return null
+            }
+        }
+        method.visitMethodInsn(if (static) INVOKESTATIC else INVOKEVIRTUAL, owner, callee.name, descriptor, false)
+        return Type.getReturnType(descriptor)
+    }
+
+    private fun popReceiver(receiver: Type?) {
+        when (receiver?.size) {
+            1 -> method.visitInsn(POP)
+            2 -> method.visitInsn(POP2)
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    //Types
+    //-------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Converts the value on the stack to the expected type, only an int can be widened to a double
+     */
+    private fun convert(type: Type, expected: Type): Boolean {
+        if (type == expected) {
+            return true
+        }
+        if (type == Type.INT_TYPE && expected == Type.DOUBLE_TYPE) {
+            method.visitInsn(I2D)
+            return true
+        }
+        System.err.println("A value of type ${type.className} can't be converted to ${expected.className}")
+        return false
+    }
+
+    /**
+     * The type of a calculation with two numbers or null, if one of them is not a number
+     */
+    private fun promote(a: Type, b: Type): Type? = when {
+        a == Type.INT_TYPE && b == Type.INT_TYPE -> Type.INT_TYPE
+        (a == Type.INT_TYPE || a == Type.DOUBLE_TYPE) && (b == Type.INT_TYPE || b == Type.DOUBLE_TYPE) -> Type.DOUBLE_TYPE
+        else -> null
+    }
+
+    /**
+     * Converts the value on the stack to a text with String.valueOf
+     */
+    private fun toText(type: Type) {
+        val parameterType = when (type) {
+            Type.DOUBLE_TYPE, Type.INT_TYPE, Type.BOOLEAN_TYPE -> type
+            else -> Type.getObjectType("java/lang/Object")
+        }
+        method.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(${parameterType.descriptor})Ljava/lang/String;", false)
+    }
+
+    private fun box(type: Type): Boolean {
+        val boxType = when (type) {
+            Type.DOUBLE_TYPE -> "java/lang/Double"
+            Type.INT_TYPE -> "java/lang/Integer"
+            Type.BOOLEAN_TYPE -> "java/lang/Boolean"
+            Type.VOID_TYPE -> return false
+            else -> return true
+        }
+        method.visitMethodInsn(INVOKESTATIC, boxType, "valueOf", "(${type.descriptor})L$boxType;", false)
+        return true
+    }
+
+    private fun throwException(exception: String, message: String) {
+        method.visitTypeInsn(NEW, exception)
+        method.visitInsn(DUP)
+        method.visitLdcInsn(message)
+        method.visitMethodInsn(INVOKESPECIAL, exception, "<init>", "(Ljava/lang/String;)V", false)
+        method.visitInsn(ATHROW)
+    }
+}
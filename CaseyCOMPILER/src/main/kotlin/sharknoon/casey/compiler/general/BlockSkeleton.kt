@@ -3,10 +3,6 @@ package sharknoon.casey.compiler.general
 import sharknoon.casey.compiler.general.parser.beans.Block
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.general.parser.beans.startBlock
-import sharknoon.casey.compiler.general.parser.getBlock
-import sharknoon.casey.compiler.utils.Result
-import sharknoon.casey.compiler.utils.Result.Error
-import sharknoon.casey.compiler.utils.Result.Success
 
 /*
  * Copyright 2018 Shark Industries.
@@ -25,236 +21,331 @@ import sharknoon.casey.compiler.utils.Result.Success
  */
 
 
-private val FUNCTIONS: MutableMap<Item, Skeleton> = mutableMapOf()
-
+/**
+ * Structures the blocks of a function, every function is structured once per compilation, so nothing is cached
+ */
 fun getSkeleton(function: Item): Skeleton? {
-    if (FUNCTIONS.containsKey(function)) return FUNCTIONS[function]
-    val skeleton = Skeleton(function)
-    FUNCTIONS[function] = skeleton
-    return skeleton
+    val skeletons = Structuring(function).structure() ?: return null
+    return Skeleton(function, skeletons)
 }
 
-class Skeleton(val function: Item) {
+/**
+ * The blocks of a function, structured into decisions and loops
+ */
+class Skeleton(val function: Item, val skeletons: List<SubSkeleton>)
 
-    private var previousBlocksMap =
-        mutableMapOf<Block, MutableList<Block>>()//Key= Block itself, value= merges of other blocks into
-    private var decisionMap =
-        mutableMapOf<Block, Pair<Block, Block>>()//Key= Decision itself, value= merge with another line (end of the decision)
-    var skeletons = mutableListOf<SubSkeleton>()
-    private var visitedBlocks = mutableSetOf<Block>()
-    private var currentBlock = function.startBlock
-        set(value) {
-            visitedBlocks.add(field)
-            field = value
-        }
+/**
+ * Turns the block graph of a function into SubSkeletons. The decisions are resolved with the post dominator tree,
+ * the immediate post dominator of a decision block is the block where both arms merge again. The loops are the
+ * natural loops of the back edges (edges to a block which dominates the origin), their exit is the decision block
+ * which dominates every back edge and leaves the loop. Every block is visited once, so this stays fast for functions
+ * with hundreds of decision blocks.
+ */
+private class Structuring(private val function: Item) {
 
-    init {
-        buildPreviousBlocksMap()
-        buildDecisionMap()
+    private val blocksById = function.blocks.associateBy { it.blockid }
+    //All blocks reachable from the start block, the index of a block is its node in the graph
+    private val blocks = mutableListOf<Block>()
+    private val indices = mutableMapOf<Block, Int>()
+    //The successors of every block, for decisions the true block comes first
+    private lateinit var successors: Array<IntArray>
+    //The virtual node every end block (and every block without a next block) leads to
+    private var exit = NONE
+    private lateinit var dominators: DominatorTree
+    private lateinit var postDominators: DominatorTree
+    //Key = loop header, value = blocks of the natural loop
+    private val loops = mutableMapOf<Int, BooleanArray>()
+    //Key = loop header, value = origins of the back edges
+    private val latches = mutableMapOf<Int, MutableList<Int>>()
+    private lateinit var visited: BooleanArray
+    private var failed = false
 
+    fun structure(): List<SubSkeleton>? {
+        if (!buildGraph()) {
+            return null
+        }
+        dominators = DominatorTree(successors, 0)
+        postDominators = DominatorTree(reversedGraph(), exit)
+        if (!findLoops()) {
+            return null
+        }
+        visited = BooleanArray(blocks.size)
+        return structureSequences()
     }
 
-    fun buildPreviousBlocksMap() {
-        for (block in function.blocks) {
-            block
-                .blockconnections
-                .values
-                .stream()
-                .map { it.keys }
-                .flatMap { it.stream() }
-                .map { getBlock(it) }//Stream of destination blocks
-                .forEach { destinationBlock ->
-                    if (destinationBlock == null) {
-                        return@forEach
-                    }
-                    previousBlocksMap.getOrPut(destinationBlock) { mutableListOf() }.add(block)
-                }
+    private fun buildGraph(): Boolean {
+        val start = function.startBlock
+        val successorLists = mutableListOf<IntArray>()
+        val stack = ArrayDeque<Block>()
+        indexOf(start, stack)
+        while (stack.isNotEmpty()) {
+            val block = stack.removeLast()
+            val nextBlocks = if (block.isDecisionBlock()) {
+                val trueBlock = getTrueBlock(block) ?: return false
+                val falseBlock = getFalseBlock(block) ?: return false
+                listOf(trueBlock, falseBlock)
+            } else {
+                listOfNotNull(getNextBlock(block))
+            }
+            val index = indices.getValue(block)
+            while (successorLists.size <= index) {
+                successorLists.add(IntArray(0))
+            }
+            successorLists[index] = nextBlocks.map { indexOf(it, stack) }.toIntArray()
+        }
+        while (successorLists.size < blocks.size) {
+            successorLists.add(IntArray(0))
         }
+        successors = successorLists.toTypedArray()
+        exit = blocks.size
+        return true
     }
 
-    fun Block.hasMultipleInputs() = (previousBlocksMap[this]?.size ?: 0) > 1
-
-    fun Block.alreadyVisited() = visitedBlocks.contains(this)
+    private fun indexOf(block: Block, stack: ArrayDeque<Block>): Int = indices.getOrPut(block) {
+        blocks.add(block)
+        stack.addLast(block)
+        blocks.size - 1
+    }
 
     /**
-     * Runs both arms until the meet a block with two or more inputs, if both arms met at the same input, this is an if
+     * The reversed graph with the virtual exit node as root
      */
-    fun isIf(decisionBlock: Block): Boolean {
-        val oldCurrentBlock = currentBlock
-        val oldVisitedBlocks = visitedBlocks.toMutableSet()
-        currentBlock = decisionBlock
-        val trueBlock = getTrueBlock(currentBlock) ?: return false
-        val falseBlock = getFalseBlock(currentBlock) ?: return false
-        var mergeBlock: Block? = null
-        if (trueBlock.alreadyVisited() || falseBlock.alreadyVisited()) {
-            currentBlock = oldCurrentBlock
-            visitedBlocks = oldVisitedBlocks
-            return false
-        }
-        currentBlock = trueBlock
-        val trueSkeletons = mutableListOf<SubSkeleton>()
-        while (true) {
-            if (currentBlock.isDecisionBlock()) {
-                trueSkeletons.add(resolveDecisionBlock(currentBlock))
-            }
-            if (currentBlock.alreadyVisited()) {
-                currentBlock = oldCurrentBlock
-                visitedBlocks = oldVisitedBlocks
-                return false
-            }
-            if (currentBlock.hasMultipleInputs()) {
-                mergeBlock = currentBlock
-                break
-            }
-            if (currentBlock.hasNextBlock()) {
-                currentBlock = currentBlock.getNextBlock() ?: return false
-            } else {
-                break
+    private fun reversedGraph(): Array<IntArray> {
+        val predecessors = DominatorTree.predecessors(successors)
+        val sinks = successors.indices.filter { successors[it].isEmpty() }.toIntArray()
+        return Array(blocks.size + 1) { if (it == exit) sinks else predecessors[it] }
+    }
+
+    private fun findLoops(): Boolean {
+        for (origin in successors.indices) {
+            for (destination in successors[origin]) {
+                val retreating = dominators.reversePostorderNumber(destination) <= dominators.reversePostorderNumber(origin)
+                if (!retreating) {
+                    continue
+                }
+                if (!dominators.dominates(destination, origin)) {
+                    System.err.println("The loop from ${blocks[origin]} to ${blocks[destination]} in the function " +
+                            "${function.name} can be entered at more than one block")
+                    return false
+                }
+                latches.getOrPut(destination) { mutableListOf() }.add(origin)
             }
         }
-        currentBlock = falseBlock
-        while (true) {
-            if (currentBlock.isDecisionBlock()) {
-                resolveDecisionBlock(currentBlock)
-            }
-            if (currentBlock.alreadyVisited() && currentBlock != mergeBlock) {
-                currentBlock = oldCurrentBlock
-                visitedBlocks = oldVisitedBlocks
-                return false
+        val predecessors = DominatorTree.predecessors(successors)
+        for ((header, headerLatches) in latches) {
+            val body = BooleanArray(blocks.size)
+            body[header] = true
+            val stack = ArrayDeque<Int>()
+            for (latch in headerLatches) {
+                if (!body[latch]) {
+                    body[latch] = true
+                    stack.addLast(latch)
+                }
             }
-            if (currentBlock == mergeBlock) {
-                //val decision = Decision(decisionBlock,trueBlocks ,falseBlocks)
-                return true
+            while (stack.isNotEmpty()) {
+                for (predecessor in predecessors[stack.removeLast()]) {
+                    if (!body[predecessor]) {
+                        body[predecessor] = true
+                        stack.addLast(predecessor)
+                    }
+                }
             }
-            if (currentBlock.hasNextBlock()) {
-                currentBlock = currentBlock.getNextBlock() ?: return false
-            } else {
-                break
+            loops[header] = body
+        }
+        return true
+    }
+
+    /**
+     * Structures all blocks of the function with an explicit stack of sequences instead of recursion, so that the depth
+     * of the nested decisions and loops is not limited by the stack of the thread (the compiler runs inside the IDE).
+     * A sequence waiting for the parts of its decision or loop stays on the stack below the sequences of the parts.
+     */
+    private fun structureSequences(): List<SubSkeleton>? {
+        val root = Sequence(0, NONE, NONE)
+        val stack = ArrayDeque<Sequence>()
+        stack.addLast(root)
+        var partResult: MutableList<SubSkeleton> = mutableListOf()
+        while (stack.isNotEmpty()) {
+            val sequence = stack.last()
+            val part = if (sequence.waiting != null) resume(sequence, partResult) else proceed(sequence)
+            when {
+                failed -> return null
+                part != null -> stack.addLast(part)
+                else -> partResult = stack.removeLast().result
             }
         }
-        currentBlock = oldCurrentBlock
-        visitedBlocks = oldVisitedBlocks
-        return false
+        return root.result
     }
 
-    fun isWhile(decisionBlock: Block): Boolean {
-        val oldCurrentBlock = currentBlock
-        val oldVisitedBlocks = visitedBlocks.toMutableSet()
-        currentBlock = decisionBlock
-        val trueBlock = getTrueBlock(currentBlock) ?: return false
-        val falseBlock = getFalseBlock(currentBlock) ?: return false
-        var numberOfVisitationsOfKnownBlocks = 0
-        currentBlock = trueBlock
-        while (true) {
-            if (currentBlock.isDecisionBlock()) {
-                resolveDecisionBlock(currentBlock)
+    /**
+     * Structures the blocks of the sequence until its end or until a decision or loop needs its parts to be structured
+     *
+     * @return The sequence of the next part or null, if the sequence is finished (or failed)
+     */
+    private fun proceed(sequence: Sequence): Sequence? {
+        while (sequence.current != sequence.until && sequence.current != NONE) {
+            val current = sequence.current
+            if (current != sequence.enteredLoop && loops.containsKey(current)) {
+                return proceedLoop(sequence, current)
             }
-            if (currentBlock.alreadyVisited()) {
-                numberOfVisitationsOfKnownBlocks++
-                break
+            if (visited[current]) {
+                System.err.println("The block ${blocks[current]} in the function ${function.name} is reached in a " +
+                        "way that can't be expressed with decisions and loops")
+                return fail()
             }
-            if (currentBlock.hasNextBlock()) {
-                currentBlock = currentBlock.getNextBlock() ?: return false
-            } else {
-                break
+            visited[current] = true
+            val block = blocks[current]
+            if (block.isDecisionBlock()) {
+                val merge = postDominators.immediateDominator(current)
+                if (merge == DominatorTree.UNDEFINED) {
+                    System.err.println("The decision $block in the function ${function.name} never reaches an end")
+                    return fail()
+                }
+                //When the arms only merge at the end of the function, one of them returns
+                val armsUntil = if (merge == exit) sequence.until else merge
+                sequence.waiting = Waiting.TrueArm(current, armsUntil)
+                return Sequence(successors[current][0], armsUntil, NONE)
             }
+            sequence.result.add(SingleBlock(block))
+            sequence.current = successors[current].firstOrNull() ?: NONE
+        }
+        return null
+    }
+
+    /**
+     * Finds the condition of the loop and starts with the blocks before the condition
+     */
+    private fun proceedLoop(sequence: Sequence, header: Int): Sequence? {
+        if (visited[header]) {
+            System.err.println("The loop ${blocks[header]} in the function ${function.name} is entered in a way " +
+                    "that can't be expressed with decisions and loops")
+            return fail()
         }
-        currentBlock = falseBlock
-        while (true) {
-            if (currentBlock.isDecisionBlock()) {
-                resolveDecisionBlock(currentBlock)
+        val body = loops.getValue(header)
+        val headerLatches = latches.getValue(header)
+        var condition = NONE
+        for (node in body.indices) {
+            if (!body[node] || !blocks[node].isDecisionBlock()) {
+                continue
             }
-            if (currentBlock.alreadyVisited()) {
-                numberOfVisitationsOfKnownBlocks++
-                break
+            val leavesLoop = body[successors[node][0]] != body[successors[node][1]]
+            if (!leavesLoop || !headerLatches.all { dominators.dominates(node, it) }) {
+                continue
             }
-            if (currentBlock.hasNextBlock()) {
-                currentBlock = currentBlock.getNextBlock() ?: return false
-            } else {
-                break
+            if (condition == NONE || dominators.depth(node) < dominators.depth(condition)) {
+                condition = node
             }
         }
-        if (numberOfVisitationsOfKnownBlocks == 1) {
-            println("while from ")
-            return true
+        if (condition == NONE) {
+            System.err.println("The loop ${blocks[header]} in the function ${function.name} has no decision, " +
+                    "which ends it")
+            return fail()
         }
-        currentBlock = oldCurrentBlock
-        visitedBlocks = oldVisitedBlocks
-        return false
-    }
-
-    fun resolveDecisionBlock(decisionBlock: Block): SubSkeleton {
-        if (isIf(decisionBlock)) {
-
-        } else if (isWhile(decisionBlock)) {
-
+        val insideIndex = if (body[successors[condition][0]]) 0 else 1
+        if (condition == header) {
+            visited[header] = true
+            return startAfterCondition(sequence, header, condition, insideIndex, mutableListOf())
         }
-        //TODO isWhile, adding the skeletons
-        return SingleBlock(decisionBlock)
+        sequence.waiting = Waiting.BeforeCondition(header, condition, insideIndex)
+        return Sequence(header, condition, header)
     }
 
-//    fun resolveNormalBlock(normalBlock: Block) {
-//        val normal = SingleBlock(normalBlock)
-//        //TODO Adding normal to the skeletonslist
-//    }
+    private fun startAfterCondition(sequence: Sequence, header: Int, condition: Int, insideIndex: Int,
+                                    beforeCondition: MutableList<SubSkeleton>): Sequence {
+        visited[condition] = true
+        sequence.waiting = Waiting.AfterCondition(condition, insideIndex, beforeCondition)
+        return Sequence(successors[condition][insideIndex], header, NONE)
+    }
 
-    fun buildDecisionMap(): Result<Nothing> {
-        while (currentBlock.hasNextBlock()) {
-            currentBlock = currentBlock.getNextBlock() ?: return Error()//Add visited blocks TODO
-            if (currentBlock.isDecisionBlock()) {
-                resolveDecisionBlock(currentBlock)
-                continue
+    /**
+     * Hands the structured blocks of a part to the waiting decision or loop of the sequence
+     *
+     * @return The sequence of the next part or null, if the sequence is finished (or failed)
+     */
+    private fun resume(sequence: Sequence, partResult: MutableList<SubSkeleton>): Sequence? {
+        when (val waiting = sequence.waiting) {
+            is Waiting.TrueArm -> {
+                sequence.waiting = Waiting.FalseArm(waiting.decision, waiting.armsUntil, partResult)
+                return Sequence(successors[waiting.decision][1], waiting.armsUntil, NONE)
+            }
+            is Waiting.FalseArm -> {
+                sequence.result.add(Decision(blocks[waiting.decision], waiting.trueSkeletons, partResult))
+                sequence.current = waiting.armsUntil
+            }
+            is Waiting.BeforeCondition ->
+                return startAfterCondition(sequence, waiting.header, waiting.condition, waiting.insideIndex, partResult)
+            is Waiting.AfterCondition -> {
+                val condition = waiting.condition
+                sequence.result.add(Loop(waiting.beforeCondition, blocks[condition], partResult, waiting.insideIndex == 1))
+                sequence.current = successors[condition][1 - waiting.insideIndex]
+            }
+            null -> {
             }
         }
-        return Success()
+        sequence.waiting = null
+        return proceed(sequence)
     }
 
-}
-
-private fun getTrueBlock(block: Block): Block? {
-    return getDecisionConditionBlock(block, Block.ConnectionSide.RIGHT)
-}
+    private fun fail(): Sequence? {
+        failed = true
+        return null
+    }
 
-private fun getFalseBlock(block: Block): Block? {
-    return getDecisionConditionBlock(block, Block.ConnectionSide.LEFT)
-}
+    /**
+     * The blocks from the block 'current' until the block 'until' (exclusive)
+     *
+     * @param enteredLoop The header of the loop which is currently structured, so it isn't resolved as a loop again
+     */
+    private class Sequence(var current: Int, val until: Int, val enteredLoop: Int) {
+        val result = mutableListOf<SubSkeleton>()
+        //The decision or loop, which waits for one of its parts
+        var waiting: Waiting? = null
+    }
 
-private fun getDecisionConditionBlock(block: Block, side: Block.ConnectionSide): Block? {
-    if (block.blockconnections.isEmpty()) {
-        System.err.println("Could not get the connections for the block $block, tried to get the $side connection of the decision $block")
-        return null
+    private sealed class Waiting {
+        class TrueArm(val decision: Int, val armsUntil: Int) : Waiting()
+        class FalseArm(val decision: Int, val armsUntil: Int, val trueSkeletons: List<SubSkeleton>) : Waiting()
+        class BeforeCondition(val header: Int, val condition: Int, val insideIndex: Int) : Waiting()
+        class AfterCondition(val condition: Int, val insideIndex: Int, val beforeCondition: List<SubSkeleton>) : Waiting()
     }
-    val destination = block.blockconnections[side]
-    if (destination == null || destination.isEmpty()) {
-        System.err.println("No destinations of this block connection, tried to get the $side connection of the decision $block")
-        return null
+
+    private fun getTrueBlock(block: Block): Block? {
+        return getDecisionConditionBlock(block, Block.ConnectionSide.RIGHT)
     }
-    val next = destination.keys.iterator().next()
-    return getBlock(next)
-}
 
-fun Block.isDecisionBlock() = this.blocktype == Block.BlockType.DECISION
+    private fun getFalseBlock(block: Block): Block? {
+        return getDecisionConditionBlock(block, Block.ConnectionSide.LEFT)
+    }
 
-fun Block.hasNextBlock() =
-    this.blockconnections.isNotEmpty() && this.blockconnections.values.iterator().next().isNotEmpty()
+    private fun getDecisionConditionBlock(block: Block, side: Block.ConnectionSide): Block? {
+        if (block.blockconnections.isEmpty()) {
+            System.err.println("Could not get the connections for the block $block, tried to get the $side connection of the decision $block")
+            return null
+        }
+        val destination = block.blockconnections[side]
+        if (destination == null || destination.isEmpty()) {
+            System.err.println("No destinations of this block connection, tried to get the $side connection of the decision $block")
+            return null
+        }
+        val next = destination.keys.iterator().next()
+        return blocksById[next]
+    }
 
-/**
- * Warning, can run into a loop when this is a while, check beforehand if this block is a decision block with a loop!
- */
-fun Block.getNextBlock(): Block? {
-    if (this.blockconnections.isEmpty()) {
-        System.err.println("Could not get the connections for the block $this")
+    private fun getNextBlock(block: Block): Block? {
+        for (value in block.blockconnections.values) {
+            for (destination in value) {
+                return blocksById[destination.key]
+            }
+        }
         return null
     }
-    for (value in this.blockconnections.values) {
-        for (destination in value) {
-            return getBlock(destination.key)
-        }
+
+    companion object {
+        private const val NONE = -1
     }
-    System.err.println("The destinations of this block connections are null, can't get next block $this")
-    return null
 }
 
+fun Block.isDecisionBlock() = this.blocktype == Block.BlockType.DECISION
 
 interface SubSkeleton
 
@@ -276,10 +367,11 @@ data class Decision(
 /**
  * A Loop: The blocks beforeCondition are executed first, then, when the condition matches, afterCondition blocks are
  * executed, then the beforeCondition block, then the condition is checked again, when the condition is false, the
- * Loop exits
+ * Loop exits. A negated loop continues while the condition does not match.
  */
 data class Loop(
     val beforeCondition: List<SubSkeleton> = listOf(),
     val condition: Block,
-    val afterCondition: List<SubSkeleton> = listOf()
+    val afterCondition: List<SubSkeleton> = listOf(),
+    val negated: Boolean = false
 ) : SubSkeleton
\ No newline at end of file
@@ -0,0 +1,198 @@
+package sharknoon.casey.compiler.general
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The dominator tree of a graph, calculated with the iterative algorithm of Cooper, Harvey and Kennedy ("A Simple,
+ * Fast Dominance Algorithm"). A node a dominates a node b, if every path from the root to b contains a. Calculated on
+ * the reversed graph, this is the post dominator tree.
+ *
+ * @param successors The successors of every node, the nodes are numbered from 0 to successors.size - 1
+ * @param root The node every path starts at
+ */
+class DominatorTree(successors: Array<IntArray>, val root: Int) {
+
+    private val immediateDominators = IntArray(successors.size) { UNDEFINED }
+    private val reversePostorderNumbers = IntArray(successors.size) { UNDEFINED }
+    //Numbering of the dominator tree, used to answer dominates() in constant time
+    private val preorderNumbers = IntArray(successors.size) { UNDEFINED }
+    private val postorderNumbers = IntArray(successors.size) { UNDEFINED }
+    private val depths = IntArray(successors.size)
+
+    init {
+        val reversePostorder = reversePostorder(successors)
+        reversePostorder.forEachIndexed { index, node -> reversePostorderNumbers[node] = index }
+        val predecessors = predecessors(successors)
+
+        immediateDominators[root] = root
+        var changed = true
+        while (changed) {
+            changed = false
+            for (i in 1 until reversePostorder.size) {
+                val node = reversePostorder[i]
+                var newImmediateDominator = UNDEFINED
+                for (predecessor in predecessors[node]) {
+                    if (immediateDominators[predecessor] == UNDEFINED) {
+                        continue
+                    }
+                    newImmediateDominator = if (newImmediateDominator == UNDEFINED) {
+                        predecessor
+                    } else {
+                        intersect(predecessor, newImmediateDominator)
+                    }
+                }
+                if (immediateDominators[node] != newImmediateDominator) {
+                    immediateDominators[node] = newImmediateDominator
+                    changed = true
+                }
+            }
+        }
+        numberTree()
+    }
+
+    /**
+     * @return The immediate dominator of the node or UNDEFINED for the root and unreachable nodes
+     */
+    fun immediateDominator(node: Int): Int = if (node == root) UNDEFINED else immediateDominators[node]
+
+    fun isReachable(node: Int): Boolean = immediateDominators[node] != UNDEFINED
+
+    /**
+     * @return True, if every path from the root to b contains a (every node dominates itself)
+     */
+    fun dominates(a: Int, b: Int): Boolean {
+        if (!isReachable(a) || !isReachable(b)) {
+            return false
+        }
+        return preorderNumbers[a] <= preorderNumbers[b] && postorderNumbers[b] <= postorderNumbers[a]
+    }
+
+    /**
+     * @return The distance of the node to the root in the dominator tree
+     */
+    fun depth(node: Int): Int = depths[node]
+
+    /**
+     * @return The position of the node in the reverse postorder of the graph, an edge a -> b is a retreating edge, if
+     * the number of b is not bigger than the one of a
+     */
+    fun reversePostorderNumber(node: Int): Int = reversePostorderNumbers[node]
+
+    private fun intersect(a: Int, b: Int): Int {
+        var finger1 = a
+        var finger2 = b
+        while (finger1 != finger2) {
+            while (reversePostorderNumbers[finger1] > reversePostorderNumbers[finger2]) {
+                finger1 = immediateDominators[finger1]
+            }
+            while (reversePostorderNumbers[finger2] > reversePostorderNumbers[finger1]) {
+                finger2 = immediateDominators[finger2]
+            }
+        }
+        return finger1
+    }
+
+    /**
+     * Depth first search without recursion, flowcharts can be way deeper than the stack
+     */
+    private fun reversePostorder(successors: Array<IntArray>): IntArray {
+        val postorder = IntArray(successors.size)
+        var postorderSize = 0
+        val visited = BooleanArray(successors.size)
+        val stack = IntArray(successors.size)
+        val nextSuccessor = IntArray(successors.size)
+        var stackSize = 0
+        stack[stackSize++] = root
+        visited[root] = true
+        while (stackSize > 0) {
+            val node = stack[stackSize - 1]
+            if (nextSuccessor[node] < successors[node].size) {
+                val successor = successors[node][nextSuccessor[node]++]
+                if (!visited[successor]) {
+                    visited[successor] = true
+                    stack[stackSize++] = successor
+                }
+            } else {
+                postorder[postorderSize++] = node
+                stackSize--
+            }
+        }
+        return IntArray(postorderSize) { postorder[postorderSize - 1 - it] }
+    }
+
+    private fun numberTree() {
+        val size = immediateDominators.size
+        val childCounts = IntArray(size + 1)
+        for (node in 0 until size) {
+            if (node != root && isReachable(node)) {
+                childCounts[immediateDominators[node] + 1]++
+            }
+        }
+        for (node in 0 until size) {
+            childCounts[node + 1] += childCounts[node]
+        }
+        val childrenStart = childCounts.copyOf()
+        val children = IntArray(childCounts[size])
+        for (node in 0 until size) {
+            if (node != root && isReachable(node)) {
+                children[childCounts[immediateDominators[node]]++] = node
+            }
+        }
+
+        var counter = 0
+        val stack = IntArray(size)
+        val nextChild = IntArray(size)
+        var stackSize = 0
+        stack[stackSize++] = root
+        preorderNumbers[root] = counter++
+        while (stackSize > 0) {
+            val node = stack[stackSize - 1]
+            val child = childrenStart[node] + nextChild[node]
+            if (child < childrenStart[node + 1]) {
+                nextChild[node]++
+                val childNode = children[child]
+                depths[childNode] = depths[node] + 1
+                preorderNumbers[childNode] = counter++
+                stack[stackSize++] = childNode
+            } else {
+                postorderNumbers[node] = counter++
+                stackSize--
+            }
+        }
+    }
+
+    companion object {
+        const val UNDEFINED = -1
+
+        fun predecessors(successors: Array<IntArray>): Array<IntArray> {
+            val counts = IntArray(successors.size)
+            for (nodeSuccessors in successors) {
+                for (successor in nodeSuccessors) {
+                    counts[successor]++
+                }
+            }
+            val predecessors = Array(successors.size) { IntArray(counts[it]) }
+            counts.fill(0)
+            for (node in successors.indices) {
+                for (successor in successors[node]) {
+                    predecessors[successor][counts[successor]++] = node
+                }
+            }
+            return predecessors
+        }
+    }
+}
@@ -57,7 +57,9 @@ data class CLIArgs(
     }
 
     enum class Language {
-        JAVA
+        JAVA,
+        //The class files are written directly, without Java sources
+        BYTECODE
         //LUA maybe in the future
     }
 
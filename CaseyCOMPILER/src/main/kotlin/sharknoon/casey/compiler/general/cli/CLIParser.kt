@@ -17,17 +17,38 @@ package sharknoon.casey.compiler.general.cli
  */
 
 import org.apache.commons.cli.*
+import sharknoon.casey.compiler.general.parser.CaseyFormat
+import sharknoon.casey.compiler.utils.Result
+import java.nio.file.Paths
 
 private var regularOptions = initRegularOptions()
 private var helpOptions = initHelpOptions()
+private var convertOptions = initConvertOptions()
 
-fun parseCommandLine(args: Array<String>): CLIArgs? {
+/**
+ * The first argument of the command line to convert a .casey file instead of compiling it
+ */
+const val CONVERT_COMMAND = "convert"
+
+/**
+ * The first argument of the command line to compile a small built-in project, used as the training run of the class
+ * data sharing archive
+ */
+const val TRAIN_COMMAND = "train"
+
+/**
+ * Parses the arguments of a compilation
+ *
+ * @return The arguments, a success without a value if only the help has been requested and printed or a error
+ */
+fun parseCommandLine(args: Array<String>): Result<CLIArgs> {
     val parser = DefaultParser()
     try {
         val helpcmd = parser.parse(helpOptions, args)
         if (helpcmd.hasOption("h")) {
             printHelp()
-            System.exit(0)
+            //The compiler may run inside of the IDE, so the process is not exited here
+            return Result.Success()
         }
     } catch (e: Exception) {
         try {
@@ -38,15 +59,52 @@ fun parseCommandLine(args: Array<String>): CLIArgs? {
             val parameter = regularcmd.getOptionValues("pa")?.toList() ?: listOf()
             val parameterMap = parameter.zipWithNext().toMap()
             val ignoreComments = regularcmd.hasOption("i")
-            return CLIArgs(function, path, language, parameterMap, ignoreComments)
+            return Result.Success(CLIArgs(function, path, language, parameterMap, ignoreComments))
         } catch (e: Exception) {
             println(e.message)
             printHelp()
+            return Result.Error(e.message ?: "", e)
         }
     }
+    return Result.Error("No arguments")
+}
+
+/**
+ * Parses the arguments following the convert command
+ */
+fun parseConvertCommandLine(args: Array<String>): ConvertArgs? {
+    val parser = DefaultParser()
+    try {
+        val cmd = parser.parse(convertOptions, args)
+        val path = cmd.getOptionValue("p")
+        val output = cmd.getOptionValue("o") ?: path
+        val formatName = cmd.getOptionValue("fo")
+        val format = if (formatName == null) null else CaseyFormat.forName(formatName)
+        if (formatName != null && format == null) {
+            println("Unknown format: $formatName")
+            printConvertHelp()
+            return null
+        }
+        return ConvertArgs(Paths.get(path), Paths.get(output), format)
+    } catch (e: Exception) {
+        println(e.message)
+        printConvertHelp()
+    }
     return null
 }
 
+private fun printConvertHelp() {
+    val formatter = HelpFormatter()
+    formatter.printHelp(
+            100,
+            "CaseyCOMPILER $CONVERT_COMMAND",
+            "",
+            convertOptions,
+            "",
+            true
+    )
+}
+
 private fun printHelp() {
     val formatter = HelpFormatter()
     val header =
@@ -115,6 +173,40 @@ private fun initRegularOptions(): Options {
     return options
 }
 
+private fun initConvertOptions(): Options {
+    val options = Options()
+
+    val path = Option.builder("p")
+            .longOpt("path")
+            .hasArg()
+            .argName("../../xyz.casey")
+            .required()
+            .desc("The path to the .casey file to be converted")
+            .build()
+
+    val output = Option.builder("o")
+            .longOpt("output")
+            .hasArg()
+            .argName("../../xyz.casey")
+            .desc("The path of the converted .casey file, the file itself is converted by default")
+            .build()
+
+    val format = Option.builder("fo")
+            .longOpt("format")
+            .hasArg()
+            .argName("name")
+            .desc("The format the file should be converted to (" +
+                    CaseyFormat.values().joinToString() + "), the other format than the current one by default"
+            )
+            .build()
+
+    options.addOption(path)
+    options.addOption(output)
+    options.addOption(format)
+
+    return options
+}
+
 private fun initHelpOptions(): Options {
     val options = Options()
 
@@ -0,0 +1,28 @@
+package sharknoon.casey.compiler.general.cli
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import sharknoon.casey.compiler.general.parser.CaseyFormat
+import java.nio.file.Path
+
+data class ConvertArgs(
+        //The .casey file to be converted
+        val path: Path,
+        //The file to be written
+        val output: Path,
+        //The format to be converted to, null for the other format than the one of the file
+        val format: CaseyFormat?)
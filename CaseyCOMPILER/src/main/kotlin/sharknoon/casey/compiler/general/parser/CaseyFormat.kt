@@ -0,0 +1,109 @@
+package sharknoon.casey.compiler.general.parser
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.smile.*
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import java.io.InputStream
+import java.nio.file.*
+
+/**
+ * The encodings of a .casey file, the format of a file is detected by its header
+ */
+enum class CaseyFormat {
+    /**
+     * The readable JSON, written by default
+     */
+    JSON {
+        override fun createMapper(): ObjectMapper = ObjectMapper().registerKotlinModule()
+    },
+    /**
+     * The binary Smile encoding of the same JSON, the repeated property names and short texts (e.g. item names and
+     * block ids) are written once and referred to by their index in a string table
+     */
+    SMILE {
+        override fun createMapper(): ObjectMapper {
+            val factory = SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build()
+            return ObjectMapper(factory).registerKotlinModule()
+        }
+    };
+
+    /**
+     * The mapper reading and writing this format, shared by all compilations
+     */
+    val mapper: ObjectMapper by lazy { createMapper() }
+
+    protected abstract fun createMapper(): ObjectMapper
+
+    companion object {
+        //Every Smile document starts with ":)\n"
+        private val SMILE_HEADER = byteArrayOf(0x3A, 0x29, 0x0A)
+
+        /**
+         * Detects the format of a .casey file by its first bytes
+         *
+         * @param path The .casey file
+         * @return The format of the file
+         */
+        fun detect(path: Path): CaseyFormat = Files.newInputStream(path).use { detect(it) }
+
+        fun detect(input: InputStream): CaseyFormat {
+            val header = input.readNBytes(SMILE_HEADER.size)
+            return if (header.contentEquals(SMILE_HEADER)) SMILE else JSON
+        }
+
+        fun forName(name: String): CaseyFormat? = values().find { it.name.equals(name, ignoreCase = true) }
+    }
+}
+
+/**
+ * Converts a .casey file into another format, the content is taken over as it is, including the properties the
+ * compiler doesn't need (e.g. the positions of the blocks)
+ *
+ * @param source The .casey file to be converted
+ * @param target The file to be written, may be the same as the source
+ * @param format The format of the target or null for the other format than the one of the source
+ * @return True, if the file has been converted successfully
+ */
+fun convertCasey(source: Path, target: Path, format: CaseyFormat? = null): Boolean {
+    if (!Files.exists(source)) {
+        System.err.println("Could not find file: $source")
+        return false
+    }
+    try {
+        val sourceFormat = CaseyFormat.detect(source)
+        val targetFormat = format ?: if (sourceFormat == CaseyFormat.JSON) CaseyFormat.SMILE else CaseyFormat.JSON
+        val tree = Files.newInputStream(source).use { sourceFormat.mapper.readTree(it) }
+        val mapper = targetFormat.mapper
+        val bytes = if (targetFormat == CaseyFormat.JSON) {
+            mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(tree)
+        } else {
+            mapper.writeValueAsBytes(tree)
+        }
+        target.toAbsolutePath().parent?.let { Files.createDirectories(it) }
+        Files.write(target, bytes)
+        println("Converted $source ($sourceFormat) to $target ($targetFormat)")
+        return true
+    } catch (e: Exception) {
+        System.err.println("Could not convert file: $e")
+    }
+    return false
+}
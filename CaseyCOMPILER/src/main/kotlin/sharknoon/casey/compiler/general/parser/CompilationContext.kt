@@ -0,0 +1,78 @@
+package sharknoon.casey.compiler.general.parser
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.beans.*
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import sharknoon.casey.compiler.java.generator.item.GeneratedFiles
+import java.util.*
+
+/**
+ * Everything one compilation knows about its project, created by the parser and handed to the generation and the
+ * compilation. The lookup tables are never changed after the parsing, so that a process can compile many projects at
+ * the same time, every compilation with its own context.
+ */
+class CompilationContext internal constructor(val args: CLIArgs, val project: Item) {
+
+    private val items = HashMap<String, Item>()
+    //Identity, because two items with the same name and children are equal, e.g. the variables of two functions
+    private val names = IdentityHashMap<Item, String>()
+    private val blocks = HashMap<UUID, Block>()
+    private val staticVariables = Collections.newSetFromMap(IdentityHashMap<Item, Boolean>())
+    private val staticFunctions = Collections.newSetFromMap(IdentityHashMap<Item, Boolean>())
+
+    /**
+     * The files written by the generation of this compilation
+     */
+    internal val files: GeneratedFiles by lazy { GeneratedFiles(project, args.basePath.resolve(project.name)) }
+
+    init {
+        buildNameDirectories(project, null, "")
+    }
+
+    fun getItem(name: String): Item? = items[name]
+
+    fun getItemFullName(item: Item): String? = names[item]
+
+    fun getBlock(id: UUID): Block? = blocks[id]
+
+    fun isValidItemName(name: String): Boolean = items.containsKey(name)
+
+    fun isStaticVariable(item: Item): Boolean = staticVariables.contains(item)
+
+    fun isStaticFunction(item: Item): Boolean = staticFunctions.contains(item)
+
+    private fun buildNameDirectories(i: Item, p: Item?, currentPath: String) {
+        val newCurrentPath = if (currentPath.isEmpty()) i.name else currentPath + "." + i.name
+        items[newCurrentPath] = i
+        names[i] = newCurrentPath
+        if (p != null && p.item === ItemType.PACKAGE) {
+            if (i.item === ItemType.VARIABLE) {
+                staticVariables.add(i)
+            } else if (i.item === ItemType.FUNCTION) {
+                staticFunctions.add(i)
+            }
+        }
+        for (c in i.children) {
+            buildNameDirectories(c, i, newCurrentPath)
+        }
+        for (block in i.blocks) {
+            blocks[block.blockid] = block
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package sharknoon.casey.compiler.general.parser.beans
 
 import java.util.*
-import kotlin.system.exitProcess
 
 /*
  * Copyright 2018 Shark Industries.
@@ -48,18 +47,6 @@ data class Item(
     }
 }
 
-private val START_BLOCKS = mutableMapOf<Item, Block>()
 val Item.startBlock: Block
-    get() {
-        if (START_BLOCKS.containsKey(this)) {
-            return START_BLOCKS.computeIfAbsent(this) { Block(UUID.randomUUID()) }
-        }
-        for (block in this.blocks) {
-            if (block.blocktype == Block.BlockType.START) {
-                START_BLOCKS[this] = block
-                return block
-            }
-        }
-        System.err.println("No start block for item $this")
-        exitProcess(2)
-    }
\ No newline at end of file
+    get() = blocks.firstOrNull { it.blocktype == Block.BlockType.START }
+            ?: throw IllegalStateException("No start block for item $this")
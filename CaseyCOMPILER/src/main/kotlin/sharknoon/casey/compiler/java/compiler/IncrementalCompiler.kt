@@ -0,0 +1,257 @@
+package sharknoon.casey.compiler.java.compiler
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*
+import java.net.URI
+import java.nio.file.*
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.util.stream.Collectors
+import javax.tools.*
+
+//The compiled classes of the projects, kept between the compilations inside a long-living process
+private val PROJECTS = mutableMapOf<Path, CompiledProject>()
+
+private class CompiledProject {
+    //The sources at their last successful compilation
+    val sources = mutableMapOf<Path, CompiledSource>()
+    //The binary class names and the bytes of the classes
+    val classes = mutableMapOf<String, ByteArray>()
+    //The binary class names and the sources referring to them
+    val dependents = mutableMapOf<String, MutableSet<Path>>()
+
+    fun remove(source: Path) {
+        val compiledSource = sources.remove(source) ?: return
+        for (className in compiledSource.classes) {
+            classes.remove(className)
+        }
+        for (reference in compiledSource.references) {
+            dependents[reference]?.remove(source)
+        }
+    }
+}
+
+private class CompiledSource(
+        var lastModified: FileTime,
+        val hash: String,
+        val classes: Set<String>,
+        val references: Set<String>)
+
+/**
+ * Compiles all sources of a project, but only the sources, which changed since the last compilation and the sources
+ * referring to their classes are given to the Java-Compiler, the classes of all other sources are taken from the
+ * memory. The classes are also written next to their sources, so that they can be executed.
+ *
+ * @param compiler The Java-Compiler
+ * @param fileManager The file manager of the Java-Compiler, only to be used by one compilation at a time
+ * @param basePath The folder the packages of the classes start in
+ * @param projectFolder The folder of the project inside the base path
+ * @return True, if the project has been compiled successfully
+ */
+internal fun compileIncremental(compiler: JavaCompiler, fileManager: StandardJavaFileManager, basePath: Path,
+                                projectFolder: Path): Boolean {
+    val folder = projectFolder.toAbsolutePath().normalize()
+    val project = PROJECTS.getOrPut(folder) { CompiledProject() }
+    val sources = Files.walk(folder).use { paths ->
+        paths.filter { it.toString().endsWith(".java") }
+                .map { it.toAbsolutePath().normalize() }
+                .collect(Collectors.toSet())
+    }
+
+    val changedSources = mutableMapOf<Path, CompiledSource>()
+    for (source in sources) {
+        val compiledSource = project.sources[source]
+        val lastModified = Files.getLastModifiedTime(source)
+        if (compiledSource != null && compiledSource.lastModified == lastModified) {
+            continue
+        }
+        val hash = hash(Files.readAllBytes(source))
+        if (compiledSource != null && compiledSource.hash == hash) {
+            compiledSource.lastModified = lastModified
+            continue
+        }
+        changedSources[source] = CompiledSource(lastModified, hash, setOf(), setOf())
+    }
+    val removedSources = project.sources.keys.filter { !sources.contains(it) }
+
+    //The sources referring to a changed or removed class may not compile anymore or need another signature
+    val sourcesToCompile = changedSources.keys.toMutableSet()
+    for (source in changedSources.keys + removedSources) {
+        for (className in project.sources[source]?.classes ?: setOf()) {
+            project.dependents[className]?.filterTo(sourcesToCompile) { sources.contains(it) }
+        }
+    }
+    for (source in removedSources) {
+        deleteClassFiles(basePath, project.sources[source]?.classes ?: setOf())
+        project.remove(source)
+    }
+    for (source in sourcesToCompile) {
+        //Without its old classes in the memory, the source is compiled again, even if this compilation fails
+        changedSources.getOrPut(source) { project.sources.getValue(source) }
+        project.remove(source)
+    }
+
+    if (sourcesToCompile.isNotEmpty()) {
+        val memoryFileManager = MemoryFileManager(fileManager, project.classes)
+        fileManager.setLocation(StandardLocation.CLASS_PATH, listOf())
+        val compilationUnits = fileManager.getJavaFileObjectsFromFiles(sourcesToCompile.map { it.toFile() })
+        val task = compiler.getTask(null, memoryFileManager, null, listOf(), null, compilationUnits)
+        if (!task.call()) {
+            return false
+        }
+
+        val classesOfSources = mutableMapOf<Path, MutableSet<String>>()
+        for (classFile in memoryFileManager.outputs) {
+            project.classes[classFile.className] = classFile.bytes
+            val source = Paths.get(classFile.source ?: continue).toAbsolutePath().normalize()
+            classesOfSources.getOrPut(source) { mutableSetOf() }.add(classFile.className)
+        }
+        for (source in sourcesToCompile) {
+            val classes = classesOfSources[source] ?: mutableSetOf()
+            val references = classes
+                    .flatMap { getReferencedClasses(project.classes.getValue(it)) }
+                    .filterTo(mutableSetOf()) { project.classes.containsKey(it) && !classes.contains(it) }
+            val changedSource = changedSources.getValue(source)
+            project.sources[source] = CompiledSource(changedSource.lastModified, changedSource.hash, classes, references)
+            for (reference in references) {
+                project.dependents.getOrPut(reference) { mutableSetOf() }.add(source)
+            }
+        }
+    }
+    writeClassFiles(basePath, project.classes)
+    return true
+}
+
+/**
+ * Writes the classes, which are missing or different on the disk
+ */
+private fun writeClassFiles(basePath: Path, classes: Map<String, ByteArray>) {
+    for ((className, bytes) in classes) {
+        val classFile = getClassFile(basePath, className)
+        if (Files.exists(classFile) && Files.readAllBytes(classFile).contentEquals(bytes)) {
+            continue
+        }
+        Files.createDirectories(classFile.parent)
+        Files.write(classFile, bytes)
+    }
+}
+
+private fun deleteClassFiles(basePath: Path, classes: Set<String>) {
+    for (className in classes) {
+        Files.deleteIfExists(getClassFile(basePath, className))
+    }
+}
+
+private fun getClassFile(basePath: Path, className: String): Path =
+        basePath.resolve(className.replace('.', File.separatorChar) + ".class")
+
+/**
+ * Reads the names of all classes mentioned in the constant pool of a class file (as class or inside of descriptors)
+ *
+ * @param bytes The bytes of the class file
+ * @return The binary names of the classes
+ */
+private fun getReferencedClasses(bytes: ByteArray): Set<String> {
+    val input = DataInputStream(ByteArrayInputStream(bytes))
+    //magic, minor_version, major_version
+    input.skipBytes(8)
+    val constantPoolCount = input.readUnsignedShort()
+    val names = mutableSetOf<String>()
+    var index = 1
+    while (index < constantPoolCount) {
+        when (input.readUnsignedByte()) {
+            1 -> {
+                val utf8 = input.readUTF()
+                //Class names are internal names (a/b/C) or descriptors (La/b/C;)
+                if (utf8.contains('/')) {
+                    DESCRIPTOR_CLASS.findAll(utf8).mapTo(names) { it.groupValues[1] }
+                    if (!utf8.contains(';') && !utf8.contains('(')) {
+                        names.add(utf8)
+                    }
+                }
+            }
+            7, 8, 16, 19, 20 -> input.skipBytes(2)
+            15 -> input.skipBytes(3)
+            3, 4, 9, 10, 11, 12, 17, 18 -> input.skipBytes(4)
+            5, 6 -> {
+                input.skipBytes(8)
+                //Longs and doubles take two entries
+                index++
+            }
+            else -> return names.mapTo(mutableSetOf()) { it.replace('/', '.') }
+        }
+        index++
+    }
+    return names.mapTo(mutableSetOf()) { it.replace('/', '.') }
+}
+
+private val DESCRIPTOR_CLASS = Regex("L([^;<>()]+);")
+
+private fun hash(bytes: ByteArray): String =
+        MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+
+/**
+ * Keeps the compiled classes in the memory and offers the classes of the previous compilations on the class path
+ */
+private class MemoryFileManager(fileManager: StandardJavaFileManager, private val classes: Map<String, ByteArray>)
+    : ForwardingJavaFileManager<StandardJavaFileManager>(fileManager) {
+
+    val outputs = mutableListOf<MemoryClassFile>()
+
+    override fun list(location: JavaFileManager.Location, packageName: String, kinds: Set<JavaFileObject.Kind>,
+                      recurse: Boolean): Iterable<JavaFileObject> {
+        val files = super.list(location, packageName, kinds, recurse)
+        if (location != StandardLocation.CLASS_PATH || !kinds.contains(JavaFileObject.Kind.CLASS)) {
+            return files
+        }
+        val classFiles = classes
+                .filterKeys {
+                    val classPackage = it.substringBeforeLast('.', "")
+                    classPackage == packageName || recurse && classPackage.startsWith("$packageName.")
+                }
+                .map { (className, bytes) -> MemoryClassFile(className, null, bytes) }
+        return files + classFiles
+    }
+
+    override fun inferBinaryName(location: JavaFileManager.Location, file: JavaFileObject): String? =
+            if (file is MemoryClassFile) file.className else super.inferBinaryName(location, file)
+
+    override fun getJavaFileForOutput(location: JavaFileManager.Location, className: String,
+                                      kind: JavaFileObject.Kind, sibling: FileObject?): JavaFileObject {
+        if (kind != JavaFileObject.Kind.CLASS) {
+            return super.getJavaFileForOutput(location, className, kind, sibling)
+        }
+        val classFile = MemoryClassFile(className, sibling?.toUri(), ByteArray(0))
+        outputs.add(classFile)
+        return classFile
+    }
+}
+
+private class MemoryClassFile(val className: String, val source: URI?, var bytes: ByteArray)
+    : SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + ".class"),
+        JavaFileObject.Kind.CLASS) {
+
+    override fun openInputStream(): InputStream = ByteArrayInputStream(bytes)
+
+    override fun openOutputStream(): OutputStream = object : ByteArrayOutputStream() {
+        override fun close() {
+            super.close()
+            bytes = toByteArray()
+        }
+    }
+}
@@ -18,8 +18,9 @@ package sharknoon.casey.compiler.java.compiler
 
 import sharknoon.casey.compiler.general.cli.CLIArgs
 import java.io.IOException
+import java.nio.charset.StandardCharsets
 import java.nio.file.*
-import javax.tools.ToolProvider
+import javax.tools.*
 
 private val javacPath: Path? =
         try {
@@ -42,27 +43,51 @@ private val javacPath: Path? =
             null
         }
 
+//The integrated compiler and its file manager are kept, so that following compilations don't need to load them again
+private val systemJavaCompiler: JavaCompiler? by lazy { ToolProvider.getSystemJavaCompiler() }
+private val standardFileManager: StandardJavaFileManager? by lazy {
+    systemJavaCompiler?.getStandardFileManager(null, null, StandardCharsets.UTF_8)
+}
+
+/**
+ * Loads the integrated Java-Compiler in advance
+ */
+fun warmUpJavaCompiler() {
+    if (standardFileManager == null) {
+        System.err.println("No integrated Java-Compiler available, falling back to javac")
+    }
+}
 
 fun compile(args: CLIArgs): Boolean {
     try {
-        val classpath = args.basePath.toAbsolutePath().toString()
-        val mainClassJavaFile = args.functionPath.toAbsolutePath().toString()
-        return runOnJavaCompiler(classpath, mainClassJavaFile) == 0
+        val projectFolder = args.basePath.resolve(args.function.substringBefore('.'))
+        return runOnJavaCompiler(args.basePath, projectFolder, args.functionPath) == 0
     } catch (e: Exception) {
         System.err.println("Compiler error: $e")
         e.printStackTrace(System.err)
     }
 
-    System.err.println("Could not find a Compiler, please install the Java-JDK 10 or newer")
+    System.err.println("Could not find a Compiler, please install the Java-JDK 11 or newer")
     return false
 }
 
-private fun runOnJavaCompiler(classPath: String, mainClassJavaFile: String): Int {
-    //First try, find javac and execute it
+private fun runOnJavaCompiler(basePath: Path, projectFolder: Path, mainClassJavaFile: Path): Int {
+    //First try, use the integrated compiler tools, they are already loaded in this process and only compile the
+    //changed sources
+    val compiler = systemJavaCompiler
+    val fileManager = standardFileManager
+    if (compiler != null && fileManager != null) {
+        synchronized(fileManager) {
+            return if (compileIncremental(compiler, fileManager, basePath, projectFolder)) 0 else 1
+        }
+    }
+    //Second try, find javac and execute it
     if (javacPath != null) {
         try {
             val javacPath = javacPath.toAbsolutePath().toString()
-            val builder = ProcessBuilder(javacPath, "-cp", classPath, mainClassJavaFile)
+            val classPath = basePath.toAbsolutePath().toString()
+            val mainClassFile = mainClassJavaFile.toAbsolutePath().toString()
+            val builder = ProcessBuilder(javacPath, "-cp", classPath, mainClassFile)
             val process = builder.start()
             process.waitFor()
             return process.exitValue()
@@ -71,9 +96,7 @@ private fun runOnJavaCompiler(classPath: String, mainClassJavaFile: String): Int
         }
 
     }
-    //Second try, use the integrated compiler tools
-    val compiler = ToolProvider.getSystemJavaCompiler()
-    return compiler?.run(null, null, null, "-cp", classPath, mainClassJavaFile) ?: -1
+    return -1
 }
 
 private fun checkJavaHomeProperty(): Path? {
@@ -16,23 +16,23 @@ package sharknoon.casey.compiler.java.generator
  * limitations under the License.
  */
 
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.general.parser.beans.Item.ItemType.*
 import sharknoon.casey.compiler.java.generator.item.*
 import java.nio.file.*
 
-fun generate(args: CLIArgs, item: Item): Boolean {
-    return generate(args, Paths.get(""), item)
+fun generate(context: CompilationContext, item: Item): Boolean {
+    return generate(context, Paths.get(""), item)
 }
 
-fun generate(args: CLIArgs, currentPath: Path, item: Item): Boolean {
+fun generate(context: CompilationContext, currentPath: Path, item: Item): Boolean {
     return when (item.item) {
-        PROJECT -> acceptProject(args, currentPath, item)
-        PACKAGE -> acceptPackage(args, currentPath, item)
-        CLASS -> acceptClass(args, currentPath, item)
-        FUNCTION -> acceptFunction(args, currentPath, item)
-        VARIABLE -> acceptVariable(args, currentPath, item)
+        PROJECT -> acceptProject(context, currentPath, item)
+        PACKAGE -> acceptPackage(context, currentPath, item)
+        CLASS -> acceptClass(context, currentPath, item)
+        FUNCTION -> acceptFunction(context, currentPath, item)
+        VARIABLE -> acceptVariable(context, currentPath, item)
         PARAMETER -> {
             System.err.println("Parameters not allowed outside of functions")
             false
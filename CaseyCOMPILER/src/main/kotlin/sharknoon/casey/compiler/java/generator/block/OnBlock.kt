@@ -2,17 +2,16 @@ package sharknoon.casey.compiler.java.generator.block
 
 import com.squareup.javapoet.*
 import sharknoon.casey.compiler.general.*
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.*
 import sharknoon.casey.compiler.general.parser.beans.Block.BlockType.*
-import sharknoon.casey.compiler.general.parser.getItem
 import sharknoon.casey.compiler.java.generator.item.*
 import sharknoon.casey.compiler.java.generator.statement.acceptStatement
 import java.util.*
 
 private val EMPTY_CODE_BLOCK = CodeBlock.builder().build()
 
-fun acceptFunctionBlocks(args: CLIArgs, function: Item, startBlock: Block): CodeBlock? {
+fun acceptFunctionBlocks(context: CompilationContext, function: Item, startBlock: Block): CodeBlock? {
     val builder = CodeBlock.builder()
     if (startBlock.blocktype != START) {
         System.err.println("The start of this function is not null ($startBlock)")
@@ -21,34 +20,34 @@ fun acceptFunctionBlocks(args: CLIArgs, function: Item, startBlock: Block): Code
 
     val skeleton = getSkeleton(function) ?: return null
     for (subSkeleton in skeleton.skeletons) {
-        val codeBlock = acceptSkeleton(args, subSkeleton)
+        val codeBlock = acceptSkeleton(context, subSkeleton)
         builder.add(codeBlock)
     }
 
     return builder.build()
 }
 
-private fun acceptSkeleton(args: CLIArgs, skeleton: SubSkeleton): CodeBlock? = when (skeleton) {
-    is SingleBlock -> onSingleBlock(args, skeleton)
-    is Decision -> onDecision(args, skeleton)
-    is Loop -> onLoop(args, skeleton)
+private fun acceptSkeleton(context: CompilationContext, skeleton: SubSkeleton): CodeBlock? = when (skeleton) {
+    is SingleBlock -> onSingleBlock(context, skeleton)
+    is Decision -> onDecision(context, skeleton)
+    is Loop -> onLoop(context, skeleton)
     else -> null
 }
 
-private fun onSingleBlock(args: CLIArgs, skeleton: SingleBlock): CodeBlock? {
+private fun onSingleBlock(context: CompilationContext, skeleton: SingleBlock): CodeBlock? {
     return when (skeleton.block.blocktype) {
         START -> EMPTY_CODE_BLOCK
-        END -> onEndBlock(args, skeleton.block) ?: return null
-        //DECISION -> onDecision(args, skeleton) ?: return null
-        CALL -> onCallBlock(args, skeleton.block) ?: return null
-        ASSIGNMENT -> onAssignmentBlock(args, skeleton.block) ?: return null
-        INPUT -> onInputBlock(skeleton.block) ?: return null
-        OUTPUT -> onOutputBlock(args, skeleton.block) ?: return null
+        END -> onEndBlock(context, skeleton.block) ?: return null
+        //DECISION -> onDecision(context, skeleton) ?: return null
+        CALL -> onCallBlock(context, skeleton.block) ?: return null
+        ASSIGNMENT -> onAssignmentBlock(context, skeleton.block) ?: return null
+        INPUT -> onInputBlock(context, skeleton.block) ?: return null
+        OUTPUT -> onOutputBlock(context, skeleton.block) ?: return null
         else -> null
     }
 }
 
-private fun onDecision(args: CLIArgs, decision: Decision): CodeBlock? {
+private fun onDecision(context: CompilationContext, decision: Decision): CodeBlock? {
     val decisionBlock = decision.condition
     val trueBlocks = decision.trueSkeletons
     val falseBlocks = decision.falseSkeletons
@@ -64,7 +63,7 @@ private fun onDecision(args: CLIArgs, decision: Decision): CodeBlock? {
         return null
     }
 
-    val conditionCodeBlock = acceptStatement(args, conditionStatement)
+    val conditionCodeBlock = acceptStatement(context, conditionStatement)
     if (conditionCodeBlock == null) {
         System.err.println("DecisionBlock $decisionBlock has no condition")
         return null
@@ -72,7 +71,7 @@ private fun onDecision(args: CLIArgs, decision: Decision): CodeBlock? {
 
     val trueCodeBlock = CodeBlock.builder()
     for (trueBlock in trueBlocks) {
-        val block = acceptSkeleton(args, trueBlock)
+        val block = acceptSkeleton(context, trueBlock)
         if (block == null) {
             System.err.println("Error in the true-Condition of this condition-block $decisionBlock")
             return null
@@ -82,7 +81,7 @@ private fun onDecision(args: CLIArgs, decision: Decision): CodeBlock? {
 
     val falseCodeBlock = CodeBlock.builder()
     for (falseBlock in falseBlocks) {
-        val block = acceptSkeleton(args, falseBlock)
+        val block = acceptSkeleton(context, falseBlock)
         if (block == null) {
             System.err.println("Error in the false-Condition of this condition-block $decisionBlock")
             return null
@@ -109,7 +108,7 @@ private fun onDecision(args: CLIArgs, decision: Decision): CodeBlock? {
                 .build()
 }
 
-private fun onLoop(args: CLIArgs, loop: Loop): CodeBlock? {
+private fun onLoop(context: CompilationContext, loop: Loop): CodeBlock? {
     val decisionBlock = loop.condition
     val beforeCondition = loop.beforeCondition
     val afterCondition = loop.afterCondition
@@ -125,11 +124,13 @@ private fun onLoop(args: CLIArgs, loop: Loop): CodeBlock? {
         return null
     }
 
-    val conditionCodeBlock = acceptStatement(args, conditionStatement)
-    if (conditionCodeBlock == null) {
+    val statementCodeBlock = acceptStatement(context, conditionStatement)
+    if (statementCodeBlock == null) {
         System.err.println("DecisionBlock $decisionBlock has no condition")
         return null
     }
+    //The loop continues on the false arm of the decision block
+    val conditionCodeBlock = if (loop.negated) CodeBlock.of("!(\$L)", statementCodeBlock) else statementCodeBlock
 
     if (beforeCondition.isEmpty() && afterCondition.isEmpty()) {
         System.err.println("Both conditions of the loop with the Decisionblock $decisionBlock are empty")
@@ -138,7 +139,7 @@ private fun onLoop(args: CLIArgs, loop: Loop): CodeBlock? {
 
     val beforeCodeBlock = CodeBlock.builder()
     for (beforeBlock in beforeCondition) {
-        val block = acceptSkeleton(args, beforeBlock)
+        val block = acceptSkeleton(context, beforeBlock)
         if (block == null) {
             System.err.println("Error in the Loop before the Decisionblock $decisionBlock")
             return null
@@ -148,7 +149,7 @@ private fun onLoop(args: CLIArgs, loop: Loop): CodeBlock? {
 
     val afterCodeBlock = CodeBlock.builder()
     for (afterBlock in afterCondition) {
-        val block = acceptSkeleton(args, afterBlock)
+        val block = acceptSkeleton(context, afterBlock)
         if (block == null) {
             System.err.println("Error in the Loop after the Decisionblock $decisionBlock")
             return null
@@ -192,7 +193,7 @@ private fun onLoop(args: CLIArgs, loop: Loop): CodeBlock? {
 //    }
 //    return acceptFunctionBlocks(args, nextBlock)
 //}
-private fun onEndBlock(args: CLIArgs, block: Block): CodeBlock? {
+private fun onEndBlock(context: CompilationContext, block: Block): CodeBlock? {
     val blockcontent = block.blockcontent
     if (blockcontent == null) {
         System.err.println("End Block has no Content")
@@ -202,7 +203,7 @@ private fun onEndBlock(args: CLIArgs, block: Block): CodeBlock? {
             .builder()
             .addStatement("return")
             .build()
-    val returnValue = acceptStatement(args, returnStatement)
+    val returnValue = acceptStatement(context, returnStatement)
     if (returnValue == null) {
         System.err.println("The return statement of block $block is null")
         return null
@@ -213,14 +214,14 @@ private fun onEndBlock(args: CLIArgs, block: Block): CodeBlock? {
             .build()
 }
 
-private fun onCallBlock(args: CLIArgs, block: Block): CodeBlock? {
+private fun onCallBlock(context: CompilationContext, block: Block): CodeBlock? {
     val blockcontent = block.blockcontent
     if (blockcontent == null) {
         System.err.println("The content of the Call-Block is not specified")
         return null
     }
     val callStatement = blockcontent.statement ?: return null
-    val callCode = acceptStatement(args, callStatement)
+    val callCode = acceptStatement(context, callStatement)
     if (callCode == null) {
         System.err.println("The Statement for this Call-Block is null")
         return null
@@ -232,7 +233,7 @@ private fun onCallBlock(args: CLIArgs, block: Block): CodeBlock? {
             .build()
 }
 
-private fun onAssignmentBlock(args: CLIArgs, block: Block): CodeBlock? {
+private fun onAssignmentBlock(context: CompilationContext, block: Block): CodeBlock? {
     val blockcontent = block.blockcontent
     if (blockcontent == null) {
         System.err.println("The Content of this Assignment-Block is empty")
@@ -240,13 +241,13 @@ private fun onAssignmentBlock(args: CLIArgs, block: Block): CodeBlock? {
     }
     val assignmentVariable = blockcontent.variable ?: return null
     val assignmentStatement = blockcontent.statement ?: return null
-    val variable = getItem(assignmentVariable)
+    val variable = context.getItem(assignmentVariable)
     if (variable == null) {
         System.err.println("The Variable of Block $block is not a correct Type $assignmentVariable")
         return null
     }
-    var variableName = getVariableName(variable)
-    val assignmentStatementCodeBlock = acceptStatement(args, assignmentStatement)
+    var variableName = getVariableName(context, variable)
+    val assignmentStatementCodeBlock = acceptStatement(context, assignmentStatement)
     if (assignmentStatementCodeBlock == null) {
         System.err.println("The Assignment of Block $block is not a correct Statement")
         return null
@@ -262,11 +263,11 @@ private fun onAssignmentBlock(args: CLIArgs, block: Block): CodeBlock? {
 }
 
 
-private fun onInputBlock(block: Block): CodeBlock? {
+private fun onInputBlock(context: CompilationContext, block: Block): CodeBlock? {
     val blockcontent = block.blockcontent ?: return null
     val inputVariable = blockcontent.variable ?: return null
-    val variable = getItem(inputVariable) ?: return null
-    val typeName = getTypeName(variable.type ?: "") ?: return null
+    val variable = context.getItem(inputVariable) ?: return null
+    val typeName = getTypeName(context, variable.type ?: "") ?: return null
     var methodName = ""
     val defaultValue: String
     when {
@@ -287,7 +288,7 @@ private fun onInputBlock(block: Block): CodeBlock? {
         }
     }
 
-    val variableName = getVariableName(variable)
+    val variableName = getVariableName(context, variable)
     return CodeBlock
             .builder()
             .beginControlFlow("try")
@@ -300,10 +301,10 @@ private fun onInputBlock(block: Block): CodeBlock? {
             .build()
 }
 
-private fun onOutputBlock(args: CLIArgs, block: Block): CodeBlock? {
+private fun onOutputBlock(context: CompilationContext, block: Block): CodeBlock? {
     val blockcontent = block.blockcontent ?: return null
     val outputStatement = blockcontent.statement ?: return null
-    val outputCodeBlock = acceptStatement(args, outputStatement)
+    val outputCodeBlock = acceptStatement(context, outputStatement)
     if (outputCodeBlock == null) {
         System.err.println("The output value of the Block $block is not a correct Statement")
         return null
@@ -0,0 +1,189 @@
+package sharknoon.casey.compiler.java.generator.item
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import com.squareup.javapoet.JavaFile
+import sharknoon.casey.compiler.general.parser.CompilationContext
+import sharknoon.casey.compiler.general.parser.beans.Item
+import java.nio.charset.StandardCharsets
+import java.nio.file.*
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.stream.Collectors
+
+private val MAPPER = ObjectMapper().registerKotlinModule()
+//The hashes of the items the files were generated from, survives the compilations inside a long-living process
+private val GENERATED_FILES = ConcurrentHashMap<Path, GeneratedFile>()
+//The structure of the projects at their last compilation
+private val STRUCTURE_HASHES = ConcurrentHashMap<Path, String>()
+
+private class GeneratedFile(val hash: String, val lastModified: FileTime)
+
+/**
+ * The files of one generation of a project, the calls of a function only depend on the names, types and places of the
+ * other items, so the files of unchanged items are only generated again if this structure changes
+ *
+ * @param project The project to be generated
+ * @param projectFolder The folder of the project
+ */
+internal class GeneratedFiles(project: Item, projectFolder: Path) {
+
+    private val folder = projectFolder.toAbsolutePath().normalize()
+    //The files belonging to this compilation, every other file in the project folder is stale
+    private val writtenFiles = mutableSetOf<Path>()
+    private val structureHash: String
+    //The classes of callers may not fit to changed functions, even if the source of the callers is still the same
+    private val deleteClasses: Boolean
+
+    init {
+        val structure = StringBuilder()
+        appendStructure(project, structure)
+        structureHash = hash(structure.toString().toByteArray(StandardCharsets.UTF_8))
+        deleteClasses = STRUCTURE_HASHES[folder] != structureHash
+    }
+
+    private fun appendStructure(item: Item, structure: StringBuilder) {
+        structure.append(item.name).append('|')
+                .append(item.item).append('|')
+                .append(item.type).append('|')
+                .append(item.returntype).append('(')
+        for (child in item.children) {
+            appendStructure(child, structure)
+        }
+        structure.append(')')
+    }
+
+    /**
+     * Checks weather the java file of this item is still the one generated from the same content, in this case the
+     * item doesn't need to be generated again
+     *
+     * @param context The context the java file depends on
+     * @param item The class, function or variable
+     * @param currentPath The relative path of the package
+     * @return True, if the file doesn't need to be written
+     */
+    fun isUpToDate(context: CompilationContext, item: Item, currentPath: Path): Boolean {
+        val file = getJavaFilePath(context, item, currentPath)
+        val generatedFile = GENERATED_FILES[file] ?: return false
+        try {
+            if (generatedFile.hash != getItemHash(context, item)
+                    || !Files.exists(file)
+                    || Files.getLastModifiedTime(file) != generatedFile.lastModified) {
+                return false
+            }
+        } catch (e: Exception) {
+            return false
+        }
+        writtenFiles.add(file)
+        return true
+    }
+
+    /**
+     * Writes the java file of this item, the file is only touched if the content differs from the one on the disk, so
+     * that the Java-Compiler can keep the already compiled class
+     *
+     * @param context The context the java file depends on
+     * @param item The class, function or variable
+     * @param currentPath The relative path of the package
+     * @param javaFile The generated java file
+     */
+    fun writeJavaFile(context: CompilationContext, item: Item, currentPath: Path, javaFile: JavaFile) {
+        val file = getJavaFilePath(context, item, currentPath)
+        writeFile(file, javaFile.toString())
+        GENERATED_FILES[file] = GeneratedFile(getItemHash(context, item), Files.getLastModifiedTime(file))
+    }
+
+    /**
+     * Writes a file, if the content differs from the one on the disk
+     *
+     * @param file The file to be written
+     * @param content The content of the file
+     */
+    fun writeFile(file: Path, content: String) {
+        writeFile(file, content.toByteArray(StandardCharsets.UTF_8))
+    }
+
+    /**
+     * Writes a file, if the bytes differ from the ones on the disk
+     *
+     * @param file The file to be written
+     * @param bytes The bytes of the file
+     */
+    fun writeFile(file: Path, bytes: ByteArray) {
+        val normalizedFile = file.toAbsolutePath().normalize()
+        writtenFiles.add(normalizedFile)
+        if (Files.exists(normalizedFile) && Files.readAllBytes(normalizedFile).contentEquals(bytes)) {
+            return
+        }
+        Files.createDirectories(normalizedFile.parent)
+        Files.write(normalizedFile, bytes)
+    }
+
+    /**
+     * Deletes every file of the project, which has not been written by this compilation (e.g. of removed items) and
+     * the compiled classes of it, if the structure of the project changed all compiled classes are deleted
+     */
+    fun deleteStaleFiles() {
+        val files = Files.walk(folder).use { it.collect(Collectors.toList()) }
+        //Deepest first, so that the folders are empty when they are checked
+        for (file in files.asReversed()) {
+            if (Files.isDirectory(file)) {
+                if (file != folder && Files.list(file).use { !it.findAny().isPresent }) {
+                    Files.delete(file)
+                }
+            } else if (!isWrittenFile(file)) {
+                Files.delete(file)
+            }
+        }
+        GENERATED_FILES.keys.removeIf { it.startsWith(folder) && !writtenFiles.contains(it) }
+        STRUCTURE_HASHES[folder] = structureHash
+    }
+
+    private fun isWrittenFile(file: Path): Boolean {
+        if (writtenFiles.contains(file)) {
+            return true
+        }
+        val fileName = file.fileName.toString()
+        if (deleteClasses || !fileName.endsWith(".class")) {
+            return false
+        }
+        //Inner classes are named like Outer$Inner.class
+        val className = fileName.removeSuffix(".class").substringBefore('$')
+        return writtenFiles.contains(file.resolveSibling("$className.java"))
+    }
+
+    private fun getJavaFilePath(context: CompilationContext, item: Item, currentPath: Path): Path =
+            context.args.basePath.resolve(currentPath).resolve(item.name + ".java").toAbsolutePath().normalize()
+
+    private fun getItemHash(context: CompilationContext, item: Item): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(structureHash.toByteArray(StandardCharsets.UTF_8))
+        digest.update(getFullName(context, item).toByteArray(StandardCharsets.UTF_8))
+        digest.update(if (context.args.ignoreComments) 1 else 0)
+        if (isMainMethod(context, item)) {
+            digest.update(context.args.parameters.toString().toByteArray(StandardCharsets.UTF_8))
+        }
+        digest.update(MAPPER.writeValueAsBytes(item))
+        return digest.digest().joinToString("") { "%02x".format(it) }
+    }
+}
+
+private fun hash(bytes: ByteArray): String =
+        MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
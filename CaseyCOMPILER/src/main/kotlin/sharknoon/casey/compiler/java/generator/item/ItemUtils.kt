@@ -2,7 +2,6 @@ package sharknoon.casey.compiler.java.generator.item
 
 import com.squareup.javapoet.*
 import org.jsoup.Jsoup
-import sharknoon.casey.compiler.general.cli.CLIArgs
 import sharknoon.casey.compiler.general.parser.*
 import sharknoon.casey.compiler.general.parser.beans.Block.BlockType
 import sharknoon.casey.compiler.general.parser.beans.Item
@@ -27,12 +26,12 @@ private const val JAVADOC_NEWLINE = "\n"
 /**
  * Extracts the HTML of the item, checks for nulls and encapsulates the body from the comment
  *
- * @param args The CLIArgs to check if comments should be ignored
+ * @param context The context to check if comments should be ignored
  * @param item The item which the comments should be extracted
  * @return The comments or a empty string of a error occurs
  */
-internal fun getJavaDoc(args: CLIArgs, item: Item): String {
-    if (args.ignoreComments) {
+internal fun getJavaDoc(context: CompilationContext, item: Item): String {
+    if (context.args.ignoreComments) {
         return EMPTY
     }
     if (item.comments.isEmpty()) {
@@ -82,22 +81,20 @@ internal fun pathToClassPath(path: Path): String {
 /**
  * Writes a "comments.txt" file with the comments of this item, if this item has comments and comments arent ignored
  *
- * @param args The CLIArgs to check if comments are ignored
+ * @param context The context to check if comments are ignored
  * @param item The Item which comments should be written, typically a project or a package, class, variables and
  * functions are writing the comments inside ítself
  * @param path The path to write the file into
  */
-internal fun writeComments(args: CLIArgs, item: Item, path: Path) {
-    if (args.ignoreComments) {
+internal fun writeComments(context: CompilationContext, item: Item, path: Path) {
+    if (context.args.ignoreComments) {
         return
     }
     try {
-        item.comments
         if (!item.comments.isEmpty()) {
-            Files.write(
+            context.files.writeFile(
                     path.resolve("comments.html"),
-                    item.comments.lines(),
-                    StandardCharsets.UTF_8
+                    item.comments.lines().joinToString(System.lineSeparator(), postfix = System.lineSeparator())
             )
         }
     } catch (e: IOException) {
@@ -109,33 +106,35 @@ internal fun writeComments(args: CLIArgs, item: Item, path: Path) {
 /**
  * Returns the full name of a item (e.g. Project.package.Clazz) or a empty String if this item is isnt registered
  *
+ * @param context The context the item is registered in
  * @param item The item which full name should be returned
  * @return The full name or a empty String
  */
-internal fun getFullName(item: Item): String {
-    val name = getItemFullName(item)
+internal fun getFullName(context: CompilationContext, item: Item): String {
+    val name = context.getItemFullName(item)
     return name ?: EMPTY
 }
 
 /**
  * Checks weather this item was selected via CLI arguments as main method or not
  *
- * @param args The CLIArgs to get the main method
+ * @param context The context to get the main method
  * @param item The item to get its name
  * @return True, if this is the method to start with
  */
-internal fun isMainMethod(args: CLIArgs, item: Item): Boolean {
-    return getFullName(item) == args.function
+internal fun isMainMethod(context: CompilationContext, item: Item): Boolean {
+    return getFullName(context, item) == context.args.function
 }
 
 /**
  * Returns a TypeName for JavaPoet based on my primitive Strings or a empty Optional, if the class was not
  * registered
  *
+ * @param context The context the class is registered in
  * @param typeNameString The full name of the item
  * @return The typename or a empty Optional
  */
-fun getTypeName(typeNameString: String): TypeName? {
+fun getTypeName(context: CompilationContext, typeNameString: String): TypeName? {
     var typeName: TypeName? = null
     var varType: VariableType? = null
     try {
@@ -154,7 +153,7 @@ fun getTypeName(typeNameString: String): TypeName? {
             else -> System.err.println("Could not determine Variable type")
         }
         //Is a class
-        isValidItemName(typeNameString) -> {
+        context.isValidItemName(typeNameString) -> {
             val lastPointIndex = typeNameString.lastIndexOf(".")
             typeName = ClassName.get(
                     typeNameString.substring(0, lastPointIndex),
@@ -171,23 +170,23 @@ fun getTypeName(typeNameString: String): TypeName? {
  * it returns name.name and imports the class, otherwise returns name,
  * IMPORTANT, the brackets needed to be added seperatly
  */
-fun getFunctionName(function: Item): CodeBlock? {
-    return getVariableOrFunctionName(function, { isStaticFunction(it) })
+fun getFunctionName(context: CompilationContext, function: Item): CodeBlock? {
+    return getVariableOrFunctionName(context, function, { context.isStaticFunction(it) })
 }
 
 /**
  * Returns a CodeBlock for a name of a variable. If the variable is static,
  * it returns name.name and imports the class, otherwise returns name
  */
-fun getVariableName(variable: Item): CodeBlock? {
-    return getVariableOrFunctionName(variable, { isStaticVariable(it) })
+fun getVariableName(context: CompilationContext, variable: Item): CodeBlock? {
+    return getVariableOrFunctionName(context, variable, { context.isStaticVariable(it) })
 }
 
-private fun getVariableOrFunctionName(item: Item, validItemFunction: Function<Item, Boolean>): CodeBlock? {
+private fun getVariableOrFunctionName(context: CompilationContext, item: Item, validItemFunction: Function<Item, Boolean>): CodeBlock? {
     if (validItemFunction.apply(item)) {
-        val typeName = getTypeName(getFullName(item))
+        val typeName = getTypeName(context, getFullName(context, item))
         if (typeName == null) {
-            System.err.println("TypeName for " + item.item.toString().lowercase() + " " + getFullName(item) + " could not be determined")
+            System.err.println("TypeName for " + item.item.toString().lowercase() + " " + getFullName(context, item) + " could not be determined")
             return null
         }
         return CodeBlock.of("\$T." + item.name, typeName)
@@ -222,36 +221,36 @@ internal fun getFieldInitializer(type: TypeName): CodeBlock {
 /**
  * Returns a function for a item
  *
- * @param args         The args to specify, weather comments should be added or not
+ * @param context      The context to specify, weather comments should be added or not
  * @param functionItem The item to be converted
  * @param isStatic     true if this item is not in a class, false oif it is in a package
  * @return A optional if methodspec
  */
-internal fun getFunction(args: CLIArgs, functionItem: Item, isStatic: Boolean): MethodSpec? {
+internal fun getFunction(context: CompilationContext, functionItem: Item, isStatic: Boolean): MethodSpec? {
     if (ItemType.FUNCTION != functionItem.item) {
         return null
     }
     if (functionItem.returntype == null) {
-        System.err.println("Returntype of function not specified " + getFullName(functionItem))
+        System.err.println("Returntype of function not specified " + getFullName(context, functionItem))
         return null
     }
 
     val modifiers = if (isStatic) FUNCTION_ALONE_MODIFIERS else FUNCTION_IN_CLASS_MODIFIERS
     val returnTypeNameString = functionItem.returntype
-    val returnTypeName = getTypeName(returnTypeNameString ?: EMPTY) ?: return null
+    val returnTypeName = getTypeName(context, returnTypeNameString ?: EMPTY) ?: return null
     val functionName = functionItem.name
-    val parameters = getParameters(functionItem)
-    val parameterJavaDoc = getParameterJavaDoc(args, functionItem)
-    val variables = getVariables(args, functionItem)
+    val parameters = getParameters(context, functionItem)
+    val parameterJavaDoc = getParameterJavaDoc(context, functionItem)
+    val variables = getVariables(context, functionItem)
     val variablesAndBlocksBuilder = CodeBlock.builder()
     for (variable in variables) {
         variablesAndBlocksBuilder.add(variable)
     }
     for (block in functionItem.blocks) {
         if (block.blocktype === BlockType.START) {
-            val codeBlock = acceptFunctionBlocks(args, functionItem, block)
+            val codeBlock = acceptFunctionBlocks(context, functionItem, block)
             if (codeBlock == null) {
-                System.err.println("Something in the function " + getFullName(functionItem) + " went wrong")
+                System.err.println("Something in the function " + getFullName(context, functionItem) + " went wrong")
                 return null
             }
             variablesAndBlocksBuilder.add(codeBlock)
@@ -262,7 +261,7 @@ internal fun getFunction(args: CLIArgs, functionItem: Item, isStatic: Boolean):
 
     try {
         return MethodSpec.methodBuilder(functionName)
-                .addJavadoc(getJavaDoc(args, functionItem))
+                .addJavadoc(getJavaDoc(context, functionItem))
                 .addJavadoc(parameterJavaDoc)
                 .addModifiers(modifiers)
                 .addParameters(parameters)
@@ -279,20 +278,21 @@ internal fun getFunction(args: CLIArgs, functionItem: Item, isStatic: Boolean):
 /**
  * Returns the parameter of a function as a List of parameterspec
  *
+ * @param context The context the types are registered in
  * @param functionItem The item which parameters should be converted
  * @return The list of parameters
  */
-private fun getParameters(functionItem: Item): List<ParameterSpec> {
+private fun getParameters(context: CompilationContext, functionItem: Item): List<ParameterSpec> {
     val parameters = mutableListOf<ParameterSpec>()
     for (child in functionItem.children) {
         if (ItemType.PARAMETER != child.item) {
             continue
         }
         if (child.type == null) {
-            System.err.println("Could not determine type for parameter " + getFullName(child))
+            System.err.println("Could not determine type for parameter " + getFullName(context, child))
             return parameters
         }
-        val parameterTypeName = getTypeName(child.type ?: EMPTY) ?: return listOf()
+        val parameterTypeName = getTypeName(context, child.type ?: EMPTY) ?: return listOf()
         val parameterName = child.name
 
         val parameter = ParameterSpec.builder(parameterTypeName, parameterName)
@@ -302,8 +302,8 @@ private fun getParameters(functionItem: Item): List<ParameterSpec> {
     return parameters
 }
 
-private fun getParameterJavaDoc(args: CLIArgs, item: Item): String {
-    if (args.ignoreComments) {
+private fun getParameterJavaDoc(context: CompilationContext, item: Item): String {
+    if (context.args.ignoreComments) {
         return EMPTY
     }
     val builder = StringBuilder()
@@ -317,29 +317,29 @@ private fun getParameterJavaDoc(args: CLIArgs, item: Item): String {
         builder.append("@param ")
                 .append(child.name)
                 .append(' ')
-                .append(getJavaDoc(args, child))
+                .append(getJavaDoc(context, child))
     }
     return builder.toString()
 }
 
-private fun getVariables(args: CLIArgs, item: Item): List<CodeBlock> {
+private fun getVariables(context: CompilationContext, item: Item): List<CodeBlock> {
     val variables = mutableListOf<CodeBlock>()
     for (child in item.children) {
         if (ItemType.VARIABLE != child.item) {
             continue
         }
         if (child.type == null) {
-            System.err.println("Type of variable not specified: " + getFullName(child))
+            System.err.println("Type of variable not specified: " + getFullName(context, child))
             return variables
         }
 
         val typeNameString = child.type
-        val typeName = getTypeName(typeNameString ?: EMPTY) ?: return listOf()
+        val typeName = getTypeName(context, typeNameString ?: EMPTY) ?: return listOf()
         val className = child.name
 
         try {
             val variable = CodeBlock.builder()
-                    .add(getJavaDocFormatted(getJavaDoc(args, child)))
+                    .add(getJavaDocFormatted(getJavaDoc(context, child)))
                     .addStatement("\$T \$L = \$L", typeName, className, getFieldInitializer(typeName))
                     .build()
             variables.add(variable)
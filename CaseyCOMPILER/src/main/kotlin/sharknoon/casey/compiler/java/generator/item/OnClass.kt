@@ -17,28 +17,31 @@ package sharknoon.casey.compiler.java.generator.item
  */
 
 import com.squareup.javapoet.*
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
 import java.nio.file.Path
 import java.util.*
 import javax.lang.model.element.Modifier.PUBLIC
 
-fun acceptClass(args: CLIArgs, currentPath: Path, item: Item): Boolean {
+fun acceptClass(context: CompilationContext, currentPath: Path, item: Item): Boolean {
+    if (context.files.isUpToDate(context, item, currentPath)) {
+        return true
+    }
     val itemName = item.name
-    val variables = getVariables(args, item) ?: return false
-    val functions = getFunctions(args, item) ?: return false
+    val variables = getVariables(context, item) ?: return false
+    val functions = getFunctions(context, item) ?: return false
 
     try {
         val clazz = TypeSpec.classBuilder(itemName)
                 .addModifiers(PUBLIC)
-                .addJavadoc(getJavaDoc(args, item))
+                .addJavadoc(getJavaDoc(context, item))
                 .addFields(variables)
                 .addMethods(functions)
                 .build()
         val classFile = JavaFile.builder(pathToClassPath(currentPath), clazz)
                 .build()
-        classFile.writeTo(args.basePath)
+        context.files.writeJavaFile(context, item, currentPath, classFile)
     } catch (e: Exception) {
         System.err.println("Error during class creation in $currentPath: $e")
         return false
@@ -47,15 +50,15 @@ fun acceptClass(args: CLIArgs, currentPath: Path, item: Item): Boolean {
     return true
 }
 
-private fun getFunctions(args: CLIArgs, item: Item): List<MethodSpec>? {
+private fun getFunctions(context: CompilationContext, item: Item): List<MethodSpec>? {
     val functions = mutableListOf<MethodSpec>()
     for (child in item.children) {
         if (ItemType.FUNCTION != child.item) {
             continue
         }
-        val function = getFunction(args, child, false)
+        val function = getFunction(context, child, false)
         if (function == null) {
-            System.err.println("Could not create object function " + child.name + " in " + getFullName(item))
+            System.err.println("Could not create object function " + child.name + " in " + getFullName(context, item))
             return null
         }
         functions.add(function)
@@ -63,30 +66,30 @@ private fun getFunctions(args: CLIArgs, item: Item): List<MethodSpec>? {
     return functions
 }
 
-private fun getVariables(args: CLIArgs, item: Item): List<FieldSpec>? {
+private fun getVariables(context: CompilationContext, item: Item): List<FieldSpec>? {
     val variables = ArrayList<FieldSpec>()
     for (child in item.children) {
         if (ItemType.VARIABLE != child.item) {
             continue
         }
         if (child.type == null) {
-            System.err.println("Type of variable of class not specified: " + getFullName(child))
+            System.err.println("Type of variable of class not specified: " + getFullName(context, child))
             return null
         }
 
         val typeNameString = child.type
-        val typeName = getTypeName(typeNameString ?: "") ?: return null
+        val typeName = getTypeName(context, typeNameString ?: "") ?: return null
         val fieldName = child.name
 
         try {
             val variable = FieldSpec.builder(typeName, fieldName)
-                    .addJavadoc(getJavaDoc(args, child))
+                    .addJavadoc(getJavaDoc(context, child))
                     .addModifiers(PUBLIC)
                     .initializer(getFieldInitializer(typeName))
                     .build()
             variables.add(variable)
         } catch (e: Exception) {
-            System.err.println("Could not write class for variable " + getFullName(child) + ": " + e)
+            System.err.println("Could not write class for variable " + getFullName(context, child) + ": " + e)
             return null
         }
 
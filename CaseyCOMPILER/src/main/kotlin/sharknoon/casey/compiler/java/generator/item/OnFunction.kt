@@ -1,7 +1,7 @@
 package sharknoon.casey.compiler.java.generator.item
 
 import com.squareup.javapoet.*
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
 import java.nio.file.Path
@@ -9,18 +9,21 @@ import java.util.stream.*
 import javax.lang.model.element.Modifier.*
 
 
-fun acceptFunction(args: CLIArgs, currentPath: Path, item: Item): Boolean {
-    val function = getFunction(args, item, true)
+fun acceptFunction(context: CompilationContext, currentPath: Path, item: Item): Boolean {
+    if (context.files.isUpToDate(context, item, currentPath)) {
+        return true
+    }
+    val function = getFunction(context, item, true)
     if (function == null) {
-        System.err.println("Could not create static function " + getFullName(item))
+        System.err.println("Could not create static function " + getFullName(context, item))
         return false
     }
     val className = item.name
     val methods = mutableListOf<MethodSpec>()
     methods.add(function)
 
-    if (isMainMethod(args, item)) {
-        val parameters = args.parameters
+    if (isMainMethod(context, item)) {
+        val parameters = context.args.parameters
         val parameterValuesInRightOrder = item.children.stream()
                 .filter { i -> i.item === ItemType.PARAMETER }
                 .map { n ->
@@ -31,7 +34,7 @@ fun acceptFunction(args: CLIArgs, currentPath: Path, item: Item): Boolean {
                         return@map parameters[n.name]
                     } else {
                         System.err.println("Function "
-                                + getFullName(item)
+                                + getFullName(context, item)
                                 + " has wrong parameters actual: ("
                                 + parameters.keys.joinToString(", ")
                                 + ") expected: ("
@@ -65,9 +68,9 @@ fun acceptFunction(args: CLIArgs, currentPath: Path, item: Item): Boolean {
                 .build()
         val varFile = JavaFile.builder(pathToClassPath(currentPath), clazz)
                 .build()
-        varFile.writeTo(args.basePath)
+        context.files.writeJavaFile(context, item, currentPath, varFile)
     } catch (e: Exception) {
-        System.err.println("Could not create function " + getFullName(item) + ": " + e)
+        System.err.println("Could not create function " + getFullName(context, item) + ": " + e)
         return false
     }
 
@@ -17,7 +17,7 @@ package sharknoon.casey.compiler.java.generator.item
  */
 
 
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.java.generator.generate
 import java.nio.file.*
@@ -25,14 +25,14 @@ import java.nio.file.*
 /**
  * Creates a folder for the package
  */
-fun acceptPackage(args: CLIArgs, currentPath: Path, item: Item): Boolean {
+fun acceptPackage(context: CompilationContext, currentPath: Path, item: Item): Boolean {
     try {
         val relativePath = currentPath.resolve(item.name)
-        val fullPackagePath = args.basePath.resolve(relativePath)
+        val fullPackagePath = context.args.basePath.resolve(relativePath)
         Files.createDirectories(fullPackagePath)
-        writeComments(args, item, fullPackagePath)
+        writeComments(context, item, fullPackagePath)
         for (child in item.children) {
-            val success = generate(args, relativePath, child)
+            val success = generate(context, relativePath, child)
             if (!success) {
                 return false
             }
@@ -16,19 +16,17 @@ package sharknoon.casey.compiler.java.generator.item
  * limitations under the License.
  */
 
-import org.apache.commons.io.FileUtils
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
 import sharknoon.casey.compiler.java.generator.generate
-import java.nio.charset.StandardCharsets
 import java.nio.file.*
 
 /**
- * Creates a folder for the project
+ * Creates a folder for the project, the files of unchanged items are kept and the files of removed items are deleted
  */
 
-fun acceptProject(args: CLIArgs, currentPath: Path, item: Item): Boolean {
+fun acceptProject(context: CompilationContext, currentPath: Path, item: Item): Boolean {
     try {
         if (item.item !== ItemType.PROJECT) {
             System.err.println("The top item is not a project")
@@ -38,23 +36,17 @@ fun acceptProject(args: CLIArgs, currentPath: Path, item: Item): Boolean {
             System.err.println("The id of the project is not specified")
             return false
         }
-        val projectFolder = args.basePath.resolve(Paths.get(item.name))
-        if (Files.exists(projectFolder)) {
-            FileUtils.forceDelete(projectFolder.toFile())
-        }
+        val projectFolder = context.args.basePath.resolve(Paths.get(item.name))
         Files.createDirectories(projectFolder)
-        Files.write(
-                projectFolder.resolve("id.txt"),
-                listOf(item.id.toString()),
-                StandardCharsets.UTF_8
-        )
-        writeComments(args, item, projectFolder)
+        context.files.writeFile(projectFolder.resolve("id.txt"), item.id.toString() + System.lineSeparator())
+        writeComments(context, item, projectFolder)
         for (child in item.children) {
-            val success = generate(args, currentPath.resolve(Paths.get(item.name)), child)
+            val success = generate(context, currentPath.resolve(Paths.get(item.name)), child)
             if (!success) {
                 return false
             }
         }
+        context.files.deleteStaleFiles()
     } catch (e: Exception) {
         System.err.println("Error during output directory cleanup: $e")
         return false
@@ -17,25 +17,28 @@ package sharknoon.casey.compiler.java.generator.item
  */
 
 import com.squareup.javapoet.*
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item
 import java.nio.file.Path
 import javax.lang.model.element.Modifier.*
 
 
-fun acceptVariable(args: CLIArgs, currentPath: Path, item: Item): Boolean {
+fun acceptVariable(context: CompilationContext, currentPath: Path, item: Item): Boolean {
+    if (context.files.isUpToDate(context, item, currentPath)) {
+        return true
+    }
     if (item.type == null) {
-        System.err.println("Type of variable not specified: " + getFullName(item))
+        System.err.println("Type of variable not specified: " + getFullName(context, item))
         return false
     }
 
     val typeNameString = item.type
-    val typeName = getTypeName(typeNameString ?: "") ?: return false
+    val typeName = getTypeName(context, typeNameString ?: "") ?: return false
     val className = item.name
 
     try {
         val field = FieldSpec.builder(typeName, className)
-                .addJavadoc(getJavaDoc(args, item))
+                .addJavadoc(getJavaDoc(context, item))
                 .addModifiers(PUBLIC, STATIC)
                 .initializer(getFieldInitializer(typeName))
                 .build()
@@ -45,9 +48,9 @@ fun acceptVariable(args: CLIArgs, currentPath: Path, item: Item): Boolean {
                 .build()
         val varFile = JavaFile.builder(pathToClassPath(currentPath), clazz)
                 .build()
-        varFile.writeTo(args.basePath)
+        context.files.writeJavaFile(context, item, currentPath, varFile)
     } catch (e: Exception) {
-        System.err.println("Could not write class for variable " + getFullName(item) + ": " + e)
+        System.err.println("Could not write class for variable " + getFullName(context, item) + ": " + e)
         return false
     }
 
@@ -1,91 +1,90 @@
 package sharknoon.casey.compiler.java.generator.statement
 
 import com.squareup.javapoet.CodeBlock
-import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.CompilationContext
 import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
 import sharknoon.casey.compiler.general.parser.beans.Statement
 import sharknoon.casey.compiler.general.parser.beans.Statement.StatementType
-import sharknoon.casey.compiler.general.parser.getItem
 import sharknoon.casey.compiler.java.generator.item.*
 import java.util.*
 
 private const val EMPTY = ""
 private const val AND = " && "
 
-fun acceptStatement(args: CLIArgs, statement: Statement): CodeBlock? {
+fun acceptStatement(context: CompilationContext, statement: Statement): CodeBlock? {
     when (statement.type) {
         //Values
         StatementType.NUMBER,
         StatementType.BOOLEAN,
         StatementType.TEXT,
-        StatementType.OBJECT -> return onValue(statement)
+        StatementType.OBJECT -> return onValue(context, statement)
         //Operators
-        StatementType.ADD -> return onSimpleOperator(args, statement, " + ")
-        StatementType.AND -> return onSimpleOperator(args, statement, AND)
-        StatementType.CONCAT -> return onSimpleOperator(args, statement, ") + String.valueOf(", CodeBlock.of("\$T.valueOf(", String::class.java), CodeBlock.of(")"))
-        StatementType.DIVIDE -> return onSimpleOperator(args, statement, " / ")
+        StatementType.ADD -> return onSimpleOperator(context, statement, " + ")
+        StatementType.AND -> return onSimpleOperator(context, statement, AND)
+        StatementType.CONCAT -> return onSimpleOperator(context, statement, ") + String.valueOf(", CodeBlock.of("\$T.valueOf(", String::class.java), CodeBlock.of(")"))
+        StatementType.DIVIDE -> return onSimpleOperator(context, statement, " / ")
         StatementType.EQUALS -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Not Equals Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, ", ", AND, CodeBlock.of("\$T.equals(", Objects::class.java), CodeBlock.of(")"))
+            return onComplexOperator(context, statement, ", ", AND, CodeBlock.of("\$T.equals(", Objects::class.java), CodeBlock.of(")"))
         }
         StatementType.GREATER_OR_EQUAL_THAN -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Greater Or Equals Than Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, " >= ", AND)
+            return onComplexOperator(context, statement, " >= ", AND)
         }
         StatementType.GREATER_THAN -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Greater Than Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, " > ", AND)
+            return onComplexOperator(context, statement, " > ", AND)
         }
         StatementType.LENGTH -> {
             if (statement.parameter.size != 1) {
                 System.err.println("The Length Operator needs to have exactly one parameter")
                 return null
             }
-            return onSimpleOperator(args, statement, EMPTY, null, CodeBlock.of(".length()"))
+            return onSimpleOperator(context, statement, EMPTY, null, CodeBlock.of(".length()"))
         }
         StatementType.LESS_OR_EQUAL_THAN -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Less Or Equal Than Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, " <= ", AND)
+            return onComplexOperator(context, statement, " <= ", AND)
         }
         StatementType.LESS_THAN -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Less Than Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, " < ", AND)
+            return onComplexOperator(context, statement, " < ", AND)
         }
-        StatementType.MODULO -> return onSimpleOperator(args, statement, " % ")
-        StatementType.MULTIPLY -> return onSimpleOperator(args, statement, " * ")
+        StatementType.MODULO -> return onSimpleOperator(context, statement, " % ")
+        StatementType.MULTIPLY -> return onSimpleOperator(context, statement, " * ")
         StatementType.NOT_EQUALS -> {
             if (statement.parameter.size < 2) {
                 System.err.println("The Not Equals Operator needs to have two or more parameters")
                 return null
             }
-            return onComplexOperator(args, statement, ", ", AND, CodeBlock.of("!\$T.equals(", Objects::class.java), CodeBlock.of(")"))
+            return onComplexOperator(context, statement, ", ", AND, CodeBlock.of("!\$T.equals(", Objects::class.java), CodeBlock.of(")"))
         }
         StatementType.NOT -> {
             if (statement.parameter.size != 1) {
                 System.err.println("The NOT Operator needs to have exactly one parameter")
                 return null
             }
-            return onSimpleOperator(args, statement, EMPTY, CodeBlock.of("!"), null)
+            return onSimpleOperator(context, statement, EMPTY, CodeBlock.of("!"), null)
         }
-        StatementType.OR -> return onSimpleOperator(args, statement, " || ")
-        StatementType.SUBTRACT -> return onSimpleOperator(args, statement, " - ")
+        StatementType.OR -> return onSimpleOperator(context, statement, " || ")
+        StatementType.SUBTRACT -> return onSimpleOperator(context, statement, " - ")
         //Calls
-        StatementType.CALL -> return onCall(args, statement)
+        StatementType.CALL -> return onCall(context, statement)
     }
 }
 
@@ -95,7 +94,7 @@ fun acceptStatement(args: CLIArgs, statement: Statement): CodeBlock? {
  * @param statement The value statement
  * @return The CodeBlock without brackets or null if the statement is null or has a wrong object type
  */
-private fun onValue(statement: Statement): CodeBlock? {
+private fun onValue(context: CompilationContext, statement: Statement): CodeBlock? {
     if (statement.value == null) {
         System.err.println("Value of statement $statement is null")
         return null
@@ -105,7 +104,7 @@ private fun onValue(statement: Statement): CodeBlock? {
         statement.type === StatementType.TEXT -> return CodeBlock.of("\$S", statement.value)
         //Object
         statement.type === StatementType.OBJECT -> {
-            val typeName = getTypeName(statement.value.toString())
+            val typeName = getTypeName(context, statement.value.toString())
             if (typeName == null) {
                 System.err.println("Could not get the type name for this object statement $statement")
                 return null
@@ -120,13 +119,13 @@ private fun onValue(statement: Statement): CodeBlock? {
 /**
  * In special cases where e.g. a > b > c must be converted to (a > b) && (b > c)
  *
- * @param args               The args if additional info is needed
+ * @param context            The context if additional info is needed
  * @param statement          The statement which parameter should be converted
  * @param secondaryDelimiter The secondary delimitier, in this example >
  * @param primaryDelimiter   The primary Delimiter, in this example &&
  * @return A CodeBlock representing this operator
  */
-private fun onComplexOperator(args: CLIArgs,
+private fun onComplexOperator(context: CompilationContext,
                               statement: Statement,
                               secondaryDelimiter: String,
                               primaryDelimiter: String,
@@ -141,10 +140,10 @@ private fun onComplexOperator(args: CLIArgs,
     }
     //Doesn't need this special case, avoiding unnecessary brackets
     if (parameters.size < 3) {
-        return onSimpleOperator(args, statement, secondaryDelimiter, secondaryPrefix, secondarySuffix)
+        return onSimpleOperator(context, statement, secondaryDelimiter, secondaryPrefix, secondarySuffix)
     }
-    var firstParameter = acceptStatement(args, parameters[0])
-    var secondParameter = acceptStatement(args, parameters[1])
+    var firstParameter = acceptStatement(context, parameters[0])
+    var secondParameter = acceptStatement(context, parameters[1])
     if (firstParameter == null) {
         System.err.println("Parameter 0 of $statement is null")
         return null
@@ -165,8 +164,8 @@ private fun onComplexOperator(args: CLIArgs,
     builder.add(")")
     //Building the n more 'primaryDelimiter (...)'
     for (i in 2 until parameters.size) {
-        firstParameter = acceptStatement(args, parameters[i - 1])
-        secondParameter = acceptStatement(args, parameters[i])
+        firstParameter = acceptStatement(context, parameters[i - 1])
+        secondParameter = acceptStatement(context, parameters[i])
         if (firstParameter == null) {
             System.err.println("Parameter " + (i - 1) + " of " + statement + " is null")
             return null
@@ -191,14 +190,14 @@ private fun onComplexOperator(args: CLIArgs,
 /**
  * Constructs a CodeBlock for a normal operator with a suffix and a prefix
  *
- * @param args      The args if additional info is needed
+ * @param context   The context if additional info is needed
  * @param statement The operator to be converted
  * @param delimiter The delimiter e.g. ', ' for a equality check
  * @param prefix    A prefix e.g. 'Objects.equals(' for a equality check
  * @param suffix    A suffix e.g. ')' for a equality check
  * @return A CodeBlock for the operator
  */
-private fun onSimpleOperator(args: CLIArgs, statement: Statement, delimiter: String, prefix: CodeBlock? = null, suffix: CodeBlock? = null): CodeBlock? {
+private fun onSimpleOperator(context: CompilationContext, statement: Statement, delimiter: String, prefix: CodeBlock? = null, suffix: CodeBlock? = null): CodeBlock? {
     val parameters = statement.parameter
     if (parameters.isEmpty()) {
         System.err.println("Operators need at least one parameter $statement")
@@ -208,7 +207,7 @@ private fun onSimpleOperator(args: CLIArgs, statement: Statement, delimiter: Str
     if (prefix != null) {
         builder.add(prefix)
     }
-    val firstParameter = acceptStatement(args, parameters[0])
+    val firstParameter = acceptStatement(context, parameters[0])
     if (firstParameter != null) {
         builder.add(firstParameter)
     } else {
@@ -216,7 +215,7 @@ private fun onSimpleOperator(args: CLIArgs, statement: Statement, delimiter: Str
         return null
     }
     for (i in 1 until parameters.size) {
-        val parameter = acceptStatement(args, parameters[i])
+        val parameter = acceptStatement(context, parameters[i])
         if (parameter != null) {
             builder.add("$delimiter\$L", parameter)
         } else {
@@ -230,7 +229,7 @@ private fun onSimpleOperator(args: CLIArgs, statement: Statement, delimiter: Str
     return builder.add(")").build()
 }
 
-private fun onCall(args: CLIArgs, statement: Statement?): CodeBlock? {
+private fun onCall(context: CompilationContext, statement: Statement?): CodeBlock? {
     if (statement == null) {
         System.err.println("Call-Statement is null")
         return null
@@ -243,7 +242,7 @@ private fun onCall(args: CLIArgs, statement: Statement?): CodeBlock? {
             System.err.println("The Type of the call $call is null")
             return null
         }
-        val item = getItem(call.type ?: "")
+        val item = context.getItem(call.type ?: "")
         if (item == null) {
             System.err.println("Type of the call " + call + " (" + call.type + ") does not exist")
             return null
@@ -254,14 +253,14 @@ private fun onCall(args: CLIArgs, statement: Statement?): CodeBlock? {
             builder.add(".")
         }
         when {
-            item.item === ItemType.VARIABLE -> builder.add(getVariableName(item))
+            item.item === ItemType.VARIABLE -> builder.add(getVariableName(context, item))
             item.item === ItemType.PARAMETER -> builder.add(item.name)
             item.item === ItemType.FUNCTION -> {
-                builder.add("\$L(", getFunctionName(item))
+                builder.add("\$L(", getFunctionName(context, item))
                 val parameters = call.parameter
                 for (i in parameters.indices) {
                     val parameter = parameters[i]
-                    val parametersCodeBlock = acceptStatement(args, parameter)
+                    val parametersCodeBlock = acceptStatement(context, parameter)
                     if (parametersCodeBlock == null) {
                         System.err.println("Parameter $parameter is null")
                         return null
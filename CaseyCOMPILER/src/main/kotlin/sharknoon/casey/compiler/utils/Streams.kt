@@ -0,0 +1,74 @@
+package sharknoon.casey.compiler.utils
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*
+import java.nio.charset.StandardCharsets
+import java.util.function.Consumer
+
+/**
+ * Writes to the stream registered for the current thread or to the fallback stream, if the current thread has none.
+ * This lets the compiler run inside a host process (e.g. the IDE) without mixing its output with other threads.
+ */
+class RoutingOutputStream(private val fallback: OutputStream) : OutputStream() {
+
+    private val target = ThreadLocal<OutputStream>()
+
+    fun route(stream: OutputStream?) {
+        if (stream == null) {
+            target.remove()
+        } else {
+            target.set(stream)
+        }
+    }
+
+    private fun current(): OutputStream = target.get() ?: fallback
+
+    override fun write(b: Int) = current().write(b)
+
+    override fun write(b: ByteArray, off: Int, len: Int) = current().write(b, off, len)
+
+    override fun flush() = current().flush()
+}
+
+/**
+ * Collects the written bytes and hands every finished line to the consumer
+ */
+class LineOutputStream(private val consumer: Consumer<String>) : OutputStream() {
+
+    private val buffer = ByteArrayOutputStream()
+
+    override fun write(b: Int) {
+        if (b == '\n'.code) {
+            flushLine()
+        } else {
+            buffer.write(b)
+        }
+    }
+
+    override fun flush() {
+        if (buffer.size() > 0) {
+            flushLine()
+        }
+    }
+
+    private fun flushLine() {
+        val line = String(buffer.toByteArray(), StandardCharsets.UTF_8).removeSuffix("\r")
+        buffer.reset()
+        consumer.accept(line)
+    }
+}
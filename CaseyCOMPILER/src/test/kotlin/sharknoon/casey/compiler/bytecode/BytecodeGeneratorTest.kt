@@ -0,0 +1,258 @@
+package sharknoon.casey.compiler.bytecode
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import sharknoon.casey.compiler.CompileService
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.beans.Block
+import sharknoon.casey.compiler.general.parser.beans.Block.BlockType
+import sharknoon.casey.compiler.general.parser.beans.Block.ConnectionSide
+import sharknoon.casey.compiler.general.parser.beans.Item
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import sharknoon.casey.compiler.general.parser.beans.Statement
+import sharknoon.casey.compiler.general.parser.beans.Statement.StatementType
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+import java.net.URLClassLoader
+import java.nio.file.*
+import java.util.*
+
+internal class BytecodeGeneratorTest {
+
+    private val parameters = mapOf("n" to "4", "name" to "Casey")
+
+    @Test
+    fun testSameOutputAsJava(@TempDir folder: Path) {
+        val javaOutput = compileAndRun(folder.resolve("java"), "java", project(1))
+        val bytecodeOutput = compileAndRun(folder.resolve("bytecode"), "bytecode", project(1))
+        assertEquals(listOf(
+                "Casey: 0.0", "Casey: 1.0", "Casey: 4.0", "Casey: 9.0",
+                "big 14.0",
+                "4.0",
+                "3", "true"
+        ), bytecodeOutput)
+        assertEquals(javaOutput, bytecodeOutput)
+    }
+
+    @Test
+    fun testStaleClassesAreDeleted(@TempDir folder: Path) {
+        val project = project(1)
+        val pkg = project.children[0]
+        pkg.children = pkg.children + variable("unused", "TEXT")
+        assertTrue(compile(folder, "bytecode", project))
+        val packageFolder = folder.resolve("Project").resolve("pkg")
+        assertTrue(Files.exists(packageFolder.resolve("unused.class")))
+        assertTrue(Files.exists(packageFolder.resolve("Counter.class")))
+
+        pkg.children = pkg.children.filter { it.name != "unused" }
+        assertTrue(compile(folder, "bytecode", project))
+        assertFalse(Files.exists(packageFolder.resolve("unused.class")))
+        assertTrue(Files.exists(packageFolder.resolve("Counter.class")))
+    }
+
+    /**
+     * Compiles a project with many functions completely, once with the Java sources and the Java-Compiler and once
+     * directly to class files, after both ways have been warmed up
+     */
+    @Test
+    @Tag("benchmark")
+    fun benchmarkAgainstJava(@TempDir folder: Path) {
+        val functions = 50
+        compile(write(folder.resolve("warmUpJava"), "java", project(functions)))
+        compile(write(folder.resolve("warmUpBytecode"), "bytecode", project(functions)))
+        var javaTime = Long.MAX_VALUE
+        var bytecodeTime = Long.MAX_VALUE
+        for (run in 0 until 5) {
+            val javaArgs = write(folder.resolve("java$run"), "java", project(functions))
+            val bytecodeArgs = write(folder.resolve("bytecode$run"), "bytecode", project(functions))
+            javaTime = minOf(javaTime, measure { assertTrue(compile(javaArgs)) })
+            bytecodeTime = minOf(bytecodeTime, measure { assertTrue(compile(bytecodeArgs)) })
+        }
+        println("$functions functions: Java sources and Java-Compiler ${javaTime}ms, class files ${bytecodeTime}ms")
+        assertTrue(bytecodeTime < javaTime)
+    }
+
+    private fun compile(folder: Path, language: String, project: Item): Boolean = compile(write(folder, language, project))
+
+    /**
+     * Writes the .casey file of the project
+     */
+    private fun write(folder: Path, language: String, project: Item): CLIArgs {
+        Files.createDirectories(folder)
+        val caseyFile = folder.resolve("Project.casey")
+        Files.write(caseyFile, ObjectMapper().registerKotlinModule().writeValueAsBytes(project))
+        return CLIArgs("Project.pkg.main", caseyFile.toString(), language, parameters, false)
+    }
+
+    /**
+     * Parses, generates and compiles the project
+     */
+    private fun compile(args: CLIArgs): Boolean {
+        val context = CompileService.parse(args) ?: return false
+        return CompileService.generate(context) && CompileService.compile(context)
+    }
+
+    private fun compileAndRun(folder: Path, language: String, project: Item): List<String> {
+        assertTrue(compile(folder, language, project))
+        val output = ByteArrayOutputStream()
+        val systemOut = System.out
+        URLClassLoader(arrayOf(folder.toUri().toURL()), null).use { loader ->
+            System.setOut(PrintStream(output, true, Charsets.UTF_8.name()))
+            try {
+                val main = loader.loadClass("Project.pkg.main").getMethod("main", Array<String>::class.java)
+                main.invoke(null, arrayOf<String>())
+            } finally {
+                System.setOut(systemOut)
+            }
+        }
+        return String(output.toByteArray(), Charsets.UTF_8).lines().filter { it.isNotEmpty() }
+    }
+
+    private inline fun measure(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+
+    /**
+     * A project with a counter class, a static variable, the square functions and a main function using them in a loop
+     * and in decisions
+     */
+    private fun project(squareFunctions: Int): Item {
+        val count = variable("count", "NUMBER")
+        val increment = Flowchart().run {
+            val assignment = block(BlockType.ASSIGNMENT, operator(StatementType.ADD, call("Project.pkg.Counter.count"), number(1)), "Project.pkg.Counter.count")
+            connect(start, assignment)
+            connect(assignment, block(BlockType.END))
+            function("increment", "VOID")
+        }
+        val counter = Item("Counter", listOf(count, increment)).apply { item = ItemType.CLASS }
+        val squares = (0 until squareFunctions).map { square(it) }
+
+        val main = Flowchart().run {
+            val square = "Project.pkg.square${squareFunctions - 1}"
+            val i = call("Project.pkg.main.i")
+            val initialize = block(BlockType.ASSIGNMENT, number(0), "Project.pkg.main.i")
+            val loop = block(BlockType.DECISION, operator(StatementType.LESS_THAN, i, call("Project.pkg.main.n")))
+            val print = block(BlockType.OUTPUT, operator(StatementType.CONCAT, call("Project.pkg.main.name"), text(": "), call(square to listOf(i))))
+            val sum = block(BlockType.ASSIGNMENT, operator(StatementType.ADD, call("Project.pkg.total"), call(square to listOf(i))), "Project.pkg.total")
+            val incrementBlock = block(BlockType.CALL, call("Project.pkg.main.c", "Project.pkg.Counter.increment"))
+            val next = block(BlockType.ASSIGNMENT, operator(StatementType.ADD, i, number(1)), "Project.pkg.main.i")
+            val big = block(BlockType.DECISION, operator(StatementType.AND,
+                    operator(StatementType.GREATER_THAN, call("Project.pkg.total"), number(10)),
+                    operator(StatementType.NOT, operator(StatementType.EQUALS, call("Project.pkg.main.name"), text("x")))))
+            val printBig = block(BlockType.OUTPUT, operator(StatementType.ADD, text("big "), call("Project.pkg.total")))
+            val printLength = block(BlockType.OUTPUT, operator(StatementType.LENGTH, call("Project.pkg.main.name")))
+            val printCount = block(BlockType.OUTPUT, call("Project.pkg.main.c", "Project.pkg.Counter.count"))
+            val printDivision = block(BlockType.OUTPUT, operator(StatementType.DIVIDE, number(7), number(2)))
+            val printComparison = block(BlockType.OUTPUT, operator(StatementType.LESS_OR_EQUAL_THAN, number(1), number(2.0), number(2)))
+            connect(start, initialize)
+            connect(initialize, loop)
+            connect(loop, print, ConnectionSide.RIGHT)
+            connect(print, sum)
+            connect(sum, incrementBlock)
+            connect(incrementBlock, next)
+            connect(next, loop)
+            connect(loop, big, ConnectionSide.LEFT)
+            connect(big, printBig, ConnectionSide.RIGHT)
+            connect(big, printLength, ConnectionSide.LEFT)
+            connect(printBig, printCount)
+            connect(printLength, printCount)
+            connect(printCount, printDivision)
+            connect(printDivision, printComparison)
+            connect(printComparison, block(BlockType.END))
+            function("main", "VOID",
+                    parameter("n", "NUMBER"),
+                    parameter("name", "TEXT"),
+                    variable("i", "NUMBER"),
+                    variable("c", "Project.pkg.Counter"))
+        }
+        val pkg = Item("pkg", listOf(variable("total", "NUMBER"), counter) + squares + main).apply { item = ItemType.PACKAGE }
+        return Item("Project", listOf(pkg)).apply { id = UUID.randomUUID() }
+    }
+
+    /**
+     * Returns the square of x, the functions after the first one call the previous one
+     */
+    private fun square(index: Int): Item = Flowchart().run {
+        val x = call("Project.pkg.square$index.x")
+        val result = if (index == 0) {
+            operator(StatementType.MULTIPLY, x, x)
+        } else {
+            call("Project.pkg.square${index - 1}" to listOf(x))
+        }
+        val positive = block(BlockType.DECISION, operator(StatementType.GREATER_OR_EQUAL_THAN, x, number(0)))
+        val end = block(BlockType.END, result)
+        val negativeEnd = block(BlockType.END, operator(StatementType.MULTIPLY, x, x))
+        connect(start, positive)
+        connect(positive, end, ConnectionSide.RIGHT)
+        connect(positive, negativeEnd, ConnectionSide.LEFT)
+        function("square$index", "NUMBER", parameter("x", "NUMBER"))
+    }
+
+    private fun variable(name: String, type: String): Item = Item(name, listOf()).apply {
+        item = ItemType.VARIABLE
+        this.type = type
+    }
+
+    private fun parameter(name: String, type: String): Item = Item(name, listOf()).apply {
+        item = ItemType.PARAMETER
+        this.type = type
+    }
+
+    private fun number(value: Number) = Statement(StatementType.NUMBER, value)
+
+    private fun text(value: String) = Statement(StatementType.TEXT, value)
+
+    private fun operator(type: StatementType, vararg parameters: Statement) = Statement(type, parameter = parameters.toList())
+
+    private fun call(vararg names: String) = Statement(StatementType.CALL, calls = names.map { Statement.Call(type = it) })
+
+    private fun call(function: Pair<String, List<Statement>>) =
+            Statement(StatementType.CALL, calls = listOf(Statement.Call(function.second, function.first)))
+
+    private class Flowchart {
+        private val blocks = mutableListOf<Block>()
+        val start = block(BlockType.START)
+
+        fun block(type: BlockType, statement: Statement? = null, variable: String? = null): Block {
+            val block = Block(UUID.randomUUID())
+            block.blocktype = type
+            if (type != BlockType.START) {
+                block.blockcontent = Block.BlockContent(statement, variable)
+            }
+            blocks.add(block)
+            return block
+        }
+
+        fun connect(from: Block, to: Block, side: ConnectionSide = ConnectionSide.BOTTOM) {
+            from.blockconnections = from.blockconnections + (side to mapOf(to.blockid to ConnectionSide.TOP))
+        }
+
+        fun function(name: String, returnType: String, vararg children: Item): Item = Item(name, children.toList()).apply {
+            item = ItemType.FUNCTION
+            returntype = returnType
+            blocks = this@Flowchart.blocks
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package sharknoon.casey.compiler.general
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import sharknoon.casey.compiler.general.parser.beans.Block
+import sharknoon.casey.compiler.general.parser.beans.Block.BlockType
+import sharknoon.casey.compiler.general.parser.beans.Block.ConnectionSide
+import sharknoon.casey.compiler.general.parser.beans.Item
+import java.util.*
+
+internal class BlockSkeletonTest {
+
+    @Test
+    fun testIf() {
+        val flowchart = Flowchart()
+        val decision = flowchart.block(BlockType.DECISION)
+        val trueBlock = flowchart.block(BlockType.OUTPUT)
+        val end = flowchart.block(BlockType.END)
+        flowchart.connect(flowchart.start, decision)
+        flowchart.connect(decision, trueBlock, ConnectionSide.RIGHT)
+        flowchart.connect(decision, end, ConnectionSide.LEFT)
+        flowchart.connect(trueBlock, end)
+
+        val skeletons = getSkeleton(flowchart.function())!!.skeletons
+        assertEquals(listOf(
+                SingleBlock(flowchart.start),
+                Decision(decision, listOf(SingleBlock(trueBlock)), listOf()),
+                SingleBlock(end)
+        ), skeletons)
+    }
+
+    @Test
+    fun testReturnInsideDecision() {
+        val flowchart = Flowchart()
+        val decision = flowchart.block(BlockType.DECISION)
+        val earlyEnd = flowchart.block(BlockType.END)
+        val output = flowchart.block(BlockType.OUTPUT)
+        val end = flowchart.block(BlockType.END)
+        flowchart.connect(flowchart.start, decision)
+        flowchart.connect(decision, earlyEnd, ConnectionSide.RIGHT)
+        flowchart.connect(decision, output, ConnectionSide.LEFT)
+        flowchart.connect(output, end)
+
+        val skeletons = getSkeleton(flowchart.function())!!.skeletons
+        assertEquals(listOf(
+                SingleBlock(flowchart.start),
+                Decision(decision, listOf(SingleBlock(earlyEnd)), listOf(SingleBlock(output), SingleBlock(end)))
+        ), skeletons)
+    }
+
+    @Test
+    fun testWhile() {
+        val flowchart = Flowchart()
+        val condition = flowchart.block(BlockType.DECISION)
+        val body = flowchart.block(BlockType.ASSIGNMENT)
+        val end = flowchart.block(BlockType.END)
+        flowchart.connect(flowchart.start, condition)
+        flowchart.connect(condition, body, ConnectionSide.RIGHT)
+        flowchart.connect(condition, end, ConnectionSide.LEFT)
+        flowchart.connect(body, condition)
+
+        val skeletons = getSkeleton(flowchart.function())!!.skeletons
+        assertEquals(listOf(
+                SingleBlock(flowchart.start),
+                Loop(listOf(), condition, listOf(SingleBlock(body))),
+                SingleBlock(end)
+        ), skeletons)
+    }
+
+    @Test
+    fun testDoWhileLeavingOnTrue() {
+        val flowchart = Flowchart()
+        val body = flowchart.block(BlockType.ASSIGNMENT)
+        val condition = flowchart.block(BlockType.DECISION)
+        val end = flowchart.block(BlockType.END)
+        flowchart.connect(flowchart.start, body)
+        flowchart.connect(body, condition)
+        flowchart.connect(condition, end, ConnectionSide.RIGHT)
+        flowchart.connect(condition, body, ConnectionSide.LEFT)
+
+        val skeletons = getSkeleton(flowchart.function())!!.skeletons
+        assertEquals(listOf(
+                SingleBlock(flowchart.start),
+                Loop(listOf(SingleBlock(body)), condition, listOf(), true),
+                SingleBlock(end)
+        ), skeletons)
+    }
+
+    @Test
+    fun testLoopEnteredTwice() {
+        val flowchart = Flowchart()
+        val decision = flowchart.block(BlockType.DECISION)
+        val a = flowchart.block(BlockType.ASSIGNMENT)
+        val b = flowchart.block(BlockType.DECISION)
+        val end = flowchart.block(BlockType.END)
+        flowchart.connect(flowchart.start, decision)
+        flowchart.connect(decision, a, ConnectionSide.RIGHT)
+        flowchart.connect(decision, b, ConnectionSide.LEFT)
+        flowchart.connect(a, b)
+        flowchart.connect(b, a, ConnectionSide.RIGHT)
+        flowchart.connect(b, end, ConnectionSide.LEFT)
+
+        assertNull(getSkeleton(flowchart.function()))
+    }
+
+    /**
+     * Structures nested decisions and nested loops of growing depth, the time should grow about linear
+     */
+    @Test
+    @Tag("benchmark")
+    fun benchmarkScaling() {
+        for (depth in listOf(125, 250, 500, 1000)) {
+            val decisions = Flowchart().apply { connect(start, nestedDecisions(depth).addEnd(this)) }
+            val loops = Flowchart().apply { connect(start, nestedLoops(depth).addEnd(this)) }
+            val sequence = Flowchart().apply { connect(start, sequentialDecisions(depth).addEnd(this)) }
+
+            val decisionsTime = measure { assertEquals(depth, count(getSkeleton(decisions.function())!!.skeletons, Decision::class.java)) }
+            val loopsTime = measure { assertEquals(depth, count(getSkeleton(loops.function())!!.skeletons, Loop::class.java)) }
+            val sequenceTime = measure { assertEquals(depth, count(getSkeleton(sequence.function())!!.skeletons, Decision::class.java)) }
+            println("Depth $depth: nested decisions ${decisionsTime}ms, nested loops ${loopsTime}ms, " +
+                    "sequential decisions ${sequenceTime}ms")
+            assertTrue(decisionsTime + loopsTime + sequenceTime < 5000)
+        }
+    }
+
+    /**
+     * The structuring doesn't recurse, so the nesting depth is not limited by the stack of the compiling thread
+     */
+    @Test
+    fun testDeepNestingWithSmallStack() {
+        val depth = 1000
+        val decisions = Flowchart().apply { connect(start, nestedDecisions(depth).addEnd(this)) }.function()
+        val loops = Flowchart().apply { connect(start, nestedLoops(depth).addEnd(this)) }.function()
+        var skeletons: Pair<Skeleton?, Skeleton?>? = null
+        val thread = Thread(null, { skeletons = getSkeleton(decisions) to getSkeleton(loops) }, "SmallStack", 64 * 1024)
+        thread.start()
+        thread.join()
+        assertEquals(depth, count(skeletons!!.first!!.skeletons, Decision::class.java))
+        assertEquals(depth, count(skeletons!!.second!!.skeletons, Loop::class.java))
+    }
+
+    private inline fun measure(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+
+    private fun count(skeletons: List<SubSkeleton>, type: Class<out SubSkeleton>): Int = skeletons.sumOf {
+        (if (type.isInstance(it)) 1 else 0) + when (it) {
+            is Decision -> count(it.trueSkeletons, type) + count(it.falseSkeletons, type)
+            is Loop -> count(it.beforeCondition, type) + count(it.afterCondition, type)
+            else -> 0
+        }
+    }
+
+    /**
+     * if (a) { if (b) { ... } else { x } } else { x }
+     */
+    private fun Flowchart.nestedDecisions(depth: Int): Pair<Block, Block> {
+        if (depth == 0) {
+            val block = block(BlockType.ASSIGNMENT)
+            return block to block
+        }
+        val decision = block(BlockType.DECISION)
+        val (trueEntry, trueExit) = nestedDecisions(depth - 1)
+        val falseBlock = block(BlockType.ASSIGNMENT)
+        val merge = block(BlockType.ASSIGNMENT)
+        connect(decision, trueEntry, ConnectionSide.RIGHT)
+        connect(decision, falseBlock, ConnectionSide.LEFT)
+        connect(trueExit, merge)
+        connect(falseBlock, merge)
+        return decision to merge
+    }
+
+    /**
+     * while (a) { while (b) { ... } x }
+     */
+    private fun Flowchart.nestedLoops(depth: Int): Pair<Block, Block> {
+        if (depth == 0) {
+            val block = block(BlockType.ASSIGNMENT)
+            return block to block
+        }
+        val condition = block(BlockType.DECISION)
+        val (bodyEntry, bodyExit) = nestedLoops(depth - 1)
+        val latch = block(BlockType.ASSIGNMENT)
+        val after = block(BlockType.ASSIGNMENT)
+        connect(condition, bodyEntry, ConnectionSide.RIGHT)
+        connect(condition, after, ConnectionSide.LEFT)
+        connect(bodyExit, latch)
+        connect(latch, condition)
+        return condition to after
+    }
+
+    /**
+     * if (a) { x } else { x } if (b) { x } else { x } ...
+     */
+    private fun Flowchart.sequentialDecisions(count: Int): Pair<Block, Block> {
+        val entry = block(BlockType.ASSIGNMENT)
+        var exit = entry
+        repeat(count) {
+            val (decisionEntry, decisionExit) = nestedDecisions(1)
+            connect(exit, decisionEntry)
+            exit = decisionExit
+        }
+        return entry to exit
+    }
+
+    private fun Pair<Block, Block>.addEnd(flowchart: Flowchart): Block {
+        flowchart.connect(second, flowchart.block(BlockType.END))
+        return first
+    }
+
+    private class Flowchart {
+        private val blocks = mutableListOf<Block>()
+        val start = block(BlockType.START)
+
+        fun block(type: BlockType): Block {
+            val block = Block(UUID.randomUUID())
+            block.blocktype = type
+            blocks.add(block)
+            return block
+        }
+
+        fun connect(from: Block, to: Block, side: ConnectionSide = ConnectionSide.BOTTOM) {
+            from.blockconnections = from.blockconnections + (side to mapOf(to.blockid to ConnectionSide.TOP))
+        }
+
+        fun function(): Item {
+            val function = Item("function${UUID.randomUUID()}", listOf())
+            function.item = Item.ItemType.FUNCTION
+            function.blocks = blocks
+            return function
+        }
+    }
+}
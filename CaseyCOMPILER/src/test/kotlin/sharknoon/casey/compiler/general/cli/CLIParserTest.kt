@@ -0,0 +1,39 @@
+package sharknoon.casey.compiler.general.cli
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import sharknoon.casey.compiler.go
+import sharknoon.casey.compiler.utils.Result
+
+internal class CLIParserTest {
+
+    @Test
+    fun testHelpDoesNotExit() {
+        assertEquals(Result.Success<CLIArgs>(), parseCommandLine(arrayOf("-h")))
+        assertEquals(0, go(arrayOf("--help")))
+    }
+
+    @Test
+    fun testArguments() {
+        val result = parseCommandLine(arrayOf("-p", "Project.casey", "-f", "Project.main", "-l", "java"))
+        assertEquals(Result.Success(CLIArgs("Project.main", "Project.casey", "java", mapOf(), false)), result)
+        assertTrue(parseCommandLine(arrayOf("-p", "Project.casey")) is Result.Error)
+        assertEquals(1, go(arrayOf()))
+    }
+}
@@ -0,0 +1,131 @@
+package sharknoon.casey.compiler.general.parser
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.beans.*
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import java.nio.file.*
+import java.util.*
+
+internal class CaseyFormatTest {
+
+    @Test
+    fun testConvertAndParse(@TempDir folder: Path) {
+        val jsonFile = folder.resolve("Project.casey")
+        val smileFile = folder.resolve("Binary.casey")
+        val jsonAgainFile = folder.resolve("Json.casey")
+        writeJson(project(3, 5), jsonFile)
+
+        assertTrue(convertCasey(jsonFile, smileFile))
+        assertEquals(CaseyFormat.SMILE, CaseyFormat.detect(smileFile))
+        assertTrue(convertCasey(smileFile, jsonAgainFile))
+        assertEquals(CaseyFormat.JSON, CaseyFormat.detect(jsonAgainFile))
+        assertEquals(CaseyFormat.JSON.mapper.readTree(jsonFile.toFile()),
+                CaseyFormat.JSON.mapper.readTree(jsonAgainFile.toFile()))
+
+        val fromJson = parseCasey(jsonFile)
+        val fromSmile = parseCasey(smileFile)
+        assertNotNull(fromSmile)
+        assertEquals(fromJson, fromSmile)
+        assertEquals(fromJson!!.children[0].children[0].blocks, fromSmile!!.children[0].children[0].blocks)
+        val context = CompilationContext(CLIArgs("Project.pkg.function0", jsonFile.toString(), "java", mapOf(), false), fromJson)
+        assertNotNull(context.getItem("Project.pkg.function0.v"))
+    }
+
+    @Test
+    @Tag("benchmark")
+    fun benchmarkFormats(@TempDir folder: Path) {
+        val project = project(500, 40)
+        val jsonFile = folder.resolve("Project.casey")
+        val smileFile = folder.resolve("Binary.casey")
+        for (warmUp in 0 until 3) {
+            writeJson(project, jsonFile)
+            convertCasey(jsonFile, smileFile, CaseyFormat.SMILE)
+            parseCasey(jsonFile)
+            parseCasey(smileFile)
+        }
+        val tree = CaseyFormat.JSON.mapper.readTree(jsonFile.toFile())
+
+        var start = System.nanoTime()
+        Files.write(jsonFile, CaseyFormat.JSON.mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(tree))
+        val jsonSave = (System.nanoTime() - start) / 1_000_000
+        start = System.nanoTime()
+        Files.write(smileFile, CaseyFormat.SMILE.mapper.writeValueAsBytes(tree))
+        val smileSave = (System.nanoTime() - start) / 1_000_000
+        start = System.nanoTime()
+        assertNotNull(parseCasey(jsonFile))
+        val jsonLoad = (System.nanoTime() - start) / 1_000_000
+        start = System.nanoTime()
+        assertNotNull(parseCasey(smileFile))
+        val smileLoad = (System.nanoTime() - start) / 1_000_000
+
+        val jsonSize = Files.size(jsonFile)
+        val smileSize = Files.size(smileFile)
+        println("JSON: ${jsonSize / 1024}KB, save ${jsonSave}ms, load ${jsonLoad}ms")
+        println("Smile: ${smileSize / 1024}KB, save ${smileSave}ms, load ${smileLoad}ms")
+        assertTrue(smileSize < jsonSize)
+    }
+
+    private fun writeJson(project: Item, file: Path) {
+        val tree = CaseyFormat.JSON.mapper.valueToTree<com.fasterxml.jackson.databind.JsonNode>(project)
+        Files.write(file, CaseyFormat.JSON.mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(tree))
+    }
+
+    private fun project(functionCount: Int, blockCount: Int): Item {
+        val functions = (0 until functionCount).map { function("function$it", blockCount) }
+        val pkg = Item("pkg", functions).apply { item = ItemType.PACKAGE }
+        return Item("Project", listOf(pkg)).apply { id = UUID.randomUUID() }
+    }
+
+    private fun function(name: String, blockCount: Int): Item {
+        val variable = Item("v", listOf()).apply {
+            item = ItemType.VARIABLE
+            type = "NUMBER"
+        }
+        val blocks = (0 until blockCount).map { Block(UUID.randomUUID()) }
+        blocks.forEachIndexed { index, block ->
+            block.blocktype = when (index) {
+                0 -> Block.BlockType.START
+                blockCount - 1 -> Block.BlockType.END
+                else -> Block.BlockType.ASSIGNMENT
+            }
+            if (index < blockCount - 1) {
+                block.blockconnections = mapOf(Block.ConnectionSide.BOTTOM to
+                        mapOf(blocks[index + 1].blockid to Block.ConnectionSide.TOP))
+            }
+            if (block.blocktype == Block.BlockType.ASSIGNMENT) {
+                val call = Statement.Call(type = "Project.pkg.$name.v")
+                val add = Statement(Statement.StatementType.ADD, parameter = listOf(
+                        Statement(Statement.StatementType.CALL, calls = listOf(call)),
+                        Statement(Statement.StatementType.NUMBER, index)))
+                block.blockcontent = Block.BlockContent(add, "Project.pkg.$name.v")
+            } else {
+                block.blockcontent = Block.BlockContent()
+            }
+        }
+        return Item(name, listOf(variable)).apply {
+            item = ItemType.FUNCTION
+            returntype = "VOID"
+            this.blocks = blocks
+        }
+    }
+}
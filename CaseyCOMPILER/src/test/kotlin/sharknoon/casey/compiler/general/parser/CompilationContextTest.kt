@@ -0,0 +1,111 @@
+package sharknoon.casey.compiler.general.parser
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import sharknoon.casey.compiler.CompileService
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.beans.*
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import java.net.URLClassLoader
+import java.nio.file.*
+import java.util.*
+import java.util.concurrent.*
+
+internal class CompilationContextTest {
+
+    @Test
+    fun testEqualItemsHaveTheirOwnNames(@TempDir folder: Path) {
+        val project = project("Project", 1)
+        val pkg = project.children[0]
+        pkg.children = pkg.children + function("other", 1)
+        val context = CompilationContext(CLIArgs("Project.pkg.value", folder.resolve("Project.casey").toString(), "java", mapOf(), false), project)
+
+        //The variables are equal, but belong to different functions
+        val variable = pkg.children[0].children[0]
+        val otherVariable = pkg.children[1].children[0]
+        assertEquals(variable, otherVariable)
+        assertEquals("Project.pkg.value.v", context.getItemFullName(variable))
+        assertEquals("Project.pkg.other.v", context.getItemFullName(otherVariable))
+        assertSame(otherVariable, context.getItem("Project.pkg.other.v"))
+        assertTrue(context.isStaticFunction(pkg.children[0]))
+        assertFalse(context.isStaticVariable(variable))
+    }
+
+    @Test
+    fun testParallelCompilations(@TempDir folder: Path) {
+        val compilations = 8
+        val executor = Executors.newFixedThreadPool(compilations)
+        try {
+            val start = CountDownLatch(1)
+            val results = (0 until compilations).map { index ->
+                executor.submit(Callable {
+                    val name = "Project$index"
+                    val projectFolder = folder.resolve(index.toString())
+                    Files.createDirectories(projectFolder)
+                    val caseyFile = projectFolder.resolve("$name.casey")
+                    Files.write(caseyFile, ObjectMapper().registerKotlinModule().writeValueAsBytes(project(name, index)))
+                    val language = if (index % 2 == 0) "java" else "bytecode"
+                    val args = CLIArgs("$name.pkg.value", caseyFile.toString(), language, mapOf(), false)
+                    start.await()
+                    val context = CompileService.parse(args) ?: return@Callable null
+                    if (!CompileService.generate(context) || !CompileService.compile(context)) {
+                        return@Callable null
+                    }
+                    URLClassLoader(arrayOf(projectFolder.toUri().toURL()), null).use {
+                        it.loadClass("$name.pkg.value").getMethod("value").invoke(null)
+                    }
+                })
+            }
+            start.countDown()
+            for ((index, result) in results.withIndex()) {
+                assertEquals(index.toDouble(), result.get(5, TimeUnit.MINUTES))
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * A project with a function returning the number
+     */
+    private fun project(name: String, number: Int): Item {
+        val pkg = Item("pkg", listOf(function("value", number))).apply { item = ItemType.PACKAGE }
+        return Item(name, listOf(pkg)).apply { id = UUID.randomUUID() }
+    }
+
+    private fun function(name: String, number: Int): Item {
+        val start = Block(UUID.randomUUID())
+        val end = Block(UUID.randomUUID())
+        end.blocktype = Block.BlockType.END
+        end.blockcontent = Block.BlockContent(Statement(Statement.StatementType.NUMBER, number))
+        start.blockconnections = mapOf(Block.ConnectionSide.BOTTOM to mapOf(end.blockid to Block.ConnectionSide.TOP))
+        val variable = Item("v", listOf()).apply {
+            item = ItemType.VARIABLE
+            type = "TEXT"
+        }
+        return Item(name, listOf(variable)).apply {
+            item = ItemType.FUNCTION
+            returntype = "NUMBER"
+            blocks = listOf(start, end)
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package sharknoon.casey.compiler.java.compiler
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import java.nio.file.*
+import java.nio.file.attribute.FileTime
+
+internal class IncrementalCompilerTest {
+
+    @Test
+    fun testChangedSourcesAndDependents(@TempDir folder: Path) {
+        val args = CLIArgs("Project.pkg.B", folder.resolve("Project.casey").toString(), "java", mapOf(), false)
+        val a = source(folder, "A", "public static double f(double x) { return x; }")
+        val b = source(folder, "B", "public static void main(String[] args) { A.f(1); }")
+        val c = source(folder, "C", "public static void g() {}")
+        assertTrue(compile(args))
+        val aClass = Files.readAllBytes(folder.resolve("Project/pkg/A.class"))
+
+        //Not looked at again, the timestamp is the same
+        val cTime = Files.getLastModifiedTime(c)
+        Files.write(c, "does not compile".toByteArray())
+        Files.setLastModifiedTime(c, cTime)
+        Files.write(a, Files.readAllLines(a).map { it.replace("return x;", "return x + 1;") })
+        assertTrue(compile(args))
+        assertFalse(aClass.contentEquals(Files.readAllBytes(folder.resolve("Project/pkg/A.class"))))
+
+        //B is compiled again and doesn't fit to A anymore
+        Files.write(a, Files.readAllLines(a).map { it.replace("double x", "String x").replace("x + 1", "0") })
+        assertFalse(compile(args))
+        Files.write(b, Files.readAllLines(b).map { it.replace("A.f(1)", "A.f(\"1\")") })
+        assertTrue(compile(args))
+
+        Files.delete(a)
+        Files.write(b, Files.readAllLines(b).map { it.replace("A.f(\"1\");", "") })
+        assertTrue(compile(args))
+        assertFalse(Files.exists(folder.resolve("Project/pkg/A.class")))
+    }
+
+    /**
+     * Compiles a project with many sources once completely and then after changing one source
+     */
+    @Test
+    @Tag("benchmark")
+    fun benchmarkChangedSource(@TempDir folder: Path) {
+        val args = CLIArgs("Project.pkg.F0", folder.resolve("Project.casey").toString(), "java", mapOf(), false)
+        val sources = (0 until 300).map {
+            source(folder, "F$it", "public static double f(double x) { return ${if (it == 0) "x" else "F${it - 1}.f(x)"}; }")
+        }
+        val fullTime = measure { assertTrue(compile(args)) }
+        val classFiles = sources.map { it.resolveSibling(it.fileName.toString().replace(".java", ".class")) }
+        val written = FileTime.fromMillis(System.currentTimeMillis() - 10_000)
+        classFiles.forEach { Files.setLastModifiedTime(it, written) }
+        //Only F150 and F151 referring to it are compiled again, the others aren't looked at as their timestamps stay
+        for ((index, source) in sources.withIndex()) {
+            if (index != 150 && index != 151) {
+                val time = Files.getLastModifiedTime(source)
+                Files.write(source, "does not compile".toByteArray())
+                Files.setLastModifiedTime(source, time)
+            }
+        }
+        Files.write(sources[150], Files.readAllLines(sources[150]).map { it.replace("f(x)", "f(x) + 1") })
+        val incrementalTime = measure { assertTrue(compile(args)) }
+        println("300 sources: ${fullTime}ms, one changed source: ${incrementalTime}ms")
+
+        //The class of F151 stays the same and isn't written again
+        val rewritten = classFiles.filter { Files.getLastModifiedTime(it) != written }
+        assertEquals(listOf(classFiles[150]), rewritten)
+    }
+
+    private fun source(folder: Path, name: String, body: String): Path {
+        val file = folder.resolve("Project/pkg/$name.java")
+        Files.createDirectories(file.parent)
+        Files.write(file, listOf("package Project.pkg;", "public class $name {", body, "}"))
+        //The timestamps of the file system may be too coarse to see the change otherwise
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10_000))
+        return file
+    }
+
+    private inline fun measure(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+}
@@ -0,0 +1,91 @@
+package sharknoon.casey.compiler.java.generator.item
+
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import sharknoon.casey.compiler.CompileService
+import sharknoon.casey.compiler.general.cli.CLIArgs
+import sharknoon.casey.compiler.general.parser.beans.Block
+import sharknoon.casey.compiler.general.parser.beans.Item
+import sharknoon.casey.compiler.general.parser.beans.Item.ItemType
+import java.nio.file.*
+import java.nio.file.attribute.FileTime
+import java.util.*
+
+internal class GeneratedFilesTest {
+
+    private val old = FileTime.fromMillis(0)
+
+    @Test
+    fun testOnlyChangedItemsAreWritten(@TempDir folder: Path) {
+        val f = function("f")
+        val g = function("g")
+        val v = variable("v")
+        val pkg = Item("pkg", listOf(f, g, v)).apply { item = ItemType.PACKAGE }
+        val project = Item("Project", listOf(pkg)).apply { id = UUID.randomUUID() }
+        val packageFolder = folder.resolve("Project").resolve("pkg")
+
+        generate(folder, project)
+        Files.write(packageFolder.resolve("f.class"), byteArrayOf())
+        Files.setLastModifiedTime(packageFolder.resolve("f.java"), old)
+        Files.setLastModifiedTime(packageFolder.resolve("g.java"), old)
+
+        g.comments = "<p>Changed</p>"
+        generate(folder, project)
+        assertEquals(old, Files.getLastModifiedTime(packageFolder.resolve("f.java")))
+        assertNotEquals(old, Files.getLastModifiedTime(packageFolder.resolve("g.java")))
+        assertTrue(Files.exists(packageFolder.resolve("f.class")))
+
+        pkg.children = listOf(f, g)
+        generate(folder, project)
+        assertEquals(old, Files.getLastModifiedTime(packageFolder.resolve("f.java")))
+        assertFalse(Files.exists(packageFolder.resolve("v.java")))
+        //The structure changed, the classes have to be compiled again
+        assertFalse(Files.exists(packageFolder.resolve("f.class")))
+    }
+
+    private fun generate(folder: Path, project: Item) {
+        val caseyFile = folder.resolve("Project.casey")
+        Files.write(caseyFile, ObjectMapper().registerKotlinModule().writeValueAsBytes(project))
+        val args = CLIArgs("Project.pkg.f", caseyFile.toString(), "java", mapOf(), false)
+        val context = CompileService.parse(args)
+        assertNotNull(context)
+        assertTrue(CompileService.generate(context!!))
+    }
+
+    private fun function(name: String): Item {
+        val start = Block(UUID.randomUUID())
+        val end = Block(UUID.randomUUID())
+        end.blocktype = Block.BlockType.END
+        end.blockcontent = Block.BlockContent()
+        start.blockconnections = mapOf(Block.ConnectionSide.BOTTOM to mapOf(end.blockid to Block.ConnectionSide.TOP))
+        return Item(name, listOf()).apply {
+            item = ItemType.FUNCTION
+            returntype = "VOID"
+            blocks = listOf(start, end)
+        }
+    }
+
+    private fun variable(name: String): Item = Item(name, listOf()).apply {
+        item = ItemType.VARIABLE
+        type = "TEXT"
+    }
+}
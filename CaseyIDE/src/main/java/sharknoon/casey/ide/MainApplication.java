@@ -24,10 +24,13 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import sharknoon.casey.ide.misc.Exitable;
 import sharknoon.casey.ide.misc.Initializable;
+import sharknoon.casey.ide.misc.Startup;
 import sharknoon.casey.ide.ui.dialogs.ExceptionDialog;
 import sharknoon.casey.ide.ui.misc.Icon;
 import sharknoon.casey.ide.ui.misc.Icons;
 import sharknoon.casey.ide.ui.styles.Styles;
+import sharknoon.casey.ide.utils.language.Language;
+import sharknoon.casey.ide.utils.settings.Database;
 import sharknoon.casey.ide.utils.settings.Logger;
 import sharknoon.casey.ide.utils.settings.Resources;
 
@@ -43,7 +46,10 @@ public class MainApplication extends Application {
     //Initlialisables and Exitables
     private static final List<Initializable> INITIALIZABLES = new ArrayList<>();
     private static final List<Exitable> EXITABLES = new ArrayList<>();
+    private static final Startup STARTUP = new Startup();
     private static boolean wasUpdated = false;
+    //The training run of the class data sharing archive exits after the startup
+    private static boolean isTraining = false;
     
     public static void registerInitializable(Initializable initializable) {
         INITIALIZABLES.add(initializable);
@@ -53,6 +59,17 @@ public class MainApplication extends Application {
         EXITABLES.add(exitable);
     }
     
+    /**
+     * Registers a task, which is not needed for the first paint of the stage, the task runs on the JavaFX thread
+     * after the first paint
+     *
+     * @param name The name of the task in the startup report
+     * @param task The task
+     */
+    public static void registerDeferred(String name, Startup.Task task) {
+        STARTUP.defer(name, task);
+    }
+    
     /**
      * Fallback for launching this JavaFX Application, please use
      * MainApplication.java instead!
@@ -96,25 +113,58 @@ public class MainApplication extends Application {
         if (getParameters().getUnnamed().contains("-u")) {
             wasUpdated = true;
         }
+        if (getParameters().getUnnamed().contains("-t")) {
+            isTraining = true;
+        }
         
-        var loader = new FXMLLoader();
-        var fxmlStream = Resources.createAndGetFileAsStream("sharknoon/casey/ide/ui/MainFXML.fxml", true);
-
-        //Loads the Maincontroller, which loads all the UI Things
-        Parent root = loader.load(Objects.requireNonNull(fxmlStream));
-        scene = new Scene(root);
-        Styles.bindStyleSheets(scene.getStylesheets());
-        INITIALIZABLES.forEach(i -> i.init(scene));
+        //Extracting the resources, opening the database and loading the language block on I/O, they run in the
+        //background, the language and the style are read from the database in parallel. The parser of the SVG icons
+        //doesn't need any of them, it is loaded meanwhile
+        STARTUP.addBackground("resources", Resources::getPrivatePath);
+        STARTUP.addBackground("database", Database::init, "resources");
+        STARTUP.addBackground("language", Language::getLanguage, "database");
+        STARTUP.addBackground("style", () -> Styles.getCurrentStyle().join(), "database");
+        STARTUP.addBackground("svg", Icons::warmUpSVGLoader);
+        
+        STARTUP.run("fxml", () -> {
+            var loader = new FXMLLoader();
+            var fxmlStream = Resources.createAndGetFileAsStream("sharknoon/casey/ide/ui/MainFXML.fxml", true);
+            
+            //Loads the Maincontroller, which loads all the UI Things
+            Parent root = loader.load(Objects.requireNonNull(fxmlStream));
+            scene = new Scene(root);
+        }, "resources", "language", "style");
+        STARTUP.run("styles", () -> Styles.bindStyleSheets(scene.getStylesheets()), "fxml");
+        STARTUP.run("initializables", () -> INITIALIZABLES.forEach(i -> i.init(scene)), "fxml");
     }
     
     @Override
-    public void start(Stage stage) {
-        Icons.getImage(Icon.LOGO).ifPresent(stage.getIcons()::add);
-        stage.setScene(scene);
-        stage.setTitle("CaseyIDE");
-        stage.setMaximized(true);
-        notifyPreloader(new Preloader.ProgressNotification(1.0));
-        stage.show();
+    public void start(Stage stage) throws Exception {
+        STARTUP.run("stage", () -> {
+            Icons.getImage(Icon.LOGO).ifPresent(stage.getIcons()::add);
+            stage.setScene(scene);
+            stage.setTitle("CaseyIDE");
+            stage.setMaximized(true);
+            notifyPreloader(new Preloader.ProgressNotification(1.0));
+            stage.show();
+        }, "initializables");
+        //The pulse after the layout of the first frame renders it, the deferred tasks run after it
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                Platform.runLater(MainApplication::onFirstPaint);
+            }
+        });
+    }
+    
+    private static void onFirstPaint() {
+        STARTUP.mark("first paint");
+        STARTUP.runDeferred();
+        Logger.info(STARTUP.getReport());
+        if (isTraining) {
+            Platform.exit();
+        }
     }
     
     @Override
@@ -0,0 +1,586 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.logic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Side;
+import sharknoon.casey.ide.logic.blocks.Block;
+import sharknoon.casey.ide.logic.blocks.BlockType;
+import sharknoon.casey.ide.logic.items.*;
+import sharknoon.casey.ide.logic.statements.Statement;
+import sharknoon.casey.ide.logic.statements.calls.Call;
+import sharknoon.casey.ide.logic.statements.calls.CallItem;
+import sharknoon.casey.ide.logic.statements.operators.Operator;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.BooleanValue;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.NumberValue;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.TextValue;
+import sharknoon.casey.ide.logic.statements.values.Value;
+import sharknoon.casey.ide.logic.types.PrimitiveType;
+import sharknoon.casey.ide.logic.types.Type;
+import sharknoon.casey.ide.utils.settings.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a function directly in the IDE by walking its blocks and calculating its statements, without generating and
+ * compiling code. The operators are calculated by their own calculateResult, the calls of variables, parameters and
+ * functions by the interpreter running on the current thread. Calls on objects are not supported, they need the
+ * compiled run.
+ * <p>
+ * The interpreter doesn't walk the blocks of the IDE, but a snapshot of them with copies of the statements, which is
+ * taken on the JavaFX thread by {@link #prepare(Function)}. The functions can be edited while they are running.
+ */
+public class Interpreter {
+    
+    private static final ThreadLocal<Interpreter> CURRENT = new ThreadLocal<>();
+    //Deep recursions of the interpreted functions need a bigger stack than the default one
+    private static final long STACK_SIZE = 64L * 1024 * 1024;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    
+    private final Consumer<String> output;
+    private final Consumer<String> error;
+    private final BlockingQueue<String> inputs = new LinkedBlockingQueue<>();
+    //The variables outside of functions, e.g. in packages and classes
+    private final Map<Item<?, ?, ?>, Value> globals = new HashMap<>();
+    //The parameters and variables of the running function
+    private Map<Item<?, ?, ?>, Value> locals = new HashMap<>();
+    private volatile boolean cancelled = false;
+    private volatile Thread thread;
+    
+    /**
+     * @param output The consumer of the lines of the output blocks
+     * @param error  The consumer of the errors, e.g. wrong inputs
+     */
+    public Interpreter(Consumer<String> output, Consumer<String> error) {
+        this.output = output;
+        this.error = error;
+    }
+    
+    /**
+     * Takes a snapshot of a function and of all functions called by it, has to be called on the JavaFX thread before
+     * the function is interpreted. The blocks of functions, which haven't been shown yet, are created.
+     *
+     * @param function The function to be interpreted
+     * @return The snapshot to be interpreted
+     */
+    public static Program prepare(Function function) {
+        Set<Function> prepared = new LinkedHashSet<>();
+        Deque<Function> functions = new ArrayDeque<>(List.of(function));
+        while (!functions.isEmpty()) {
+            Function next = functions.pop();
+            if (!prepared.add(next)) {
+                continue;
+            }
+            next.materializeBlocks();
+            for (Block block : next.blocksProperty()) {
+                block.getStatement().ifPresent(s -> collectCalledFunctions(s, functions));
+            }
+        }
+        Program program = new Program();
+        //The calls in the blocks refer to the snapshots of the called functions, so they are created first
+        for (Function f : prepared) {
+            program.functions.put(f, new FunctionSnapshot(f, program));
+        }
+        for (Function f : prepared) {
+            program.functions.get(f).copyBlocks(f, program);
+        }
+        program.main = program.functions.get(function);
+        return program;
+    }
+    
+    /**
+     * Takes a snapshot of a single statement, has to be called on the JavaFX thread
+     *
+     * @param statement The statement, which doesn't call any functions
+     * @return The copy of the statement
+     */
+    static Statement<?, ?, ?> prepare(Statement<?, ?, ?> statement) {
+        return new Program().copy(statement, null);
+    }
+    
+    private static void collectCalledFunctions(Statement<?, ?, ?> statement, Deque<Function> functions) {
+        if (statement instanceof CallItem) {
+            Object item = ((CallItem<?>) statement).getItem();
+            if (item instanceof Function) {
+                functions.push((Function) item);
+            }
+        }
+        for (Statement<?, ?, ?> child : statement.getChilds()) {
+            if (child != null) {
+                collectCalledFunctions(child, functions);
+            }
+        }
+    }
+    
+    /**
+     * Interprets a function on a new thread
+     *
+     * @param program         The function, prepared by {@link #prepare(Function)}
+     * @param parameterValues The values of the parameters per name, as entered by the user
+     * @return The return value of the function, completed exceptionally if the function has been cancelled or failed
+     */
+    public CompletableFuture<Value> start(Program program, Map<String, String> parameterValues) {
+        CompletableFuture<Value> result = new CompletableFuture<>();
+        Runnable run = () -> {
+            try {
+                List<Value> arguments = program.main.parameters.stream()
+                        .map(p -> parseParameter(p, parameterValues.get(p.name)))
+                        .collect(Collectors.toList());
+                result.complete(run(program, arguments));
+            } catch (CancellationException e) {
+                result.completeExceptionally(e);
+            } catch (InterpreterException e) {
+                error.accept(e.getMessage());
+                result.completeExceptionally(e);
+            } catch (StackOverflowError e) {
+                error.accept("The functions are calling each other too often");
+                result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                Logger.error("Could not interpret the function " + program.main.fullName, e);
+                error.accept(String.valueOf(e));
+                result.completeExceptionally(e);
+            }
+        };
+        thread = new Thread(null, run, "InterpreterThread-" + THREAD_COUNTER.incrementAndGet(), STACK_SIZE);
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+    
+    /**
+     * Enters a line for the next input block, can be called by any thread
+     *
+     * @param line The entered line, null is ignored
+     */
+    public void input(String line) {
+        if (line != null) {
+            inputs.add(line);
+        }
+    }
+    
+    /**
+     * Stops the interpreted function before its next block, can be called by any thread
+     */
+    public void cancel() {
+        cancelled = true;
+        Thread thread = this.thread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    /**
+     * Interprets a function on the current thread
+     *
+     * @param program   The function, prepared by {@link #prepare(Function)}
+     * @param arguments The values of the parameters, missing values are empty values
+     * @return The return value of the function
+     */
+    Value run(Program program, List<Value> arguments) {
+        return run(program.main, arguments);
+    }
+    
+    private Value run(FunctionSnapshot function, List<Value> arguments) {
+        Interpreter previous = CURRENT.get();
+        Map<Item<?, ?, ?>, Value> callerLocals = locals;
+        CURRENT.set(this);
+        locals = new HashMap<>();
+        try {
+            for (int i = 0; i < function.parameters.size(); i++) {
+                VariableSnapshot parameter = function.parameters.get(i);
+                Value argument = i < arguments.size() ? arguments.get(i) : null;
+                locals.put(parameter.item, argument != null ? argument : createEmptyValue(parameter.type));
+            }
+            if (function.start == null) {
+                throw new InterpreterException("The function " + function.fullName + " has no start block");
+            }
+            BlockSnapshot block = function.start;
+            while (block != null) {
+                checkCancelled();
+                switch (block.type) {
+                    case END:
+                        return block.statement != null
+                                ? block.statement.calculateResult()
+                                : createEmptyValue(function.returnType);
+                    case DECISION:
+                        Value condition = getStatement(block).calculateResult();
+                        boolean isTrue = condition instanceof BooleanValue && ((BooleanValue) condition).getValue();
+                        //Like in the compiler, the right side is the true side
+                        block = block.next.get(isTrue ? Side.RIGHT : Side.LEFT);
+                        continue;
+                    case CALL:
+                        getStatement(block).calculateResult();
+                        break;
+                    case ASSIGNMENT:
+                        set(getVariable(block).item, getStatement(block).calculateResult());
+                        break;
+                    case INPUT:
+                        VariableSnapshot variable = getVariable(block);
+                        set(variable.item, readInput(variable));
+                        break;
+                    case OUTPUT:
+                        output.accept(String.valueOf(getStatement(block).calculateResult()));
+                        break;
+                }
+                //Any output, only the decisions have more than one
+                block = block.next.values().stream().findFirst().orElse(null);
+            }
+            return createEmptyValue(function.returnType);
+        } finally {
+            locals = callerLocals;
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    /**
+     * Calculates a statement on the current thread, with the current values of the variables
+     *
+     * @param statement The statement, prepared by {@link #prepare(Statement)}
+     * @return The value of the statement
+     */
+    Value calculate(Statement<?, ?, ?> statement) {
+        Interpreter previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return statement.calculateResult();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    /**
+     * Sets the value of a variable or parameter
+     *
+     * @param variable The variable or parameter
+     * @param value    The new value
+     */
+    void set(Item<?, ?, ?> variable, Value value) {
+        getScope(variable).put(variable, value);
+    }
+    
+    private Value get(VariableSnapshot variable) {
+        return getScope(variable.item).computeIfAbsent(variable.item, v -> createEmptyValue(variable.type));
+    }
+    
+    private Map<Item<?, ?, ?>, Value> getScope(Item<?, ?, ?> variable) {
+        if (variable instanceof Parameter || (variable instanceof Variable && ((Variable) variable).isInFunction())) {
+            return locals;
+        }
+        return globals;
+    }
+    
+    private Value calculateCall(CallSnapshot call) {
+        if (!call.isSupported) {
+            throw new InterpreterException("The call " + call + " is not supported by the interpreter, the function has to be compiled");
+        }
+        if (call.function != null) {
+            List<Value> arguments = new ArrayList<>();
+            for (Statement<?, ?, ?> argument : call.arguments) {
+                arguments.add(argument != null ? argument.calculateResult() : null);
+            }
+            return run(call.function, arguments);
+        }
+        if (call.variable != null) {
+            return get(call.variable);
+        }
+        throw new InterpreterException("The call " + call + " is not a function, a variable or a parameter");
+    }
+    
+    private Value readInput(VariableSnapshot variable) {
+        Type type = variable.type;
+        if (type != PrimitiveType.NUMBER && type != PrimitiveType.BOOLEAN && type != PrimitiveType.TEXT) {
+            throw new InterpreterException("Input type is not allowed, only Text, Boolean and Number is allowed");
+        }
+        String line;
+        try {
+            line = inputs.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The interpreter has been cancelled");
+        }
+        Value value = parse(type, line);
+        if (value == null) {
+            value = createEmptyValue(type);
+            error.accept("Entered value not correct, using " + value + " instead");
+        }
+        return value;
+    }
+    
+    private Value parseParameter(VariableSnapshot parameter, String text) {
+        Value value = text != null ? parse(parameter.type, text) : null;
+        if (value == null) {
+            value = createEmptyValue(parameter.type);
+            if (text != null) {
+                error.accept("The value of the parameter " + parameter.name + " is not correct, using " + value + " instead");
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Parses an entered value
+     *
+     * @param type The type of the value
+     * @param text The entered text
+     * @return The value or null, if the text is not a value of the type
+     */
+    static Value parse(Type type, String text) {
+        if (type == PrimitiveType.NUMBER) {
+            try {
+                return new NumberValue(Double.parseDouble(text.trim()), null);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else if (type == PrimitiveType.BOOLEAN) {
+            String trimmed = text.trim();
+            if (trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false")) {
+                return new BooleanValue(Boolean.parseBoolean(trimmed), null);
+            }
+            return null;
+        } else if (type == PrimitiveType.TEXT) {
+            return new TextValue(text, null);
+        }
+        return null;
+    }
+    
+    private static Value createEmptyValue(Type type) {
+        return type != null ? type.createEmptyValue(null) : null;
+    }
+    
+    private static List<Parameter> getParameters(Function function) {
+        return function.getChildren().stream()
+                .filter(c -> c.getType() == ItemType.PARAMETER)
+                .map(p -> (Parameter) p)
+                .collect(Collectors.toList());
+    }
+    
+    private static Statement<?, ?, ?> getStatement(BlockSnapshot block) {
+        if (block.statement == null) {
+            throw new InterpreterException("The " + block.type.name().toLowerCase() + " block of the function " + block.function.fullName + " has no statement");
+        }
+        return block.statement;
+    }
+    
+    private static VariableSnapshot getVariable(BlockSnapshot block) {
+        if (block.variable == null) {
+            throw new InterpreterException("The " + block.type.name().toLowerCase() + " block of the function " + block.function.fullName + " has no variable");
+        }
+        return block.variable;
+    }
+    
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The interpreter has been cancelled");
+        }
+    }
+    
+    /**
+     * A function, which can't be interpreted, e.g. because of a missing statement
+     */
+    public static class InterpreterException extends RuntimeException {
+    
+        public InterpreterException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * The snapshot of a function and of all functions called by it, it isn't changed after it has been taken
+     */
+    public static class Program {
+    
+        private final Map<Function, FunctionSnapshot> functions = new HashMap<>();
+        private final Map<Item<?, ?, ?>, VariableSnapshot> variables = new HashMap<>();
+        private FunctionSnapshot main;
+    
+        private Program() {
+        }
+    
+        private VariableSnapshot getVariable(Item<?, ?, ?> variable) {
+            return variables.computeIfAbsent(variable, VariableSnapshot::new);
+        }
+    
+        /**
+         * Copies a statement, the operators and values are copied like they are saved and loaded, the calls are
+         * replaced by calls of the snapshots
+         */
+        @SuppressWarnings("unchecked")
+        private Statement<?, ?, ?> copy(Statement<?, ?, ?> statement, Statement<?, ?, ?> parent) {
+            if (statement instanceof Call) {
+                return new CallSnapshot((Call<?>) statement, parent, this);
+            }
+            if (statement instanceof Operator) {
+                Operator operator = (Operator) statement;
+                Operator copy = operator.getOperatorType().create(parent);
+                List<Statement<?, ?, ?>> parameters = operator.getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    Statement<?, ?, ?> parameter = parameters.get(i);
+                    copy.setParameter(i, parameter != null ? copy(parameter, copy) : null);
+                }
+                return copy;
+            }
+            ObjectNode properties = new ObjectNode(JsonNodeFactory.instance);
+            properties.setAll(statement.getAdditionalProperties());
+            return Statement.deserialize(parent, properties);
+        }
+    }
+    
+    private static class FunctionSnapshot {
+    
+        private final String fullName;
+        private final Type returnType;
+        private final List<VariableSnapshot> parameters;
+        private BlockSnapshot start;
+    
+        private FunctionSnapshot(Function function, Program program) {
+            fullName = function.getFullName();
+            returnType = function.getReturnType();
+            parameters = getParameters(function).stream()
+                    .map(program::getVariable)
+                    .collect(Collectors.toList());
+        }
+    
+        private void copyBlocks(Function function, Program program) {
+            Map<Block, BlockSnapshot> blocks = new HashMap<>();
+            for (Block block : function.blocksProperty()) {
+                blocks.put(block, new BlockSnapshot(block, this, program));
+            }
+            //The first connected block of every output
+            blocks.forEach((block, snapshot) -> block.getConnections().forEach((side, destinations) -> destinations.keySet().stream()
+                    .map(blocks::get)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .ifPresent(next -> snapshot.next.put(side, next))));
+            start = function.blocksProperty().stream()
+                    .filter(b -> b.getType() == BlockType.START)
+                    .findFirst()
+                    .map(blocks::get)
+                    .orElse(null);
+        }
+    }
+    
+    private static class BlockSnapshot {
+    
+        private final BlockType type;
+        private final FunctionSnapshot function;
+        private final Statement<?, ?, ?> statement;
+        private final VariableSnapshot variable;
+        //Only filled while the snapshot is taken
+        private final Map<Side, BlockSnapshot> next = new LinkedHashMap<>();
+    
+        private BlockSnapshot(Block block, FunctionSnapshot function, Program program) {
+            type = block.getType();
+            this.function = function;
+            statement = block.getStatement().map(s -> program.copy(s, null)).orElse(null);
+            variable = block.getVariable().map(v -> program.getVariable(v.toItem())).orElse(null);
+        }
+    }
+    
+    private static class VariableSnapshot {
+    
+        private final Item<?, ?, ?> item;
+        private final String name;
+        private final Type type;
+    
+        private VariableSnapshot(Item<?, ?, ?> item) {
+            this.item = item;
+            name = item.getName();
+            type = ((ValueReturnable<?>) item).getReturnType();
+        }
+    }
+    
+    /**
+     * The copy of a call, it is calculated by the interpreter running on the current thread
+     */
+    private static class CallSnapshot extends Statement<Type, Type, Type> {
+    
+        private final String text;
+        private final Type returnType;
+        //Only a single call of a function, variable or parameter is supported, not the calls on objects
+        private final boolean isSupported;
+        private final FunctionSnapshot function;
+        private final VariableSnapshot variable;
+        private final List<Statement<?, ?, ?>> arguments = new ArrayList<>();
+    
+        @SuppressWarnings("unchecked")
+        private CallSnapshot(Call<?> call, Statement<?, ?, ?> parent, Program program) {
+            initParent((Statement) parent, false);
+            text = String.valueOf(call);
+            returnType = call.getReturnType();
+            List<? extends Statement<?, ?, ?>> callItems = call.getChilds();
+            isSupported = callItems.size() == 1 && callItems.get(0) instanceof CallItem;
+            Object item = isSupported ? ((CallItem<?>) callItems.get(0)).getItem() : null;
+            function = item instanceof Function ? program.functions.get(item) : null;
+            variable = item instanceof Variable || item instanceof Parameter ? program.getVariable((Item<?, ?, ?>) item) : null;
+            if (function != null) {
+                for (Statement<?, ?, ?> argument : callItems.get(0).getChilds()) {
+                    arguments.add(argument != null ? program.copy(argument, this) : null);
+                }
+            }
+        }
+    
+        @Override
+        @SuppressWarnings("unchecked")
+        public Value<Type> calculateResult() {
+            Interpreter interpreter = CURRENT.get();
+            if (interpreter == null) {
+                return returnType.createEmptyValue(parentProperty().get());
+            }
+            return interpreter.calculateCall(this);
+        }
+    
+        @Override
+        public Type getReturnType() {
+            return returnType;
+        }
+    
+        @Override
+        public ReadOnlyObjectProperty<Type> returnTypeProperty() {
+            return new SimpleObjectProperty<>(returnType);
+        }
+    
+        @Override
+        public String toString() {
+            return text;
+        }
+    
+        /**
+         * The snapshot isn't saved, only the text of the call is given, e.g. for logging
+         */
+        @Override
+        public Map<String, JsonNode> getAdditionalProperties() {
+            return Map.of("text", TextNode.valueOf(text));
+        }
+    }
+    
+}
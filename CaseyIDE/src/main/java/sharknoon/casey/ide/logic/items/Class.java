@@ -52,9 +52,9 @@ public class Class extends Item<Class, Package, Item<? extends Item, Class, ? ex
         if (fullName.isEmpty()) {
             return Optional.empty();
         }
-        return CLASSES.stream()
-                .filter(c -> c.getFullName().equals(fullName))
-                .findAny();
+        return Items.forName(fullName)
+                .filter(i -> i instanceof Class)
+                .map(i -> (Class) i);
     }
     
     private transient final ObjectType type = new ObjectType(this);
@@ -228,6 +228,7 @@ public class Class extends Item<Class, Package, Item<? extends Item, Class, ? ex
         private final Class clazz;
         List<Runnable> onDelete = new ArrayList<>();
         private StringProperty creationText;
+        private StringProperty fullName;
         
         ObjectType(Class clazz) {
             this.clazz = clazz;
@@ -269,9 +270,11 @@ public class Class extends Item<Class, Package, Item<? extends Item, Class, ? ex
          */
         @Override
         public StringProperty fullNameProperty() {
-            StringProperty sp = new SimpleStringProperty();
-            sp.bind(clazz.fullNameProperty());
-            return sp;
+            if (fullName == null) {
+                fullName = new SimpleStringProperty();
+                fullName.bind(clazz.fullNameProperty());
+            }
+            return fullName;
         }
         
         @Override
@@ -15,7 +15,11 @@
  */
 package sharknoon.casey.ide.logic.items;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -33,14 +37,13 @@ import sharknoon.casey.ide.logic.blocks.Block;
 import sharknoon.casey.ide.logic.blocks.BlockType;
 import sharknoon.casey.ide.logic.blocks.Blocks;
 import sharknoon.casey.ide.logic.statements.Statement;
+import sharknoon.casey.ide.logic.statements.StatementSnapshot;
 import sharknoon.casey.ide.logic.types.PrimitiveType;
 import sharknoon.casey.ide.logic.types.Type;
 import sharknoon.casey.ide.utils.settings.Logger;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * @author Josua Frank
@@ -59,6 +62,9 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
     private static final String BLOCK_CONTENT = "blockcontent";
     private static final String BLOCK_STATEMENT = "statement";
     private static final String BLOCK_VARIABLE = "variable";
+    //The functions, whose blocks have been loaded, but not created yet, because the function hasn't been shown yet,
+    //only used on the JavaFX thread
+    private static final Set<Function> UNMATERIALIZED_FUNCTIONS = new HashSet<>();
     
     static ObservableMap<Type, List<Function>> getAllReturnTypes() {
         return ALL_RETURN_TYPES;
@@ -66,6 +72,9 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
     
     private final ObjectProperty<Type> returnType = new SimpleObjectProperty<>(PrimitiveType.VOID);
     private final ObservableList<Block> blocks = FXCollections.observableArrayList();
+    //The loaded blocks and all the texts inside of them (e.g. the names of the used variables), until they are created
+    private ArrayNode unmaterializedBlocks;
+    private Set<String> unmaterializedTexts;
     
     protected Function(Item<? extends Item, ? extends Item, Function> parent, String name) {
         superInit(parent, name);
@@ -82,6 +91,8 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
     
     @Override
     public void destroy() {
+        UNMATERIALIZED_FUNCTIONS.remove(this);
+        unmaterializedBlocks = null;
         super.destroy();
         Type returnType = getReturnType();
         if (returnType != null && ALL_RETURN_TYPES.containsKey(returnType)) {
@@ -97,6 +108,11 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
                 : "";
         map.put(RETURNTYPE, TextNode.valueOf(typeString));
         
+        if (unmaterializedBlocks != null) {
+            //Never changed, so the loaded blocks can be saved again
+            map.put(BLOCKS, unmaterializedBlocks);
+            return map;
+        }
         var blocksNode = new ArrayNode(JsonNodeFactory.instance);
         blocks.forEach(b -> {
             var block = new ObjectNode(JsonNodeFactory.instance);
@@ -136,44 +152,118 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
         return map;
     }
     
+    /**
+     * Like {@link #getAdditionalProperties()}, but only the values of the blocks and their statements are copied, their
+     * JSON is created while they are written by the save thread
+     */
+    @Override
+    public Map<String, JsonSerializable> getSaveProperties() {
+        if (unmaterializedBlocks != null) {
+            return super.getSaveProperties();
+        }
+        Map<String, JsonSerializable> map = new HashMap<>(super.getAdditionalProperties());
+        String typeString = returnType.get() != null
+                ? returnType.get().fullNameProperty().get()
+                : "";
+        map.put(RETURNTYPE, TextNode.valueOf(typeString));
+        List<BlockSnapshot> blockSnapshots = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            blockSnapshots.add(new BlockSnapshot(block));
+        }
+        map.put(BLOCKS, new BlocksSnapshot(blockSnapshots));
+        return map;
+    }
+    
     @Override
     public void setAdditionalProperties(Map<String, JsonNode> properties) {
-        final Map<Block, ObjectNode> connectionsMap = new HashMap<>();
-        final Map<Block, String> variablesMap = new HashMap<>();
-        final Map<Block, ObjectNode> statementMap = new HashMap<>();
         properties.forEach((key, value) -> {
             switch (key) {
                 case RETURNTYPE:
                     Type.valueOf(value.asText()).ifPresentOrElse(returnType::set, () -> returnType.set(PrimitiveType.VOID));
                     break;
                 case BLOCKS:
-                    ArrayNode blocks = (ArrayNode) value;
-                    for (JsonNode b : blocks) {
-                        var blockNode = (ObjectNode) b;
-    
-                        var id = blockNode.get(BLOCK_ID).asText("");
-                        var x = blockNode.get(BLOCK_X).asInt(0);
-                        var y = blockNode.get(BLOCK_Y).asInt(0);
-                        var type = blockNode.get(BLOCK_TYPE).asText("");
-                        var connections = (ObjectNode) blockNode.get(BLOCK_CONNECTIONS);
-                        var content = (ObjectNode) blockNode.get(BLOCK_CONTENT);
-                        
-                        var block = Blocks.createBlock(BlockType.forName(type), this, id, new Point2D(x, y));
-                        if (connections.size() > 0) {
-                            connectionsMap.put(block, connections);
-                        }
-                        if (content.size() > 0) {
-                            if (content.has(BLOCK_VARIABLE)) {
-                                variablesMap.put(block, content.get(BLOCK_VARIABLE).asText());
-                            }
-                            if (content.has(BLOCK_STATEMENT)) {
-                                statementMap.put(block, (ObjectNode) content.get(BLOCK_STATEMENT));
-                            }
-                        }
-                    }
+                    //The blocks, their frames and statements are created as soon as the function is shown
+                    unmaterializedBlocks = (ArrayNode) value;
+                    unmaterializedTexts = new HashSet<>();
+                    collectTexts(value, unmaterializedTexts);
+                    UNMATERIALIZED_FUNCTIONS.add(this);
                     break;
             }
         });
+    }
+    
+    /**
+     * Creates the loaded blocks of this function, has to be called on the JavaFX thread before the blocks are shown or
+     * changed
+     */
+    public void materializeBlocks() {
+        if (unmaterializedBlocks == null) {
+            return;
+        }
+        ArrayNode blocksNode = unmaterializedBlocks;
+        unmaterializedBlocks = null;
+        unmaterializedTexts = null;
+        UNMATERIALIZED_FUNCTIONS.remove(this);
+        createBlocks(blocksNode);
+    }
+    
+    public boolean isMaterialized() {
+        return unmaterializedBlocks == null;
+    }
+    
+    /**
+     * Creates the blocks of all functions, which are referring to a item, e.g. before the item is renamed, because
+     * the loaded blocks refer to the item by its current full name
+     *
+     * @param fullName The current full name of the item
+     */
+    static void materializeBlocksReferringTo(String fullName) {
+        if (UNMATERIALIZED_FUNCTIONS.isEmpty() || fullName == null) {
+            return;
+        }
+        String childPrefix = fullName + ".";
+        new ArrayList<>(UNMATERIALIZED_FUNCTIONS).stream()
+                .filter(f -> f.unmaterializedTexts != null)
+                .filter(f -> f.unmaterializedTexts.stream().anyMatch(t -> t.equals(fullName) || t.startsWith(childPrefix)))
+                .forEach(Function::materializeBlocks);
+    }
+    
+    private static void collectTexts(JsonNode node, Set<String> texts) {
+        if (node.isTextual()) {
+            texts.add(node.asText());
+        }
+        for (JsonNode child : node) {
+            collectTexts(child, texts);
+        }
+    }
+    
+    private void createBlocks(ArrayNode blocks) {
+        final Map<Block, ObjectNode> connectionsMap = new HashMap<>();
+        final Map<Block, String> variablesMap = new HashMap<>();
+        final Map<Block, ObjectNode> statementMap = new HashMap<>();
+        for (JsonNode b : blocks) {
+            var blockNode = (ObjectNode) b;
+    
+            var id = blockNode.get(BLOCK_ID).asText("");
+            var x = blockNode.get(BLOCK_X).asInt(0);
+            var y = blockNode.get(BLOCK_Y).asInt(0);
+            var type = blockNode.get(BLOCK_TYPE).asText("");
+            var connections = (ObjectNode) blockNode.get(BLOCK_CONNECTIONS);
+            var content = (ObjectNode) blockNode.get(BLOCK_CONTENT);
+            
+            var block = Blocks.createBlock(BlockType.forName(type), this, id, new Point2D(x, y));
+            if (connections.size() > 0) {
+                connectionsMap.put(block, connections);
+            }
+            if (content.size() > 0) {
+                if (content.has(BLOCK_VARIABLE)) {
+                    variablesMap.put(block, content.get(BLOCK_VARIABLE).asText());
+                }
+                if (content.has(BLOCK_STATEMENT)) {
+                    statementMap.put(block, (ObjectNode) content.get(BLOCK_STATEMENT));
+                }
+            }
+        }
         connectionsMap.forEach((block, connections) -> {
             connections.fields().forEachRemaining(connection -> {
                 try {
@@ -219,4 +309,83 @@ public class Function extends Item<Function, Item<? extends Item, ? extends Item
         return isIn(ItemType.PACKAGE);
     }
     
+    /**
+     * The blocks of a function, written like {@link #getAdditionalProperties()} writes them
+     */
+    private static class BlocksSnapshot extends JsonSerializable.Base {
+        
+        private final List<BlockSnapshot> blocks;
+        
+        private BlocksSnapshot(List<BlockSnapshot> blocks) {
+            this.blocks = blocks;
+        }
+        
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeStartArray();
+            for (BlockSnapshot block : blocks) {
+                block.serialize(generator, serializers);
+            }
+            generator.writeEndArray();
+        }
+        
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, serializers);
+        }
+    }
+    
+    private static class BlockSnapshot {
+        
+        private final String id;
+        private final double x;
+        private final double y;
+        private final String type;
+        //The sides and the ids of the connected blocks with their sides
+        private final Map<String, Map<String, String>> connections = new LinkedHashMap<>();
+        private final String variable;
+        private final StatementSnapshot statement;
+        
+        private BlockSnapshot(Block block) {
+            id = block.getId();
+            x = block.getFrame().getMinX();
+            y = block.getFrame().getMinY();
+            type = block.getClass().getSimpleName().toUpperCase();
+            block.getConnections().forEach((originSide, destinations) -> {
+                Map<String, String> destinationConnections = new LinkedHashMap<>();
+                destinations.forEach((d, destSide) -> destinationConnections.put(d.getId(), destSide.name()));
+                connections.put(originSide.name(), destinationConnections);
+            });
+            variable = block.getVariable().map(vh -> vh.toItem().getFullName()).orElse(null);
+            statement = block.getStatement().map(StatementSnapshot::of).orElse(null);
+        }
+        
+        private void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField(BLOCK_ID, id);
+            generator.writeNumberField(BLOCK_X, x);
+            generator.writeNumberField(BLOCK_Y, y);
+            generator.writeStringField(BLOCK_TYPE, type);
+            generator.writeObjectFieldStart(BLOCK_CONNECTIONS);
+            for (Map.Entry<String, Map<String, String>> connection : connections.entrySet()) {
+                generator.writeObjectFieldStart(connection.getKey());
+                for (Map.Entry<String, String> destination : connection.getValue().entrySet()) {
+                    generator.writeStringField(destination.getKey(), destination.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart(BLOCK_CONTENT);
+            if (variable != null) {
+                generator.writeStringField(BLOCK_VARIABLE, variable);
+            }
+            if (statement != null) {
+                generator.writeFieldName(BLOCK_STATEMENT);
+                statement.serialize(generator, serializers);
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+    
 }
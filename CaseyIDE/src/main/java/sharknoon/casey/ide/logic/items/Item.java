@@ -16,7 +16,7 @@
 package sharknoon.casey.ide.logic.items;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import javafx.beans.binding.StringExpression;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -88,6 +88,8 @@ public abstract class Item<I extends Item, P extends Item, C extends Item> {
     private final ReadOnlyListWrapper<C> children = new ReadOnlyListWrapper<>(FXCollections.observableArrayList());
     private final StringProperty name = new SimpleStringProperty("");
     private final StringProperty comments = new SimpleStringProperty("");
+    //Only recalculated after a rename or a move of this item or one of its parents
+    private final transient ReadOnlyStringWrapper fullName = new ReadOnlyStringWrapper();
     //DO NOT CHANGE ORDER!!!
     private final transient ReadOnlyObjectWrapper<ItemType> itemType = new ReadOnlyObjectWrapper<>(ItemType.valueOf(this));
     private final transient ReadOnlyObjectWrapper<Site<I>> site = new ReadOnlyObjectWrapper<>(Site.createSite(this));
@@ -101,7 +103,16 @@ public abstract class Item<I extends Item, P extends Item, C extends Item> {
         if (parentProperty().get() != null) {
             parentProperty().get().childrenProperty().add(this);
         }
+        BindUtils.addListener(parentProperty(), (observable, oldValue, newValue) -> {
+            if (newValue != null) {
+                fullName.bind(newValue.fullNameProperty().concat(".").concat(nameProperty()));
+            } else {
+                fullName.bind(nameProperty());
+            }
+        });
         Items.registerItem(this);
+        nameProperty().addListener((observable, oldValue, newValue) -> Items.updateFullName(this));
+        parentProperty().addListener((observable, oldValue, newValue) -> Items.updateFullName(this));
     }
     
     protected void afterInit() {
@@ -167,6 +178,7 @@ public abstract class Item<I extends Item, P extends Item, C extends Item> {
             parentProperty().get().removeChild(this);
         }
         siteProperty().get().destroy();
+        Items.unregisterItem(this);
         parentProperty().set(null);
         childrenProperty().clear();
     }
@@ -175,45 +187,41 @@ public abstract class Item<I extends Item, P extends Item, C extends Item> {
         childrenProperty().get().remove(child);
     }
     
-    public StringExpression fullNameProperty() {
-        StringProperty sp = new SimpleStringProperty();
-        BindUtils.addListener(parentProperty(), (observable, oldValue, newValue) -> {
-            if (parentProperty().get() != null) {
-                sp.bind(parentProperty().get().fullNameProperty().concat(".").concat(nameProperty()));
-            } else {
-                sp.bind(nameProperty());
-            }
-        });
-        return sp;
+    public ReadOnlyStringProperty fullNameProperty() {
+        return fullName.getReadOnlyProperty();
     }
     
     public Map<String, JsonNode> getAdditionalProperties() {
         return new HashMap<>();
     }
     
+    /**
+     * The additional properties to be saved, has to be called on the JavaFX thread. They are written later by the save
+     * thread, so they must not refer to anything, which may still be changed.
+     *
+     * @return The additional properties, by default the ones of {@link #getAdditionalProperties()}
+     */
+    public Map<String, JsonSerializable> getSaveProperties() {
+        return new HashMap<>(getAdditionalProperties());
+    }
+    
     //to be overridden
     public void setAdditionalProperties(Map<String, JsonNode> properties) {
     
     }
     
+    /**
+     * Every item is unique, the full name is not used, because it changes on every rename or move and the item would
+     * get lost in hash based collections
+     */
     @Override
-    public int hashCode() {
-        return fullNameProperty().get().hashCode();
+    public final int hashCode() {
+        return super.hashCode();
     }
     
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        final Item<?, ?, ?> other = (Item<?, ?, ?>) obj;
-        return this.fullNameProperty().get().equals(other.fullNameProperty().get());
+    public final boolean equals(Object obj) {
+        return this == obj;
     }
     
     @Override
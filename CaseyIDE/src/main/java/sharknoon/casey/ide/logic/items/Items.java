@@ -14,23 +14,79 @@ package sharknoon.casey.ide.logic.items;/*
  * limitations under the License.
  */
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-
-import java.util.Optional;
+import java.util.*;
 
+/**
+ * The index of all items by their full names (e.g. Project.package.Class), it is kept up to date when items are
+ * renamed, moved or destroyed
+ */
 public class Items {
     
-    private static ObservableList<Item<?, ?, ?>> ITEMS = FXCollections.observableArrayList();
+    private static final Map<String, List<Item<?, ?, ?>>> ITEMS = new HashMap<>();
+    private static final Map<Item<?, ?, ?>, String> FULL_NAMES = new IdentityHashMap<>();
     
     public static void registerItem(Item<?, ?, ?> item) {
-        ITEMS.add(item);
+        index(item, item.getFullName());
+    }
+    
+    /**
+     * Removes the item from the index, its children are unregistered separately
+     *
+     * @param item The destroyed item
+     */
+    public static void unregisterItem(Item<?, ?, ?> item) {
+        Function.materializeBlocksReferringTo(FULL_NAMES.get(item));
+        unindex(item);
+    }
+    
+    /**
+     * Updates the full names of the item and all of its children, has to be called after a item has been renamed
+     * or moved
+     *
+     * @param item The renamed or moved item
+     */
+    public static void updateFullName(Item<?, ?, ?> item) {
+        if (!FULL_NAMES.containsKey(item)) {
+            return;
+        }
+        //The not yet created blocks are referring to the item by its old name
+        Function.materializeBlocksReferringTo(FULL_NAMES.get(item));
+        Deque<Item<?, ?, ?>> items = new ArrayDeque<>();
+        items.push(item);
+        while (!items.isEmpty()) {
+            Item<?, ?, ?> current = items.pop();
+            unindex(current);
+            index(current, current.getFullName());
+            current.getChildren().forEach(items::push);
+        }
     }
     
     public static Optional<Item<?, ?, ?>> forName(String fullname) {
-        return ITEMS.stream()
-                .filter(i -> i.getFullName().equals(fullname))
-                .findAny();
+        List<Item<?, ?, ?>> items = ITEMS.get(fullname);
+        if (items == null) {
+            return Optional.empty();
+        }
+        return Optional.of(items.get(0));
+    }
+    
+    private static void index(Item<?, ?, ?> item, String fullName) {
+        FULL_NAMES.put(item, fullName);
+        //Two items may have the same name for a moment, e.g. during a rename
+        ITEMS.computeIfAbsent(fullName, n -> new ArrayList<>(1)).add(item);
+    }
+    
+    private static void unindex(Item<?, ?, ?> item) {
+        String fullName = FULL_NAMES.remove(item);
+        if (fullName == null) {
+            return;
+        }
+        List<Item<?, ?, ?>> items = ITEMS.get(fullName);
+        if (items != null) {
+            items.removeIf(i -> i == item);
+            if (items.isEmpty()) {
+                ITEMS.remove(fullName);
+            }
+        }
     }
     
 }
@@ -18,19 +18,22 @@ package sharknoon.casey.ide.logic.items;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import javafx.application.Platform;
-import javafx.beans.binding.ObjectExpression;
 import javafx.beans.property.*;
 import javafx.scene.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.text.*;
 import javafx.stage.*;
 import sharknoon.casey.ide.MainApplication;
 import sharknoon.casey.ide.logic.CompileLanguage;
-import sharknoon.casey.ide.misc.Executor.ExecutorBuilder;
+import sharknoon.casey.ide.logic.Interpreter;
+import sharknoon.casey.ide.misc.CompilerService;
+import sharknoon.casey.ide.misc.ProgramRunner;
+import sharknoon.casey.ide.serial.ProjectFormat;
 import sharknoon.casey.ide.serial.Serialisation;
+import sharknoon.casey.ide.ui.UISettings;
+import sharknoon.casey.ide.ui.console.*;
 import sharknoon.casey.ide.ui.dialogs.*;
+import sharknoon.casey.ide.ui.dialogs.Dialogs.Errors;
 import sharknoon.casey.ide.ui.misc.*;
 import sharknoon.casey.ide.ui.sites.Site;
 import sharknoon.casey.ide.ui.sites.welcome.RecentProject;
@@ -42,6 +45,7 @@ import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -71,6 +75,7 @@ public class Project extends Item<Project, Item, Package> {
     }
     
     private final ObjectProperty<Path> saveFile = new SimpleObjectProperty<>();
+    private ProjectFormat saveFormat = ProjectFormat.JSON;
     private String id;
     private Runnable onFinish;
     
@@ -79,19 +84,11 @@ public class Project extends Item<Project, Item, Package> {
         init();
     }
     
-    private Runnable showInputOutputWindow(String title, Icon icon, Consumer<String> inputLine, ObjectExpression<Text> errorAndOutputLine, Consumer<Boolean> abortProcess) {
+    private Runnable showInputOutputWindow(String title, Icon icon, Consumer<String> inputLine, ConsoleBuffer errorAndOutputLines, Consumer<Boolean> abortProcess) {
         BorderPane root = new BorderPane();
         
-        TextFlow outputs = new TextFlow();
-        errorAndOutputLine.addListener((observable, oldValue, newValue) -> {
-            if (newValue != null) {
-                Platform.runLater(() -> outputs.getChildren().add(newValue));
-            }
-        });
-        ScrollPane sc = new ScrollPane(outputs);
-        sc.setPannable(true);
-        outputs.heightProperty().addListener(o -> sc.setVvalue(1));
-        root.setCenter(sc);
+        Console outputs = new Console(errorAndOutputLines);
+        root.setCenter(outputs);
         
         TextField inputs = new TextField();
         inputs.setOnAction(ae -> {
@@ -112,10 +109,9 @@ public class Project extends Item<Project, Item, Package> {
                 abortProcess.accept(true);
             }
         });
-        Text textProgramEnded = new Text(Language.get(Word.INPUT_OUTPUT_WINDOW_PROGRAM_ENDED));
         newWindow.show();
         return () -> Platform.runLater(() -> {
-            outputs.getChildren().add(textProgramEnded);
+            outputs.append(Language.get(Word.INPUT_OUTPUT_WINDOW_PROGRAM_ENDED), false);
             inputs.setOnAction(ae -> {
             });
             inputs.setOnKeyPressed(event -> newWindow.close());
@@ -124,7 +120,13 @@ public class Project extends Item<Project, Item, Package> {
     
     private void init() {
         currentProject.set(this);
-        MainApplication.registerExitable(this::save);
+        MainApplication.registerExitable(() -> {
+            try {
+                save().join();
+            } catch (CompletionException e) {
+                showSaveFailedDialog(e.getCause());
+            }
+        });
     }
     
     public final String getID() {
@@ -145,6 +147,16 @@ public class Project extends Item<Project, Item, Package> {
         }
     }
     
+    public ProjectFormat getSaveFormat() {
+        return saveFormat;
+    }
+    
+    public void setSaveFormat(ProjectFormat saveFormat) {
+        if (saveFormat != null) {
+            this.saveFormat = saveFormat;
+        }
+    }
+    
     public Path forceGetSaveFile() {
         requestSaveFile();
         return saveFile.get();
@@ -174,16 +186,27 @@ public class Project extends Item<Project, Item, Package> {
         currentProject.set(null);
     }
     
-    public void save() {
+    /**
+     * Saves the project in the background
+     *
+     * @return A future, which is completed when the file has been written
+     */
+    public CompletableFuture<Void> save() {
         requestSaveFile();
         if (saveFile.get() != null) {//If the user closes the project without saving
             RecentProject.updateProject(this);
-            Serialisation.saveProject(this);
+            return Serialisation.saveProject(this);
         }
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    private void showSaveFailedDialog(Throwable error) {
+        Exception exception = error instanceof Exception ? (Exception) error : null;
+        Dialogs.showErrorDialog(Errors.SAVE_FAILED_DIALOG, exception, Map.of("FILE", String.valueOf(saveFile.get())));
     }
     
     public CompletableFuture<Void> run(Consumer<String> statusProperty) {
-        save();
+        CompletableFuture<Void> saved = save();
         Item<?, ?, ?> currentItem = Site.currentSelectedProperty().get();
         if (saveFile.get() != null && currentItem != null) {
             if (!(currentItem instanceof Function)) {
@@ -199,8 +222,11 @@ public class Project extends Item<Project, Item, Package> {
             Path caseyFile = saveFile.get();
             Path basePath = saveFile.get().getParent();
             return CompletableFuture.runAsync(() -> {
-                Optional<Path> optionalCaseyCompiler = Resources.getFile("sharknoon/casey/ide/CaseyCOMPILER.jar", true);
-                if (!optionalCaseyCompiler.isPresent()) {
+                //The compiler reads the saved file, an old or missing file must not be run
+                try {
+                    saved.join();
+                } catch (CompletionException e) {
+                    Platform.runLater(() -> showSaveFailedDialog(e.getCause()));
                     return;
                 }
                 List<String> commands = new ArrayList<>();
@@ -220,34 +246,18 @@ public class Project extends Item<Project, Item, Package> {
                         .stream()
                         .map(e -> e.getKey() + "=" + e.getValue())
                         .forEach(commands::add);
-                boolean success = ExecutorBuilder.executeJar(optionalCaseyCompiler.get())
-                        .setOutputConsumer(statusProperty)
-                        .setErrorConsumer(statusProperty)
-                        .setArgs(commands)
-                        .setExpectedExitValues(0)
-                        .execute()
-                        .join() == 0;
+                boolean success = CompilerService.compile(commands, statusProperty).join() == 0;
                 if (success) {
-                    ObjectProperty<Text> errorAndOutputProperty = new SimpleObjectProperty<>();
-                    Consumer<String> error = s -> {
-                        Text t = new Text(s + "\n");
-                        t.setFill(Color.RED);
-                        errorAndOutputProperty.set(t);
-                    };
-                    Consumer<String> output = s -> {
-                        Text t = new Text(s + "\n");
-                        errorAndOutputProperty.set(t);
-                    };
+                    //The lines are shown in batches, a chatty program can't flood the JavaFX thread
+                    ConsoleBuffer errorAndOutputLines = new ConsoleBuffer(UISettings.CONSOLE_SCROLLBACK_LINES);
+                    Consumer<String> error = s -> errorAndOutputLines.append(s, true);
+                    Consumer<String> output = s -> errorAndOutputLines.append(s, false);
                     StringProperty inputProperty = new SimpleStringProperty();
                     Consumer<String> input = inputProperty::set;
                     BooleanProperty abortProperty = new SimpleBooleanProperty();
-                    Platform.runLater(() -> onFinish = showInputOutputWindow(currentItem.getName(), currentItem.getSite().getTabIcon(), input, errorAndOutputProperty, abortProperty::set));
-                    ExecutorBuilder.executeClass(basePath.toAbsolutePath(), currentItem.getFullName())
-                            .setOutputConsumer(output)
-                            .setErrorConsumer(error)
-                            .setInput(inputProperty)
-                            .setAbortProcess(abortProperty)
-                            .execute()
+                    Platform.runLater(() -> onFinish = showInputOutputWindow(currentItem.getName(), currentItem.getSite().getTabIcon(), input, errorAndOutputLines, abortProperty::set));
+                    //The runner JVM is reused by the runs, the classes are sent to it
+                    ProgramRunner.run(basePath.toAbsolutePath(), currentItem.getFullName(), output, error, inputProperty, abortProperty)
                             .join();
                     if (onFinish != null) {
                         onFinish.run();
@@ -258,6 +268,40 @@ public class Project extends Item<Project, Item, Package> {
         return CompletableFuture.completedFuture(null);
     }
     
+    /**
+     * Runs the current function in the interpreter of the IDE, without saving and compiling it
+     *
+     * @return A future, which is completed when the function has ended
+     */
+    public CompletableFuture<Void> interpret() {
+        Item<?, ?, ?> currentItem = Site.currentSelectedProperty().get();
+        if (!(currentItem instanceof Function)) {
+            //Shouldn't happen
+            return CompletableFuture.completedFuture(null);
+        }
+        Function f = (Function) currentItem;
+        Map<String, String> parameterValues = requestParameters(f);
+        if (parameterValues == null) {
+            //User canceled the input
+            return CompletableFuture.completedFuture(null);
+        }
+        Interpreter.Program program = Interpreter.prepare(f);
+        ConsoleBuffer errorAndOutputLines = new ConsoleBuffer(UISettings.CONSOLE_SCROLLBACK_LINES);
+        Interpreter interpreter = new Interpreter(
+                s -> errorAndOutputLines.append(s, false),
+                s -> errorAndOutputLines.append(s, true)
+        );
+        Runnable onEnd = showInputOutputWindow(f.getName(), f.getSite().getTabIcon(), interpreter::input, errorAndOutputLines, abort -> {
+            if (abort) {
+                interpreter.cancel();
+            }
+        });
+        return interpreter.start(program, parameterValues).handle((value, throwable) -> {
+            onEnd.run();
+            return null;
+        });
+    }
+    
     private Map<String, String> requestParameters(Function f) {
         GridPane root = new GridPane();
         root.setHgap(10);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.logic.statements;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.TextNode;
+import sharknoon.casey.ide.logic.statements.calls.Call;
+import sharknoon.casey.ide.logic.statements.calls.CallItem;
+import sharknoon.casey.ide.logic.statements.operators.Operator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A copy of the values of a statement, which is written later by another thread, e.g. the save thread. Taking it only
+ * reads the values of the statements, the JSON is not created before it is written. It is written in the same way as
+ * {@link Statement#getAdditionalProperties()} and can be read by {@link Statement#deserialize}.
+ */
+public class StatementSnapshot extends JsonSerializable.Base {
+    
+    //The properties of the statement itself, e.g. its type or its value
+    private final Map<String, JsonNode> properties;
+    //The name of the array of the child statements or null, if the statement has no children
+    private final String childrenName;
+    private final List<StatementSnapshot> children;
+    
+    private StatementSnapshot(Map<String, JsonNode> properties, String childrenName, List<StatementSnapshot> children) {
+        this.properties = properties;
+        this.childrenName = childrenName;
+        this.children = children;
+    }
+    
+    /**
+     * Copies a statement and its children, has to be called on the JavaFX thread
+     *
+     * @param statement The statement
+     * @return The copy
+     */
+    public static StatementSnapshot of(Statement<?, ?, ?> statement) {
+        if (statement instanceof Operator) {
+            String type = ((Operator) statement).getOperatorType().name();
+            return new StatementSnapshot(Map.of("type", TextNode.valueOf(type)), "parameter", copyChildren(statement));
+        } else if (statement instanceof Call) {
+            return new StatementSnapshot(Map.of("type", TextNode.valueOf("CALL")), "calls", copyChildren(statement));
+        } else if (statement instanceof CallItem) {
+            String type = ((CallItem<?>) statement).getItem().getFullName();
+            return new StatementSnapshot(Map.of("type", TextNode.valueOf(type)), "parameter", copyChildren(statement));
+        }
+        //The values consist of their type and value only
+        return new StatementSnapshot(statement.getAdditionalProperties(), null, List.of());
+    }
+    
+    private static List<StatementSnapshot> copyChildren(Statement<?, ?, ?> statement) {
+        List<StatementSnapshot> children = new ArrayList<>(statement.getChilds().size());
+        for (Statement<?, ?, ?> child : statement.getChilds()) {
+            children.add(child != null ? of(child) : null);
+        }
+        return children;
+    }
+    
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, JsonNode> property : properties.entrySet()) {
+            generator.writeFieldName(property.getKey());
+            generator.writeTree(property.getValue());
+        }
+        if (childrenName != null) {
+            generator.writeArrayFieldStart(childrenName);
+            for (StatementSnapshot child : children) {
+                if (child != null) {
+                    child.serialize(generator, serializers);
+                } else {
+                    generator.writeNull();
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+    
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+    
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sharknoon.casey.ide.utils.settings.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The class data sharing (AppCDS) archive of a launched JVM. The first launch records the loaded classes into the
+ * archive when it exits, the following launches map the archive instead of loading and verifying the classes again.
+ * An archive is named after the Java version it has been recorded with and is recorded again, when the jar is newer.
+ * The archives are only used with Java 13 or newer, older versions don't know the options and refuse to start.
+ */
+class ClassDataSharing {
+    
+    private static final String ARCHIVE_ENDING = ".jsa";
+    //The first version recording archives with -XX:ArchiveClassesAtExit
+    private static final int FIRST_SUPPORTED_VERSION = 13;
+    
+    private final Path archive;
+    private final Path recording;
+    
+    private ClassDataSharing(Path archive, Path recording) {
+        this.archive = archive;
+        this.recording = recording;
+    }
+    
+    /**
+     * Prepares the archive for a launch
+     *
+     * @param directory The directory of the archive
+     * @param name      The name of the launched program, e.g. the name of the jar without its ending
+     * @param jar       The launched jar or null, if classes are launched
+     * @return The archive, without any arguments if the running Java version doesn't support it
+     */
+    static ClassDataSharing prepare(@NotNull Path directory, @NotNull String name, @Nullable Path jar) {
+        //The programs are launched with the java of the running JVM
+        if (!isSupported(Runtime.version())) {
+            return new ClassDataSharing(null, null);
+        }
+        Path archive = directory.resolve(getArchiveName(name));
+        if (isUpToDate(archive, jar)) {
+            return new ClassDataSharing(archive, null);
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            Logger.warning("Could not create the directory of the class data archive " + directory, e);
+            return new ClassDataSharing(null, null);
+        }
+        //Parallel launches record into their own files, the last one replaces the archive
+        Path recording = directory.resolve(name + "-" + UUID.randomUUID() + ARCHIVE_ENDING + ".tmp");
+        return new ClassDataSharing(archive, recording);
+    }
+    
+    /**
+     * The name of the archive of a program for the running Java version, e.g. CaseyIDE-17.0.9.jsa
+     */
+    static String getArchiveName(String name) {
+        return name + "-" + System.getProperty("java.version") + ARCHIVE_ENDING;
+    }
+    
+    /**
+     * Whether a Java version can record and use the archives
+     */
+    static boolean isSupported(Runtime.Version version) {
+        return version.feature() >= FIRST_SUPPORTED_VERSION;
+    }
+    
+    private static boolean isUpToDate(Path archive, @Nullable Path jar) {
+        try {
+            if (!Files.isRegularFile(archive)) {
+                return false;
+            }
+            //The JVM ignores an archive of a changed jar
+            return jar == null || Files.getLastModifiedTime(archive).compareTo(Files.getLastModifiedTime(jar)) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * The arguments for the JVM, before the main class or the jar
+     *
+     * @return The arguments to map or record the archive
+     */
+    List<String> getArguments() {
+        if (archive == null) {
+            return List.of();
+        }
+        if (recording != null) {
+            return List.of("-XX:ArchiveClassesAtExit=" + recording);
+        }
+        return List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto");
+    }
+    
+    /**
+     * Whether the launch records the archive instead of using it
+     */
+    boolean isRecording() {
+        return recording != null;
+    }
+    
+    /**
+     * Replaces the archive with the recorded one, has to be called after the JVM exited
+     */
+    void finish() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            if (Files.isRegularFile(recording) && Files.size(recording) > 0) {
+                try {
+                    Files.move(recording, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(recording, archive, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            Logger.warning("Could not save the class data archive " + archive, e);
+        } finally {
+            try {
+                Files.deleteIfExists(recording);
+            } catch (IOException e) {
+                Logger.warning("Could not delete the recorded class data archive " + recording, e);
+            }
+        }
+    }
+    
+}
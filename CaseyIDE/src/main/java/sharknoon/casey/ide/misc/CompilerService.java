@@ -0,0 +1,154 @@
+package sharknoon.casey.ide.misc;/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import javafx.application.Platform;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sharknoon.casey.ide.MainApplication;
+import sharknoon.casey.ide.utils.settings.Logger;
+import sharknoon.casey.ide.utils.settings.Resources;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs the CaseyCOMPILER inside the IDE process. The compiler jar is loaded once into its own class loader and
+ * reused for every run, so compiling doesn't need to start a new JVM anymore.
+ */
+public class CompilerService {
+
+    private static final String COMPILER_JAR = "sharknoon/casey/ide/CaseyCOMPILER.jar";
+    private static final String COMPILE_SERVICE_CLASS = "sharknoon.casey.compiler.CompileService";
+    //The compiler is not reentrant, all compilations are done one after another on this thread
+    private static final ExecutorService COMPILER_SERVICE = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "CompilerThread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static URLClassLoader compilerClassLoader;
+    private static Method runMethod;
+
+    /**
+     * Loads the compiler in the background, so that the first run is as fast as the following ones
+     */
+    public static void init() {
+        COMPILER_SERVICE.submit(() -> loadCompiler().ifPresent(compileService -> {
+            try {
+                compileService.getMethod("warmUp").invoke(null);
+            } catch (Exception e) {
+                Logger.warning("Could not warm up the compiler", e);
+            }
+        }));
+        MainApplication.registerExitable(CompilerService::close);
+    }
+
+    /**
+     * Compiles a project with the in-process compiler
+     *
+     * @param args           The arguments for the compiler, the same as for the CaseyCOMPILER.jar
+     * @param statusConsumer The consumer for the output and the errors of the compiler
+     * @return The exit value of the compiler, 0 if the compilation was successful
+     */
+    public static CompletableFuture<Integer> compile(@NotNull List<String> args, @Nullable Consumer<String> statusConsumer) {
+        return compile(args, statusConsumer, statusConsumer, m -> Platform.runLater(() -> Executor.showErrorWindow(m)));
+    }
+
+    public static CompletableFuture<Integer> compile(@NotNull List<String> args,
+                                                     @Nullable Consumer<String> outputConsumer,
+                                                     @Nullable Consumer<String> errorConsumer,
+                                                     @Nullable Consumer<Map<String, Boolean>> onError) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, Boolean> output = new LinkedHashMap<>();
+            Consumer<String> newOutputConsumer = s -> {
+                if (outputConsumer != null) {
+                    outputConsumer.accept(s);
+                }
+                Logger.debug(s);
+                output.put(s, false);
+            };
+            Consumer<String> newErrorConsumer = s -> {
+                if (errorConsumer != null) {
+                    errorConsumer.accept(s);
+                }
+                Logger.debug(s);
+                output.put(s, true);
+            };
+            int exitValue = run(args, newOutputConsumer, newErrorConsumer);
+            if (exitValue != 0 && onError != null) {
+                onError.accept(output);
+            }
+            return exitValue;
+        }, COMPILER_SERVICE);
+    }
+
+    private static int run(List<String> args, Consumer<String> outputConsumer, Consumer<String> errorConsumer) {
+        Optional<Class<?>> compileService = loadCompiler();
+        if (!compileService.isPresent()) {
+            errorConsumer.accept("Could not load the compiler");
+            return -1;
+        }
+        try {
+            if (runMethod == null) {
+                runMethod = compileService.get().getMethod("run", String[].class, Consumer.class, Consumer.class);
+            }
+            Logger.debug("Compiling \"" + String.join(" ", args) + "\"");
+            return (int) runMethod.invoke(null, args.toArray(new String[0]), outputConsumer, errorConsumer);
+        } catch (Exception e) {
+            Logger.error("Could not run the compiler", e);
+            errorConsumer.accept("Could not run the compiler: " + e);
+            return -1;
+        }
+    }
+
+    private static Optional<Class<?>> loadCompiler() {
+        try {
+            if (compilerClassLoader == null) {
+                Optional<Path> compilerJar = Resources.getFile(COMPILER_JAR, true);
+                if (!compilerJar.isPresent()) {
+                    Logger.error("Compiler not found");
+                    return Optional.empty();
+                }
+                //The platform class loader as parent keeps the dependencies of the compiler apart from the ones of the IDE
+                URL[] urls = {compilerJar.get().toUri().toURL()};
+                compilerClassLoader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader());
+            }
+            return Optional.of(Class.forName(COMPILE_SERVICE_CLASS, true, compilerClassLoader));
+        } catch (Exception e) {
+            Logger.error("Could not load the compiler", e);
+            return Optional.empty();
+        }
+    }
+
+    private static void close() {
+        COMPILER_SERVICE.shutdownNow();
+        if (compilerClassLoader != null) {
+            try {
+                compilerClassLoader.close();
+            } catch (IOException e) {
+                Logger.warning("Could not close the compiler", e);
+            }
+        }
+    }
+
+}
@@ -17,10 +17,10 @@ package sharknoon.casey.ide.misc;/*
 import javafx.application.Platform;
 import javafx.beans.binding.BooleanExpression;
 import javafx.beans.binding.StringExpression;
+import javafx.beans.value.ChangeListener;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
-import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.LogOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -31,6 +31,7 @@ import sharknoon.casey.ide.utils.settings.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -38,11 +39,43 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 public class Executor {
     
+    //Starts the processes, writes their input and finishes them after they ended, none of these tasks waits for a
+    // running process, so a few threads serve any amount of processes
+    private static final ExecutorService PROCESS_SERVICE = createService("ProcessThread-", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    //Reads the output and the errors of the processes while they are running, one thread per stream, which blocks until
+    // the process closes the stream. The amount of threads isn't limited, otherwise the streams of further processes
+    // wouldn't be read while the running ones wait e.g. for input, and these processes would block on a full pipe
+    private static final ExecutorService IO_SERVICE = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), createThreadFactory("ProcessIOThread-"));
+    
+    /**
+     * A pool with a fixed amount of threads, which end after a minute without any work
+     */
+    private static ExecutorService createService(String name, int threads) {
+        ThreadPoolExecutor service = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), createThreadFactory(name));
+        service.allowCoreThreadTimeOut(true);
+        return service;
+    }
+    
+    private static ThreadFactory createThreadFactory(String name) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
     /**
      * Returns the path to the bin folder of the java home
      *
@@ -66,11 +99,13 @@ public class Executor {
     }
     
     /**
-     * @param jarPath path to the .jar file
+     * @param jarPath          path to the .jar file
+     * @param archiveDirectory the directory of the class data archive or null to launch without one
      * @param args
      * @return
      */
     private static CompletableFuture<Integer> runJar(@NotNull Path jarPath,
+                                                     @Nullable Path archiveDirectory,
                                                      @Nullable Consumer<String> outputConsumer,
                                                      @Nullable Consumer<String> errorConsumer,
                                                      @Nullable StringExpression input,
@@ -81,7 +116,7 @@ public class Executor {
         return CompletableFuture.supplyAsync(() -> {
             Optional<String> optionalJavaCommand = getJavaHomeDirectory();
             if (!optionalJavaCommand.isPresent()) {
-                return -1;
+                return CompletableFuture.completedFuture(-1);
             }
             String javaCommand = optionalJavaCommand.get();
             
@@ -89,8 +124,16 @@ public class Executor {
             
             Map<String, Boolean> output = new LinkedHashMap<>();
             
+            String jarName = jarPath.getFileName().toString();
+            String name = jarName.endsWith(".jar") ? jarName.substring(0, jarName.length() - 4) : jarName;
+            ClassDataSharing classDataSharing = archiveDirectory != null
+                    ? ClassDataSharing.prepare(archiveDirectory, name, jarPath)
+                    : null;
             List<String> commands = new ArrayList<>();
             commands.add(javaCommand);
+            if (classDataSharing != null) {
+                commands.addAll(classDataSharing.getArguments());
+            }
             commands.add("-jar");
             commands.add(jarFile);
             if (args != null) {
@@ -113,12 +156,14 @@ public class Executor {
     
             Runnable onErrorOccured = onError != null ? () -> onError.accept(output) : null;
     
-            return run(jarPath.getParent().toFile(), commands, newOutputConsumer, newErrorConsumer, input, onErrorOccured, expectedExitValues, abortProcess);
-        });
+            CompletableFuture<Integer> exitValue = run(jarPath.getParent().toFile(), commands, newOutputConsumer, newErrorConsumer, input, onErrorOccured, expectedExitValues, abortProcess);
+            return finish(exitValue, classDataSharing);
+        }, PROCESS_SERVICE).thenCompose(exitValue -> exitValue);
     }
     
     public static CompletableFuture<Integer> runClass(@NotNull Path workingDirectory,
                                                       @NotNull String mainClass,
+                                                      @Nullable Path archiveDirectory,
                                                       @Nullable Consumer<String> outputConsumer,
                                                       @Nullable Consumer<String> errorConsumer,
                                                       @Nullable StringExpression input,
@@ -129,14 +174,23 @@ public class Executor {
         return CompletableFuture.supplyAsync(() -> {
             Optional<String> optionalJavaCommand = getJavaHomeDirectory();
             if (!optionalJavaCommand.isPresent()) {
-                return -1;
+                return CompletableFuture.completedFuture(-1);
             }
             String javaCommand = optionalJavaCommand.get();
             
             Map<String, Boolean> output = new LinkedHashMap<>();
             
+            //The program is launched without -cp, so its classes are found in the working directory. The JVM can't archive
+            //the classes of directories and they change with every compilation anyway, so only the classes of Java are
+            //archived. A CLASSPATH variable would add directories to the class path, then no archive is used at all.
+            ClassDataSharing classDataSharing = archiveDirectory != null && System.getenv("CLASSPATH") == null
+                    ? ClassDataSharing.prepare(archiveDirectory, "CaseyProgram", null)
+                    : null;
             List<String> commands = new ArrayList<>();
             commands.add(javaCommand);
+            if (classDataSharing != null) {
+                commands.addAll(classDataSharing.getArguments());
+            }
             commands.add(mainClass);
             if (args != null) {
                 commands.addAll(List.of(args));
@@ -152,101 +206,151 @@ public class Executor {
                 output.put(s, true);
             };
     
-            return run(workingDirectory.toAbsolutePath().toFile(), commands, newOutputConsumer, newErrorConsumer, input, onError != null ? () -> onError.accept(output) : null, expectedExitValues, abortProcess);
-        });
+            CompletableFuture<Integer> exitValue = run(workingDirectory.toAbsolutePath().toFile(), commands, newOutputConsumer, newErrorConsumer, input, onError != null ? () -> onError.accept(output) : null, expectedExitValues, abortProcess);
+            return finish(exitValue, classDataSharing);
+        }, PROCESS_SERVICE).thenCompose(exitValue -> exitValue);
     }
     
-    private static int run(@NotNull File workingDirectory,
-                           @NotNull List<String> commands,
-                           @Nullable Consumer<String> outputConsumer,
-                           @Nullable Consumer<String> errorConsumer,
-                           @Nullable StringExpression input,
-                           @Nullable Runnable onError,
-                           @Nullable List<Integer> expectedExitValues,
-                           @Nullable BooleanExpression abortProcess) {
+    /**
+     * Saves the recorded class data archive after the JVM exited
+     */
+    private static CompletableFuture<Integer> finish(CompletableFuture<Integer> exitValue, @Nullable ClassDataSharing classDataSharing) {
+        if (classDataSharing == null) {
+            return exitValue;
+        }
+        return exitValue.whenComplete((value, ex) -> classDataSharing.finish());
+    }
+    
+    /**
+     * Starts the process, the future is completed by the ending of the process, no thread waits for it meanwhile
+     */
+    private static CompletableFuture<Integer> run(@NotNull File workingDirectory,
+                                                  @NotNull List<String> commands,
+                                                  @Nullable Consumer<String> outputConsumer,
+                                                  @Nullable Consumer<String> errorConsumer,
+                                                  @Nullable StringExpression input,
+                                                  @Nullable Runnable onError,
+                                                  @Nullable List<Integer> expectedExitValues,
+                                                  @Nullable BooleanExpression abortProcess) {
+        Process process;
         try {
             ProcessBuilder builder = new ProcessBuilder();
             
             builder.command(commands);
             builder.directory(workingDirectory);
+            //Otherwise the process blocks as soon as the buffer of the unread stream is full
+            if (outputConsumer == null) {
+                builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            }
+            if (errorConsumer == null) {
+                builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+            }
             
             Logger.debug("Executing \"" + String.join(" ", commands) + "\" in Working Directory \"" + builder.directory() + "\"");
             
-            Process start = builder.start();
-            if (outputConsumer != null) {
-                LogOutputStream outStream = new LogOutputStream() {
-                    @Override
-                    protected void processLine(String line, int logLevel) {
-                        outputConsumer.accept(line);
-                        Logger.debug(line);
-                    }
-                };
-                new Thread(() -> {
-                    try {
-                        start.getInputStream().transferTo(outStream);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }, "ProcessOutputListenerThread").start();
-            }
-            if (errorConsumer != null) {
-                LogOutputStream errStream = new LogOutputStream() {
-                    @Override
-                    protected void processLine(String line, int logLevel) {
-                        errorConsumer.accept(line);
-                        Logger.debug(line);
+            process = builder.start();
+        } catch (Exception e) {
+            Logger.error("Could not execute Java-File", e);
+            return CompletableFuture.completedFuture(-1);
+        }
+        List<CompletableFuture<Void>> pumps = new ArrayList<>(2);
+        if (outputConsumer != null) {
+            pumps.add(pump(process.getInputStream(), outputConsumer));
+        }
+        if (errorConsumer != null) {
+            pumps.add(pump(process.getErrorStream(), errorConsumer));
+        }
+        ChangeListener<String> inputListener = null;
+        if (input != null) {
+            //The lines are written one after another in the order they have been entered
+            AtomicReference<CompletableFuture<Void>> lastInput = new AtomicReference<>(CompletableFuture.completedFuture(null));
+            inputListener = (observable, oldValue, s) -> {
+                if (s == null) {
+                    return;
+                }
+                lastInput.updateAndGet(previous -> previous.thenRunAsync(() -> writeInput(process, s), PROCESS_SERVICE));
+            };
+            input.addListener(inputListener);
+        }
+        ChangeListener<Boolean> abortListener = null;
+        if (abortProcess != null) {
+            abortListener = (observable, oldValue, newValue) -> {
+                if (newValue) {
+                    process.destroy();
+                }
+            };
+            abortProcess.addListener(abortListener);
+        }
+        ChangeListener<String> finalInputListener = inputListener;
+        ChangeListener<Boolean> finalAbortListener = abortListener;
+        return process.onExit()
+                //The last lines may still be on their way to the consumers
+                .thenCompose(p -> CompletableFuture.allOf(pumps.toArray(new CompletableFuture[0])))
+                .handleAsync((v, ex) -> {
+                    if (finalInputListener != null) {
+                        input.removeListener(finalInputListener);
                     }
-                };
-                new Thread(() -> {
-                    try {
-                        start.getErrorStream().transferTo(errStream);
-                    } catch (IOException e) {
-                        e.printStackTrace();
+                    if (finalAbortListener != null) {
+                        abortProcess.removeListener(finalAbortListener);
                     }
-                }, "ProcessErrorListenerThread").start();
-            }
-            if (input != null) {
-                ExecutorService executorService = Executors.newCachedThreadPool();
-                input.addListener((observable, oldValue, s) -> {
-                    if (s == null) {
-                        return;
+                    closeInput(process);
+                    if (ex != null) {
+                        Logger.error("Could not execute Java-File", ex);
+                        return -1;
                     }
-                    executorService.submit(() -> {
-                        try {
-                            OutputStream inputForProcess = start.getOutputStream();
-                            inputForProcess.write((s + "\n").getBytes(StandardCharsets.UTF_8));
-                            inputForProcess.flush();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    });
-                });
-            }
-            if (abortProcess != null) {
-                abortProcess.addListener((observable, oldValue, newValue) -> {
-                    if (newValue) {
-                        start.destroy();
+                    int exitValue = process.exitValue();
+                    if ((onError != null) && (expectedExitValues != null) && !expectedExitValues.contains(exitValue)) {
+                        onError.run();
                     }
-                });
-            }
-            start.waitFor();
-            int exitValue = start.exitValue();
-            if ((onError != null) && (expectedExitValues != null) && !expectedExitValues.contains(exitValue)) {
-                onError.run();
-            }
-            return exitValue;
-        } catch (ExecuteException e) {
-            Logger.error("Could not execute Java-File, Errorcode: " + e.getExitValue());
-            if (onError != null) {
-                onError.run();
+                    return exitValue;
+                }, PROCESS_SERVICE);
+    }
+    
+    private static void writeInput(Process process, String line) {
+        try {
+            OutputStream inputForProcess = process.getOutputStream();
+            inputForProcess.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            inputForProcess.flush();
+        } catch (IOException e) {
+            //A process may end without reading all of its input
+            if (process.isAlive()) {
+                Logger.error("Could not write input to the process", e);
+            } else {
+                Logger.debug("Could not write input to the ended process", e);
             }
-            return -1;
-        } catch (Exception e) {
-            Logger.error("Could not execute Java-File", e);
-            return -1;
         }
     }
     
+    private static void closeInput(Process process) {
+        try {
+            process.getOutputStream().close();
+        } catch (IOException e) {
+            //The input, which hasn't been read by the ended process, can't be flushed anymore
+            Logger.debug("Could not close the input of the ended process", e);
+        }
+    }
+    
+    /**
+     * Hands the lines of a stream of a process to a consumer until the process closes the stream
+     */
+    private static CompletableFuture<Void> pump(InputStream stream, Consumer<String> consumer) {
+        return CompletableFuture.runAsync(() -> {
+            LogOutputStream lineStream = new LogOutputStream() {
+                @Override
+                protected void processLine(String line, int logLevel) {
+                    consumer.accept(line);
+                    Logger.debug(line);
+                }
+            };
+            //Closing the line stream hands over the last line, even if it doesn't end with a line break
+            try (stream; lineStream) {
+                stream.transferTo(lineStream);
+            } catch (IOException e) {
+                Logger.error("Could not read the output of the process", e);
+            }
+        }, IO_SERVICE);
+    }
+    
     public static void showErrorWindow(Map<String, Boolean> lines) {
         TextFlow textFlow = new TextFlow();
         lines.forEach((line, error) -> {
@@ -280,6 +384,7 @@ public class Executor {
         BooleanExpression abortProcess;
         List<Integer> expectedExitValues;
         Consumer<Map<String, Boolean>> onError = m -> Platform.runLater(() -> showErrorWindow(m));
+        Path classDataArchiveDirectory;
         
         public String[] getArgs() {
             return args;
@@ -363,6 +468,22 @@ public class Executor {
             return (B) this;
         }
         
+        public Path getClassDataArchiveDirectory() {
+            return classDataArchiveDirectory;
+        }
+        
+        /**
+         * Sets the directory of the class data sharing archive, the first launch records the archive, the following
+         * launches start faster by using it
+         *
+         * @param classDataArchiveDirectory The directory or null to launch without an archive
+         */
+        @SuppressWarnings("unchecked")
+        public B setClassDataArchiveDirectory(Path classDataArchiveDirectory) {
+            this.classDataArchiveDirectory = classDataArchiveDirectory;
+            return (B) this;
+        }
+        
         public abstract CompletableFuture<Integer> execute();
         
         public static class JarExecutorBuilder extends ExecutorBuilder<JarExecutorBuilder> {
@@ -370,6 +491,8 @@ public class Executor {
             
             public JarExecutorBuilder(Path jarPath) {
                 this.jarPath = jarPath;
+                //The archive is kept next to the jar by default
+                this.classDataArchiveDirectory = jarPath.toAbsolutePath().getParent();
             }
             
             public Path getJarPath() {
@@ -382,7 +505,7 @@ public class Executor {
             }
             
             public CompletableFuture<Integer> execute() {
-                return runJar(jarPath, outputConsumer, errorConsumer, input, abortProcess, expectedExitValues, onError, args);
+                return runJar(jarPath, classDataArchiveDirectory, outputConsumer, errorConsumer, input, abortProcess, expectedExitValues, onError, args);
             }
             
         }
@@ -415,7 +538,7 @@ public class Executor {
             }
             
             public CompletableFuture<Integer> execute() {
-                return runClass(workingDirectory, mainClass, outputConsumer, errorConsumer, input, abortProcess, expectedExitValues, onError, args);
+                return runClass(workingDirectory, mainClass, classDataArchiveDirectory, outputConsumer, errorConsumer, input, abortProcess, expectedExitValues, onError, args);
             }
         }
     }
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import javafx.beans.binding.BooleanExpression;
+import javafx.beans.binding.StringExpression;
+import javafx.beans.value.ChangeListener;
+import org.apache.commons.exec.LogOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sharknoon.casey.ide.MainApplication;
+import sharknoon.casey.ide.misc.Executor.ExecutorBuilder;
+import sharknoon.casey.ide.utils.settings.Logger;
+import sharknoon.casey.ide.utils.settings.Resources;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static sharknoon.casey.ide.misc.ProgramRunnerMain.ERROR;
+import static sharknoon.casey.ide.misc.ProgramRunnerMain.EXIT;
+import static sharknoon.casey.ide.misc.ProgramRunnerMain.INPUT;
+import static sharknoon.casey.ide.misc.ProgramRunnerMain.RUN;
+
+/**
+ * Runs the compiled programs in a runner JVM, which is started once and reused by the following runs, so that a run
+ * doesn't have to wait for the startup of a JVM. The classes of a program are sent to the runner, which loads them
+ * into a new class loader for every run. An aborted run kills the runner, a new one is started in the background. The
+ * same happens, when daemon threads of a program are still running after its run.
+ */
+public class ProgramRunner {
+    
+    private static final String CLASS_ENDING = ".class";
+    //The runs are done one after another, the runner only runs one program at a time
+    private static final ExecutorService RUN_SERVICE = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ProgramRunnerThread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Runner runner;
+    private static boolean closed = false;
+    
+    /**
+     * Starts the runner in the background, so that the first run doesn't have to wait for it
+     */
+    public static void init() {
+        RUN_SERVICE.submit(ProgramRunner::getRunner);
+        MainApplication.registerExitable(ProgramRunner::close);
+    }
+    
+    /**
+     * Runs the main method of a compiled program, falls back to a new JVM, if the runner can't be started
+     *
+     * @param basePath       The folder the packages of the classes start in, the classes of the project of the main
+     *                       class are sent to the runner
+     * @param mainClass      The full name of the main class, e.g. Project.package.function
+     * @param outputConsumer The consumer for the output lines of the program
+     * @param errorConsumer  The consumer for the error lines of the program
+     * @param input          The lines entered for the program
+     * @param abortProcess   Aborts the program, when it becomes true
+     * @param args           The arguments of the main method
+     * @return The exit value of the program
+     */
+    public static CompletableFuture<Integer> run(@NotNull Path basePath,
+                                                 @NotNull String mainClass,
+                                                 @Nullable Consumer<String> outputConsumer,
+                                                 @Nullable Consumer<String> errorConsumer,
+                                                 @Nullable StringExpression input,
+                                                 @Nullable BooleanExpression abortProcess,
+                                                 String... args) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Map<String, byte[]>> classes = readClasses(basePath, mainClass);
+            Optional<Runner> currentRunner = classes.isPresent() ? getRunner() : Optional.empty();
+            if (!currentRunner.isPresent()) {
+                return null;
+            }
+            return currentRunner.get().run(classes.get(), mainClass, outputConsumer, errorConsumer, input, abortProcess, args);
+        }, RUN_SERVICE).thenCompose(exitValue -> exitValue != null
+                ? CompletableFuture.completedFuture(exitValue)
+                : ExecutorBuilder.executeClass(basePath, mainClass)
+                .setArgs(args)
+                .setOutputConsumer(outputConsumer)
+                .setErrorConsumer(errorConsumer)
+                .setInput(input)
+                .setAbortProcess(abortProcess)
+                .setClassDataArchiveDirectory(Resources.getPrivatePath().resolve("cds"))
+                .setOnError(null)
+                .execute());
+    }
+    
+    /**
+     * Reads the classes of the project of the main class, the binary names are the paths inside the base path
+     */
+    static Optional<Map<String, byte[]>> readClasses(Path basePath, String mainClass) {
+        Path base = basePath.toAbsolutePath().normalize();
+        Path projectFolder = base.resolve(mainClass.substring(0, Math.max(0, mainClass.indexOf('.'))));
+        if (!Files.isDirectory(projectFolder)) {
+            projectFolder = base;
+        }
+        try (Stream<Path> files = Files.walk(projectFolder)) {
+            List<Path> classFiles = files
+                    .filter(p -> p.getFileName().toString().endsWith(CLASS_ENDING))
+                    .collect(Collectors.toList());
+            Map<String, byte[]> classes = new HashMap<>(classFiles.size() * 2);
+            for (Path classFile : classFiles) {
+                String path = base.relativize(classFile).toString().replace(File.separatorChar, '.');
+                classes.put(path.substring(0, path.length() - CLASS_ENDING.length()), Files.readAllBytes(classFile));
+            }
+            return Optional.of(classes);
+        } catch (IOException e) {
+            Logger.error("Could not read the classes of " + mainClass, e);
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Returns the running runner or starts a new one, has to be called on the run thread
+     */
+    private static Optional<Runner> getRunner() {
+        if (closed) {
+            return Optional.empty();
+        }
+        if (runner != null && runner.process.isAlive() && runner.reusable) {
+            return Optional.of(runner);
+        }
+        try {
+            runner = new Runner();
+            return Optional.of(runner);
+        } catch (IOException e) {
+            Logger.warning("Could not start the program runner", e);
+            runner = null;
+            return Optional.empty();
+        }
+    }
+    
+    private static void close() {
+        closed = true;
+        RUN_SERVICE.shutdownNow();
+        Runner currentRunner = runner;
+        if (currentRunner != null) {
+            currentRunner.process.destroy();
+        }
+    }
+    
+    private static class Runner {
+    
+        private final Process process;
+        private final DataOutputStream commands;
+        private volatile Run currentRun;
+        //False, if threads of a previous program are still running in the runner
+        private volatile boolean reusable = true;
+    
+        private Runner() throws IOException {
+            String javaCommand = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            List<String> command = List.of(javaCommand, "-cp", System.getProperty("java.class.path"), ProgramRunnerMain.class.getName());
+            Logger.debug("Starting the program runner \"" + String.join(" ", command) + "\"");
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            commands = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            Thread reader = new Thread(this::readFrames, "ProgramRunnerReader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    
+        private int run(Map<String, byte[]> classes,
+                        String mainClass,
+                        @Nullable Consumer<String> outputConsumer,
+                        @Nullable Consumer<String> errorConsumer,
+                        @Nullable StringExpression input,
+                        @Nullable BooleanExpression abortProcess,
+                        String... args) {
+            Run run = new Run(outputConsumer, errorConsumer);
+            currentRun = run;
+            ChangeListener<String> inputListener = null;
+            ChangeListener<Boolean> abortListener = null;
+            try {
+                synchronized (commands) {
+                    //Lines entered before the program has been sent wait for the lock, they come after it
+                    if (input != null) {
+                        inputListener = (observable, oldValue, line) -> {
+                            if (line != null) {
+                                sendInput(line);
+                            }
+                        };
+                        input.addListener(inputListener);
+                    }
+                    if (abortProcess != null) {
+                        //The program can't be stopped inside of the runner, the runner is killed instead
+                        abortListener = (observable, oldValue, abort) -> {
+                            if (abort) {
+                                process.destroyForcibly();
+                            }
+                        };
+                        abortProcess.addListener(abortListener);
+                    }
+                    commands.writeByte(RUN);
+                    commands.writeUTF(mainClass);
+                    commands.writeInt(args.length);
+                    for (String arg : args) {
+                        commands.writeUTF(arg);
+                    }
+                    commands.writeInt(classes.size());
+                    for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                        commands.writeUTF(entry.getKey());
+                        commands.writeInt(entry.getValue().length);
+                        commands.write(entry.getValue());
+                    }
+                    commands.flush();
+                }
+                return run.exitValue.join();
+            } catch (IOException e) {
+                Logger.error("Could not send the program to the runner", e);
+                process.destroyForcibly();
+                return -1;
+            } finally {
+                if (inputListener != null) {
+                    input.removeListener(inputListener);
+                }
+                if (abortListener != null) {
+                    abortProcess.removeListener(abortListener);
+                }
+                currentRun = null;
+                if (!reusable) {
+                    process.destroyForcibly();
+                }
+                if ((!reusable || !process.isAlive()) && !closed) {
+                    //The next run shouldn't have to wait for a new runner
+                    RUN_SERVICE.submit(ProgramRunner::getRunner);
+                }
+            }
+        }
+    
+        private void sendInput(String line) {
+            //The lines are written by the thread, which entered them, in the order they have been entered
+            synchronized (commands) {
+                try {
+                    byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+                    commands.writeByte(INPUT);
+                    commands.writeInt(bytes.length);
+                    commands.write(bytes);
+                    commands.flush();
+                } catch (IOException e) {
+                    Logger.error("Could not write input to the program", e);
+                }
+            }
+        }
+    
+        /**
+         * Hands the output of the runner to the current run, the frames are read in the order they have been written,
+         * so the last output of a run is handed over before its end
+         */
+        private void readFrames() {
+            try (DataInputStream frames = new DataInputStream(new BufferedInputStream(process.getInputStream()))) {
+                while (true) {
+                    byte type = frames.readByte();
+                    if (type == EXIT) {
+                        int exitValue = frames.readInt();
+                        if (frames.readBoolean()) {
+                            reusable = false;
+                        }
+                        Run run = currentRun;
+                        if (run != null) {
+                            run.finish(exitValue);
+                        }
+                        continue;
+                    }
+                    byte[] bytes = new byte[frames.readInt()];
+                    frames.readFully(bytes);
+                    Run run = currentRun;
+                    if (run != null) {
+                        (type == ERROR ? run.error : run.output).write(bytes);
+                    }
+                }
+            } catch (IOException e) {
+                //The runner has ended, e.g. the program called System.exit or the run has been aborted
+            }
+            Run run = currentRun;
+            if (run != null) {
+                try {
+                    run.finish(process.waitFor());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    run.finish(-1);
+                }
+            }
+        }
+    }
+    
+    private static class Run {
+    
+        private final LogOutputStream output;
+        private final LogOutputStream error;
+        private final CompletableFuture<Integer> exitValue = new CompletableFuture<>();
+    
+        private Run(@Nullable Consumer<String> outputConsumer, @Nullable Consumer<String> errorConsumer) {
+            output = lines(outputConsumer);
+            error = lines(errorConsumer);
+        }
+    
+        private static LogOutputStream lines(@Nullable Consumer<String> consumer) {
+            return new LogOutputStream() {
+                @Override
+                protected void processLine(String line, int logLevel) {
+                    if (consumer != null) {
+                        consumer.accept(line);
+                    }
+                    Logger.debug(line);
+                }
+            };
+        }
+    
+        private void finish(int exitValue) {
+            //Closing the line streams hands over the last line, even if it doesn't end with a line break
+            try {
+                output.close();
+                error.close();
+            } catch (IOException e) {
+                Logger.error("Could not read the output of the program", e);
+            }
+            this.exitValue.complete(exitValue);
+        }
+    }
+    
+}
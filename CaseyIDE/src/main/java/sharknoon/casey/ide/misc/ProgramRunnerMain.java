@@ -0,0 +1,301 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The main class of the runner JVM, which is started once by the IDE and runs the compiled programs one after another.
+ * The IDE sends the classes of a program over the standard input of this process, every run gets its own class
+ * loader, so that the static state of the previous runs is gone. The standard streams of a program are framed and
+ * sent back over the standard output of this process. Only the classes of Java are used here, the classes of the IDE
+ * are not loaded. Like the java command, a run ends when all of its non-daemon threads have ended, the threads of a
+ * run are in their own thread group.
+ */
+public final class ProgramRunnerMain {
+    
+    //IDE -> runner
+    static final byte RUN = 1;
+    static final byte INPUT = 2;
+    //Runner -> IDE
+    static final byte OUTPUT = 1;
+    static final byte ERROR = 2;
+    static final byte EXIT = 3;
+    
+    private static DataOutputStream frames;
+    private static volatile ProgramInput currentInput;
+    
+    private ProgramRunnerMain() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        frames = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream commands = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        System.setOut(new PrintStream(new FrameOutputStream(OUTPUT), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new FrameOutputStream(ERROR), true, StandardCharsets.UTF_8));
+        System.setIn(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                ProgramInput input = currentInput;
+                return input == null ? -1 : input.read();
+            }
+    
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                ProgramInput input = currentInput;
+                return input == null ? -1 : input.read(b, off, len);
+            }
+        });
+        try {
+            while (true) {
+                byte command = commands.readByte();
+                if (command == RUN) {
+                    startRun(commands);
+                } else if (command == INPUT) {
+                    byte[] line = new byte[commands.readInt()];
+                    commands.readFully(line);
+                    ProgramInput input = currentInput;
+                    if (input != null) {
+                        input.add(line);
+                    }
+                } else {
+                    throw new IOException("Unknown command " + command);
+                }
+            }
+        } catch (EOFException e) {
+            //The IDE has been closed
+            System.exit(0);
+        }
+    }
+    
+    private static void startRun(DataInputStream commands) throws IOException {
+        String mainClass = commands.readUTF();
+        String[] args = new String[commands.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = commands.readUTF();
+        }
+        int classCount = commands.readInt();
+        Map<String, byte[]> classes = new HashMap<>(classCount * 2);
+        for (int i = 0; i < classCount; i++) {
+            String name = commands.readUTF();
+            byte[] bytes = new byte[commands.readInt()];
+            commands.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        currentInput = new ProgramInput();
+        //The threads started by the program are in the same group as its main thread
+        ThreadGroup group = new ThreadGroup("CaseyProgram");
+        Thread program = new Thread(group, () -> {
+            int exitValue = run(classes, mainClass, args);
+            awaitThreads(group);
+            sendExit(exitValue, !getOtherThreads(group).isEmpty());
+        }, "main");
+        program.start();
+    }
+    
+    /**
+     * Waits until all non-daemon threads of a run have ended, threads started meanwhile are waited for, too
+     */
+    private static void awaitThreads(ThreadGroup group) {
+        while (true) {
+            List<Thread> threads = getOtherThreads(group);
+            threads.removeIf(Thread::isDaemon);
+            if (threads.isEmpty()) {
+                return;
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the living threads of a run except the current one
+     */
+    private static List<Thread> getOtherThreads(ThreadGroup group) {
+        Thread[] threads = new Thread[group.activeCount() + 16];
+        int count;
+        //The array has to be bigger than the amount of threads, otherwise some could be missing
+        while ((count = group.enumerate(threads)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        List<Thread> otherThreads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (threads[i] != Thread.currentThread() && threads[i].isAlive()) {
+                otherThreads.add(threads[i]);
+            }
+        }
+        return otherThreads;
+    }
+    
+    private static int run(Map<String, byte[]> classes, String mainClass, String[] args) {
+        ProgramClassLoader loader = new ProgramClassLoader(classes);
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            Method main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+            return 0;
+        } catch (InvocationTargetException e) {
+            //Like the java command, the uncaught exception is printed
+            System.err.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace();
+            return 1;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Error: Could not run the main class " + mainClass + ": " + e);
+            return 1;
+        } finally {
+            System.out.flush();
+            System.err.flush();
+        }
+    }
+    
+    /**
+     * Sends the end of a run to the IDE
+     *
+     * @param exitValue   The exit value of the program
+     * @param threadsLeft True, if daemon threads of the program are still running, they could write output or read
+     *                    input of the next run, so the IDE doesn't reuse this runner
+     */
+    private static void sendExit(int exitValue, boolean threadsLeft) {
+        System.out.flush();
+        System.err.flush();
+        synchronized (ProgramRunnerMain.class) {
+            try {
+                frames.writeByte(EXIT);
+                frames.writeInt(exitValue);
+                frames.writeBoolean(threadsLeft);
+                frames.flush();
+            } catch (IOException e) {
+                //The IDE is gone
+                System.exit(exitValue);
+            }
+        }
+    }
+    
+    /**
+     * Sends everything written to a standard stream of the program as a frame to the IDE
+     */
+    private static class FrameOutputStream extends OutputStream {
+    
+        private final byte type;
+    
+        private FrameOutputStream(byte type) {
+            this.type = type;
+        }
+    
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+    
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (ProgramRunnerMain.class) {
+                frames.writeByte(type);
+                frames.writeInt(len);
+                frames.write(b, off, len);
+                frames.flush();
+            }
+        }
+    }
+    
+    /**
+     * The lines entered in the IDE for the current run, a read blocks until a line is entered
+     */
+    private static class ProgramInput {
+    
+        private final BlockingQueue<byte[]> lines = new LinkedBlockingQueue<>();
+        private byte[] current = new byte[0];
+        private int position = 0;
+    
+        private void add(byte[] line) {
+            lines.add(line);
+        }
+    
+        private synchronized int read() throws IOException {
+            if (!next()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+    
+        private synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!next()) {
+                return -1;
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, count);
+            position += count;
+            return count;
+        }
+    
+        private boolean next() throws IOException {
+            while (position >= current.length) {
+                try {
+                    current = lines.take();
+                    position = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for input");
+                }
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Defines the classes of one run, the classes of the runner are not visible to the program
+     */
+    private static class ProgramClassLoader extends ClassLoader {
+    
+        private final Map<String, byte[]> classes;
+    
+        private ProgramClassLoader(Map<String, byte[]> classes) {
+            super("CaseyProgram", ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+    
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.remove(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+    
+}
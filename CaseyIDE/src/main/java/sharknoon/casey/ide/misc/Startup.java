@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import sharknoon.casey.ide.utils.settings.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Orchestrates the startup of the IDE. The tasks are a dependency graph, tasks without a dependency on each other run
+ * in parallel in the background, the critical tasks run on the calling thread as soon as their dependencies are
+ * finished and the deferred tasks run after the first paint of the stage. Every task is timed for the startup report.
+ */
+public class Startup {
+    
+    private final long startTime = System.nanoTime();
+    private final Map<String, CompletableFuture<Void>> tasks = new ConcurrentHashMap<>();
+    private final List<Timing> timings = new CopyOnWriteArrayList<>();
+    private final Map<String, Task> deferredTasks = new LinkedHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())),
+            r -> {
+                Thread thread = new Thread(r, "StartupThread-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+    
+    /**
+     * Starts a task in the background, as soon as its dependencies are finished
+     *
+     * @param name         The unique name of the task
+     * @param task         The task
+     * @param dependencies The names of the already added tasks, which have to be finished before this task
+     */
+    public void addBackground(String name, Task task, String... dependencies) {
+        CompletableFuture<Void> future = getDependencies(name, dependencies)
+                .thenRunAsync(() -> timeLogged(name, task), executor);
+        tasks.put(name, future);
+    }
+    
+    /**
+     * Runs a critical task on the calling thread, after waiting for its dependencies
+     *
+     * @param name         The unique name of the task
+     * @param task         The task
+     * @param dependencies The names of the already added tasks, which have to be finished before this task
+     * @throws Exception The exception of the task, the startup can't continue without a critical task
+     */
+    public void run(String name, Task task, String... dependencies) throws Exception {
+        CompletableFuture<Void> dependencyFuture = getDependencies(name, dependencies);
+        long waitStart = System.nanoTime();
+        dependencyFuture.join();
+        long waited = System.nanoTime() - waitStart;
+        if (waited > TimeUnit.MILLISECONDS.toNanos(1)) {
+            timings.add(new Timing(name + " (waiting)", waitStart - startTime, waited, Thread.currentThread().getName(), false));
+        }
+        time(name, task);
+        tasks.put(name, CompletableFuture.completedFuture(null));
+    }
+    
+    /**
+     * Adds a task, which is not needed for the first paint of the stage
+     *
+     * @param name The unique name of the task
+     * @param task The task
+     */
+    public synchronized void defer(String name, Task task) {
+        if (deferredTasks.containsKey(name)) {
+            throw new IllegalArgumentException("The startup task " + name + " already exists");
+        }
+        deferredTasks.put(name, task);
+    }
+    
+    /**
+     * Runs the deferred tasks on the calling thread, in the order they have been added, the background threads are
+     * stopped afterwards
+     */
+    public void runDeferred() {
+        List<Map.Entry<String, Task>> deferred;
+        synchronized (this) {
+            deferred = new ArrayList<>(deferredTasks.entrySet());
+            deferredTasks.clear();
+        }
+        deferred.forEach(task -> timeLogged(task.getKey(), task.getValue()));
+        executor.shutdown();
+    }
+    
+    /**
+     * Records a point in time of the startup, e.g. the first paint
+     *
+     * @param name The name of the point in time
+     */
+    public void mark(String name) {
+        timings.add(new Timing(name, System.nanoTime() - startTime, 0, Thread.currentThread().getName(), false));
+    }
+    
+    /**
+     * Waits for all background tasks added until now
+     */
+    public void awaitAll() {
+        CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture[0])).join();
+    }
+    
+    /**
+     * Creates the timing report of the startup, every task with its start, duration and thread
+     *
+     * @return The report
+     */
+    public String getReport() {
+        var sorted = new ArrayList<>(timings);
+        sorted.sort(Comparator.comparingLong(t -> t.start));
+        int nameLength = sorted.stream().mapToInt(t -> t.name.length()).max().orElse(0);
+        var report = new StringBuilder("Startup report (start +ms, duration ms, thread):");
+        for (Timing timing : sorted) {
+            report.append(String.format("%n  %-" + nameLength + "s  +%6d  %6d  %s%s",
+                    timing.name,
+                    TimeUnit.NANOSECONDS.toMillis(timing.start),
+                    TimeUnit.NANOSECONDS.toMillis(timing.duration),
+                    timing.thread,
+                    timing.failed ? "  FAILED" : ""));
+        }
+        return report.toString();
+    }
+    
+    private CompletableFuture<Void> getDependencies(String name, String... dependencies) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("The startup task " + name + " already exists");
+        }
+        //The dependencies have to be added before, therefore the graph can't contain cycles
+        var futures = new CompletableFuture[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            CompletableFuture<Void> dependency = tasks.get(dependencies[i]);
+            if (dependency == null) {
+                throw new IllegalArgumentException("The startup task " + name + " depends on the unknown task " + dependencies[i]);
+            }
+            futures[i] = dependency;
+        }
+        return CompletableFuture.allOf(futures);
+    }
+    
+    private void time(String name, Task task) throws Exception {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            task.run();
+            failed = false;
+        } finally {
+            timings.add(new Timing(name, start - startTime, System.nanoTime() - start, Thread.currentThread().getName(), failed));
+        }
+    }
+    
+    private void timeLogged(String name, Task task) {
+        try {
+            time(name, task);
+        } catch (Exception e) {
+            //The tasks depending on this task are still run, like during a serial startup
+            Logger.error("Startup task " + name + " failed", e);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Task {
+        
+        void run() throws Exception;
+    }
+    
+    private static class Timing {
+    
+        private final String name;
+        private final long start;
+        private final long duration;
+        private final String thread;
+        private final boolean failed;
+    
+        private Timing(String name, long start, long duration, String thread, boolean failed) {
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.thread = thread;
+            this.failed = failed;
+        }
+    }
+    
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.serial;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The encodings of a .casey file, the format of a file is detected by its header
+ */
+public enum ProjectFormat {
+    /**
+     * The readable JSON, used for new projects
+     */
+    JSON(new ObjectMapper()),
+    /**
+     * The binary Smile encoding of the same JSON, the repeated property names and short texts (e.g. item names and
+     * block ids) are written once and referred to by their index in a string table
+     */
+    SMILE(new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build()));
+    
+    //Every Smile document starts with ":)\n"
+    private static final byte[] SMILE_HEADER = {0x3A, 0x29, 0x0A};
+    
+    private final ObjectMapper mapper;
+    
+    ProjectFormat(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+    
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+    
+    /**
+     * Detects the format of a .casey file by its first bytes
+     *
+     * @param path The .casey file
+     * @return The format of the file
+     * @throws IOException If the file could not be read
+     */
+    public static ProjectFormat detect(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            byte[] header = input.readNBytes(SMILE_HEADER.length);
+            return Arrays.equals(header, SMILE_HEADER) ? SMILE : JSON;
+        }
+    }
+    
+}
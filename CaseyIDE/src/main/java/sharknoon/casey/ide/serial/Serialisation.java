@@ -15,22 +15,30 @@
  */
 package sharknoon.casey.ide.serial;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import sharknoon.casey.ide.logic.items.Item;
 import sharknoon.casey.ide.logic.items.ItemType;
 import sharknoon.casey.ide.logic.items.Project;
 import sharknoon.casey.ide.utils.settings.Logger;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Josua Frank
@@ -42,104 +50,146 @@ public class Serialisation {
     private static final String COMMENTS = "comments";
     private static final String ITEM = "item";
     private static final String CHILDREN = "children";
-    private static final Map<Item, Map<String, JsonNode>> ADDITIONAL_NODES = new HashMap<>();
+    //Saves are written one after another, a save waiting to be written is replaced by a newer one
+    private static final ExecutorService SAVE_SERVICE = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SaveThread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<Path, PendingSave> PENDING_SAVES = new HashMap<>();
     
-    private static Optional<Item> deserializeItem(ObjectNode item, Item parentItem) {
-        JsonNode nameNode = null;
-        JsonNode commentsNode = null;
-        JsonNode typeNode = null;
+    /**
+     * Reads a item and its children while streaming through the file, the additional properties are collected and
+     * set after all items have been created
+     *
+     * @param parser The parser, positioned at the start of the item object
+     * @param parentItem The parent of the item or null for the project
+     * @param additionalNodes The additional properties of all items read so far
+     * @return The item, if it could be created
+     */
+    private static Optional<Item> deserializeItem(JsonParser parser, Item parentItem, Map<Item, Map<String, JsonNode>> additionalNodes) throws IOException {
+        String name = null;
+        String comments = null;
+        ItemType type = null;
+        boolean nameRead = false;
+        Item result = null;
         JsonNode childrenNode = null;
-        Map<String, JsonNode> additionalNodes = null;
-        for (Iterator<Entry<String, JsonNode>> it = item.fields(); it.hasNext(); ) {
-            Entry<String, JsonNode> f = it.next();
-            switch (f.getKey()) {
+        Map<String, JsonNode> additionalNode = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
                 case NAME:
-                    nameNode = f.getValue();
+                    name = token.isScalarValue() ? parser.getText() : null;
+                    nameRead = true;
+                    parser.skipChildren();
                     break;
                 case COMMENTS:
-                    commentsNode = f.getValue();
+                    comments = token.isScalarValue() ? parser.getText() : null;
+                    parser.skipChildren();
                     break;
                 case ITEM:
-                    typeNode = f.getValue();
+                    type = token.isScalarValue() ? ItemType.valueOf(parser.getText().toUpperCase()) : null;
+                    parser.skipChildren();
                     break;
                 case CHILDREN:
-                    childrenNode = f.getValue();
+                    //The children are usually the last field, so the item can be created before them
+                    if (token == JsonToken.START_ARRAY && type != null && nameRead && result == null) {
+                        result = Item.createItem(type, parentItem, name);
+                    }
+                    if (token == JsonToken.START_ARRAY && result != null) {
+                        deserializeChildren(parser, result, additionalNodes);
+                    } else {
+                        childrenNode = parser.readValueAsTree();
+                    }
                     break;
                 default:
-                    if (additionalNodes == null) {
-                        additionalNodes = new HashMap<>();
+                    if (additionalNode == null) {
+                        additionalNode = new HashMap<>();
                     }
-                    additionalNodes.put(f.getKey(), f.getValue());
+                    additionalNode.put(field, parser.readValueAsTree());
                     break;
             }
         }
         
-        String name = nameNode != null && nameNode.isValueNode() ? nameNode.asText() : null;
-        String comments = commentsNode != null && commentsNode.isValueNode() ? commentsNode.asText() : null;
-        ItemType type = typeNode != null && typeNode.isValueNode() ? ItemType.valueOf(typeNode.asText().toUpperCase()) : null;
-        Iterator<JsonNode> children = childrenNode != null && childrenNode.isArray() ? childrenNode.elements() : null;
-        
-        if (typeNode == null) {
+        if (type == null) {
             return Optional.empty();
         }
-//        long start = System.currentTimeMillis();
-        Item result = Item.createItem(type, parentItem, name);
-        if (result != null) {
-            result.setComments(comments);
-            if (additionalNodes != null) {
-                ADDITIONAL_NODES.put(result, additionalNodes);
+        if (result == null) {
+            result = Item.createItem(type, parentItem, name);
+            if (result == null) {
+                return Optional.empty();
+            }
+            if (childrenNode != null && childrenNode.isArray()) {
+                JsonParser childrenParser = childrenNode.traverse(MAPPER);
+                childrenParser.nextToken();
+                deserializeChildren(childrenParser, result, additionalNodes);
             }
-        } else {
-            return Optional.empty();
         }
-        if (children != null) {
-            while (children.hasNext()) {
-                JsonNode child = children.next();
-                if (child.isObject()) {
-                    deserializeItem((ObjectNode) child, result);//safe cast
-                }
+        result.setComments(comments);
+        if (additionalNode != null) {
+            additionalNodes.put(result, additionalNode);
+        }
+        return Optional.of(result);
+    }
+    
+    private static void deserializeChildren(JsonParser parser, Item parentItem, Map<Item, Map<String, JsonNode>> additionalNodes) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                deserializeItem(parser, parentItem, additionalNodes);
+            } else {
+                parser.skipChildren();
             }
         }
-        //After all the items are initilized
-        if (parentItem == null) {
+    }
+    
+    private static void serializeItem(JsonGenerator generator, SerializerProvider serializers, ItemSnapshot item) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(NAME, item.name);
+        generator.writeStringField(COMMENTS, item.comments);
+        generator.writeStringField(ITEM, item.type);
+        for (Entry<String, JsonSerializable> additionalProperty : item.additionalProperties.entrySet()) {
+            generator.writeFieldName(additionalProperty.getKey());
+            additionalProperty.getValue().serialize(generator, serializers);
+        }
+        generator.writeArrayFieldStart(CHILDREN);
+        for (ItemSnapshot child : item.children) {
+            serializeItem(generator, serializers, child);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+    
+    public static Optional<Project> loadProject(Path path) {
+        ProjectFormat format;
+        try {
+            format = ProjectFormat.detect(path);
+        } catch (IOException e) {
+            Logger.error("Could not read Project file", e);
+            return Optional.empty();
+        }
+        try (JsonParser parser = format.getMapper().getFactory().createParser(path.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                Logger.error("Project file " + path + " does not contain a project");
+                return Optional.empty();
+            }
+            Map<Item, Map<String, JsonNode>> additionalNodes = new LinkedHashMap<>();
+            Optional<Item> item = deserializeItem(parser, null, additionalNodes);
             //HUGE bugfix, need to initialize the variables and the parameters first, otherwise if a
             // e.g. assignment-block uses a variable, which isn't initialized yet and has the texttype for the variable
             // to be assigned by default, changing the type of the variable to its right type during its initialisation
             // can cause the deletion of the already assigned value, because the type isn't right anymore
-            // Should normally initialise 1. ALL Items, 2. ALL Blocks, 3. ALL Statements
-            ADDITIONAL_NODES.entrySet().stream()
+            // The blocks of the functions are only created as soon as they are shown, see Function
+            additionalNodes.entrySet().stream()
                     .filter(e -> e.getKey().getType() == ItemType.VARIABLE || e.getKey().getType() == ItemType.PARAMETER)
                     .forEach(e -> e.getKey().setAdditionalProperties(e.getValue()));
-            ADDITIONAL_NODES.entrySet().stream()
+            additionalNodes.entrySet().stream()
                     .filter(e -> !(e.getKey().getType() == ItemType.VARIABLE || e.getKey().getType() == ItemType.PARAMETER))
                     .forEach(e -> e.getKey().setAdditionalProperties(e.getValue()));
-            ADDITIONAL_NODES.clear();
-        }
-//        System.out.println("ITEM " + result + " " + (System.currentTimeMillis() - start));
-        return Optional.ofNullable(result);
-    }
-    
-    private static Optional<ObjectNode> serializeItem(Item<?, ?, ?> item) {
-        ObjectNode object = MAPPER.createObjectNode();
-        object.put(NAME, item.getName());
-        object.put(COMMENTS, item.getComments());
-        object.put(ITEM, item.getType().name().toUpperCase());
-        object.setAll(item.getAdditionalProperties());
-        
-        ArrayNode array = object.putArray(CHILDREN);
-        item.childrenProperty().forEach(c -> {
-            Optional<ObjectNode> sc = serializeItem(c);
-            sc.ifPresent(array::add);
-        });
-        return Optional.ofNullable(object);
-    }
-    
-    public static Optional<Project> loadProject(Path path) {
-        try {
-            Optional<Item> item = deserializeItem((ObjectNode) MAPPER.readTree(path.toFile()), null);
             Optional<Project> project = item.map(i -> (Project) i);
             project.ifPresent(p -> {
                 p.setSaveFile(path);
+                p.setSaveFormat(format);
             });
             return project;
         } catch (IOException e) {
@@ -148,19 +198,106 @@ public class Serialisation {
         return Optional.empty();
     }
     
-    public static void saveProject(Project project) {
+    /**
+     * Saves the project in the background, the current state of the project is taken immediately, so it can be changed
+     * while it is being written. The file is replaced at once after it has been written completely. The project is
+     * written in the format it has been loaded in.
+     *
+     * @param project The project to be saved
+     * @return A future, which is completed as soon as this or a newer state of the project has been written or
+     * completed exceptionally, if the file could not be written
+     */
+    public static CompletableFuture<Void> saveProject(Project project) {
+        Optional<Path> saveFile = project.getSaveFile();
+        if (saveFile.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Path path = saveFile.get();
+        ItemSnapshot snapshot = new ItemSnapshot(project);
+        synchronized (PENDING_SAVES) {
+            PendingSave pendingSave = PENDING_SAVES.get(path);
+            if (pendingSave != null) {
+                pendingSave.snapshot = snapshot;
+                pendingSave.format = project.getSaveFormat();
+                return pendingSave.future;
+            }
+            pendingSave = new PendingSave(snapshot, project.getSaveFormat());
+            PENDING_SAVES.put(path, pendingSave);
+            SAVE_SERVICE.execute(() -> writeProject(path));
+            return pendingSave.future;
+        }
+    }
+    
+    private static void writeProject(Path path) {
+        PendingSave pendingSave;
+        synchronized (PENDING_SAVES) {
+            pendingSave = PENDING_SAVES.remove(path);
+        }
+        Path tempFile = null;
         try {
-            Optional<Path> saveFile = project.getSaveFile();
-            if (saveFile.isPresent()) {
-                Optional<ObjectNode> jsonNode = serializeItem(project);
-                if (jsonNode.isPresent()) {
-                    MAPPER.writerWithDefaultPrettyPrinter().writeValue(saveFile.get().toFile(), jsonNode.get());
-                } else {
-                    Logger.error("Could not save project " + project.getName());
+            Path folder = path.toAbsolutePath().getParent();
+            Files.createDirectories(folder);
+            tempFile = Files.createTempFile(folder, path.getFileName().toString(), ".tmp");
+            ObjectMapper mapper = pendingSave.format.getMapper();
+            JsonFactory factory = mapper.getFactory();
+            try (JsonGenerator generator = factory.createGenerator(Files.newOutputStream(tempFile), JsonEncoding.UTF8)) {
+                if (pendingSave.format == ProjectFormat.JSON) {
+                    generator.useDefaultPrettyPrinter();
                 }
+                serializeItem(generator, mapper.getSerializerProviderInstance(), pendingSave.snapshot);
+            }
+            try {
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException ex) {
+            pendingSave.future.complete(null);
+        } catch (IOException | RuntimeException ex) {
             Logger.error("Could not save File", ex);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    Logger.error("Could not delete temporary save file", e);
+                }
+            }
+            pendingSave.future.completeExceptionally(ex);
+        }
+    }
+    
+    private static class PendingSave {
+        
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private ItemSnapshot snapshot;
+        private ProjectFormat format;
+        
+        private PendingSave(ItemSnapshot snapshot, ProjectFormat format) {
+            this.snapshot = snapshot;
+            this.format = format;
+        }
+    }
+    
+    /**
+     * The state of a item at the moment it was saved. The additional properties are copies of the values of the item,
+     * e.g. of the blocks of a function, they are only turned into JSON while they are written by the save thread.
+     */
+    private static class ItemSnapshot {
+        
+        private final String name;
+        private final String comments;
+        private final String type;
+        private final Map<String, JsonSerializable> additionalProperties;
+        private final List<ItemSnapshot> children;
+        
+        private ItemSnapshot(Item<?, ?, ?> item) {
+            name = item.getName();
+            comments = item.getComments();
+            type = item.getType().name().toUpperCase();
+            additionalProperties = item.getSaveProperties();
+            children = new ArrayList<>(item.getChildren().size());
+            for (Item<?, ?, ?> child : item.getChildren()) {
+                children.add(new ItemSnapshot(child));
+            }
         }
     }
     
@@ -21,8 +21,11 @@ import javafx.scene.control.TabPane;
 import javafx.scene.control.ToolBar;
 import javafx.scene.control.TreeView;
 import javafx.scene.image.ImageView;
+import sharknoon.casey.ide.MainApplication;
 import sharknoon.casey.ide.logic.items.Item;
 import sharknoon.casey.ide.logic.items.Welcome;
+import sharknoon.casey.ide.misc.CompilerService;
+import sharknoon.casey.ide.misc.ProgramRunner;
 import sharknoon.casey.ide.misc.Updater;
 import sharknoon.casey.ide.ui.background.Background;
 import sharknoon.casey.ide.ui.navigation.ItemTabPane;
@@ -70,9 +73,13 @@ public class MainController {
         ItemTreeView.init(treeView);
         ItemTabPane.init(tabPane);
         Keyboard.init();
-        Updater.init();
-        Tutorial.init();
         Welcome.getWelcome().getSite().select();
+        //Not needed for the first paint
+        MainApplication.registerDeferred("background images", Background::reloadImages);
+        MainApplication.registerDeferred("compiler", CompilerService::init);
+        MainApplication.registerDeferred("program runner", ProgramRunner::init);
+        MainApplication.registerDeferred("updater", Updater::init);
+        MainApplication.registerDeferred("tutorial", Tutorial::init);
     }
 
     public static TabPane getTabPane() {
@@ -37,6 +37,8 @@ public class UISettings {
     public static final double WORKSPACE_MAX_Y = 3000;
     //The padding inside the workspace, just for optics
     public static final double WORKSPACE_PADDING = 50;
+    //The space around the visible area of the workspace (in pixels on the screen), in which the frames are already prepared
+    public static final double WORKSPACE_VIEWPORT_MARGIN = 200;
     //The fading Duration between the background images
     public static final Duration WORKSPACE_BACKGROUND_IMAGE_FADING_DURATION = Duration.seconds(1);
     //The period of a image being in the background before being changed in seconds
@@ -64,6 +66,8 @@ public class UISettings {
     public static final double BLOCK_MOVING_SHADOW_RADIUS = 100;
     //The color of the moving shadow
     public static final Color BLOCK_MOVING_SHADOW_COLOR = Color.valueOf("0095ed");
+    //Whether the frames are cached as bitmaps while they don't change, rendered again in full quality when zoomed
+    public static final boolean BLOCK_RENDER_CACHING = true;
     //The duration of the block snap to its correct position
     public static final Duration BLOCK_MOVING_DURATION = Duration.millis(50);
     //The color of the shadow stroke of the block
@@ -104,4 +108,14 @@ public class UISettings {
     //***Body***
     //
     public static final double STATEMENT_BUTTON_SIZE = 22;
+    //
+    //***Icons***
+    //
+    //The icons are rasterized this times bigger than their size on the screen, so that they stay sharp in a zoomed workspace
+    public static final double ICON_RASTER_OVERSAMPLING = 2;
+    //
+    //***Console***
+    //
+    //The amount of lines the console of a running program keeps, the oldest lines are dropped
+    public static final int CONSOLE_SCROLLBACK_LINES = 10000;
 }
@@ -23,6 +23,7 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.stage.Screen;
 import sharknoon.casey.ide.MainApplication;
 import sharknoon.casey.ide.misc.Exitable;
 import sharknoon.casey.ide.ui.UISettings;
@@ -42,22 +43,35 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
+ * The images in the background, they are decoded on the thread of the scheduler in the size of the stage, the next
+ * image is decoded right after the current one has been shown, so that it is ready when the fading starts
+ *
  * @author Josua Frank
  */
 public class Background implements Exitable {
     
+    //Only accessed by the thread of the scheduler
     private static final List<Path> IMAGES = new ArrayList<>();
-    private static final ScheduledExecutorService IMAGE_CHANGEING_SCHEDULER_SERVICE = Executors.newScheduledThreadPool(1);
+    private static final BackgroundImageCache IMAGE_CACHE = new BackgroundImageCache();
+    private static final ScheduledExecutorService IMAGE_CHANGEING_SCHEDULER_SERVICE = Executors.newScheduledThreadPool(1, r -> {
+        Thread thread = new Thread(r, "BackgroundImageThread");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static final String DURATION_KEY = "backgroundChangeingDuration";
+    //The time to wait after the stage has been resized, before the current image is decoded in the new size
+    private static final long RESIZE_DECODING_DELAY_MILLIS = 500;
     private static ImageView view1;
     private static ImageView view2;
     private static int counter = 0;
     private static ScheduledFuture imageChangingScheduler;
+    private static ScheduledFuture resizeDecodingScheduler;
     private static ImageView toBeResizedAsSoonAsAImageIsInIt = null;
-    private static double stageHeight = 0;
-    private static double stageWidth = 0;
+    private static volatile double stageHeight = 0;
+    private static volatile double stageWidth = 0;
     private static boolean viewToggle = false;
     private static Timeline fadeToView1;
     private static Timeline fadeToView2;
@@ -69,16 +83,23 @@ public class Background implements Exitable {
                 counter = 0;
             }
             if (IMAGES.size() > counter) {
-                setImage(IMAGES.get(counter));
-            }
-            if (toBeResizedAsSoonAsAImageIsInIt != null) {
-                resizeImage(toBeResizedAsSoonAsAImageIsInIt);
-                toBeResizedAsSoonAsAImageIsInIt = null;
+                IMAGE_CACHE.get(IMAGES.get(counter), stageWidth, stageHeight).ifPresent(Background::setImage);
+                //Prefetching the next image
+                IMAGE_CACHE.get(IMAGES.get((counter + 1) % IMAGES.size()), stageWidth, stageHeight);
             }
         } catch (Exception e) {
             Logger.error("Could not change the background image", e);
         }
     };
+    private static Runnable decodeCurrentImage = () -> {
+        try {
+            if (IMAGES.size() > counter) {
+                IMAGE_CACHE.get(IMAGES.get(counter), stageWidth, stageHeight).ifPresent(Background::replaceImage);
+            }
+        } catch (Exception e) {
+            Logger.error("Could not decode the background image", e);
+        }
+    };
     public static final IntegerProperty durationProperty = new SimpleIntegerProperty(UISettings.WORKSPACE_BACKGROUND_IMAGE_SHOWING_DURATION) {
         @Override
         protected void fireValueChangedEvent() {
@@ -100,9 +121,8 @@ public class Background implements Exitable {
         durationProperty().set(duration);
     }
     
-    private static void setImage(Path path) {
+    private static void setImage(Image image) {
         Platform.runLater(() -> {
-            Image image = new Image("file:///" + path.toString());
             if (viewToggle) {
                 view1.setImage(image);
                 fadeToView2.stop();
@@ -113,9 +133,41 @@ public class Background implements Exitable {
                 fadeToView2.playFromStart();
             }
             viewToggle = !viewToggle;
+            if (toBeResizedAsSoonAsAImageIsInIt != null) {
+                resizeImage(toBeResizedAsSoonAsAImageIsInIt);
+                toBeResizedAsSoonAsAImageIsInIt = null;
+            }
         });
     }
     
+    /**
+     * Replaces the image, which is currently shown, without fading, e.g. by the same image in another size
+     */
+    private static void replaceImage(Image image) {
+        Platform.runLater(() -> {
+            ImageView currentView = viewToggle ? view2 : view1;
+            if (currentView.getImage() != image) {
+                currentView.setImage(image);
+                resizeImage(currentView);
+            }
+        });
+    }
+    
+    /**
+     * Decodes the current image again, as soon as the stage has not been resized for a moment
+     */
+    private static void onStageResized() {
+        resizeImage(view1);
+        resizeImage(view2);
+        if (resizeDecodingScheduler != null) {
+            resizeDecodingScheduler.cancel(false);
+        }
+        if (!IMAGE_CHANGEING_SCHEDULER_SERVICE.isShutdown()) {
+            resizeDecodingScheduler = IMAGE_CHANGEING_SCHEDULER_SERVICE
+                    .schedule(decodeCurrentImage, RESIZE_DECODING_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
     private static void resizeImage(ImageView view) {
         Platform.runLater(() -> {
             Image image = view.getImage();
@@ -160,8 +212,11 @@ public class Background implements Exitable {
         if (imageChangingScheduler != null) {
             imageChangingScheduler.cancel(false);
         }
+        if (IMAGE_CHANGEING_SCHEDULER_SERVICE.isShutdown()) {
+            return;
+        }
         if (durationInSeconds <= 0) {
-            changeImage.run();
+            IMAGE_CHANGEING_SCHEDULER_SERVICE.execute(changeImage);
             return;
         }
         imageChangingScheduler = IMAGE_CHANGEING_SCHEDULER_SERVICE
@@ -174,25 +229,30 @@ public class Background implements Exitable {
     }
     
     public static void reloadImages() {
-        Resources.getDirectory("Backgroundimages", false).ifPresent((path) -> {
-            try {
-                IMAGES.clear();
-                IMAGES.addAll(Files.list(path)
-                        .filter(img -> {
-                            String end = img.getFileName().toString().toLowerCase();
-                            return end.endsWith("png")
-                                    || end.endsWith("jpg")
-                                    || end.endsWith("jpeg")
-                                    || end.endsWith("gif")
-                                    || end.endsWith("bmp");
-                        })
-                        .collect(Collectors.toList())
-                );
-            } catch (IOException | IllegalArgumentException ex) {
-                Logger.error("Could not set background images", ex);
-            }
+        if (IMAGE_CHANGEING_SCHEDULER_SERVICE.isShutdown()) {
+            return;
+        }
+        IMAGE_CHANGEING_SCHEDULER_SERVICE.execute(() -> {
+            Resources.getDirectory("Backgroundimages", false).ifPresent((path) -> {
+                try (Stream<Path> files = Files.list(path)) {
+                    IMAGES.clear();
+                    IMAGES.addAll(files
+                            .filter(img -> {
+                                String end = img.getFileName().toString().toLowerCase();
+                                return end.endsWith("png")
+                                        || end.endsWith("jpg")
+                                        || end.endsWith("jpeg")
+                                        || end.endsWith("gif")
+                                        || end.endsWith("bmp");
+                            })
+                            .collect(Collectors.toList())
+                    );
+                } catch (IOException | IllegalArgumentException ex) {
+                    Logger.error("Could not set background images", ex);
+                }
+            });
+            changeImage.run();
         });
-        changeImage.run();
     }
     
     private Background(ImageView imageView1, ImageView imageView2) {
@@ -210,22 +270,26 @@ public class Background implements Exitable {
                         new KeyValue(view2.opacityProperty(), 1)
                 )
         );
+        //Until the scene has its size, the images are decoded for the size of the screen
+        var screenBounds = Screen.getPrimary().getVisualBounds();
+        stageWidth = screenBounds.getWidth();
+        stageHeight = screenBounds.getHeight();
+        //The hidden image is only kept by the cache
+        fadeToView1.setOnFinished(e -> view2.setImage(null));
+        fadeToView2.setOnFinished(e -> view1.setImage(null));
         MainApplication.registerInitializable((scene) -> {
             scene.widthProperty().addListener((observable, oldValue, newValue) -> {
                 stageWidth = newValue.doubleValue();
-                resizeImage(view1);
-                resizeImage(view2);
+                onStageResized();
             });
         });
         MainApplication.registerInitializable((scene) -> {
             scene.heightProperty().addListener((observable, oldValue, newValue) -> {
                 stageHeight = newValue.doubleValue();
-                resizeImage(view1);
-                resizeImage(view2);
+                onStageResized();
             });
         });
         MainApplication.registerExitable(this);
-        reloadImages();
         //Settings the duration
         Props.get(DURATION_KEY).thenAccept(
                 ds -> setDuration(
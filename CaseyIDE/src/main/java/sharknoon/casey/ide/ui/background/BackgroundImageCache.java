@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.background;
+
+import javafx.scene.image.Image;
+import sharknoon.casey.ide.utils.settings.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Decodes the background images in the size they are shown in and keeps the last decoded images, the images are
+ * decoded on the calling thread, which should not be the JavaFX thread
+ */
+class BackgroundImageCache {
+
+    //The previous, the current and the next image
+    private static final int CAPACITY = 3;
+    //The sizes are rounded up to this steps, so that small changes of the window don't decode the images again
+    private static final int SIZE_STEP = 128;
+
+    private final Map<String, Image> images = new LinkedHashMap<>(CAPACITY + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * Gets an image, which covers the area, decoded not bigger than necessary
+     *
+     * @param path   The path of the image
+     * @param width  The width of the area or 0 if unknown
+     * @param height The height of the area or 0 if unknown
+     * @return The decoded image or nothing, if the image could not be decoded
+     */
+    synchronized Optional<Image> get(Path path, double width, double height) {
+        double[] size = getImageSize(path)
+                .map(s -> getCoverSize(s[0], s[1], width, height))
+                .orElse(new double[]{0, 0});
+        String key = path + "|" + size[0] + "x" + size[1];
+        Image image = images.get(key);
+        if (image == null) {
+            image = new Image(path.toUri().toString(), size[0], size[1], true, true, false);
+            if (image.isError()) {
+                Logger.error("Could not load the background image " + path, image.getException());
+                return Optional.empty();
+            }
+            images.put(key, image);
+        }
+        return Optional.of(image);
+    }
+
+    /**
+     * Reads the size of an image from its header, without decoding it
+     */
+    private static Optional<double[]> getImageSize(Path path) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                return Optional.empty();
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return Optional.of(new double[]{reader.getWidth(0), reader.getHeight(0)});
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            Logger.warning("Could not read the size of the background image " + path + ": " + e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Calculates the smallest size of an image, which still covers the area in both directions, the image is never
+     * enlarged
+     *
+     * @param imageWidth  The width of the image
+     * @param imageHeight The height of the image
+     * @param width       The width of the area or 0 if unknown
+     * @param height      The height of the area or 0 if unknown
+     * @return The width and height to decode the image with, 0 for the original size
+     */
+    static double[] getCoverSize(double imageWidth, double imageHeight, double width, double height) {
+        if (width <= 0 || height <= 0 || imageWidth <= 0 || imageHeight <= 0) {
+            return new double[]{0, 0};
+        }
+        double roundedWidth = Math.ceil(width / SIZE_STEP) * SIZE_STEP;
+        double roundedHeight = Math.ceil(height / SIZE_STEP) * SIZE_STEP;
+        double scale = Math.max(roundedWidth / imageWidth, roundedHeight / imageHeight);
+        if (scale >= 1) {
+            return new double[]{0, 0};
+        }
+        return new double[]{Math.ceil(imageWidth * scale), Math.ceil(imageHeight * scale)};
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.console;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.css.PseudoClass;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import sharknoon.casey.ide.ui.console.ConsoleBuffer.Line;
+
+/**
+ * Shows the lines of a console buffer, only the visible lines have cells. The lines appended by other threads are
+ * added once per pulse in one batch, the console follows the newest line.
+ */
+public class Console extends ListView<Line> {
+    
+    private static final PseudoClass ERROR = PseudoClass.getPseudoClass("error");
+    private final ConsoleBuffer buffer;
+    private final ConsoleLines lines = new ConsoleLines();
+    
+    public Console(ConsoleBuffer buffer) {
+        this.buffer = buffer;
+        getStyleClass().add("console");
+        setItems(lines);
+        setCellFactory(listView -> new ConsoleCell());
+        setFocusTraversable(false);
+        buffer.setOnPending(() -> Platform.runLater(this::update));
+        if (buffer.hasPending()) {
+            Platform.runLater(this::update);
+        }
+    }
+    
+    /**
+     * Appends a line, can be called by any thread
+     *
+     * @param text  The text of the line
+     * @param error Whether the line is an error
+     */
+    public void append(String text, boolean error) {
+        buffer.append(text, error);
+    }
+    
+    public ConsoleBuffer getBuffer() {
+        return buffer;
+    }
+    
+    private void update() {
+        ConsoleBuffer.Drain drain = buffer.drain();
+        if (drain.getRemoved().isEmpty() && drain.getAdded() == 0) {
+            return;
+        }
+        lines.changed(drain);
+        scrollTo(buffer.size() - 1);
+    }
+    
+    private class ConsoleLines extends ObservableListBase<Line> {
+    
+        @Override
+        public Line get(int index) {
+            return buffer.get(index);
+        }
+    
+        @Override
+        public int size() {
+            return buffer.size();
+        }
+    
+        private void changed(ConsoleBuffer.Drain drain) {
+            beginChange();
+            if (!drain.getRemoved().isEmpty()) {
+                nextRemove(0, drain.getRemoved());
+            }
+            int added = Math.min(drain.getAdded(), size());
+            if (added > 0) {
+                nextAdd(size() - added, size());
+            }
+            endChange();
+        }
+    }
+    
+    private static class ConsoleCell extends ListCell<Line> {
+    
+        @Override
+        protected void updateItem(Line line, boolean empty) {
+            super.updateItem(line, empty);
+            if (empty || line == null) {
+                setText(null);
+            } else {
+                setText(line.getText());
+            }
+            pseudoClassStateChanged(ERROR, !empty && line != null && line.isError());
+        }
+    }
+    
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.console;
+
+import java.util.*;
+
+/**
+ * The lines of a console, kept in a ring buffer with a limited scrollback, the oldest lines are dropped. Any thread
+ * can append lines, they are pending until the thread reading the lines (the JavaFX thread) drains them in one batch.
+ */
+public class ConsoleBuffer {
+    
+    private final int scrollback;
+    private final Line[] lines;
+    private int start = 0;
+    private int size = 0;
+    private final Object pendingLock = new Object();
+    private ArrayDeque<Line> pending = new ArrayDeque<>();
+    private long totalLines = 0;
+    private Runnable onPending;
+    
+    /**
+     * @param scrollback The amount of lines kept
+     */
+    public ConsoleBuffer(int scrollback) {
+        if (scrollback < 1) {
+            throw new IllegalArgumentException("The scrollback has to be at least one line: " + scrollback);
+        }
+        this.scrollback = scrollback;
+        this.lines = new Line[scrollback];
+    }
+    
+    /**
+     * Appends a line, can be called by any thread
+     *
+     * @param text  The text of the line
+     * @param error Whether the line is an error
+     */
+    public void append(String text, boolean error) {
+        Line line = new Line(text, error);
+        Runnable notification;
+        synchronized (pendingLock) {
+            boolean wasEmpty = pending.isEmpty();
+            pending.addLast(line);
+            //If the reader can't keep up, the lines would be dropped anyway by the scrollback
+            if (pending.size() > scrollback) {
+                pending.removeFirst();
+            }
+            totalLines++;
+            notification = wasEmpty ? onPending : null;
+        }
+        if (notification != null) {
+            notification.run();
+        }
+    }
+    
+    /**
+     * Sets the callback, which is called by the appending thread as soon as a line is pending after the last drain,
+     * so that the reader drains once per batch
+     *
+     * @param onPending The callback
+     */
+    public void setOnPending(Runnable onPending) {
+        synchronized (pendingLock) {
+            this.onPending = onPending;
+        }
+    }
+    
+    /**
+     * Whether lines are waiting to be drained
+     */
+    public boolean hasPending() {
+        synchronized (pendingLock) {
+            return !pending.isEmpty();
+        }
+    }
+    
+    /**
+     * Moves the pending lines into the buffer, has to be called by the thread reading the lines
+     *
+     * @return The lines dropped at the beginning and the amount of lines added at the end
+     */
+    public Drain drain() {
+        ArrayDeque<Line> batch;
+        synchronized (pendingLock) {
+            batch = pending;
+            pending = new ArrayDeque<>();
+        }
+        int removedCount = Math.min(size, Math.max(0, size + batch.size() - scrollback));
+        List<Line> removed = new ArrayList<>(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            removed.add(get(i));
+        }
+        for (Line line : batch) {
+            if (size < scrollback) {
+                lines[(start + size) % scrollback] = line;
+                size++;
+            } else {
+                lines[start] = line;
+                start = (start + 1) % scrollback;
+            }
+        }
+        return new Drain(removed, batch.size());
+    }
+    
+    /**
+     * Gets a line of the buffer
+     *
+     * @param index The index of the line, 0 is the oldest line kept
+     * @return The line
+     */
+    public Line get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size + " lines");
+        }
+        return lines[(start + index) % scrollback];
+    }
+    
+    /**
+     * The amount of drained lines kept
+     */
+    public int size() {
+        return size;
+    }
+    
+    public int getScrollback() {
+        return scrollback;
+    }
+    
+    /**
+     * The amount of all lines ever appended, including the dropped ones
+     */
+    public long getTotalLines() {
+        synchronized (pendingLock) {
+            return totalLines;
+        }
+    }
+    
+    public static class Line {
+    
+        private final String text;
+        private final boolean error;
+    
+        private Line(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+    
+        public String getText() {
+            return text;
+        }
+    
+        public boolean isError() {
+            return error;
+        }
+    
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+    
+    public static class Drain {
+    
+        private final List<Line> removed;
+        private final int added;
+    
+        private Drain(List<Line> removed, int added) {
+            this.removed = removed;
+            this.added = added;
+        }
+    
+        /**
+         * The lines dropped at the beginning of the buffer
+         */
+        public List<Line> getRemoved() {
+            return removed;
+        }
+    
+        /**
+         * The amount of lines added at the end of the buffer
+         */
+        public int getAdded() {
+            return added;
+        }
+    }
+    
+}
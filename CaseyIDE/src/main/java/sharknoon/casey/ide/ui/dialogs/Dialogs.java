@@ -366,6 +366,15 @@ public class Dialogs {
                         exception,
                         variables);
                 break;
+            case SAVE_FAILED_DIALOG:
+                showErrorDialog(
+                        SAVE_FAILED_DIALOG_TITLE,
+                        SAVE_FAILED_DIALOG_HEADER_TEXT,
+                        SAVE_FAILED_DIALOG_CONTENT_TEXT,
+                        Icon.SAVE,
+                        exception,
+                        variables);
+                break;
             case TYPE_IN_USE_DIALOG:
                 showErrorDialog(
                         CLASS_IN_USE_DIALOG_TITLE,
@@ -580,6 +589,7 @@ public class Dialogs {
     
     public enum Errors implements DialogTypes {
         PROJECT_CORRUPT_DIALOG,
+        SAVE_FAILED_DIALOG,
         TYPE_IN_USE_DIALOG,
         ITEM_NOT_COMPILED_DIALOG
     }
@@ -38,6 +38,13 @@ import java.util.Set;
  */
 public class Dot {
     
+    //The effect is shared by all dots, it is never changed
+    private static final DropShadow SHADOW = new DropShadow(25, Color.WHITE);
+    
+    static {
+        SHADOW.setSpread(0.5);
+    }
+    
     private final Polygon polygon;
     private final Frame<?> frame;
     private final ObservableSet<Line> lines = FXCollections.observableSet();
@@ -71,9 +78,7 @@ public class Dot {
         });
         polygon.setOpacity(0);
         polygon.setOnMouseClicked(this::onMouseClicked);
-        var shadow = new DropShadow(25, Color.WHITE);
-        shadow.setSpread(0.5);
-        polygon.setEffect(shadow);
+        polygon.setEffect(SHADOW);
         switch (side) {
             case BOTTOM:
                 polygon.setTranslateX(frame.getWidth() / 2);
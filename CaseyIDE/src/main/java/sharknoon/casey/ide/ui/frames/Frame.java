@@ -27,11 +27,10 @@ import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.binding.DoubleExpression;
 import javafx.collections.ObservableList;
-import javafx.geometry.BoundingBox;
-import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Side;
-import javafx.scene.effect.DropShadow;
+import javafx.scene.CacheHint;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -42,6 +41,7 @@ import javafx.scene.shape.StrokeType;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import javafx.scene.text.TextFlow;
+import javafx.scene.transform.Translate;
 import javafx.util.Duration;
 import sharknoon.casey.ide.logic.blocks.Block;
 import sharknoon.casey.ide.ui.UISettings;
@@ -72,14 +72,6 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
         return shadow;
     }
     
-    private static void addDropShadowEffect(Shape shape) {
-        var dropShadow = new DropShadow();
-        dropShadow.setSpread(0.5);
-        dropShadow.setRadius(0.0);
-        dropShadow.setColor(UISettings.BLOCK_SELECTION_SHADOW_COLOR);
-        shape.setEffect(dropShadow);
-    }
-    
     protected Map<Dot, Boolean> initDots(Frame frame, Side[] outputSides, Side[] inputSides) {
         Map<Dot, Boolean> result = new HashMap<>();
         for (var outputSide : outputSides) {
@@ -123,11 +115,12 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     private final TextFlow frameTextFlow;
     //The shape of the shadow of the frame
     private final Shape predictionShadowShape;
-    //Timelines for the animation of the shadown, the dots and the moving of the frame
-    private final Timeline shadowShowTimeline = new Timeline();
-    private final Timeline shadowRemoveTimeline = new Timeline();
-    private final Timeline movingXTimeline = new Timeline();
-    private final Timeline movingYTimeline = new Timeline();
+    //The shadows of the selection and the moving, created when they are shown the first time
+    private ImageView selectionShadow;
+    private ImageView movingShadow;
+    //Timelines for the fading of the shadows, the moving of the frame is animated by FrameMoving
+    private final Timeline selectionShadowTimeline = new Timeline();
+    private final Timeline movingShadowTimeline = new Timeline();
     //The 1-4 output and 1-4 input dots of a frame, unmodifiable, true for output
     private final Map<Dot, Boolean> dots;
     //The Block this frame belongs to
@@ -143,6 +136,8 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     public double startY;
     //The current state of the frame
     private boolean selected;
+    //Whether the frame is dragged by the mouse at the moment
+    private boolean dragged;
     //indicator, of this frame shows the text or the statement body
     private boolean showsPlaceholder = true;
     
@@ -170,15 +165,13 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
         MouseConsumable.registerListeners(frameShape, this);
         MouseConsumable.registerListeners(frameTextFlow, this);
         setStrokeProperties(frameShape);
-        addDropShadowEffect(frameShape);
-        functionSite.getLogicSite().getWorkspaceZooming().zoomFactorProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue.doubleValue() > UISettings.BLOCK_ZOOMING_BODY_THRESHOLD) {
-                showContentBody();
-            } else {
-                showContentText();
-            }
-        });
-        showContentText();
+        if (UISettings.BLOCK_RENDER_CACHING) {
+            root.setCache(true);
+            root.setCacheHint(CacheHint.QUALITY);
+        }
+        functionSite.getLogicSite().getWorkspaceLevelOfDetail().register(this);
+        root.translateXProperty().addListener(observable -> onMoved());
+        root.translateYProperty().addListener(observable -> onMoved());
         Frames.registerFrame(functionSite, this);
         functionSite.getLogicSite().addFrame(this, origin);
     }
@@ -236,11 +229,13 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     @Override
     public void onMouseDragged(MouseEvent event) {
         menu.hide();
+        if (dragged) {
+            return;
+        }
+        dragged = true;
         if (event.isPrimaryButtonDown()) {//moving
             if (selected) {
-                Frames.getAllFrames(functionSite)
-                        .filter(Frame::isSelected)
-                        .forEach(Frame::highlight);
+                Frames.getSelectedFrames(functionSite).forEach(Frame::highlight);
             } else {
                 highlight();
             }
@@ -250,10 +245,9 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     
     @Override
     public void onMouseReleased(MouseEvent event) {
+        dragged = false;
         if (isSelected()) {
-            Frames.getAllFrames(functionSite)
-                    .filter(Frame::isSelected)
-                    .forEach(Frame::unhighlight);
+            Frames.getSelectedFrames(functionSite).forEach(Frame::unhighlight);
         } else {
             unhighlight();
         }
@@ -263,8 +257,8 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     public void onMouseClicked(MouseEvent event) {
         if (event.getButton() == MouseButton.PRIMARY && event.isStillSincePress()) {
             if (!event.isControlDown()) {
-                Frames.getAllFrames(functionSite).forEach(Frame::unselect);
-                Lines.getAllLines(functionSite).forEach(Line::unselect);
+                Frames.unselectAll(functionSite);
+                Lines.unselectAll(functionSite);
                 select();
             } else {
                 toggleSelection();
@@ -291,30 +285,34 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
         return predictionShadowShape;
     }
     
-    void setMinXAnimated(double x) {
-        movingXTimeline.getKeyFrames().clear();
-        movingXTimeline.getKeyFrames().addAll(
-                new KeyFrame(Duration.ZERO,
-                        new KeyValue(root.translateXProperty(), root.getTranslateX())
-                ),
-                new KeyFrame(UISettings.BLOCK_MOVING_DURATION,
-                        new KeyValue(root.translateXProperty(), x)
-                ));
-        movingXTimeline.stop();
-        movingXTimeline.play();
+    /**
+     * Creates the values of the place, this frame should be animated to, so that several frames can be moved by one
+     * animation
+     *
+     * @param x The new x position
+     * @param y The new y position
+     * @return The key values for the end of the animation
+     */
+    List<KeyValue> createMovingKeyValues(double x, double y) {
+        return List.of(
+                new KeyValue(root.translateXProperty(), x),
+                new KeyValue(root.translateYProperty(), y)
+        );
     }
     
-    void setMinYAnimated(double y) {
-        movingYTimeline.getKeyFrames().clear();
-        movingYTimeline.getKeyFrames().addAll(
-                new KeyFrame(Duration.ZERO,
-                        new KeyValue(root.translateYProperty(), root.getTranslateY())
-                ),
-                new KeyFrame(UISettings.BLOCK_MOVING_DURATION,
-                        new KeyValue(root.translateYProperty(), y)
-                ));
-        movingYTimeline.stop();
-        movingYTimeline.play();
+    /**
+     * Shows this frame moved by a translation, without changing its place, used while dragging several frames
+     *
+     * @param translate The translation shared by the dragged frames
+     */
+    void addDragTranslation(Translate translate) {
+        root.getTransforms().add(translate);
+        root.setCacheHint(CacheHint.SPEED);
+    }
+    
+    void removeDragTranslation(Translate translate) {
+        root.getTransforms().remove(translate);
+        root.setCacheHint(CacheHint.QUALITY);
     }
     
     @Override
@@ -409,11 +407,17 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
      * @return true, if the frame can move, false otherwise
      */
     boolean canMoveTo(double x, double y, boolean ignoreSelection) {
-        Bounds newBounds = new BoundingBox(x, y, getWidth(), getHeight());
-        return Frames
-                .getAllFrames(functionSite)
-                .filter(b -> ignoreSelection || !b.isSelected())
-                .noneMatch(frame -> frame != this && newBounds.intersects(frame.getBounds()));
+        return !Frames.anyFrameMatches(functionSite, x, y, x + getWidth(), y + getHeight(),
+                frame -> frame != this && (ignoreSelection || !frame.isSelected()));
+    }
+    
+    /**
+     * Checks, if this frame overlaps an area, touching borders count as overlapping
+     *
+     * @return true, if this frame overlaps the area
+     */
+    public boolean intersects(double minX, double minY, double maxX, double maxY) {
+        return maxX >= getMinX() && maxY >= getMinY() && minX <= getMaxX() && minY <= getMaxY();
     }
     
     /**
@@ -436,21 +440,11 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     public void select() {
         if (!selected) {
             selected = true;
-            var dropShadow = (DropShadow) frameShape.getEffect();
-            shadowShowTimeline.getKeyFrames().setAll(
-                    new KeyFrame(Duration.ZERO,
-                            new KeyValue(dropShadow.radiusProperty(), dropShadow.getRadius()),
-                            new KeyValue(dropShadow.colorProperty(), dropShadow.getColor())
-                    ),
-                    new KeyFrame(UISettings.BLOCK_SELECTION_SHADOW_DURATION,
-                            new KeyValue(dropShadow.radiusProperty(), UISettings.BLOCK_SELECTION_SHADOW_RADIUS),
-                            new KeyValue(dropShadow.colorProperty(), UISettings.BLOCK_SELECTION_SHADOW_COLOR)
-                    ));
-            Platform.runLater(() -> {
-                shadowRemoveTimeline.stop();
-                shadowShowTimeline.stop();
-                shadowShowTimeline.play();
-            });
+            Frames.frameSelectionChanged(functionSite, this, true);
+            if (selectionShadow == null) {
+                selectionShadow = createShadow(FrameShadows.Kind.SELECTION);
+            }
+            fadeShadow(selectionShadow, selectionShadowTimeline, 1, UISettings.BLOCK_SELECTION_SHADOW_DURATION);
         }
     }
     
@@ -460,22 +454,8 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
     public void unselect() {
         if (selected) {
             selected = false;
-            var dropShadow = (DropShadow) frameShape.getEffect();
-            shadowRemoveTimeline.getKeyFrames().setAll(
-                    new KeyFrame(Duration.ZERO,
-                            new KeyValue(dropShadow.radiusProperty(), dropShadow.getRadius()),
-                            new KeyValue(dropShadow.colorProperty(), dropShadow.getColor())
-                    ),
-                    new KeyFrame(UISettings.BLOCK_SELECTION_SHADOW_DURATION,
-                            new KeyValue(dropShadow.radiusProperty(), 0),
-                            new KeyValue(dropShadow.colorProperty(), UISettings.BLOCK_SELECTION_SHADOW_COLOR)
-                    )
-            );
-            Platform.runLater(() -> {
-                shadowShowTimeline.stop();
-                shadowRemoveTimeline.stop();
-                shadowRemoveTimeline.play();
-            });
+            Frames.frameSelectionChanged(functionSite, this, false);
+            fadeShadow(selectionShadow, selectionShadowTimeline, 0, UISettings.BLOCK_SELECTION_SHADOW_DURATION);
         }
     }
     
@@ -491,42 +471,43 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
      * Shows the bigger shadow, e.g. for the movement of the frame
      */
     private void highlight() {
-        var dropShadow = (DropShadow) frameShape.getEffect();
-        shadowShowTimeline.getKeyFrames().setAll(
-                new KeyFrame(Duration.ZERO,
-                        new KeyValue(dropShadow.radiusProperty(), dropShadow.getRadius()),
-                        new KeyValue(dropShadow.colorProperty(), dropShadow.getColor())
-                ),
-                new KeyFrame(UISettings.BLOCK_MOVING_SHADOW_DURATION,
-                        new KeyValue(dropShadow.radiusProperty(), UISettings.BLOCK_MOVING_SHADOW_RADIUS),
-                        new KeyValue(dropShadow.colorProperty(), UISettings.BLOCK_MOVING_SHADOW_COLOR)
-                ));
-        Platform.runLater(() -> {
-            shadowRemoveTimeline.stop();
-            shadowShowTimeline.stop();
-            shadowShowTimeline.play();
-        });
+        if (movingShadow == null) {
+            movingShadow = createShadow(FrameShadows.Kind.MOVING);
+        }
+        fadeShadow(movingShadow, movingShadowTimeline, 1, UISettings.BLOCK_MOVING_SHADOW_DURATION);
     }
     
     /**
      * Removes the bigger shadow, e.g. for the movement of the frame
      */
     private void unhighlight() {
-        var dropShadow = (DropShadow) frameShape.getEffect();
-        shadowRemoveTimeline.getKeyFrames().setAll(
+        fadeShadow(movingShadow, movingShadowTimeline, 0, UISettings.BLOCK_MOVING_SHADOW_DURATION);
+    }
+    
+    private ImageView createShadow(FrameShadows.Kind kind) {
+        var shadow = FrameShadows.createView(this, frameShape, kind);
+        //The shadows are behind the shape, the moving shadow in front of the selection shadow
+        root.getChildren().add(selectionShadow != null && kind == FrameShadows.Kind.MOVING ? 1 : 0, shadow);
+        return shadow;
+    }
+    
+    /**
+     * Only the frames the user interacts with run an animation, the shadows themselves are prerendered images
+     */
+    private static void fadeShadow(ImageView shadow, Timeline timeline, double opacity, Duration duration) {
+        if (shadow == null) {
+            return;
+        }
+        timeline.getKeyFrames().setAll(
                 new KeyFrame(Duration.ZERO,
-                        new KeyValue(dropShadow.radiusProperty(), dropShadow.getRadius()),
-                        new KeyValue(dropShadow.colorProperty(), dropShadow.getColor())
+                        new KeyValue(shadow.opacityProperty(), shadow.getOpacity())
                 ),
-                new KeyFrame(UISettings.BLOCK_MOVING_SHADOW_DURATION,
-                        new KeyValue(dropShadow.radiusProperty(), selected ? UISettings.BLOCK_SELECTION_SHADOW_RADIUS : 0),
-                        new KeyValue(dropShadow.colorProperty(), UISettings.BLOCK_SELECTION_SHADOW_COLOR)
-                )
-        );
+                new KeyFrame(duration,
+                        new KeyValue(shadow.opacityProperty(), opacity)
+                ));
         Platform.runLater(() -> {
-            shadowShowTimeline.stop();
-            shadowRemoveTimeline.stop();
-            shadowRemoveTimeline.play();
+            timeline.stop();
+            timeline.play();
         });
     }
     
@@ -541,6 +522,20 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
         pane.getChildren().addAll(predictionShadowShape, this.root);
     }
     
+    /**
+     * Removes this frame from a pane, the frame itself stays intact
+     *
+     * @param pane The pane containing this frame
+     */
+    public void removeFrom(Pane pane) {
+        pane.getChildren().removeAll(predictionShadowShape, this.root);
+    }
+    
+    private void onMoved() {
+        Frames.frameMoved(this);
+        functionSite.getLogicSite().getWorkspaceVirtualization().frameMoved(this);
+    }
+    
     /**
      * Do NOT call this Method directly, call getBlock().remove() instead!
      */
@@ -552,8 +547,9 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
                 .collect(Collectors.toList());
         lines.forEach(Line::remove);
         hoverBinding.dispose();
+        functionSite.getLogicSite().getWorkspaceLevelOfDetail().unregister(this);
         Frames.unregisterFrame(functionSite, this);
-        ((Pane) root.getParent()).getChildren().removeAll(predictionShadowShape, root);
+        functionSite.getLogicSite().getWorkspaceVirtualization().unregister(this);
     }
     
     public Set<Dot> getAllDots() {
@@ -576,6 +572,23 @@ public abstract class Frame<S extends Shape> implements Moveable, MouseConsumabl
         return getOutputDots().filter(d -> d.getSide() == side).findAny();
     }
     
+    /**
+     * Shows the statement body instead of the text of the frame, see WorkspaceLevelOfDetail
+     *
+     * @param visible true for the statement body, false for the text
+     */
+    public void setContentBodyVisible(boolean visible) {
+        if (visible) {
+            showContentBody();
+        } else {
+            showContentText();
+        }
+    }
+    
+    public boolean isContentBodyVisible() {
+        return !showsPlaceholder;
+    }
+    
     private void showContentBody() {
         if (!showsPlaceholder) {
             return;
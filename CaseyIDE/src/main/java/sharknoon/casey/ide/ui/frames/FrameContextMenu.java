@@ -53,8 +53,7 @@ public class FrameContextMenu {
             deleteItem.setOnAction(e -> {
                 if (frame.isSelected()) {
                     var toRemove = Frames
-                            .getAllFrames(frame.getFunctionSite())
-                            .filter(Frame::isSelected)
+                            .getSelectedFrames(frame.getFunctionSite())
                             .map(Frame::getBlock)
                             .filter(b -> b.getType() != BlockType.START)
                             .collect(Collectors.toList());
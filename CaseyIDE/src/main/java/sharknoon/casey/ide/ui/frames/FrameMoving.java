@@ -15,20 +15,28 @@
  */
 package sharknoon.casey.ide.ui.frames;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.value.WritableValue;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.transform.Translate;
 import sharknoon.casey.ide.ui.UISettings;
+import sharknoon.casey.ide.ui.dots.Dot;
+import sharknoon.casey.ide.ui.lines.Line;
 import sharknoon.casey.ide.ui.lines.Lines;
 import sharknoon.casey.ide.ui.misc.MouseConsumable;
 import sharknoon.casey.ide.ui.sites.function.FunctionSite;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
+ * Moves the dragged frame or all selected frames. During the drag the frames keep their places and are only shown
+ * translated by one shared translation, the new places are set once the mouse is released and animated together.
+ *
  * @author Josua Frank
  */
 public class FrameMoving implements MouseConsumable {
@@ -43,6 +51,13 @@ public class FrameMoving implements MouseConsumable {
     boolean lastDragSwitch = false;
     boolean currentDragSwitch = true;
     public static final Map<FunctionSite, Boolean> IS_DRAGGING = new HashMap<>();
+    //The translation of all dragged frames and the lines between them
+    private final Translate dragTranslation = new Translate();
+    //Moves the dragged frames to their new places
+    private final Timeline movingTimeline = new Timeline();
+    private List<Frame<?>> draggedFrames = List.of();
+    private final Set<Line> translatedLines = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Line> followingLines = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public static boolean isDragging(FunctionSite fs) {
         return IS_DRAGGING.getOrDefault(fs, false);
@@ -62,6 +77,7 @@ public class FrameMoving implements MouseConsumable {
         if (frame == null) {
             return;
         }
+        finishMoving();
         if (frame.isSelected()) {
             Frames.getSelectedFrames(functionSite).forEach(b -> {
                 b.startX = b.getMinX();
@@ -97,15 +113,11 @@ public class FrameMoving implements MouseConsumable {
         double deltaX = currentX - startX;
         double deltaY = currentY - startY;
     
-        if (frame.isSelected()) {
-            Frames.getSelectedFrames(functionSite).collect(Collectors.toList()).stream().forEach(b -> {
-                b.setMinX(b.startX + deltaX);
-                b.setMinY(b.startY + deltaY);
-            });
-        } else {
-            frame.setMinX(frame.startX + deltaX);
-            frame.setMinY(frame.startY + deltaY);
+        if (draggedFrames.isEmpty()) {
+            startDragging(frame);
         }
+        dragTranslation.setX(deltaX);
+        dragTranslation.setY(deltaY);
 
         //shadow part
         double currentXWithoutPadding = currentX - UISettings.WORKSPACE_PADDING;
@@ -133,12 +145,10 @@ public class FrameMoving implements MouseConsumable {
         lastGridY.put(frame, currentGridY);
     
         if (frame.isSelected()) {
-            Stream<Frame<?>> frames = Frames.getSelectedFrames(functionSite);
             Map<Frame<?>, Double[]> futureShadows = new HashMap<>();
             boolean canMoveInX = true;
             boolean canMoveInY = true;
-            for (Iterator<Frame<?>> it = frames.iterator(); it.hasNext(); ) {
-                Frame<?> f = it.next();
+            for (Frame<?> f : draggedFrames) {
                 double newX = f.startX + ((currentGridX - startGridX) * UISettings.BLOCK_GRID_SNAPPING_X);
                 double newY = f.startY + ((currentGridY - startGridY) * UISettings.BLOCK_GRID_SNAPPING_Y);
                 canMoveInX = canMoveInX && isXInsideWorkspace(f, newX);
@@ -175,18 +185,86 @@ public class FrameMoving implements MouseConsumable {
     @Override
     public void onMouseReleased(MouseEvent event) {
         IS_DRAGGING.put(functionSite, false);
-        var frame = Frames.getMovingFrame(functionSite);
-        if (frame == null) {
+        if (draggedFrames.isEmpty()) {
             return;
         }
-        if (frame.isSelected()) {
-            Frames.getSelectedFrames(functionSite).forEach(b -> {
-                b.setMinXAnimated(b.getShadow().getTranslateX());
-                b.setMinYAnimated(b.getShadow().getTranslateY());
-            });
-        } else {
-            frame.setMinXAnimated(frame.getShadow().getTranslateX());
-            frame.setMinYAnimated(frame.getShadow().getTranslateY());
+        stopDragging();
+    }
+    
+    /**
+     * Translates the dragged frames and the lines between them, the lines to other frames follow the dots of the
+     * dragged frames
+     *
+     * @param frame The frame under the mouse
+     */
+    private void startDragging(Frame<?> frame) {
+        dragTranslation.setX(0);
+        dragTranslation.setY(0);
+        draggedFrames = frame.isSelected()
+                ? Frames.getSelectedFrames(functionSite).collect(Collectors.toList())
+                : List.of(frame);
+        Set<Frame<?>> frames = Collections.newSetFromMap(new IdentityHashMap<>());
+        frames.addAll(draggedFrames);
+        for (Frame<?> draggedFrame : draggedFrames) {
+            draggedFrame.addDragTranslation(dragTranslation);
+            for (Dot dot : draggedFrame.getAllDots()) {
+                for (Line line : dot.getLines()) {
+                    Dot otherDot = line.getStartDot() == dot ? line.getEndDot() : line.getStartDot();
+                    if (otherDot != null && frames.contains(otherDot.getFrame())) {
+                        if (translatedLines.add(line)) {
+                            line.getShape().getTransforms().add(dragTranslation);
+                        }
+                    } else {
+                        followingLines.add(line);
+                        line.followDrag(dot, dragTranslation);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sets the dragged frames to the place they are shown at and animates them to their shadows
+     */
+    private void stopDragging() {
+        List<KeyValue> keyValues = new ArrayList<>();
+        for (Frame<?> frame : draggedFrames) {
+            frame.setMinX(frame.startX + dragTranslation.getX());
+            frame.setMinY(frame.startY + dragTranslation.getY());
+            frame.removeDragTranslation(dragTranslation);
+            keyValues.addAll(frame.createMovingKeyValues(frame.getShadow().getTranslateX(), frame.getShadow().getTranslateY()));
+        }
+        for (Line line : translatedLines) {
+            line.getShape().getTransforms().remove(dragTranslation);
+        }
+        for (Line line : followingLines) {
+            line.stopFollowingDrag();
+        }
+        translatedLines.clear();
+        followingLines.clear();
+        draggedFrames = List.of();
+        dragTranslation.setX(0);
+        dragTranslation.setY(0);
+        
+        movingTimeline.getKeyFrames().setAll(
+                new KeyFrame(UISettings.BLOCK_MOVING_DURATION, keyValues.toArray(new KeyValue[0]))
+        );
+        movingTimeline.playFromStart();
+    }
+    
+    /**
+     * Sets the frames of the last animation to their places, if the animation is still running
+     */
+    @SuppressWarnings("unchecked")
+    private void finishMoving() {
+        if (movingTimeline.getStatus() != Animation.Status.RUNNING) {
+            return;
+        }
+        movingTimeline.stop();
+        for (KeyFrame keyFrame : movingTimeline.getKeyFrames()) {
+            for (KeyValue keyValue : keyFrame.getValues()) {
+                ((WritableValue<Object>) keyValue.getTarget()).setValue(keyValue.getEndValue());
+            }
         }
     }
     
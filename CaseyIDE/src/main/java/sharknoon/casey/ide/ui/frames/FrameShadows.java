@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.frames;
+
+import javafx.geometry.Bounds;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Shape;
+import sharknoon.casey.ide.ui.UISettings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The shadows of the frames, rendered once per type and size of a frame and shared as images by all frames of the
+ * same type and size, instead of every frame having its own drop shadow effect
+ */
+class FrameShadows {
+    
+    enum Kind {
+        SELECTION(UISettings.BLOCK_SELECTION_SHADOW_RADIUS, UISettings.BLOCK_SELECTION_SHADOW_COLOR),
+        MOVING(UISettings.BLOCK_MOVING_SHADOW_RADIUS, UISettings.BLOCK_MOVING_SHADOW_COLOR);
+    
+        private final double radius;
+        private final Color color;
+    
+        Kind(double radius, Color color) {
+            this.radius = radius;
+            this.color = color;
+        }
+    }
+    
+    private static final Map<String, ShadowImage> SHADOWS = new HashMap<>();
+    
+    /**
+     * Creates a view of the shadow of a frame, the view is placed relative to the shape of the frame
+     *
+     * @param frame The frame
+     * @param shape The shape of the frame, at the origin of the frame
+     * @param kind  The kind of the shadow
+     * @return The invisible view of the shadow
+     */
+    static ImageView createView(Frame<?> frame, Shape shape, Kind kind) {
+        String key = frame.getClass().getName() + '|' + frame.getWidth() + 'x' + frame.getHeight() + '|' + kind;
+        ShadowImage shadow = SHADOWS.computeIfAbsent(key, k -> render(shape, kind));
+        ImageView view = new ImageView(shadow.image);
+        view.setX(shadow.x);
+        view.setY(shadow.y);
+        view.setMouseTransparent(true);
+        view.setOpacity(0);
+        return view;
+    }
+    
+    private static ShadowImage render(Shape shape, Kind kind) {
+        //A copy of the shape, the shadow itself is covered by the frame
+        Shape silhouette = Shape.union(shape, shape);
+        silhouette.setFill(kind.color);
+        silhouette.setStroke(null);
+        var dropShadow = new DropShadow(kind.radius, kind.color);
+        dropShadow.setSpread(0.5);
+        silhouette.setEffect(dropShadow);
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        Bounds bounds = silhouette.getBoundsInParent();
+        Image image = silhouette.snapshot(parameters, null);
+        return new ShadowImage(image, bounds.getMinX(), bounds.getMinY());
+    }
+    
+    private static class ShadowImage {
+    
+        private final Image image;
+        private final double x;
+        private final double y;
+    
+        private ShadowImage(Image image, double x, double y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+    }
+    
+}
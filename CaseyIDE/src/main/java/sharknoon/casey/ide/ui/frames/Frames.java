@@ -27,6 +27,8 @@ import sharknoon.casey.ide.ui.frames.frame.*;
 import sharknoon.casey.ide.ui.sites.function.FunctionSite;
 import sharknoon.casey.ide.utils.settings.Logger;
 
+import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -40,6 +42,11 @@ public class Frames {
     private static final ObservableMap<FunctionSite, ObservableSet<Frame<?>>> FRAMES = FXCollections.observableHashMap();
     private static final ObservableMap<FunctionSite, ObjectProperty<Frame<?>>> MOVING_FRAME = FXCollections.observableHashMap();
     private static final ObservableSet<Frame<?>> EMPTY = FXCollections.emptyObservableSet();
+    private static final Map<FunctionSite, Set<Frame<?>>> SELECTED_FRAMES = new HashMap<>();
+    //The places of the frames of every functionsite, the cells are aligned to the grid the frames snap to
+    private static final Map<FunctionSite, SpatialIndex<Frame<?>>> FRAME_INDICES = new HashMap<>();
+    private static final double INDEX_CELL_WIDTH = UISettings.BLOCK_GRID_SNAPPING_X * 4;
+    private static final double INDEX_CELL_HEIGHT = UISettings.BLOCK_GRID_SNAPPING_Y * 4;
     
     
     /**
@@ -82,6 +89,7 @@ public class Frames {
     }
     
     static void registerFrame(FunctionSite functionSite, Frame<?> frame) {
+        getFrameIndex(functionSite).put(frame, frame.getMinX(), frame.getMinY(), frame.getMaxX(), frame.getMaxY());
         if (FRAMES.containsKey(functionSite)) {
             FRAMES.get(functionSite).add(frame);
         } else {
@@ -99,18 +107,65 @@ public class Frames {
     }
     
     static void unregisterFrame(FunctionSite functionSite, Frame<?> frame) {
+        getFrameIndex(functionSite).remove(frame);
+        frameSelectionChanged(functionSite, frame, false);
         if (FRAMES.containsKey(functionSite)) {
             FRAMES.get(functionSite).remove(frame);
         }
     }
     
-    public static void unselectAll(FunctionSite functionSite) {
-        if (FRAMES.containsKey(functionSite)) {
-            FRAMES.get(functionSite).forEach(Frame::unselect);
+    /**
+     * Updates the place of a frame in the index, has to be called every time the frame has been moved
+     *
+     * @param frame The moved frame
+     */
+    static void frameMoved(Frame<?> frame) {
+        SpatialIndex<Frame<?>> index = FRAME_INDICES.get(frame.getFunctionSite());
+        if (index != null && index.contains(frame)) {
+            index.put(frame, frame.getMinX(), frame.getMinY(), frame.getMaxX(), frame.getMaxY());
         }
     }
     
-    static Frame<?> getMovingFrame(FunctionSite functionSite) {
+    private static SpatialIndex<Frame<?>> getFrameIndex(FunctionSite functionSite) {
+        return FRAME_INDICES.computeIfAbsent(functionSite, f -> new SpatialIndex<>(
+                UISettings.WORKSPACE_MAX_X,
+                UISettings.WORKSPACE_MAX_Y,
+                INDEX_CELL_WIDTH,
+                INDEX_CELL_HEIGHT
+        ));
+    }
+    
+    /**
+     * Checks, if any frame overlapping the area (including its borders) matches
+     */
+    static boolean anyFrameMatches(FunctionSite functionSite, double minX, double minY, double maxX, double maxY, Predicate<Frame<?>> predicate) {
+        return getFrameIndex(functionSite).anyMatch(minX, minY, maxX, maxY,
+                frame -> frame.intersects(minX, minY, maxX, maxY) && predicate.test(frame));
+    }
+    
+    /**
+     * Gets the frames overlapping the area (including its borders)
+     */
+    public static Stream<Frame<?>> getFramesIn(FunctionSite functionSite, double minX, double minY, double maxX, double maxY) {
+        return getFrameIndex(functionSite)
+                .getCandidates(minX, minY, maxX, maxY)
+                .stream()
+                .filter(frame -> frame.intersects(minX, minY, maxX, maxY));
+    }
+    
+    static void frameSelectionChanged(FunctionSite functionSite, Frame<?> frame, boolean selected) {
+        if (selected) {
+            SELECTED_FRAMES.computeIfAbsent(functionSite, f -> Collections.newSetFromMap(new IdentityHashMap<>())).add(frame);
+        } else if (SELECTED_FRAMES.containsKey(functionSite)) {
+            SELECTED_FRAMES.get(functionSite).remove(frame);
+        }
+    }
+    
+    public static void unselectAll(FunctionSite functionSite) {
+        getSelectedFrames(functionSite).forEach(Frame::unselect);
+    }
+    
+    public static Frame<?> getMovingFrame(FunctionSite functionSite) {
         if (!MOVING_FRAME.containsKey(functionSite)) {
             return null;
         }
@@ -133,8 +188,12 @@ public class Frames {
         return allFramesObsevable(functionSite).stream();
     }
     
-    static Stream<Frame<?>> getSelectedFrames(FunctionSite functionSite) {
-        return getAllFrames(functionSite).filter(Frame::isSelected);
+    /**
+     * Gets the selected frames, the stream is detached from the selection, so the frames may be unselected or removed
+     * while it is consumed
+     */
+    public static Stream<Frame<?>> getSelectedFrames(FunctionSite functionSite) {
+        return List.copyOf(SELECTED_FRAMES.getOrDefault(functionSite, Set.of())).stream();
     }
     
     private static ObservableSet<Frame<?>> allFramesObsevable(FunctionSite functionSite) {
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.frames;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A uniform grid over the workspace to find the items at a place without looking at all the other items. Every cell of
+ * the grid knows the items overlapping it, so a query only looks at the items in the cells of the queried area. The
+ * items outside of the grid are kept in the cells at its border.
+ *
+ * @param <T> The type of the items
+ */
+public class SpatialIndex<T> {
+    
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final List<T>[] cells;
+    //The first and last column and row of the cells every item is in
+    private final Map<T, int[]> cellRanges = new IdentityHashMap<>();
+    
+    /**
+     * @param width      The width of the area covered by the grid
+     * @param height     The height of the area covered by the grid
+     * @param cellWidth  The width of a cell
+     * @param cellHeight The height of a cell
+     */
+    @SuppressWarnings("unchecked")
+    public SpatialIndex(double width, double height, double cellWidth, double cellHeight) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellWidth));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellHeight));
+        this.cells = new List[columns * rows];
+    }
+    
+    /**
+     * Adds a item or updates its place, the borders of the item belong to it
+     */
+    public void put(T item, double minX, double minY, double maxX, double maxY) {
+        int[] range = {column(minX), row(minY), column(maxX), row(maxY)};
+        int[] oldRange = cellRanges.put(item, range);
+        if (Arrays.equals(range, oldRange)) {
+            return;
+        }
+        if (oldRange != null) {
+            removeFromCells(item, oldRange);
+        }
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                int cell = row * columns + column;
+                if (cells[cell] == null) {
+                    cells[cell] = new ArrayList<>(2);
+                }
+                cells[cell].add(item);
+            }
+        }
+    }
+    
+    public void remove(T item) {
+        int[] range = cellRanges.remove(item);
+        if (range != null) {
+            removeFromCells(item, range);
+        }
+    }
+    
+    public boolean contains(T item) {
+        return cellRanges.containsKey(item);
+    }
+    
+    public int size() {
+        return cellRanges.size();
+    }
+    
+    /**
+     * Checks, if any item near to the area matches, the items may not overlap the area exactly, so the predicate has to
+     * check this by itself
+     *
+     * @return True, if the predicate is true for one of the items
+     */
+    public boolean anyMatch(double minX, double minY, double maxX, double maxY, Predicate<? super T> predicate) {
+        int lastColumn = column(maxX);
+        int lastRow = row(maxY);
+        for (int row = row(minY); row <= lastRow; row++) {
+            for (int column = column(minX); column <= lastColumn; column++) {
+                List<T> cell = cells[row * columns + column];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    if (predicate.test(cell.get(i))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets the items near to the area, the items may not overlap the area exactly
+     *
+     * @return Every item in the cells of the area once
+     */
+    public Set<T> getCandidates(double minX, double minY, double maxX, double maxY) {
+        Set<T> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        anyMatch(minX, minY, maxX, maxY, item -> {
+            candidates.add(item);
+            return false;
+        });
+        return candidates;
+    }
+    
+    private void removeFromCells(T item, int[] range) {
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                List<T> cell = cells[row * columns + column];
+                for (int i = 0; i < cell.size(); i++) {
+                    if (cell.get(i) == item) {
+                        //The order inside of a cell doesn't matter
+                        cell.set(i, cell.get(cell.size() - 1));
+                        cell.remove(cell.size() - 1);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellWidth)));
+    }
+    
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellHeight)));
+    }
+    
+}
@@ -25,6 +25,8 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.input.ContextMenuEvent;
@@ -33,10 +35,10 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.CubicCurve;
 import javafx.scene.shape.Shape;
+import javafx.scene.transform.Translate;
 import javafx.util.Duration;
 import sharknoon.casey.ide.ui.UISettings;
 import sharknoon.casey.ide.ui.dots.Dot;
-import sharknoon.casey.ide.ui.frames.Frame;
 import sharknoon.casey.ide.ui.frames.Frames;
 import sharknoon.casey.ide.ui.interfaces.Moveable;
 import sharknoon.casey.ide.ui.misc.MouseConsumable;
@@ -53,6 +55,8 @@ public class Line implements Moveable, MouseConsumable {
     private final Timeline shadowShowTimeline = new Timeline();
     private final Timeline shadowRemoveTimeline = new Timeline();
     private final ObjectProperty<Dot> endDot = new SimpleObjectProperty<>();
+    //The bounds of the curve without its selection shadow, only updated if the dots move
+    private final ObjectProperty<Bounds> bounds = new SimpleObjectProperty<>();
     //The contextmenu for a line
     private final LineContextMenu menu = new LineContextMenu(this);
     private boolean selected;
@@ -72,8 +76,18 @@ public class Line implements Moveable, MouseConsumable {
         startDot.set(dot);
         line = initLine();
         MouseConsumable.registerListeners(line, this);
-        addDropShadowEffect();
-        this.functionSite.getLogicSite().addInBack(line);
+        //The shadow is only there while the line is selected
+        shadowRemoveTimeline.setOnFinished(e -> {
+            if (!selected) {
+                line.setEffect(null);
+            }
+        });
+        updateBounds();
+        line.layoutBoundsProperty().addListener(observable -> onMoved());
+        line.translateXProperty().addListener(observable -> onMoved());
+        line.translateYProperty().addListener(observable -> onMoved());
+        Lines.registerLine(functionSite, this);
+        this.functionSite.getLogicSite().getWorkspaceVirtualization().register(this);
     }
     
     private CubicCurve initLine() {
@@ -108,6 +122,22 @@ public class Line implements Moveable, MouseConsumable {
         return line;
     }
     
+    private void updateBounds() {
+        Bounds layoutBounds = line.getLayoutBounds();
+        bounds.set(new BoundingBox(
+                layoutBounds.getMinX() + line.getTranslateX(),
+                layoutBounds.getMinY() + line.getTranslateY(),
+                layoutBounds.getWidth(),
+                layoutBounds.getHeight()
+        ));
+    }
+    
+    private void onMoved() {
+        updateBounds();
+        Lines.lineMoved(functionSite, this);
+        functionSite.getLogicSite().getWorkspaceVirtualization().lineMoved(this);
+    }
+    
     private void registerNewLine() {
         getOutputDot().getFrame().getBlock().addConnection(
                 getOutputDot().getSide(),
@@ -140,6 +170,34 @@ public class Line implements Moveable, MouseConsumable {
         }
     }
     
+    /**
+     * Lets the end of this line at the dot follow a translation, used while the frame of the dot is dragged
+     *
+     * @param dot The dot of the dragged frame
+     * @param translate The translation of the dragged frame
+     */
+    public void followDrag(Dot dot, Translate translate) {
+        if (dot == getStartDot()) {
+            line.startXProperty().bind(dot.centerXExpression().add(translate.xProperty()));
+            line.startYProperty().bind(dot.centerYExpression().add(translate.yProperty()));
+        } else if (dot == getEndDot()) {
+            line.endXProperty().bind(dot.centerXExpression().add(translate.xProperty()));
+            line.endYProperty().bind(dot.centerYExpression().add(translate.yProperty()));
+        }
+    }
+    
+    /**
+     * Binds the ends of this line to their dots again
+     */
+    public void stopFollowingDrag() {
+        line.startXProperty().bind(getStartDot().centerXExpression());
+        line.startYProperty().bind(getStartDot().centerYExpression());
+        if (getEndDot() != null) {
+            line.endXProperty().bind(getEndDot().centerXExpression());
+            line.endYProperty().bind(getEndDot().centerYExpression());
+        }
+    }
+    
     public void remove() {
         Dot outputDot = getOutputDot();
         Dot inputDot = getInputDot();
@@ -149,7 +207,8 @@ public class Line implements Moveable, MouseConsumable {
                     inputDot.getFrame().getBlock()
             );
         }
-        functionSite.getLogicSite().remove(line);
+        Lines.unregisterLine(functionSite, this);
+        functionSite.getLogicSite().getWorkspaceVirtualization().unregister(this);
         startDot.set(null);
         endDot.set(null);
         Lines.removeLineDrawing(functionSite);
@@ -172,8 +231,8 @@ public class Line implements Moveable, MouseConsumable {
     public void onMouseClicked(MouseEvent event) {
         if (!Lines.isLineDrawing(functionSite) && event.getButton() == MouseButton.PRIMARY && event.isStillSincePress()) {
             if (!event.isControlDown()) {
-                Frames.getAllFrames(functionSite).forEach(Frame::unselect);
-                Lines.getAllLines(functionSite).forEach(Line::unselect);
+                Frames.unselectAll(functionSite);
+                Lines.unselectAll(functionSite);
                 select();
             } else {
                 toggleSelection();
@@ -198,6 +257,10 @@ public class Line implements Moveable, MouseConsumable {
     public void select() {
         if (!selected) {
             selected = true;
+            Lines.lineSelectionChanged(functionSite, this, true);
+            if (line.getEffect() == null) {
+                addDropShadowEffect();
+            }
             var dropShadow = (DropShadow) line.getEffect();
             shadowShowTimeline.getKeyFrames().setAll(
                     new KeyFrame(Duration.ZERO,
@@ -219,7 +282,11 @@ public class Line implements Moveable, MouseConsumable {
     public void unselect() {
         if (selected) {
             selected = false;
+            Lines.lineSelectionChanged(functionSite, this, false);
             var dropShadow = (DropShadow) line.getEffect();
+            if (dropShadow == null) {
+                return;
+            }
             shadowRemoveTimeline.getKeyFrames().setAll(
                     new KeyFrame(Duration.ZERO,
                             new KeyValue(dropShadow.radiusProperty(), dropShadow.getRadius()),
@@ -290,42 +357,56 @@ public class Line implements Moveable, MouseConsumable {
     
     @Override
     public double getMinX() {
-        return line.getBoundsInParent().getMinX();
+        return bounds.get().getMinX();
     }
     
     @Override
     public DoubleExpression minXExpression() {
-        return Bindings.createDoubleBinding(() -> getMinX(), line.boundsInParentProperty());
+        return Bindings.createDoubleBinding(() -> getMinX(), bounds);
     }
     
     @Override
     public double getMinY() {
-        return line.getBoundsInParent().getMinY();
+        return bounds.get().getMinY();
     }
     
     @Override
     public DoubleExpression minYExpression() {
-        return Bindings.createDoubleBinding(() -> getMinY(), line.boundsInParentProperty());
+        return Bindings.createDoubleBinding(() -> getMinY(), bounds);
     }
     
     @Override
     public double getMaxX() {
-        return line.getBoundsInParent().getMaxX();
+        return bounds.get().getMaxX();
     }
     
     @Override
     public DoubleExpression maxXExpression() {
-        return Bindings.createDoubleBinding(() -> getMaxX(), line.boundsInParentProperty());
+        return Bindings.createDoubleBinding(() -> getMaxX(), bounds);
     }
     
     @Override
     public double getMaxY() {
-        return line.getBoundsInParent().getMaxY();
+        return bounds.get().getMaxY();
     }
     
     @Override
     public DoubleExpression maxYExpression() {
-        return Bindings.createDoubleBinding(() -> getMaxY(), line.boundsInParentProperty());
+        return Bindings.createDoubleBinding(() -> getMaxY(), bounds);
+    }
+    
+    @Override
+    public Bounds getBounds() {
+        return bounds.get();
+    }
+    
+    /**
+     * Checks, if this line overlaps an area, touching borders count as overlapping
+     *
+     * @return true, if this line overlaps the area
+     */
+    public boolean intersects(double minX, double minY, double maxX, double maxY) {
+        return maxX >= getMinX() && maxY >= getMinY() && minX <= getMaxX() && minY <= getMaxY();
     }
     
     @Override
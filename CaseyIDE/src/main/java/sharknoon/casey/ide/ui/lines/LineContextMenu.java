@@ -48,8 +48,7 @@ public class LineContextMenu {
         Language.setCustom(Word.DELETE, deleteItem::setText);
         deleteItem.setOnAction(e -> {
             if (line.isSelected()) {
-                var linesToDelete = Lines.getAllLines(line.getOutputDot().getFrame().getFunctionSite())
-                        .filter(Line::isSelected)
+                var linesToDelete = Lines.getSelectedLines(line.getOutputDot().getFrame().getFunctionSite())
                         .collect(Collectors.toList());
                 linesToDelete.forEach(Line::remove);
             } else {
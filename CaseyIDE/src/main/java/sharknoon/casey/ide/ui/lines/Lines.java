@@ -15,14 +15,13 @@
  */
 package sharknoon.casey.ide.ui.lines;
 
+import javafx.geometry.Bounds;
+import sharknoon.casey.ide.ui.UISettings;
 import sharknoon.casey.ide.ui.dots.Dot;
-import sharknoon.casey.ide.ui.frames.Frame;
-import sharknoon.casey.ide.ui.frames.Frames;
+import sharknoon.casey.ide.ui.frames.SpatialIndex;
 import sharknoon.casey.ide.ui.sites.function.FunctionSite;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Stream;
 
 /**
@@ -31,6 +30,12 @@ import java.util.stream.Stream;
 public class Lines {
     
     private static final Map<FunctionSite, Line> CURRENT_DRAWING_LINE = new HashMap<>();
+    private static final Map<FunctionSite, Set<Line>> LINES = new HashMap<>();
+    private static final Map<FunctionSite, Set<Line>> SELECTED_LINES = new HashMap<>();
+    //The bounds of the lines, lines are only updated in here if their dots move
+    private static final Map<FunctionSite, SpatialIndex<Line>> LINE_INDICES = new HashMap<>();
+    private static final double INDEX_CELL_WIDTH = UISettings.BLOCK_GRID_SNAPPING_X * 4;
+    private static final double INDEX_CELL_HEIGHT = UISettings.BLOCK_GRID_SNAPPING_Y * 4;
     
     public static Line createLine(FunctionSite functionSite, Dot startDot) {
         return new Line(startDot, functionSite);
@@ -52,17 +57,75 @@ public class Lines {
         return CURRENT_DRAWING_LINE.get(functionSite);
     }
     
+    static void registerLine(FunctionSite functionSite, Line line) {
+        LINES.computeIfAbsent(functionSite, f -> Collections.newSetFromMap(new IdentityHashMap<>())).add(line);
+        Bounds bounds = line.getBounds();
+        getLineIndex(functionSite).put(line, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+    
+    static void unregisterLine(FunctionSite functionSite, Line line) {
+        getLineIndex(functionSite).remove(line);
+        if (LINES.containsKey(functionSite)) {
+            LINES.get(functionSite).remove(line);
+        }
+        lineSelectionChanged(functionSite, line, false);
+    }
+    
+    /**
+     * Updates the place of a line in the index, has to be called every time the bounds of the line changed
+     *
+     * @param functionSite The function site of the line
+     * @param line The moved line
+     */
+    static void lineMoved(FunctionSite functionSite, Line line) {
+        SpatialIndex<Line> index = LINE_INDICES.get(functionSite);
+        if (index != null && index.contains(line)) {
+            Bounds bounds = line.getBounds();
+            index.put(line, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+        }
+    }
+    
+    static void lineSelectionChanged(FunctionSite functionSite, Line line, boolean selected) {
+        if (selected) {
+            SELECTED_LINES.computeIfAbsent(functionSite, f -> Collections.newSetFromMap(new IdentityHashMap<>())).add(line);
+        } else if (SELECTED_LINES.containsKey(functionSite)) {
+            SELECTED_LINES.get(functionSite).remove(line);
+        }
+    }
+    
+    private static SpatialIndex<Line> getLineIndex(FunctionSite functionSite) {
+        return LINE_INDICES.computeIfAbsent(functionSite, f -> new SpatialIndex<>(
+                UISettings.WORKSPACE_MAX_X,
+                UISettings.WORKSPACE_MAX_Y,
+                INDEX_CELL_WIDTH,
+                INDEX_CELL_HEIGHT
+        ));
+    }
+    
     public static void unselectAll(FunctionSite functionSite) {
-        getAllLines(functionSite).forEach(Line::unselect);
+        getSelectedLines(functionSite).forEach(Line::unselect);
     }
     
     public static Stream<Line> getAllLines(FunctionSite functionSite) {
-        return Frames
-                .getAllFrames(functionSite)
-                .map(Frame::getOutputDots)
-                .flatMap(s -> s)
-                .map(Dot::getLines)
-                .flatMap(Set::stream);
+        return List.copyOf(LINES.getOrDefault(functionSite, Set.of())).stream();
+    }
+    
+    /**
+     * Gets the selected lines, the stream is detached from the selection, so the lines may be unselected or removed
+     * while it is consumed
+     */
+    public static Stream<Line> getSelectedLines(FunctionSite functionSite) {
+        return List.copyOf(SELECTED_LINES.getOrDefault(functionSite, Set.of())).stream();
+    }
+    
+    /**
+     * Gets the lines overlapping the area (including its borders)
+     */
+    public static Stream<Line> getLinesIn(FunctionSite functionSite, double minX, double minY, double maxX, double maxY) {
+        return getLineIndex(functionSite)
+                .getCandidates(minX, minY, maxX, maxY)
+                .stream()
+                .filter(line -> line.intersects(minX, minY, maxX, maxY));
     }
     
     //Duplicates are no longer possible, it isn't possible to connect two line to a output dot
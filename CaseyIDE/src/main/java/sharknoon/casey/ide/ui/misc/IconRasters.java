@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.misc;
+
+import javafx.scene.*;
+import javafx.scene.image.*;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import javafx.stage.Screen;
+import sharknoon.casey.ide.ui.UISettings;
+import sharknoon.casey.ide.utils.settings.Logger;
+import sharknoon.casey.ide.utils.settings.Resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * The icons rasterized once per size and output scale of the screen and shared as images by all views of the same
+ * icon and size, instead of every view having its own scene graph of the svg. A raster can be shipped precomputed as
+ * '[icon]@[pixels].png' next to the svg, where pixels is the width of the box the icon is shown in, in pixels.
+ */
+class IconRasters {
+    
+    private static final Map<String, IconRaster> RASTERS = new HashMap<>();
+    
+    /**
+     * Creates a view of an icon, has to be called on the JavaFX thread
+     *
+     * @param icon The icon
+     * @param maxX The max width of the icon
+     * @param maxY The max height of the icon or a negative value for a square box
+     * @return The view of the icon or nothing, if the icon is not available as svg or precomputed raster
+     */
+    static Optional<Node> createView(Icon icon, double maxX, double maxY) {
+        double outputScale = Screen.getPrimary().getOutputScaleX() * UISettings.ICON_RASTER_OVERSAMPLING;
+        String key = getKey(icon, maxX, maxY, outputScale);
+        IconRaster raster;
+        if (RASTERS.containsKey(key)) {
+            raster = RASTERS.get(key);
+        } else {
+            raster = loadPrecomputed(icon, maxX, maxY, outputScale)
+                    .or(() -> render(icon, maxX, maxY, outputScale))
+                    .orElse(null);
+            //Also the missing rasters, so that the icon is not searched again
+            RASTERS.put(key, raster);
+        }
+        if (raster == null) {
+            return Optional.empty();
+        }
+        ImageView view = new ImageView(raster.image);
+        view.setFitWidth(raster.width);
+        view.setFitHeight(raster.height);
+        view.setSmooth(true);
+        double boxWidth = raster.width;
+        double boxHeight = raster.height;
+        if (maxY < 0) {
+            boxWidth = boxHeight = Math.max(raster.width, raster.height);
+        }
+        if (boxWidth == raster.width && boxHeight == raster.height) {
+            return Optional.of(view);
+        }
+        //Keeps the layout of non-square icons the same as before
+        BorderPane result = new BorderPane(view);
+        result.setPrefSize(boxWidth, boxHeight);
+        return Optional.of(result);
+    }
+    
+    private static Optional<IconRaster> loadPrecomputed(Icon icon, double maxX, double maxY, double outputScale) {
+        String path = icon.getPath(false);
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+        int pixels = (int) Math.round(maxX * outputScale);
+        String rasterPath = path.substring(0, path.length() - ".png".length()) + "@" + pixels + ".png";
+        Optional<InputStream> stream = Resources.getFileAsStream(rasterPath, true);
+        if (stream.isEmpty()) {
+            return Optional.empty();
+        }
+        Image image;
+        try (InputStream rasterStream = stream.get()) {
+            image = new Image(rasterStream);
+        } catch (IOException e) {
+            Logger.warning("Could not read the icon raster " + rasterPath, e);
+            return Optional.empty();
+        }
+        if (image.isError()) {
+            return Optional.empty();
+        }
+        double scale = getFitScale(image.getWidth(), image.getHeight(), maxX, maxY);
+        return Optional.of(new IconRaster(image, image.getWidth() * scale, image.getHeight() * scale));
+    }
+    
+    private static Optional<IconRaster> render(Icon icon, double maxX, double maxY, double outputScale) {
+        Optional<Group> svg = Icons.getSVG(icon);
+        if (svg.isEmpty()) {
+            return Optional.empty();
+        }
+        Group group = svg.get();
+        double originalWidth = group.prefWidth(42);//42 is ignored
+        double originalHeight = group.prefHeight(42);//42 is ignored
+        double scale = getFitScale(originalWidth, originalHeight, maxX, maxY);
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(new Scale(scale * outputScale, scale * outputScale));
+        Image image = group.snapshot(parameters, null);
+        return Optional.of(new IconRaster(image, originalWidth * scale, originalHeight * scale));
+    }
+    
+    /**
+     * Calculates the scale, with which an icon fits into its box
+     *
+     * @param width  The width of the icon
+     * @param height The height of the icon
+     * @param maxX   The max width of the icon
+     * @param maxY   The max height of the icon or a negative value for a square box
+     * @return The scale of the icon
+     */
+    static double getFitScale(double width, double height, double maxX, double maxY) {
+        double widthScale = maxX / width;
+        double heightScale = maxY < 0 ? maxX / height : maxY / height;
+        return Math.min(widthScale, heightScale);
+    }
+    
+    static String getKey(Icon icon, double maxX, double maxY, double outputScale) {
+        return icon.name() + '|' + maxX + 'x' + (maxY < 0 ? maxX : maxY) + '|' + outputScale;
+    }
+    
+    private static class IconRaster {
+    
+        private final Image image;
+        private final double width;
+        private final double height;
+    
+        private IconRaster(Image image, double width, double height) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+        }
+    }
+    
+}
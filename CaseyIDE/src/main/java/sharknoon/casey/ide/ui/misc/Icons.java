@@ -15,6 +15,7 @@
  */
 package sharknoon.casey.ide.ui.misc;
 
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.scene.*;
@@ -26,7 +27,9 @@ import sharknoon.casey.ide.utils.javafx.BindUtils;
 import sharknoon.casey.ide.utils.javafx.svg.ChachedSvgLoader;
 import sharknoon.casey.ide.utils.settings.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -99,6 +102,13 @@ public class Icons {
     }
     
     private static Node create(Icon icon, double maxX, double maxY) {
+        //The snapshots of the rasters can only be taken on the JavaFX thread
+        if (Platform.isFxApplicationThread()) {
+            Optional<Node> raster = IconRasters.createView(icon, maxX, maxY);
+            if (raster.isPresent()) {
+                return raster.get();
+            }
+        }
         Optional<Group> svg = getSVG(icon);
         if (svg.isPresent()) {
             Group group = svg.get();
@@ -188,6 +198,20 @@ public class Icons {
         }
     }
     
+    /**
+     * Loads the classes of the SVG parser in advance with a separate loader, because the first icon takes over a
+     * second otherwise, the icons themselves are loaded and cached on the JavaFX thread
+     */
+    public static void warmUpSVGLoader() {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 2 2\">"
+                + "<g><path d=\"M0 0L2 2\"/><rect width=\"1\" height=\"1\"/><circle r=\"1\"/></g></svg>";
+        var loader = new ChachedSvgLoader();
+        var svgDoc = loader.loadSvgDocument(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)));
+        if (svgDoc != null) {
+            loader.loadSvg(svgDoc);
+        }
+    }
+    
     @FunctionalInterface
     public interface ValueSetter<T> {
         
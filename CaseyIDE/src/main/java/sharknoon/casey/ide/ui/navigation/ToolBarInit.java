@@ -55,6 +55,7 @@ public class ToolBarInit {
         toolBar.getItems().addAll(
                 initSaveButton(),
                 initRunButton(),
+                initQuickRunButton(),
                 initCodeViewerButton(),
                 initLanguageSelectionChoiceBox(),
                 initConsoleOutputLabel()
@@ -96,6 +97,33 @@ public class ToolBarInit {
                 finished.thenRun(() -> running.set(false));
             }
         });
+        bindRunnable(buttonRun);
+        return buttonRun;
+    }
+    
+    private static Button initQuickRunButton() {
+        Button buttonQuickRun = new Button();
+        Icons.set(Icon.RUN, buttonQuickRun);
+        Language.set(Word.TOOLBAR_BUTTON_QUICK_RUN_TEXT, buttonQuickRun);
+        Language.setCustom(Word.TOOLBAR_BUTTON_QUICK_RUN_TOOLTIP, s -> buttonQuickRun.setTooltip(new Tooltip(s)));
+        buttonQuickRun.setOnAction(e -> {
+            running.set(true);
+            if (consoleText != null) {
+                consoleText.set("");
+            }
+            Optional<Project> currentProject = Project.getCurrentProject();
+            if (currentProject.isPresent()) {
+                CompletableFuture<Void> finished = currentProject.get().interpret();
+                finished.thenRun(() -> Platform.runLater(() -> running.set(false)));
+            } else {
+                running.set(false);
+            }
+        });
+        bindRunnable(buttonQuickRun);
+        return buttonQuickRun;
+    }
+    
+    private static void bindRunnable(Button button) {
         ObjectProperty<Item<?, ?, ?>> currentSite = Site.currentSelectedProperty();
         BooleanBinding enabledBinding =
                 Bindings
@@ -110,9 +138,8 @@ public class ToolBarInit {
                                 )
                         )
                         .and(running.not());
-        buttonRun.disableProperty().bind(enabledBinding.not());
-        buttonRun.setFocusTraversable(false);
-        return buttonRun;
+        button.disableProperty().bind(enabledBinding.not());
+        button.setFocusTraversable(false);
     }
     
     private static Button initCodeViewerButton() {
@@ -97,6 +97,9 @@ public class FunctionSite extends Site<Function> {
 
     @Override
     public CompletableFuture<Node> getTabContentPane() {
+        //The blocks of loaded functions are only created as soon as they are shown, on the JavaFX thread like all
+        //other changes of the blocks
+        getItem().materializeBlocks();
         return CompletableFuture.supplyAsync(() -> {
             if (root == null) {
                 init();
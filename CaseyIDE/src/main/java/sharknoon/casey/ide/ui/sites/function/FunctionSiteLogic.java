@@ -15,8 +15,11 @@
  */
 package sharknoon.casey.ide.ui.sites.function;
 
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.control.TabPane;
 import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.input.MouseEvent;
@@ -38,6 +41,8 @@ import sharknoon.casey.ide.ui.lines.Lines;
 import sharknoon.casey.ide.ui.misc.MouseConsumable;
 import sharknoon.casey.ide.ui.styles.StyleClasses;
 
+import java.util.Optional;
+
 /**
  * @author Josua Frank
  */
@@ -50,6 +55,8 @@ public class FunctionSiteLogic implements MouseConsumable {
     private final FrameMoving frameMoving;
     private final WorkspaceMoving workspaceMoving;
     private final WorkspaceZooming workspaceZooming;
+    private final WorkspaceLevelOfDetail workspaceLevelOfDetail;
+    private final WorkspaceVirtualization workspaceVirtualization;
     private final WorkspaceContextMenu workspaceContextMenu;
     private final LineDrawing lineDrawing;
     private boolean initialized = false;
@@ -62,6 +69,8 @@ public class FunctionSiteLogic implements MouseConsumable {
         this.frameMoving = new FrameMoving(functionSite);
         this.workspaceMoving = new WorkspaceMoving(functionSite);
         this.workspaceZooming = new WorkspaceZooming(functionSite);
+        this.workspaceLevelOfDetail = new WorkspaceLevelOfDetail(functionSite);
+        this.workspaceVirtualization = new WorkspaceVirtualization(functionSite);
         this.workspaceContextMenu = new WorkspaceContextMenu(functionSite);
         this.lineDrawing = new LineDrawing(functionSite);
     }
@@ -218,7 +227,7 @@ public class FunctionSiteLogic implements MouseConsumable {
         
         frame.setMinX(newX);
         frame.setMinY(newY);
-        frame.addTo(root);
+        workspaceVirtualization.register(frame);
         return;
     }
     
@@ -261,6 +270,36 @@ public class FunctionSiteLogic implements MouseConsumable {
         return workspaceZooming;
     }
     
+    public WorkspaceLevelOfDetail getWorkspaceLevelOfDetail() {
+        return workspaceLevelOfDetail;
+    }
+    
+    public WorkspaceVirtualization getWorkspaceVirtualization() {
+        return workspaceVirtualization;
+    }
+    
+    /**
+     * Gets the area of the workspace, which is currently visible, including a margin around it, so that the frames
+     * next to it are ready when the workspace is moved
+     *
+     * @return The visible area in the coordinates of the workspace or nothing, if the workspace is not shown
+     */
+    public Optional<Bounds> getVisibleArea() {
+        Parent parent = root.getParent();
+        if (parent == null || root.getScene() == null) {
+            return Optional.empty();
+        }
+        Bounds viewport = root.parentToLocal(parent.getLayoutBounds());
+        double marginX = UISettings.WORKSPACE_VIEWPORT_MARGIN / root.getScaleX();
+        double marginY = UISettings.WORKSPACE_VIEWPORT_MARGIN / root.getScaleY();
+        return Optional.of(new BoundingBox(
+                viewport.getMinX() - marginX,
+                viewport.getMinY() - marginY,
+                viewport.getWidth() + 2 * marginX,
+                viewport.getHeight() + 2 * marginY
+        ));
+    }
+    
     public WorkspaceContextMenu getWorkspaceContextMenu() {
         return workspaceContextMenu;
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.sites.function;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Parent;
+import sharknoon.casey.ide.ui.UISettings;
+import sharknoon.casey.ide.ui.frames.Frame;
+import sharknoon.casey.ide.ui.frames.Frames;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Switches the frames of a workspace between their text and their statement body, depending on the zoom. Only
+ * crossing the threshold switches frames, the visible frames are switched first and in batches, the other frames as
+ * soon as they are moved into the view.
+ */
+public class WorkspaceLevelOfDetail {
+    
+    //The amount of frames switched per pulse
+    private static final int FRAMES_PER_PULSE = 100;
+    
+    private final FunctionSite functionSite;
+    //The frames, which don't show the current level of detail yet
+    private final Set<Frame<?>> staleFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final InvalidationListener viewportListener = observable -> onViewportChanged();
+    private boolean showsContentBody = false;
+    private boolean initialized = false;
+    private AnimationTimer switchTimer;
+    
+    WorkspaceLevelOfDetail(FunctionSite functionSite) {
+        this.functionSite = functionSite;
+    }
+    
+    private void init() {
+        var logicSite = functionSite.getLogicSite();
+        var root = logicSite.getRoot();
+        logicSite.getWorkspaceZooming().zoomFactorProperty().addListener((observable, oldValue, newValue) -> onZoomChanged(newValue.doubleValue()));
+        root.translateXProperty().addListener(viewportListener);
+        root.translateYProperty().addListener(viewportListener);
+        root.parentProperty().addListener((observable, oldValue, newValue) -> {
+            if (oldValue != null) {
+                oldValue.layoutBoundsProperty().removeListener(viewportListener);
+            }
+            if (newValue != null) {
+                newValue.layoutBoundsProperty().addListener(viewportListener);
+            }
+            onViewportChanged();
+        });
+        Parent parent = root.getParent();
+        if (parent != null) {
+            parent.layoutBoundsProperty().addListener(viewportListener);
+        }
+        showsContentBody = logicSite.getWorkspaceZooming().getZoomFactor() > UISettings.BLOCK_ZOOMING_BODY_THRESHOLD;
+        initialized = true;
+    }
+    
+    /**
+     * Shows the current level of detail on a new frame
+     *
+     * @param frame The new frame
+     */
+    public void register(Frame<?> frame) {
+        if (!initialized) {
+            init();
+        }
+        frame.setContentBodyVisible(showsContentBody);
+    }
+    
+    public void unregister(Frame<?> frame) {
+        staleFrames.remove(frame);
+    }
+    
+    public boolean showsContentBody() {
+        return showsContentBody;
+    }
+    
+    private void onZoomChanged(double zoomFactor) {
+        boolean newShowsContentBody = zoomFactor > UISettings.BLOCK_ZOOMING_BODY_THRESHOLD;
+        if (newShowsContentBody != showsContentBody) {
+            showsContentBody = newShowsContentBody;
+            staleFrames.clear();
+            Frames.getAllFrames(functionSite)
+                    .filter(frame -> frame.isContentBodyVisible() != newShowsContentBody)
+                    .forEach(staleFrames::add);
+        }
+        onViewportChanged();
+    }
+    
+    private void onViewportChanged() {
+        if (staleFrames.isEmpty()) {
+            return;
+        }
+        if (switchTimer == null) {
+            switchTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    switchVisibleFrames();
+                }
+            };
+        }
+        switchTimer.start();
+    }
+    
+    private void switchVisibleFrames() {
+        Optional<Bounds> visibleArea = functionSite.getLogicSite().getVisibleArea();
+        if (visibleArea.isEmpty()) {
+            switchTimer.stop();
+            return;
+        }
+        Bounds area = visibleArea.get();
+        List<Frame<?>> frames = Frames.getFramesIn(functionSite, area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY())
+                .filter(staleFrames::contains)
+                .limit(FRAMES_PER_PULSE)
+                .collect(Collectors.toList());
+        for (Frame<?> frame : frames) {
+            frame.setContentBodyVisible(showsContentBody);
+            staleFrames.remove(frame);
+        }
+        //The other stale frames are switched as soon as they become visible
+        if (frames.size() < FRAMES_PER_PULSE) {
+            switchTimer.stop();
+        }
+    }
+    
+}
@@ -18,11 +18,16 @@ package sharknoon.casey.ide.ui.sites.function;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.shape.Rectangle;
 import sharknoon.casey.ide.ui.UISettings;
+import sharknoon.casey.ide.ui.frames.Frame;
 import sharknoon.casey.ide.ui.frames.Frames;
+import sharknoon.casey.ide.ui.lines.Line;
 import sharknoon.casey.ide.ui.lines.Lines;
 import sharknoon.casey.ide.ui.misc.MouseConsumable;
 import sharknoon.casey.ide.ui.styles.StyleClasses;
 
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * @author Josua Frank
  */
@@ -41,6 +46,8 @@ public class WorkspaceSelection implements MouseConsumable {
     private double startY;
     private boolean firstRun = true;
     private boolean isSelecting = false;
+    private Set<Frame<?>> selectedFrames = Set.of();
+    private Set<Line> selectedLines = Set.of();
     
     public WorkspaceSelection(FunctionSite functionSite) {
         this.functionSite = functionSite;
@@ -50,7 +57,9 @@ public class WorkspaceSelection implements MouseConsumable {
     @Override
     public void onMousePressed(MouseEvent event) {
         Frames.unselectAll(functionSite);
+        selectedFrames = Set.of();
         Lines.unselectAll(functionSite);
+        selectedLines = Set.of();
         if (firstRun) {
             this.functionSite.getLogicSite().addInFront(selectionRectangle);
             firstRun = false;
@@ -115,28 +124,30 @@ public class WorkspaceSelection implements MouseConsumable {
         final var finalWidth = width;
         final var finalHight = hight;
     
-        Frames.getAllFrames(functionSite).forEach(b -> {
-            if (b.getMinX() > translateX
-                    && b.getMinY() > translateY
-                    && b.getMinX() + b.getWidth() < translateX + finalWidth
-                    && b.getMinY() + b.getHeight() < translateY + finalHight) {
-                b.select();
-            } else {
-                b.unselect();
-            }
-        });
+        Set<Frame<?>> framesInside = Frames.getFramesIn(functionSite, translateX, translateY, translateX + finalWidth, translateY + finalHight)
+                .filter(b -> b.getMinX() > translateX
+                        && b.getMinY() > translateY
+                        && b.getMinX() + b.getWidth() < translateX + finalWidth
+                        && b.getMinY() + b.getHeight() < translateY + finalHight)
+                .collect(Collectors.toSet());
+        //Only the frames selected by this selection can leave it, all the others have been unselected when it started
+        selectedFrames.stream()
+                .filter(b -> !framesInside.contains(b))
+                .forEach(Frame::unselect);
+        framesInside.forEach(Frame::select);
+        selectedFrames = framesInside;
         
-        Lines.getAllLines(functionSite).forEach(l -> {
-            if (l.getMinX() > translateX
-                    && l.getMinY() > translateY
-                    && l.getMinX() + l.getWidth() < translateX + finalWidth
-                    && l.getMinY() + l.getHeight() < translateY + finalHight) {
-                l.select();
-            } else {
-                //TODO bugfix flickering of lines
-                l.unselect();
-            }
-        });
+        Set<Line> linesInside = Lines.getLinesIn(functionSite, translateX, translateY, translateX + finalWidth, translateY + finalHight)
+                .filter(l -> l.getMinX() > translateX
+                        && l.getMinY() > translateY
+                        && l.getMaxX() < translateX + finalWidth
+                        && l.getMaxY() < translateY + finalHight)
+                .collect(Collectors.toSet());
+        selectedLines.stream()
+                .filter(l -> !linesInside.contains(l))
+                .forEach(Line::unselect);
+        linesInside.forEach(Line::select);
+        selectedLines = linesInside;
     }
     
     @Override
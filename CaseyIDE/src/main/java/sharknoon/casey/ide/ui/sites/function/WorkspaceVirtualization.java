@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.sites.function;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import sharknoon.casey.ide.ui.frames.Frame;
+import sharknoon.casey.ide.ui.frames.Frames;
+import sharknoon.casey.ide.ui.lines.Line;
+import sharknoon.casey.ide.ui.lines.Lines;
+
+import java.util.*;
+
+/**
+ * Keeps only the frames and lines of a workspace in the scene graph, which are inside of the visible area, all other
+ * frames and lines are detached, but stay registered with their blocks and connections. The nodes are attached again
+ * as soon as the workspace is moved or zoomed to them or they are moved into the visible area.
+ */
+public class WorkspaceVirtualization {
+    
+    private final FunctionSite functionSite;
+    //Only frames added to the workspace are attached, not every frame of Frames (e.g. a second start frame)
+    private final Set<Frame<?>> registeredFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Frame<?>> attachedFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Line> attachedLines = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final InvalidationListener viewportListener = observable -> requestUpdate();
+    private boolean initialized = false;
+    private boolean updateRequested = false;
+    
+    WorkspaceVirtualization(FunctionSite functionSite) {
+        this.functionSite = functionSite;
+    }
+    
+    private void init() {
+        var root = functionSite.getLogicSite().getRoot();
+        root.translateXProperty().addListener(viewportListener);
+        root.translateYProperty().addListener(viewportListener);
+        root.scaleXProperty().addListener(viewportListener);
+        root.scaleYProperty().addListener(viewportListener);
+        root.sceneProperty().addListener(viewportListener);
+        root.parentProperty().addListener((observable, oldValue, newValue) -> {
+            if (oldValue != null) {
+                oldValue.layoutBoundsProperty().removeListener(viewportListener);
+            }
+            if (newValue != null) {
+                newValue.layoutBoundsProperty().addListener(viewportListener);
+            }
+            requestUpdate();
+        });
+        if (root.getParent() != null) {
+            root.getParent().layoutBoundsProperty().addListener(viewportListener);
+        }
+        initialized = true;
+    }
+    
+    /**
+     * Adds a new frame to the workspace, it is only attached if it is visible
+     *
+     * @param frame The new frame
+     */
+    public void register(Frame<?> frame) {
+        if (!initialized) {
+            init();
+        }
+        registeredFrames.add(frame);
+        if (isVisible(frame)) {
+            attach(frame);
+        } else {
+            requestUpdate();
+        }
+    }
+    
+    /**
+     * Removes a frame from the workspace
+     *
+     * @param frame The removed frame
+     */
+    public void unregister(Frame<?> frame) {
+        registeredFrames.remove(frame);
+        if (attachedFrames.remove(frame)) {
+            frame.removeFrom(functionSite.getLogicSite().getRoot());
+        }
+    }
+    
+    /**
+     * Adds a new line to the workspace, it is only attached if it is visible
+     *
+     * @param line The new line
+     */
+    public void register(Line line) {
+        if (!initialized) {
+            init();
+        }
+        if (isVisible(line.getBounds())) {
+            attach(line);
+        }
+    }
+    
+    /**
+     * Removes a line from the workspace
+     *
+     * @param line The removed line
+     */
+    public void unregister(Line line) {
+        if (attachedLines.remove(line)) {
+            functionSite.getLogicSite().remove(line.getShape());
+        }
+    }
+    
+    /**
+     * Attaches a frame, which has been moved into the visible area, frames moved out of it stay attached until the
+     * workspace is moved
+     *
+     * @param frame The moved frame
+     */
+    public void frameMoved(Frame<?> frame) {
+        if (registeredFrames.contains(frame) && !attachedFrames.contains(frame)) {
+            requestUpdate();
+        }
+    }
+    
+    /**
+     * Attaches a line, which has been moved into the visible area
+     *
+     * @param line The moved line
+     */
+    public void lineMoved(Line line) {
+        if (initialized && !attachedLines.contains(line)) {
+            requestUpdate();
+        }
+    }
+    
+    /**
+     * Updates the attached nodes once in the next pulse, no matter how often the viewport changed until then
+     */
+    private void requestUpdate() {
+        if (updateRequested) {
+            return;
+        }
+        updateRequested = true;
+        Platform.runLater(() -> {
+            updateRequested = false;
+            update();
+        });
+    }
+    
+    private void update() {
+        Optional<Bounds> visibleArea = functionSite.getLogicSite().getVisibleArea();
+        if (visibleArea.isEmpty()) {
+            return;
+        }
+        Bounds area = visibleArea.get();
+    
+        Set<Frame<?>> visibleFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+        Frames.getFramesIn(functionSite, area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY())
+                .filter(registeredFrames::contains)
+                .forEach(visibleFrames::add);
+        //The frame under the mouse has to stay in the scene, otherwise its drag would end
+        Frame<?> movingFrame = Frames.getMovingFrame(functionSite);
+        List<Frame<?>> hiddenFrames = new ArrayList<>();
+        for (Frame<?> frame : attachedFrames) {
+            if (frame != movingFrame && !visibleFrames.contains(frame)) {
+                hiddenFrames.add(frame);
+            }
+        }
+        hiddenFrames.forEach(this::detach);
+        for (Frame<?> frame : visibleFrames) {
+            if (!attachedFrames.contains(frame)) {
+                attach(frame);
+            }
+        }
+    
+        Set<Line> visibleLines = Collections.newSetFromMap(new IdentityHashMap<>());
+        Lines.getLinesIn(functionSite, area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY())
+                .forEach(visibleLines::add);
+        Line drawingLine = Lines.getDrawingLine(functionSite);
+        List<Line> hiddenLines = new ArrayList<>();
+        for (Line line : attachedLines) {
+            if (line != drawingLine && !visibleLines.contains(line)) {
+                hiddenLines.add(line);
+            }
+        }
+        hiddenLines.forEach(this::detach);
+        for (Line line : visibleLines) {
+            if (!attachedLines.contains(line)) {
+                attach(line);
+            }
+        }
+    }
+    
+    private boolean isVisible(Frame<?> frame) {
+        return functionSite.getLogicSite().getVisibleArea()
+                .filter(area -> frame.intersects(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY()))
+                .isPresent();
+    }
+    
+    private boolean isVisible(Bounds bounds) {
+        return functionSite.getLogicSite().getVisibleArea()
+                .filter(area -> area.intersects(bounds))
+                .isPresent();
+    }
+    
+    private void attach(Frame<?> frame) {
+        attachedFrames.add(frame);
+        frame.addTo(functionSite.getLogicSite().getRoot());
+    }
+    
+    private void detach(Frame<?> frame) {
+        attachedFrames.remove(frame);
+        frame.removeFrom(functionSite.getLogicSite().getRoot());
+    }
+    
+    private void attach(Line line) {
+        attachedLines.add(line);
+        functionSite.getLogicSite().addInBack(line.getShape());
+    }
+    
+    private void detach(Line line) {
+        attachedLines.remove(line);
+        functionSite.getLogicSite().remove(line.getShape());
+    }
+    
+}
@@ -49,6 +49,8 @@ public enum Word {
     TOOLBAR_BUTTON_SAVE_TEXT,
     TOOLBAR_BUTTON_RUN_TEXT,
     TOOLBAR_BUTTON_RUN_TOOLTIP,
+    TOOLBAR_BUTTON_QUICK_RUN_TEXT,
+    TOOLBAR_BUTTON_QUICK_RUN_TOOLTIP,
     TOOLBAR_BUTTON_CODEVIEWER_TEXT,
     //Welcomesite
     WELCOME_SITE_TAB_TITLE,
@@ -214,6 +216,10 @@ public enum Word {
     PROJECT_CORRUPT_DIALOG_TITLE,
     PROJECT_CORRUPT_DIALOG_HEADER_TEXT,
     PROJECT_CORRUPT_DIALOG_CONTENT_TEXT,
+    ///Save failed
+    SAVE_FAILED_DIALOG_TITLE,
+    SAVE_FAILED_DIALOG_HEADER_TEXT,
+    SAVE_FAILED_DIALOG_CONTENT_TEXT,
     ///Class in Use
     CLASS_IN_USE_DIALOG_TITLE,
     CLASS_IN_USE_DIALOG_HEADER_TEXT,
@@ -47,6 +47,8 @@ public class English extends Language {
         add(Word.TOOLBAR_BUTTON_SAVE_TEXT, "Save");
         add(Word.TOOLBAR_BUTTON_RUN_TEXT, "Run");
         add(Word.TOOLBAR_BUTTON_RUN_TOOLTIP, "Run package function");
+        add(Word.TOOLBAR_BUTTON_QUICK_RUN_TEXT, "Quick Run");
+        add(Word.TOOLBAR_BUTTON_QUICK_RUN_TOOLTIP, "Run package function in the IDE, without compiling it");
         add(Word.TOOLBAR_BUTTON_CODEVIEWER_TEXT, "Source Code Viewer");
         //Welcomesite
         add(Word.WELCOME_SITE_TAB_TITLE, "Welcome");
@@ -212,6 +214,10 @@ public class English extends Language {
         add(Word.PROJECT_CORRUPT_DIALOG_TITLE, "Corrupt project");
         add(Word.PROJECT_CORRUPT_DIALOG_HEADER_TEXT, "The project is corrupt");
         add(Word.PROJECT_CORRUPT_DIALOG_CONTENT_TEXT, "The porject couldn't be opened due to a fault in the projectfile. For details look at the stacktrace.");
+        ///Save failed
+        add(Word.SAVE_FAILED_DIALOG_TITLE, "Save failed");
+        add(Word.SAVE_FAILED_DIALOG_HEADER_TEXT, "The project could not be saved");
+        add(Word.SAVE_FAILED_DIALOG_CONTENT_TEXT, "The project could not be written to ${FILE}, the changes since the last save are lost. For details look at the stacktrace.");
         ///Class in Use
         add(Word.CLASS_IN_USE_DIALOG_TITLE, "Class in use");
         add(Word.CLASS_IN_USE_DIALOG_HEADER_TEXT, "The class is still in use");
@@ -47,6 +47,8 @@ public class German extends Language {
         add(Word.TOOLBAR_BUTTON_SAVE_TEXT, "Speichern");
         add(Word.TOOLBAR_BUTTON_RUN_TEXT, "Ausführen");
         add(Word.TOOLBAR_BUTTON_RUN_TOOLTIP, "Paketfunktionen ausgeführen");
+        add(Word.TOOLBAR_BUTTON_QUICK_RUN_TEXT, "Schnell ausführen");
+        add(Word.TOOLBAR_BUTTON_QUICK_RUN_TOOLTIP, "Paketfunktion in der IDE ausführen, ohne sie zu kompilieren");
         add(Word.TOOLBAR_BUTTON_CODEVIEWER_TEXT, "Quellcode anzeigen");
         //Welcomesite
         add(Word.WELCOME_SITE_TAB_TITLE, "Willkommen");
@@ -212,6 +214,10 @@ public class German extends Language {
         add(Word.PROJECT_CORRUPT_DIALOG_TITLE, "Fehlerhaftes Projekt");
         add(Word.PROJECT_CORRUPT_DIALOG_HEADER_TEXT, "Projekt ist fehlerhaft");
         add(Word.PROJECT_CORRUPT_DIALOG_CONTENT_TEXT, "Das Projekt konnte aufgrund eines Fehlers in der Projektdatei nicht geöffnet werden. Siehe den Stacktrace für Details.");
+        ///Save failed
+        add(Word.SAVE_FAILED_DIALOG_TITLE, "Speichern fehlgeschlagen");
+        add(Word.SAVE_FAILED_DIALOG_HEADER_TEXT, "Das Projekt konnte nicht gespeichert werden");
+        add(Word.SAVE_FAILED_DIALOG_CONTENT_TEXT, "Das Projekt konnte nicht nach ${FILE} geschrieben werden, die Änderungen seit dem letzten Speichern gehen verloren. Siehe den Stacktrace für Details.");
         ///Class in Use
         add(Word.CLASS_IN_USE_DIALOG_TITLE, "Klasse noch in Benutzung");
         add(Word.CLASS_IN_USE_DIALOG_HEADER_TEXT, "Die Klasse ist noch in Benutzung");
@@ -39,6 +39,13 @@ public class Database {
         });
     }
 
+    /**
+     * Opens the database, if it is not already open
+     */
+    public static void init() {
+        //The database is opened by the static initializer
+    }
+    
     public static <T> void store(T... objects) {
         CompletableFuture.runAsync(() -> {
             if (objects.length > 0) {
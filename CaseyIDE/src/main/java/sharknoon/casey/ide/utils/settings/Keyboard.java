@@ -58,14 +58,12 @@ public class Keyboard {
             if (currentItem.getType().equals(ItemType.FUNCTION)) {
                 var functionSite = (FunctionSite) currentItem.getSite();
                 var framesToDelete = Frames
-                        .getAllFrames(functionSite)
-                        .filter(Frame::isSelected)
+                        .getSelectedFrames(functionSite)
                         .map(Frame::getBlock)
                         .filter(f -> f.getType() != BlockType.START)
                         .collect(Collectors.toList());
                 framesToDelete.forEach(Block::remove);
-                var linesToDelete = Lines.getAllLines(functionSite)
-                        .filter(Line::isSelected)
+                var linesToDelete = Lines.getSelectedLines(functionSite)
                         .collect(Collectors.toList());
                 linesToDelete.forEach(Line::remove);
             }
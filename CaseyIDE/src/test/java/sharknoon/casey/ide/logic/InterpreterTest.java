@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.logic;
+
+import org.junit.jupiter.api.Test;
+import sharknoon.casey.ide.logic.Interpreter.InterpreterException;
+import sharknoon.casey.ide.logic.items.Package;
+import sharknoon.casey.ide.logic.items.*;
+import sharknoon.casey.ide.logic.statements.calls.Call;
+import sharknoon.casey.ide.logic.statements.operators.AddOperator;
+import sharknoon.casey.ide.logic.statements.operators.GreaterThanOperator;
+import sharknoon.casey.ide.logic.statements.operators.Operator;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.BooleanValue;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.NumberValue;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.TextValue;
+import sharknoon.casey.ide.logic.types.PrimitiveType;
+import sharknoon.casey.ide.logic.types.Type;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterpreterTest {
+    
+    @Test
+    public void testCalculate() {
+        Project project = Item.createItem(ItemType.PROJECT, null, "InterpreterProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Variable variable = Item.createItem(ItemType.VARIABLE, package_, "variable");
+        variable.returnTypeProperty().set(PrimitiveType.NUMBER);
+    
+        //Raw, like the deserialisation of the operators
+        Operator add = new AddOperator(null);
+        add.setParameter(0, new Call(null, variable, Type.UNDEFINED));
+        add.setParameter(1, new NumberValue(2.0, null));
+        Operator greaterThan = new GreaterThanOperator(null);
+        greaterThan.setParameter(0, add);
+        greaterThan.setParameter(1, new NumberValue(41.0, null));
+        //Without an interpreter the call is an empty value
+        assertEquals(2.0, ((NumberValue) add.calculateResult()).getValue());
+    
+        var addSnapshot = Interpreter.prepare(add);
+        var greaterThanSnapshot = Interpreter.prepare(greaterThan);
+        //The snapshots don't change with the statements
+        add.setParameter(1, new NumberValue(3.0, null));
+    
+        var interpreter = new Interpreter(s -> {}, s -> {});
+        //Unset variables are empty values
+        assertEquals(2.0, ((NumberValue) interpreter.calculate(addSnapshot)).getValue());
+        interpreter.set(variable, new NumberValue(40.0, null));
+        assertEquals(42.0, ((NumberValue) interpreter.calculate(addSnapshot)).getValue());
+        assertTrue(((BooleanValue) interpreter.calculate(greaterThanSnapshot)).getValue());
+        assertEquals(3.0, ((NumberValue) add.calculateResult()).getValue());
+    }
+    
+    @Test
+    public void testParse() {
+        assertEquals(4.5, ((NumberValue) Interpreter.parse(PrimitiveType.NUMBER, " 4.5 ")).getValue());
+        assertNull(Interpreter.parse(PrimitiveType.NUMBER, "four"));
+        assertTrue(((BooleanValue) Interpreter.parse(PrimitiveType.BOOLEAN, "TRUE")).getValue());
+        assertNull(Interpreter.parse(PrimitiveType.BOOLEAN, "yes"));
+        assertEquals("a text", ((TextValue) Interpreter.parse(PrimitiveType.TEXT, "a text")).getValue());
+        assertNull(Interpreter.parse(PrimitiveType.VOID, ""));
+    }
+    
+    @Test
+    public void testMissingStartBlock() {
+        Project project = Item.createItem(ItemType.PROJECT, null, "StartProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Function function = Item.createItem(ItemType.FUNCTION, package_, "function");
+        Parameter parameter = Item.createItem(ItemType.PARAMETER, function, "parameter");
+        parameter.returnTypeProperty().set(PrimitiveType.NUMBER);
+    
+        assertThrows(InterpreterException.class, () -> new Interpreter(s -> {}, s -> {}).run(Interpreter.prepare(function), List.of()));
+    
+        List<String> errors = new CopyOnWriteArrayList<>();
+        var interpreter = new Interpreter(s -> {}, errors::add);
+        var result = interpreter.start(Interpreter.prepare(function), Map.of("parameter", "not a number"));
+        var exception = assertThrows(CompletionException.class, () -> result.orTimeout(5, TimeUnit.SECONDS).join());
+        assertTrue(exception.getCause() instanceof InterpreterException);
+        assertEquals(List.of(
+                "The value of the parameter parameter is not correct, using 0.0 instead",
+                "The function StartProject.package.function has no start block"
+        ), errors);
+    }
+    
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.logic.items;
+
+import javafx.beans.value.ObservableValue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemTest {
+    
+    @Test
+    public void testFullName() {
+        Project project = Item.createItem(ItemType.PROJECT, null, "FullNameProject");
+        Package a = Item.createItem(ItemType.PACKAGE, project, "a");
+        Package b = Item.createItem(ItemType.PACKAGE, project, "b");
+        Class clazz = Item.createItem(ItemType.CLASS, a, "Clazz");
+        Function function = Item.createItem(ItemType.FUNCTION, clazz, "function");
+        assertSame(function.fullNameProperty(), function.fullNameProperty());
+        assertEquals("FullNameProject.a.Clazz.function", function.getFullName());
+        
+        a.setName("c");
+        assertEquals("FullNameProject.c.Clazz.function", function.getFullName());
+        clazz.move(b);
+        assertEquals("FullNameProject.b.Clazz.function", function.getFullName());
+    }
+    
+    @Test
+    public void testListenersDontGrow() throws ReflectiveOperationException {
+        Project project = Item.createItem(ItemType.PROJECT, null, "ListenerProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Variable variable = Item.createItem(ItemType.VARIABLE, package_, "variable");
+        int parentListeners = countListeners(variable.parentProperty());
+        int nameListeners = countListeners(package_.nameProperty());
+        
+        Map<Item<?, ?, ?>, Integer> map = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(variable, i);
+            assertEquals(i, map.get(variable));
+            assertEquals("ListenerProject.package.variable", variable.getFullName());
+        }
+        assertEquals(parentListeners, countListeners(variable.parentProperty()));
+        assertEquals(nameListeners, countListeners(package_.nameProperty()));
+        
+        //The hash code stays the same, even if the full name changes
+        package_.setName("renamed");
+        assertEquals(999, map.get(variable));
+    }
+    
+    /**
+     * Counts the listeners of a JavaFX property by looking into its ExpressionHelper
+     */
+    private static int countListeners(ObservableValue<?> observable) throws ReflectiveOperationException {
+        Object helper = null;
+        for (java.lang.Class<?> c = observable.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Field helperField = c.getDeclaredField("helper");
+                helperField.setAccessible(true);
+                helper = helperField.get(observable);
+                break;
+            } catch (NoSuchFieldException e) {
+                //Declared in a superclass
+            }
+        }
+        if (helper == null) {
+            return 0;
+        }
+        String helperName = helper.getClass().getSimpleName();
+        if (!helperName.equals("Generic")) {
+            //SingleInvalidation or SingleChange
+            return 1;
+        }
+        Field invalidationSize = helper.getClass().getDeclaredField("invalidationSize");
+        Field changeSize = helper.getClass().getDeclaredField("changeSize");
+        invalidationSize.setAccessible(true);
+        changeSize.setAccessible(true);
+        return invalidationSize.getInt(helper) + changeSize.getInt(helper);
+    }
+    
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.logic.items;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sharknoon.casey.ide.serial.Serialisation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemsTest {
+    
+    @Test
+    public void testRenameAndMove() {
+        Project project = Item.createItem(ItemType.PROJECT, null, "RenameProject");
+        Package a = Item.createItem(ItemType.PACKAGE, project, "a");
+        Package b = Item.createItem(ItemType.PACKAGE, project, "b");
+        Class clazz = Item.createItem(ItemType.CLASS, a, "Clazz");
+        Function function = Item.createItem(ItemType.FUNCTION, clazz, "function");
+        assertEquals(Optional.of(function), Items.forName("RenameProject.a.Clazz.function"));
+        
+        a.setName("c");
+        assertEquals(Optional.empty(), Items.forName("RenameProject.a.Clazz.function"));
+        assertEquals(Optional.of(function), Items.forName("RenameProject.c.Clazz.function"));
+        
+        clazz.move(b);
+        assertEquals(Optional.empty(), Items.forName("RenameProject.c.Clazz.function"));
+        assertEquals(Optional.of(function), Items.forName("RenameProject.b.Clazz.function"));
+
+    }
+    
+    /**
+     * Loads a project with 10000 items and looks every item up by its full name
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmarkLoad(@TempDir Path folder) throws IOException {
+        ObjectNode project = item("LoadProject", "PROJECT");
+        project.put("id", UUID.randomUUID().toString());
+        List<String> fullNames = new ArrayList<>();
+        for (int p = 0; p < 100; p++) {
+            ObjectNode package_ = item("package" + p, "PACKAGE");
+            project.withArray("children").add(package_);
+            for (int i = 0; i < 50; i++) {
+                ObjectNode variable = item("variable" + i, "VARIABLE");
+                variable.put("type", "NUMBER");
+                package_.withArray("children").add(variable);
+                fullNames.add("LoadProject.package" + p + ".variable" + i);
+                if (i < 49) {
+                    ObjectNode function = item("function" + i, "FUNCTION");
+                    function.put("returntype", "VOID");
+                    function.set("blocks", Serialisation.MAPPER.createArrayNode());
+                    package_.withArray("children").add(function);
+                    fullNames.add("LoadProject.package" + p + ".function" + i);
+                }
+            }
+        }
+        Path file = folder.resolve("LoadProject.casey");
+        Serialisation.MAPPER.writeValue(file.toFile(), project);
+        
+        long start = System.nanoTime();
+        assertTrue(Serialisation.loadProject(file).isPresent());
+        long loadTime = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        for (String fullName : fullNames) {
+            assertTrue(Items.forName(fullName).isPresent());
+        }
+        long lookupTime = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Loading " + (fullNames.size() + 101) + " items: " + loadTime + "ms, looking them up: " + lookupTime + "ms");
+        assertTrue(lookupTime < 1000);
+    }
+    
+    private static ObjectNode item(String name, String type) {
+        ObjectNode item = Serialisation.MAPPER.createObjectNode();
+        item.put("name", name);
+        item.put("comments", "");
+        item.put("item", type);
+        item.set("children", new ArrayNode(Serialisation.MAPPER.getNodeFactory()));
+        return item;
+    }
+    
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sharknoon.casey.ide.misc.Executor.ExecutorBuilder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ClassDataSharingTest {
+    
+    //Uses some of the classes of Java, which are not in the default archive of the JDK
+    private static final String PROGRAM = "public class Busy {\n"
+            + "    public static void main(String[] args) throws Exception {\n"
+            + "        var words = java.util.List.of(\"b\", \"a\", \"c\").stream()\n"
+            + "                .sorted(java.util.Comparator.reverseOrder())\n"
+            + "                .collect(java.util.stream.Collectors.joining(\",\"));\n"
+            + "        var matcher = java.util.regex.Pattern.compile(\"(\\\\w),\").matcher(words);\n"
+            + "        var date = java.time.LocalDate.of(2018, 1, 1).plusDays(words.length());\n"
+            + "        var map = new java.util.concurrent.ConcurrentSkipListMap<String, Integer>();\n"
+            + "        map.put(words, matcher.find() ? 1 : 0);\n"
+            + "        System.out.println(String.format(\"%s %s %d\", words, date, map.firstEntry().getValue()));\n"
+            + "    }\n"
+            + "}\n";
+    private static final String EXPECTED_OUTPUT = "c,b,a 2018-01-06 1";
+    
+    private static Path createJar(Path folder) throws IOException {
+        Path source = folder.resolve("Busy.java");
+        Files.writeString(source, PROGRAM);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, source.toString()));
+        Path jar = folder.resolve("Busy.jar");
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "Busy");
+        try (OutputStream out = Files.newOutputStream(jar); var jarOut = new JarOutputStream(out, manifest)) {
+            jarOut.putNextEntry(new JarEntry("Busy.class"));
+            jarOut.write(Files.readAllBytes(folder.resolve("Busy.class")));
+            jarOut.closeEntry();
+        }
+        return jar;
+    }
+    
+    private static long run(Path jar, Path archiveDirectory) {
+        List<String> output = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        int exitValue = ExecutorBuilder.executeJar(jar)
+                .setClassDataArchiveDirectory(archiveDirectory)
+                .setOutputConsumer(output::add)
+                .setErrorConsumer(output::add)
+                .setOnError(null)
+                .execute()
+                .join();
+        long duration = System.nanoTime() - start;
+        assertEquals(0, exitValue, output.toString());
+        assertEquals(List.of(EXPECTED_OUTPUT), output);
+        return duration;
+    }
+    
+    @Test
+    public void testRecordAndUse(@TempDir Path folder) throws IOException {
+        assumeTrue(ClassDataSharing.isSupported(Runtime.version()));
+        Path jar = createJar(folder);
+        Path archives = folder.resolve("archives");
+        Path archive = archives.resolve(ClassDataSharing.getArchiveName("Busy"));
+        assertTrue(ClassDataSharing.prepare(archives, "Busy", jar).isRecording());
+        
+        run(jar, archives);
+        assertTrue(Files.isRegularFile(archive));
+        //Only the archive is left, not the recording
+        try (var files = Files.list(archives)) {
+            assertEquals(1, files.count());
+        }
+        var classDataSharing = ClassDataSharing.prepare(archives, "Busy", jar);
+        assertFalse(classDataSharing.isRecording());
+        assertTrue(classDataSharing.getArguments().contains("-XX:SharedArchiveFile=" + archive));
+        run(jar, archives);
+        
+        //The classes of a compiled program are launched with an archive of the classes of Java
+        Path programArchives = folder.resolve("programArchives");
+        for (int i = 0; i < 2; i++) {
+            List<String> output = new CopyOnWriteArrayList<>();
+            assertEquals(0, ExecutorBuilder.executeClass(folder, "Busy")
+                    .setClassDataArchiveDirectory(programArchives)
+                    .setOutputConsumer(output::add)
+                    .setErrorConsumer(output::add)
+                    .setOnError(null)
+                    .execute()
+                    .join());
+            assertEquals(List.of(EXPECTED_OUTPUT), output);
+        }
+        if (System.getenv("CLASSPATH") == null) {
+            assertTrue(Files.isRegularFile(programArchives.resolve(ClassDataSharing.getArchiveName("CaseyProgram"))));
+        }
+        
+        //A new version of the jar
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(archive).toMillis() + 1000));
+        assertTrue(ClassDataSharing.prepare(archives, "Busy", jar).isRecording());
+    }
+    
+    @Test
+    public void testUnsupportedVersion(@TempDir Path folder) {
+        assertFalse(ClassDataSharing.isSupported(Runtime.Version.parse("11.0.2")));
+        assertFalse(ClassDataSharing.isSupported(Runtime.Version.parse("12")));
+        assertTrue(ClassDataSharing.isSupported(Runtime.Version.parse("13")));
+        if (!ClassDataSharing.isSupported(Runtime.version())) {
+            //Launched without the options
+            assertEquals(List.of(), ClassDataSharing.prepare(folder, "Busy", null).getArguments());
+        }
+    }
+    
+    @Test
+    @Tag("benchmark")
+    public void benchmarkStartup(@TempDir Path folder) throws IOException {
+        Path jar = createJar(folder);
+        Path archives = folder.resolve("archives");
+        int runs = 5;
+        //Warming up the file system caches and the process threads
+        run(jar, null);
+        
+        long withoutArchive = 0;
+        for (int i = 0; i < runs; i++) {
+            withoutArchive += run(jar, null);
+        }
+        long recording = run(jar, archives);
+        long withArchive = 0;
+        for (int i = 0; i < runs; i++) {
+            withArchive += run(jar, archives);
+        }
+        System.out.println("Startup without archive: " + withoutArchive / runs / 1_000_000 + "ms, recording: "
+                + recording / 1_000_000 + "ms, with archive: " + withArchive / runs / 1_000_000 + "ms");
+    }
+    
+}
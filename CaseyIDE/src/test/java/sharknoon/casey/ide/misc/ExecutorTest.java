@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sharknoon.casey.ide.misc.Executor.ExecutorBuilder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorTest {
+    
+    private static final String PROGRAM = "public class Echo {\n"
+            + "    public static void main(String[] args) throws Exception {\n"
+            + "        System.out.println(\"ready\");\n"
+            + "        if (args.length > 0 && args[0].equals(\"print\")) {\n"
+            + "            for (int i = 0; i < 2000; i++) {\n"
+            + "                System.out.println(\"0123456789012345678901234567890123456789012345678901234567890123\");\n"
+            + "            }\n"
+            + "        } else if (args.length > 0) {\n"
+            + "            System.out.println(new java.io.BufferedReader(new java.io.InputStreamReader(System.in)).readLine());\n"
+            + "        }\n"
+            + "        System.err.print(\"done\");\n"
+            + "    }\n"
+            + "}\n";
+    
+    private static void compileProgram(Path folder) throws IOException {
+        Path source = folder.resolve("Echo.java");
+        Files.writeString(source, PROGRAM);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, source.toString()));
+    }
+    
+    private static CompletableFuture<Integer> execute(Path folder, StringProperty input, List<String> output, List<String> errors, String... args) {
+        return ExecutorBuilder.executeClass(folder, "Echo")
+                .setArgs(args)
+                .setInput(input)
+                .setOutputConsumer(line -> {
+                    output.add(line);
+                    if (line.equals("ready")) {
+                        input.set("hello");
+                        input.set(null);
+                    }
+                })
+                .setErrorConsumer(errors::add)
+                .setOnError(null)
+                .execute();
+    }
+    
+    @Test
+    public void testInputAndOutput(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        List<String> output = new CopyOnWriteArrayList<>();
+        List<String> errors = new CopyOnWriteArrayList<>();
+        StringProperty input = new SimpleStringProperty();
+        
+        assertEquals(0, execute(folder, input, output, errors, "echo").join());
+        assertEquals(List.of("ready", "hello"), output);
+        //The last line is handed over, even without a line break
+        assertEquals(List.of("done"), errors);
+    }
+    
+    @Test
+    public void testParallelRuns(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        List<List<String>> outputs = runBatches(folder, 32, 1, "echo");
+        for (List<String> output : outputs) {
+            assertEquals(List.of("ready", "hello"), output);
+        }
+    }
+    
+    @Test
+    public void testOutputWhileOthersWait(@TempDir Path folder) throws IOException, InterruptedException {
+        compileProgram(folder);
+        //Every waiting process keeps the threads reading its streams
+        int waitingProcesses = 12;
+        CountDownLatch ready = new CountDownLatch(waitingProcesses);
+        List<StringProperty> inputs = new ArrayList<>();
+        List<CompletableFuture<Integer>> waitingRuns = new ArrayList<>();
+        for (int i = 0; i < waitingProcesses; i++) {
+            StringProperty input = new SimpleStringProperty();
+            inputs.add(input);
+            waitingRuns.add(ExecutorBuilder.executeClass(folder, "Echo")
+                    .setArgs("echo")
+                    .setInput(input)
+                    .setOutputConsumer(line -> ready.countDown())
+                    .setErrorConsumer(line -> {})
+                    .setOnError(null)
+                    .execute());
+        }
+        try {
+            assertTrue(ready.await(1, TimeUnit.MINUTES));
+            //More than the 64 KB of a pipe buffer, the process blocks if its output isn't read
+            List<String> output = new CopyOnWriteArrayList<>();
+            int exitValue = execute(folder, new SimpleStringProperty(), output, new CopyOnWriteArrayList<>(), "print")
+                    .orTimeout(1, TimeUnit.MINUTES)
+                    .join();
+            
+            assertEquals(0, exitValue);
+            assertEquals(2001, output.size());
+        } finally {
+            inputs.forEach(input -> input.set("hello"));
+        }
+        for (CompletableFuture<Integer> run : waitingRuns) {
+            assertEquals(0, run.orTimeout(1, TimeUnit.MINUTES).join());
+        }
+    }
+    
+    @Test
+    @Tag("benchmark")
+    public void stressTestThreads(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int parallelRuns = 8;
+        
+        runBatches(folder, parallelRuns, 2);
+        int threadsBefore = threads.getThreadCount();
+        long start = System.currentTimeMillis();
+        List<List<String>> outputs = runBatches(folder, parallelRuns, 1000 / parallelRuns);
+        int threadsAfter = threads.getThreadCount();
+        System.out.println("1000 runs: " + (System.currentTimeMillis() - start) + "ms, threads before: "
+                + threadsBefore + ", after: " + threadsAfter);
+        
+        for (List<String> output : outputs) {
+            assertEquals(List.of("ready"), output);
+        }
+        //Some threads of the pool may end or still be needed for a moment, but the amount doesn't grow with the runs
+        assertTrue(threadsAfter <= threadsBefore + parallelRuns, "Threads are left over by the processes");
+    }
+    
+    /**
+     * Runs the program in batches of parallel runs, every run with its own input
+     *
+     * @return The output of every run
+     */
+    private static List<List<String>> runBatches(Path folder, int parallelRuns, int batches, String... args) {
+        List<List<String>> outputs = new ArrayList<>(parallelRuns * batches);
+        for (int batch = 0; batch < batches; batch++) {
+            List<CompletableFuture<Integer>> runs = new ArrayList<>(parallelRuns);
+            for (int i = 0; i < parallelRuns; i++) {
+                List<String> output = new CopyOnWriteArrayList<>();
+                outputs.add(output);
+                runs.add(execute(folder, new SimpleStringProperty(), output, new CopyOnWriteArrayList<>(), args));
+            }
+            for (CompletableFuture<Integer> run : runs) {
+                assertEquals(0, run.join());
+            }
+        }
+        return outputs;
+    }
+    
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sharknoon.casey.ide.misc.Executor.ExecutorBuilder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramRunnerTest {
+    
+    private static final String PROGRAM = "package Project;\n"
+            + "public class Echo {\n"
+            + "    static int runs = 0;\n"
+            + "    public static void main(String[] args) throws Exception {\n"
+            + "        runs++;\n"
+            + "        System.out.println(\"ready \" + runs);\n"
+            + "        String mode = args.length > 0 ? args[0] : \"\";\n"
+            + "        if (mode.equals(\"echo\")) {\n"
+            + "            System.out.println(new java.util.Scanner(System.in).next());\n"
+            + "        } else if (mode.equals(\"exit\")) {\n"
+            + "            System.exit(3);\n"
+            + "        } else if (mode.equals(\"throw\")) {\n"
+            + "            throw new IllegalStateException(\"thrown\");\n"
+            + "        } else if (mode.equals(\"thread\")) {\n"
+            + "            new Thread(() -> {\n"
+            + "                try { Thread.sleep(500); } catch (InterruptedException e) { }\n"
+            + "                System.out.println(\"thread\");\n"
+            + "            }).start();\n"
+            + "        } else if (mode.equals(\"daemon\")) {\n"
+            + "            Thread daemon = new Thread(() -> {\n"
+            + "                while (true) {\n"
+            + "                    System.out.println(\"leaked\");\n"
+            + "                    try { Thread.sleep(20); } catch (InterruptedException e) { }\n"
+            + "                }\n"
+            + "            });\n"
+            + "            daemon.setDaemon(true);\n"
+            + "            daemon.start();\n"
+            + "        }\n"
+            + "        System.err.print(\"done\");\n"
+            + "    }\n"
+            + "}\n";
+    
+    private static void compileProgram(Path folder) throws IOException {
+        Path source = folder.resolve("Project").resolve("Echo.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, PROGRAM);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, source.toString()));
+    }
+    
+    @Test
+    public void testReadClasses(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        Files.createDirectories(folder.resolve("Other"));
+        Files.write(folder.resolve("Other").resolve("Other.class"), new byte[0]);
+    
+        assertEquals(List.of("Project.Echo"), List.copyOf(ProgramRunner.readClasses(folder, "Project.Echo").orElseThrow().keySet()));
+    }
+    
+    @Test
+    public void testRunsAreIsolated(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        for (int i = 0; i < 2; i++) {
+            List<String> output = new CopyOnWriteArrayList<>();
+            List<String> errors = new CopyOnWriteArrayList<>();
+            StringProperty input = new SimpleStringProperty();
+            int exitValue = ProgramRunner.run(folder, "Project.Echo", line -> {
+                output.add(line);
+                if (line.startsWith("ready")) {
+                    input.set("hello");
+                }
+            }, errors::add, input, null, "echo").join();
+    
+            assertEquals(0, exitValue);
+            //The static state of the previous run is gone
+            assertEquals(List.of("ready 1", "hello"), output);
+            assertEquals(List.of("done"), errors);
+        }
+    }
+    
+    @Test
+    public void testExitAndExceptions(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        List<String> errors = new CopyOnWriteArrayList<>();
+    
+        assertEquals(1, ProgramRunner.run(folder, "Project.Echo", null, errors::add, null, null, "throw").join());
+        assertEquals("Exception in thread \"main\" java.lang.IllegalStateException: thrown", errors.get(0));
+        //The runner ends with the program
+        assertEquals(3, ProgramRunner.run(folder, "Project.Echo", null, null, null, null, "exit").join());
+        assertEquals(0, ProgramRunner.run(folder, "Project.Echo", null, null, null, null).join());
+    }
+    
+    @Test
+    public void testAbort(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        SimpleBooleanProperty abort = new SimpleBooleanProperty();
+        //The program waits for input, which never comes
+        int exitValue = ProgramRunner.run(folder, "Project.Echo", line -> abort.set(true), null, new SimpleStringProperty(), abort, "echo").join();
+    
+        assertNotEquals(0, exitValue);
+        List<String> output = new CopyOnWriteArrayList<>();
+        assertEquals(0, ProgramRunner.run(folder, "Project.Echo", output::add, null, null, null).join());
+        assertEquals(List.of("ready 1"), output);
+    }
+    
+    @Test
+    public void testThreads(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        List<String> output = new CopyOnWriteArrayList<>();
+        //The run ends with its last non-daemon thread, not with the main method
+        assertEquals(0, ProgramRunner.run(folder, "Project.Echo", output::add, null, null, null, "thread").join());
+        assertEquals(List.of("ready 1", "thread"), output);
+    
+        assertEquals(0, ProgramRunner.run(folder, "Project.Echo", null, null, null, null, "daemon").join());
+        output.clear();
+        //The daemon thread is gone with its runner, it doesn't write into the next run
+        assertEquals(0, ProgramRunner.run(folder, "Project.Echo", output::add, null, null, null, "thread").join());
+        assertEquals(List.of("ready 1", "thread"), output);
+    }
+    
+    /**
+     * Runs the program repeatedly in the runner and in a new JVM for every run
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmarkAgainstNewJVM(@TempDir Path folder) throws IOException {
+        compileProgram(folder);
+        int runs = 20;
+        ProgramRunner.run(folder, "Project.Echo", null, null, null, null).join();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            assertEquals(0, ProgramRunner.run(folder, "Project.Echo", null, null, null, null).join());
+        }
+        long runnerTime = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            assertEquals(0, ExecutorBuilder.executeClass(folder, "Project.Echo").setOnError(null).execute().join());
+        }
+        long jvmTime = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(runs + " runs: runner " + runnerTime + "ms, new JVM " + jvmTime + "ms");
+        assertTrue(runnerTime < jvmTime);
+    }
+    
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.misc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupTest {
+    
+    @Test
+    public void testDependencies() throws Exception {
+        var startup = new Startup();
+        List<String> order = new CopyOnWriteArrayList<>();
+        startup.addBackground("a", () -> {
+            Thread.sleep(50);
+            order.add("a");
+        });
+        startup.addBackground("b", () -> order.add("b"), "a");
+        startup.run("c", () -> order.add("c"), "b");
+        assertEquals(List.of("a", "b", "c"), order);
+    }
+    
+    @Test
+    public void testParallel() throws Exception {
+        var startup = new Startup();
+        //Both tasks only finish, if they run at the same time
+        var barrier = new CyclicBarrier(2);
+        startup.addBackground("a", () -> barrier.await(5, TimeUnit.SECONDS));
+        startup.addBackground("b", () -> barrier.await(5, TimeUnit.SECONDS));
+        startup.run("c", () -> {
+        }, "a", "b");
+        String report = startup.getReport();
+        assertFalse(report.contains("FAILED"), report);
+    }
+    
+    @Test
+    public void testDeferred() throws Exception {
+        var startup = new Startup();
+        List<String> order = new CopyOnWriteArrayList<>();
+        startup.defer("deferred", () -> order.add("deferred"));
+        startup.run("critical", () -> order.add("critical"));
+        startup.mark("first paint");
+        assertEquals(List.of("critical"), order);
+        startup.runDeferred();
+        assertEquals(List.of("critical", "deferred"), order);
+        
+        String report = startup.getReport();
+        assertTrue(report.indexOf("critical") < report.indexOf("first paint"), report);
+        assertTrue(report.indexOf("first paint") < report.indexOf("deferred"), report);
+    }
+    
+    @Test
+    public void testFailures() {
+        var startup = new Startup();
+        startup.addBackground("failing", () -> {
+            throw new IllegalStateException("Expected");
+        });
+        startup.addBackground("dependent", () -> {
+        }, "failing");
+        startup.awaitAll();
+        assertTrue(startup.getReport().contains("FAILED"));
+        
+        assertThrows(IllegalArgumentException.class, () -> startup.addBackground("unknown", () -> {
+        }, "missing"));
+        assertThrows(IllegalArgumentException.class, () -> startup.addBackground("dependent", () -> {
+        }));
+        assertThrows(IllegalStateException.class, () -> startup.run("critical", () -> {
+            throw new IllegalStateException("Expected");
+        }));
+    }
+    
+}
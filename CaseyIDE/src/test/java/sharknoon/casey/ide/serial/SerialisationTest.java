@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.serial;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sharknoon.casey.ide.logic.items.Package;
+import sharknoon.casey.ide.logic.items.*;
+import sharknoon.casey.ide.logic.statements.StatementSnapshot;
+import sharknoon.casey.ide.logic.statements.calls.Call;
+import sharknoon.casey.ide.logic.statements.operators.AddOperator;
+import sharknoon.casey.ide.logic.statements.operators.Operator;
+import sharknoon.casey.ide.logic.statements.values.PrimitiveValue.NumberValue;
+import sharknoon.casey.ide.logic.types.PrimitiveType;
+import sharknoon.casey.ide.logic.types.Type;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialisationTest {
+    
+    @Test
+    public void testSaveBursts(@TempDir Path folder) throws IOException {
+        Project project = Item.createItem(ItemType.PROJECT, null, "SaveProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Variable variable = Item.createItem(ItemType.VARIABLE, package_, "variable");
+        Path file = folder.resolve("SaveProject.casey");
+        project.setSaveFile(file);
+        
+        CompletableFuture<Void> saved = null;
+        for (int i = 0; i < 100; i++) {
+            variable.setName("variable" + i);
+            saved = Serialisation.saveProject(project);
+        }
+        saved.join();
+        
+        JsonNode savedProject = Serialisation.MAPPER.readTree(file.toFile());
+        assertEquals(project.getID(), savedProject.get("id").asText());
+        JsonNode savedPackage = savedProject.get("children").get(0);
+        assertEquals("package", savedPackage.get("name").asText());
+        JsonNode savedVariable = savedPackage.get("children").get(0);
+        assertEquals("variable99", savedVariable.get("name").asText());
+        assertEquals("VARIABLE", savedVariable.get("item").asText());
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(1, files.count(), "Temporary files are left");
+        }
+    }
+    
+    @Test
+    public void testFailedSave(@TempDir Path folder) throws IOException {
+        Project project = Item.createItem(ItemType.PROJECT, null, "FailedProject");
+        //The folder of the project is a file, so the project can't be written
+        Path notAFolder = Files.createFile(folder.resolve("file"));
+        project.setSaveFile(notAFolder.resolve("FailedProject.casey"));
+        
+        CompletionException exception = assertThrows(CompletionException.class, () -> Serialisation.saveProject(project).join());
+        assertTrue(exception.getCause() instanceof IOException);
+    }
+    
+    @Test
+    public void testLoadWithoutBlocks(@TempDir Path folder) throws IOException {
+        String blocks = "[{\"blockid\":\"start\",\"blockX\":10.0,\"blockY\":20.0,\"blocktype\":\"START\","
+                + "\"blockconnections\":{\"BOTTOM\":{\"end\":\"TOP\"}},\"blockcontent\":{}},"
+                + "{\"blockid\":\"end\",\"blockX\":10.0,\"blockY\":80.0,\"blocktype\":\"END\","
+                + "\"blockconnections\":{},\"blockcontent\":{}}]";
+        //The children of the class are in front of its type, so they can't be streamed
+        String json = "{\"name\":\"LoadProject\",\"comments\":\"\",\"item\":\"PROJECT\",\"id\":\"42\",\"children\":["
+                + "{\"name\":\"package\",\"comments\":\"\",\"item\":\"PACKAGE\",\"children\":["
+                + "{\"name\":\"Class\",\"children\":["
+                + "{\"name\":\"variable\",\"comments\":\"\",\"item\":\"VARIABLE\",\"children\":[]},"
+                + "{\"name\":\"function\",\"comments\":\"A function\",\"item\":\"FUNCTION\",\"returntype\":\"\","
+                + "\"blocks\":" + blocks + ",\"children\":[]}"
+                + "],\"comments\":\"\",\"item\":\"CLASS\"}]}]}";
+        Path file = folder.resolve("LoadProject.casey");
+        Files.writeString(file, json);
+        
+        Project project = Serialisation.loadProject(file).orElseThrow();
+        assertEquals("42", project.getID());
+        Item<?, ?, ?> class_ = project.getChildren().get(0).getChildren().get(0);
+        assertEquals("LoadProject.package.Class", class_.getFullName());
+        assertEquals(2, class_.getChildren().size());
+        Function function = (Function) class_.getChildren().get(1);
+        assertEquals("A function", function.getComments());
+        assertFalse(function.isMaterialized());
+        assertTrue(function.blocksProperty().isEmpty(), "The blocks are created before the function is shown");
+        
+        Serialisation.saveProject(project).join();
+        JsonNode savedFunction = Serialisation.MAPPER.readTree(file.toFile())
+                .get("children").get(0)
+                .get("children").get(0)
+                .get("children").get(1);
+        assertEquals(Serialisation.MAPPER.readTree(blocks), savedFunction.get("blocks"));
+    }
+    
+    @Test
+    public void testStatementSnapshot() throws IOException {
+        Project project = Item.createItem(ItemType.PROJECT, null, "StatementProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Variable variable = Item.createItem(ItemType.VARIABLE, package_, "variable");
+        variable.returnTypeProperty().set(PrimitiveType.NUMBER);
+        Operator add = new AddOperator(null);
+        add.setParameter(0, new Call(null, variable, Type.UNDEFINED));
+        add.setParameter(1, new NumberValue(2.0, null));
+        JsonNode expected = Serialisation.MAPPER.valueToTree(add.getAdditionalProperties());
+        
+        StatementSnapshot snapshot = StatementSnapshot.of(add);
+        //Changes after the snapshot has been taken are not written
+        add.setParameter(1, new NumberValue(3.0, null));
+        
+        JsonNode written = Serialisation.MAPPER.readTree(Serialisation.MAPPER.writeValueAsBytes(snapshot));
+        assertEquals(expected, written);
+        assertEquals("StatementProject.package.variable", written.get("parameter").get(0).get("calls").get(0).get("type").asText());
+    }
+    
+    @Test
+    public void testBinaryFormat(@TempDir Path folder) throws IOException {
+        Project project = Item.createItem(ItemType.PROJECT, null, "BinaryProject");
+        Package package_ = Item.createItem(ItemType.PACKAGE, project, "package");
+        Item.createItem(ItemType.VARIABLE, package_, "variable");
+        Path file = folder.resolve("BinaryProject.casey");
+        project.setSaveFile(file);
+        project.setSaveFormat(ProjectFormat.SMILE);
+        Serialisation.saveProject(project).join();
+        assertEquals(ProjectFormat.SMILE, ProjectFormat.detect(file));
+        
+        Project loadedProject = Serialisation.loadProject(file).orElseThrow();
+        assertEquals(ProjectFormat.SMILE, loadedProject.getSaveFormat());
+        assertEquals(project.getID(), loadedProject.getID());
+        assertEquals("variable", loadedProject.getChildren().get(0).getChildren().get(0).getName());
+        
+        loadedProject.setSaveFormat(ProjectFormat.JSON);
+        Serialisation.saveProject(loadedProject).join();
+        assertEquals(ProjectFormat.JSON, ProjectFormat.detect(file));
+        JsonNode savedProject = Serialisation.MAPPER.readTree(file.toFile());
+        assertEquals("BinaryProject", savedProject.get("name").asText());
+    }
+    
+}
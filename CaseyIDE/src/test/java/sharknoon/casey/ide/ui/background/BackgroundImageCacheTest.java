@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.background;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackgroundImageCacheTest {
+    
+    @Test
+    public void testCoverSize() {
+        //A 6000x4000 wallpaper on a 1920x1080 stage (rounded up to 1920x1152) is limited by the width
+        double[] size = BackgroundImageCache.getCoverSize(6000, 4000, 1920, 1080);
+        assertEquals(1920, size[0], 1);
+        assertEquals(1280, size[1], 1);
+        assertTrue(size[0] >= 1920 && size[1] >= 1080);
+        assertEquals(6000 / 4000.0, size[0] / size[1], 0.01);
+        
+        //A panorama has to cover the height
+        size = BackgroundImageCache.getCoverSize(16000, 2000, 1920, 1080);
+        assertTrue(size[0] >= 1920 && size[1] >= 1080);
+        assertEquals(8.0, size[0] / size[1], 0.01);
+    }
+    
+    @Test
+    public void testNoEnlargement() {
+        assertArrayEquals(new double[]{0, 0}, BackgroundImageCache.getCoverSize(800, 600, 1920, 1080));
+        assertArrayEquals(new double[]{0, 0}, BackgroundImageCache.getCoverSize(6000, 4000, 0, 0));
+    }
+    
+    @Test
+    public void testSmallResizesKeepTheSize() {
+        assertArrayEquals(
+                BackgroundImageCache.getCoverSize(6000, 4000, 1900, 1050),
+                BackgroundImageCache.getCoverSize(6000, 4000, 1910, 1060)
+        );
+    }
+    
+}
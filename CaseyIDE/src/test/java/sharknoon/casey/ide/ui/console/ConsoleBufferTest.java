@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.console;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sharknoon.casey.ide.ui.console.ConsoleBuffer.Drain;
+import sharknoon.casey.ide.ui.console.ConsoleBuffer.Line;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsoleBufferTest {
+    
+    private static List<String> getTexts(ConsoleBuffer buffer) {
+        return IntStream.range(0, buffer.size())
+                .mapToObj(buffer::get)
+                .map(Line::getText)
+                .collect(Collectors.toList());
+    }
+    
+    @Test
+    public void testRingBuffer() {
+        var buffer = new ConsoleBuffer(3);
+        var notifications = new AtomicInteger();
+        buffer.setOnPending(notifications::incrementAndGet);
+        buffer.append("a", false);
+        buffer.append("b", true);
+        //Only the first pending line notifies the reader
+        assertEquals(1, notifications.get());
+        assertEquals(0, buffer.size());
+    
+        Drain drain = buffer.drain();
+        assertEquals(2, drain.getAdded());
+        assertTrue(drain.getRemoved().isEmpty());
+        assertEquals(List.of("a", "b"), getTexts(buffer));
+        assertTrue(buffer.get(1).isError());
+    
+        buffer.append("c", false);
+        buffer.append("d", false);
+        assertEquals(2, notifications.get());
+        drain = buffer.drain();
+        assertEquals(2, drain.getAdded());
+        assertEquals(List.of("a"), drain.getRemoved().stream().map(Line::getText).collect(Collectors.toList()));
+        assertEquals(List.of("b", "c", "d"), getTexts(buffer));
+    
+        //More lines than the scrollback in one batch
+        for (int i = 0; i < 5; i++) {
+            buffer.append(String.valueOf(i), false);
+        }
+        drain = buffer.drain();
+        assertEquals(3, drain.getAdded());
+        assertEquals(3, drain.getRemoved().size());
+        assertEquals(List.of("2", "3", "4"), getTexts(buffer));
+        assertEquals(9, buffer.getTotalLines());
+        assertFalse(buffer.hasPending());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(3));
+        assertThrows(IllegalArgumentException.class, () -> new ConsoleBuffer(0));
+    }
+    
+    @Test
+    @Tag("benchmark")
+    public void benchmarkThroughput() throws Exception {
+        int writers = 4;
+        int linesPerWriter = 250_000;
+        var buffer = new ConsoleBuffer(10_000);
+        //Like Platform.runLater, the reader drains once per notification
+        var reader = Executors.newSingleThreadExecutor();
+        var batches = new AtomicInteger();
+        buffer.setOnPending(() -> reader.execute(() -> {
+            buffer.drain();
+            batches.incrementAndGet();
+        }));
+        var pool = Executors.newFixedThreadPool(writers);
+        var start = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < linesPerWriter; i++) {
+                    buffer.append(writer + ":" + i, false);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        reader.submit(buffer::drain).get();
+        long duration = System.nanoTime() - startTime;
+        reader.shutdown();
+    
+        long lines = (long) writers * linesPerWriter;
+        assertEquals(lines, buffer.getTotalLines());
+        assertEquals(buffer.getScrollback(), buffer.size());
+        //The lines of every writer stay in order
+        int[] last = new int[writers];
+        Arrays.fill(last, -1);
+        for (String text : getTexts(buffer)) {
+            String[] parts = text.split(":");
+            int writer = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > last[writer], text);
+            last[writer] = index;
+        }
+        System.out.println("Console throughput: " + lines * 1_000_000_000L / duration + " lines/s in "
+                + batches.get() + " batches");
+    }
+    
+}
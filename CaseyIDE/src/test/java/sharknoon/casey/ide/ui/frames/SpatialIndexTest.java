@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.frames;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sharknoon.casey.ide.ui.UISettings;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialIndexTest {
+    
+    private static final int FRAMES = 5000;
+    private static final double FRAME_WIDTH = 150;
+    private static final double FRAME_HEIGHT = 75;
+    
+    private static class Box {
+        double minX;
+        double minY;
+        
+        Box(double minX, double minY) {
+            this.minX = minX;
+            this.minY = minY;
+        }
+        
+        boolean intersects(double x1, double y1, double x2, double y2) {
+            return x2 >= minX && y2 >= minY && x1 <= minX + FRAME_WIDTH && y1 <= minY + FRAME_HEIGHT;
+        }
+    }
+    
+    private static SpatialIndex<Box> createIndex() {
+        return new SpatialIndex<>(UISettings.WORKSPACE_MAX_X, UISettings.WORKSPACE_MAX_Y,
+                UISettings.BLOCK_GRID_SNAPPING_X * 4, UISettings.BLOCK_GRID_SNAPPING_Y * 4);
+    }
+    
+    private static void put(SpatialIndex<Box> index, Box box) {
+        index.put(box, box.minX, box.minY, box.minX + FRAME_WIDTH, box.minY + FRAME_HEIGHT);
+    }
+    
+    private static double snap(double value, double grid) {
+        return value - value % grid;
+    }
+    
+    private static List<Box> createBoxes(Random random) {
+        List<Box> boxes = new ArrayList<>(FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            boxes.add(new Box(
+                    snap(random.nextDouble() * (UISettings.WORKSPACE_MAX_X - FRAME_WIDTH), UISettings.BLOCK_GRID_SNAPPING_X),
+                    snap(random.nextDouble() * (UISettings.WORKSPACE_MAX_Y - FRAME_HEIGHT), UISettings.BLOCK_GRID_SNAPPING_Y)
+            ));
+        }
+        return boxes;
+    }
+    
+    @Test
+    public void testQueriesMatchLinearSearch() {
+        Random random = new Random(42);
+        List<Box> boxes = createBoxes(random);
+        SpatialIndex<Box> index = createIndex();
+        boxes.forEach(b -> put(index, b));
+        assertEquals(FRAMES, index.size());
+        
+        //Moving some boxes, also outside of the workspace, and removing others
+        for (int i = 0; i < 500; i++) {
+            Box box = boxes.get(random.nextInt(boxes.size()));
+            box.minX = random.nextDouble() * UISettings.WORKSPACE_MAX_X * 1.2 - 100;
+            box.minY = random.nextDouble() * UISettings.WORKSPACE_MAX_Y * 1.2 - 100;
+            put(index, box);
+        }
+        for (int i = 0; i < 100; i++) {
+            index.remove(boxes.remove(random.nextInt(boxes.size())));
+        }
+        assertEquals(boxes.size(), index.size());
+        
+        for (int i = 0; i < 2000; i++) {
+            double x1 = random.nextDouble() * UISettings.WORKSPACE_MAX_X;
+            double y1 = random.nextDouble() * UISettings.WORKSPACE_MAX_Y;
+            double x2 = x1 + random.nextDouble() * 500;
+            double y2 = y1 + random.nextDouble() * 500;
+            Set<Box> expected = boxes.stream().filter(b -> b.intersects(x1, y1, x2, y2)).collect(Collectors.toSet());
+            Set<Box> actual = index.getCandidates(x1, y1, x2, y2).stream()
+                    .filter(b -> b.intersects(x1, y1, x2, y2))
+                    .collect(Collectors.toSet());
+            assertEquals(expected, actual);
+            assertEquals(!expected.isEmpty(), index.anyMatch(x1, y1, x2, y2, b -> b.intersects(x1, y1, x2, y2)));
+        }
+    }
+    
+    @Test
+    @Tag("benchmark")
+    public void benchmarkCollisions() {
+        Random random = new Random(7);
+        List<Box> boxes = createBoxes(random);
+        SpatialIndex<Box> index = createIndex();
+        boxes.forEach(b -> put(index, b));
+        double[][] queries = new double[10_000][];
+        for (int i = 0; i < queries.length; i++) {
+            double x = snap(random.nextDouble() * UISettings.WORKSPACE_MAX_X, UISettings.BLOCK_GRID_SNAPPING_X);
+            double y = snap(random.nextDouble() * UISettings.WORKSPACE_MAX_Y, UISettings.BLOCK_GRID_SNAPPING_Y);
+            queries[i] = new double[]{x, y, x + FRAME_WIDTH, y + FRAME_HEIGHT};
+        }
+        
+        int linearHits = 0;
+        int indexHits = 0;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            linearHits = 0;
+            long start = System.nanoTime();
+            for (double[] q : queries) {
+                if (boxes.stream().anyMatch(b -> b.intersects(q[0], q[1], q[2], q[3]))) {
+                    linearHits++;
+                }
+            }
+            long linear = System.nanoTime() - start;
+            indexHits = 0;
+            start = System.nanoTime();
+            for (double[] q : queries) {
+                if (index.anyMatch(q[0], q[1], q[2], q[3], b -> b.intersects(q[0], q[1], q[2], q[3]))) {
+                    indexHits++;
+                }
+            }
+            long indexed = System.nanoTime() - start;
+            System.out.println(FRAMES + " frames, " + queries.length + " collision checks: linear "
+                    + linear / 1_000_000 + "ms, index " + indexed / 1_000_000 + "ms");
+        }
+        assertEquals(linearHits, indexHits);
+        
+        //Dragging every frame by one grid step
+        long start = System.nanoTime();
+        for (Box box : boxes) {
+            box.minX += UISettings.BLOCK_GRID_SNAPPING_X;
+            put(index, box);
+        }
+        System.out.println("Moving " + FRAMES + " frames: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+    
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 Shark Industries.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sharknoon.casey.ide.ui.misc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IconRastersTest {
+    
+    @Test
+    public void testFitScale() {
+        //A wide icon in a square box is limited by its width
+        assertEquals(0.5, IconRasters.getFitScale(60, 20, 30, -1), 0.0001);
+        //A tall icon in a square box is limited by its height
+        assertEquals(0.25, IconRasters.getFitScale(40, 120, 30, -1), 0.0001);
+        //An explicit box
+        assertEquals(2, IconRasters.getFitScale(100, 50, 200, 300), 0.0001);
+        assertEquals(1, IconRasters.getFitScale(100, 50, 200, 50), 0.0001);
+    }
+    
+    @Test
+    public void testKey() {
+        //A square box is the same raster as the explicit box with the same height
+        assertEquals(IconRasters.getKey(Icon.PLUS, 30, -1, 2), IconRasters.getKey(Icon.PLUS, 30, 30, 2));
+        assertNotEquals(IconRasters.getKey(Icon.PLUS, 30, -1, 2), IconRasters.getKey(Icon.PLUS, 30, -1, 4));
+        assertNotEquals(IconRasters.getKey(Icon.PLUS, 30, -1, 2), IconRasters.getKey(Icon.PLUS, 50, -1, 2));
+        assertNotEquals(IconRasters.getKey(Icon.PLUS, 30, -1, 2), IconRasters.getKey(Icon.MINUSROUND, 30, -1, 2));
+    }
+    
+}
@@ -98,7 +98,9 @@ fun installNewerVersion(caseyJar: String?): Boolean {
             System.err.println("Could not download newest Casey .jar")
             return false
         }
-        val pb = ProcessBuilder("java", "-jar", caseyJarPath.toString(), "-u")
+        //The java of the updater, the archive is named after its version
+        val java = Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        val pb = ProcessBuilder(listOf(java) + classDataSharingArguments(caseyJarPath) + listOf("-jar", caseyJarPath.toString(), "-u"))
         pb.directory(caseyJarPath.parent.toFile())
         println("Executing " + pb.command().joinToString(" "))
         pb.start()
@@ -109,6 +111,26 @@ fun installNewerVersion(caseyJar: String?): Boolean {
 
 }
 
+/**
+ * The arguments to start Casey with its class data sharing archive (e.g. CaseyIDE-17.0.9.jsa next to the jar), the
+ * archive of the replaced jar is outdated and is recorded again when the new version exits. Java 11 and 12 don't know
+ * these options and refuse to start with them, so Casey is started without an archive.
+ */
+private fun classDataSharingArguments(caseyJar: Path): List<String> {
+    if (Runtime.version().feature() < 13) {
+        return listOf()
+    }
+    val name = caseyJar.fileName.toString().removeSuffix(".jar")
+    val archive = caseyJar.resolveSibling("$name-${System.getProperty("java.version")}.jsa")
+    val upToDate = Files.isRegularFile(archive)
+            && Files.getLastModifiedTime(archive) > Files.getLastModifiedTime(caseyJar)
+    return if (upToDate) {
+        listOf("-XX:SharedArchiveFile=$archive", "-Xshare:auto")
+    } else {
+        listOf("-XX:ArchiveClassesAtExit=$archive")
+    }
+}
+
 @Throws(Exception::class)
 fun downloadNewestVersion(jarToReplace: Path): Boolean {
     try {